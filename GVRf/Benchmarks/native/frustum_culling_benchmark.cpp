@@ -0,0 +1,268 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Frustum culling of a generated city: a grid of blocks, each holding
+ * buildings made of a few parts, seen by a camera standing in the middle
+ * of it and turning around.
+ *
+ *   per-object:   the previous Renderer::frustum_cull(), which built the
+ *                 frustum planes from each object's MVP matrix and tested
+ *                 the mesh's own bounds
+ *   flat:         planes built once per camera, each object's world-space
+ *                 bounds tested
+ *   hierarchical: FrustumCuller::cull(), as the renderer now does
+ *
+ *   g++ -O2 -std=c++11 -I ../../Framework/jni -I ../../Framework/jni/contrib \
+ *       frustum_culling_benchmark.cpp ../../Framework/jni/objects/bounding_volume.cpp
+ ***************************************************************************/
+
+#include <chrono>
+#include <cstdio>
+#include <vector>
+
+#include "glm/glm.hpp"
+#include "glm/gtc/matrix_transform.hpp"
+
+#include "engine/renderer/frustum_culler.h"
+#include "objects/bounding_volume.h"
+
+namespace {
+
+using gvr::BoundingVolume;
+using gvr::FrustumCuller;
+
+// The parts of SceneObject that culling needs
+struct Node {
+    std::vector<Node*> children_;
+    glm::mat4 model_matrix_;
+    BoundingVolume mesh_;
+    bool has_mesh_ = false;
+    BoundingVolume mesh_bounding_volume_;
+    BoundingVolume bounding_volume_;
+    int cull_plane_ = 0;
+
+    const std::vector<Node*>& children() const {
+        return children_;
+    }
+    const BoundingVolume& getBoundingVolume() const {
+        return bounding_volume_;
+    }
+    int cull_plane() const {
+        return cull_plane_;
+    }
+    void set_cull_plane(int plane) {
+        cull_plane_ = plane;
+    }
+
+    void computeBounds() {
+        if (has_mesh_) {
+            mesh_bounding_volume_.expand(mesh_, model_matrix_);
+        }
+        bounding_volume_ = mesh_bounding_volume_;
+        for (auto it = children_.begin(); it != children_.end(); ++it) {
+            (*it)->computeBounds();
+            bounding_volume_.expand((*it)->getBoundingVolume());
+        }
+    }
+};
+
+const int BLOCKS = 48;
+const float BLOCK_SIZE = 40.0f;
+const int BUILDINGS_PER_BLOCK = 8;
+const int PARTS_PER_BUILDING = 4;
+
+struct City {
+    std::vector<Node> storage_;
+    std::vector<Node*> roots_;
+    std::vector<Node*> all_;
+
+    City() :
+            storage_(BLOCKS * BLOCKS * (2 + BUILDINGS_PER_BLOCK
+                    * (1 + PARTS_PER_BUILDING))) {
+        BoundingVolume cube;
+        cube.expand(glm::vec3(-0.5f, -0.5f, -0.5f));
+        cube.expand(glm::vec3(0.5f, 0.5f, 0.5f));
+
+        size_t next = 0;
+        float half = BLOCKS * BLOCK_SIZE * 0.5f;
+        for (int row = 0; row < BLOCKS; ++row) {
+            for (int column = 0; column < BLOCKS; ++column) {
+                glm::vec3 corner(column * BLOCK_SIZE - half, 0.0f,
+                        row * BLOCK_SIZE - half);
+                Node* block = &storage_[next++];
+                roots_.push_back(block);
+
+                // The pavement
+                Node* ground = &storage_[next++];
+                ground->model_matrix_ = glm::scale(
+                        glm::translate(glm::mat4(),
+                                corner + glm::vec3(BLOCK_SIZE * 0.5f, 0.0f,
+                                        BLOCK_SIZE * 0.5f)),
+                        glm::vec3(BLOCK_SIZE, 0.1f, BLOCK_SIZE));
+                ground->mesh_ = cube;
+                ground->has_mesh_ = true;
+                block->children_.push_back(ground);
+
+                for (int b = 0; b < BUILDINGS_PER_BLOCK; ++b) {
+                    Node* building = &storage_[next++];
+                    block->children_.push_back(building);
+                    glm::vec3 base = corner + glm::vec3(
+                            5.0f + (b % 4) * 9.0f, 0.0f,
+                            b < 4 ? 8.0f : 30.0f);
+                    for (int p = 0; p < PARTS_PER_BUILDING; ++p) {
+                        Node* part = &storage_[next++];
+                        part->model_matrix_ = glm::scale(
+                                glm::translate(glm::mat4(),
+                                        base + glm::vec3(0.0f,
+                                                p * 10.0f + 5.0f, 0.0f)),
+                                glm::vec3(8.0f - p, 10.0f, 8.0f - p));
+                        part->mesh_ = cube;
+                        part->has_mesh_ = true;
+                        building->children_.push_back(part);
+                    }
+                }
+            }
+        }
+        for (size_t i = 0; i < next; ++i) {
+            all_.push_back(&storage_[i]);
+        }
+        for (auto it = roots_.begin(); it != roots_.end(); ++it) {
+            (*it)->computeBounds();
+        }
+    }
+};
+
+struct CountingVisitor {
+    const FrustumCuller* culler;
+    int visible;
+
+    void visit(Node* node, int mask) {
+        if (!node->has_mesh_) {
+            return;
+        }
+        if (mask != FrustumCuller::INSIDE && !node->children().empty()) {
+            int plane = node->cull_plane();
+            if (culler->intersect(node->mesh_bounding_volume_, mask, plane)
+                    == FrustumCuller::OUTSIDE) {
+                return;
+            }
+        }
+        ++visible;
+    }
+};
+
+int perObject(const City& city, const glm::mat4& vp_matrix) {
+    int visible = 0;
+    for (auto it = city.all_.begin(); it != city.all_.end(); ++it) {
+        Node* node = *it;
+        if (!node->has_mesh_) {
+            continue;
+        }
+        FrustumCuller culler(vp_matrix * node->model_matrix_);
+        int plane = 0;
+        if (culler.intersect(node->mesh_, FrustumCuller::ALL_PLANES, plane)
+                != FrustumCuller::OUTSIDE) {
+            ++visible;
+        }
+    }
+    return visible;
+}
+
+int flat(const City& city, const glm::mat4& vp_matrix) {
+    FrustumCuller culler(vp_matrix);
+    int visible = 0;
+    for (auto it = city.all_.begin(); it != city.all_.end(); ++it) {
+        Node* node = *it;
+        int plane = node->cull_plane();
+        if (node->has_mesh_
+                && culler.intersect(node->mesh_bounding_volume_,
+                        FrustumCuller::ALL_PLANES, plane)
+                        != FrustumCuller::OUTSIDE) {
+            ++visible;
+        }
+    }
+    return visible;
+}
+
+std::vector<std::pair<Node*, int> > stack;
+
+int hierarchical(const City& city, const glm::mat4& vp_matrix) {
+    FrustumCuller culler(vp_matrix);
+    CountingVisitor visitor = { &culler, 0 };
+    culler.cull(city.roots_, stack, visitor);
+    return visitor.visible;
+}
+
+const int VIEWS = 64;
+
+template<class Cull>
+double microsecondsPerFrame(const City& city, const glm::mat4* views,
+        int frames, Cull cull, long& visible) {
+    visible = 0;
+    auto start = std::chrono::steady_clock::now();
+    for (int frame = 0; frame < frames; ++frame) {
+        visible += cull(city, views[frame % VIEWS]);
+    }
+    auto elapsed = std::chrono::steady_clock::now() - start;
+    return std::chrono::duration<double, std::micro>(elapsed).count() / frames;
+}
+
+}
+
+int main() {
+    City city;
+
+    // Standing at street level, turning around and looking up and down
+    glm::mat4 projection = glm::perspective(90.0f, 1.0f, 0.1f,
+            1000.0f);
+    glm::mat4 views[VIEWS];
+    for (int i = 0; i < VIEWS; ++i) {
+        float yaw = i * 2.0f * 3.14159265f / VIEWS;
+        float pitch = 0.3f * glm::sin(i * 0.7f);
+        glm::vec3 eye(3.0f, 1.7f, 3.0f);
+        glm::vec3 forward(glm::cos(yaw) * glm::cos(pitch), glm::sin(pitch),
+                glm::sin(yaw) * glm::cos(pitch));
+        views[i] = projection
+                * glm::lookAt(eye, eye + forward, glm::vec3(0.0f, 1.0f, 0.0f));
+    }
+
+    int meshes = 0;
+    for (auto it = city.all_.begin(); it != city.all_.end(); ++it) {
+        meshes += (*it)->has_mesh_;
+    }
+    std::printf("%d scene objects, %d meshes\n", (int) city.all_.size(),
+            meshes);
+
+    const int frames = 640;
+    long visible;
+    double time = microsecondsPerFrame(city, views, frames, perObject,
+            visible);
+    std::printf("per-object   %8.1f us/frame  %6ld visible/frame\n", time,
+            visible / frames);
+    time = microsecondsPerFrame(city, views, frames, flat, visible);
+    std::printf("flat         %8.1f us/frame  %6ld visible/frame\n", time,
+            visible / frames);
+    long flat_visible = visible;
+    time = microsecondsPerFrame(city, views, frames, hierarchical, visible);
+    std::printf("hierarchical %8.1f us/frame  %6ld visible/frame\n", time,
+            visible / frames);
+    if (visible != flat_visible) {
+        std::printf("hierarchical and flat culling disagree\n");
+        return 1;
+    }
+    return 0;
+}
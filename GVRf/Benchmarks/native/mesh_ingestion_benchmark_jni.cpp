@@ -0,0 +1,181 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * The host native library of MeshIngestionBenchmark.
+ *
+ * Mesh itself needs GL, so HostMesh stands in for it with the same vectors.
+ * The array setters do what mesh_jni.cpp did before meshes took direct
+ * buffers: push every element, then release the array with a copy back.
+ * The buffer setters do what mesh_jni.cpp does now.
+ *
+ *   g++ -O2 -std=c++11 -shared -fPIC -I ../../Framework/jni/contrib \
+ *       -I $JAVA_HOME/include -I $JAVA_HOME/include/linux \
+ *       mesh_ingestion_benchmark_jni.cpp -o libmeshingestionbenchmark.so
+ ***************************************************************************/
+
+#include <jni.h>
+
+#include <algorithm>
+#include <cstring>
+#include <vector>
+
+#include "glm/glm.hpp"
+
+namespace {
+
+struct HostMesh {
+    std::vector<glm::vec3> vertices;
+    std::vector<glm::vec3> normals;
+    std::vector<glm::vec2> tex_coords;
+    std::vector<unsigned short> indices;
+};
+
+template<class Element>
+const Element* directBufferAddress(JNIEnv * env, jobject jbuffer,
+        jint offset) {
+    return static_cast<const Element*>(env->GetDirectBufferAddress(jbuffer))
+            + offset;
+}
+
+void setVec3Array(JNIEnv * env, jfloatArray jarray,
+        std::vector<glm::vec3>& vector) {
+    jfloat* pointer = env->GetFloatArrayElements(jarray, 0);
+    const glm::vec3* elements = reinterpret_cast<const glm::vec3*>(pointer);
+    int length = env->GetArrayLength(jarray) / 3;
+    std::vector<glm::vec3> native_vector;
+    for (int i = 0; i < length; ++i) {
+        native_vector.push_back(elements[i]);
+    }
+    vector = native_vector;
+    env->ReleaseFloatArrayElements(jarray, pointer, 0);
+}
+
+void setVec3Buffer(JNIEnv * env, jobject jbuffer, jint offset, jint count,
+        std::vector<glm::vec3>& vector) {
+    const jfloat* elements = directBufferAddress<jfloat>(env, jbuffer, offset);
+    std::vector<glm::vec3> native_vector(count / 3);
+    std::memcpy(native_vector.data(), elements, count * sizeof(jfloat));
+    vector = std::move(native_vector);
+}
+
+}
+
+extern "C" {
+
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_benchmark_HostMesh_ctor(JNIEnv * env, jclass clazz) {
+    return reinterpret_cast<jlong>(new HostMesh());
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_benchmark_HostMesh_elementCount(JNIEnv * env, jclass clazz,
+        jlong jmesh) {
+    HostMesh* mesh = reinterpret_cast<HostMesh*>(jmesh);
+    return mesh->vertices.size() + mesh->normals.size()
+            + mesh->tex_coords.size() + mesh->indices.size();
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_benchmark_HostMesh_setVertices(JNIEnv * env, jclass clazz,
+        jlong jmesh, jfloatArray vertices) {
+    setVec3Array(env, vertices, reinterpret_cast<HostMesh*>(jmesh)->vertices);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_benchmark_HostMesh_setNormals(JNIEnv * env, jclass clazz,
+        jlong jmesh, jfloatArray normals) {
+    setVec3Array(env, normals, reinterpret_cast<HostMesh*>(jmesh)->normals);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_benchmark_HostMesh_setTexCoords(JNIEnv * env, jclass clazz,
+        jlong jmesh, jfloatArray tex_coords) {
+    jfloat* pointer = env->GetFloatArrayElements(tex_coords, 0);
+    const glm::vec2* elements = reinterpret_cast<const glm::vec2*>(pointer);
+    int length = env->GetArrayLength(tex_coords) / 2;
+    std::vector<glm::vec2> native_tex_coords;
+    for (int i = 0; i < length; ++i) {
+        native_tex_coords.push_back(elements[i]);
+    }
+    reinterpret_cast<HostMesh*>(jmesh)->tex_coords = native_tex_coords;
+    env->ReleaseFloatArrayElements(tex_coords, pointer, 0);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_benchmark_HostMesh_setIndices(JNIEnv * env, jclass clazz,
+        jlong jmesh, jcharArray indices) {
+    jchar* pointer = env->GetCharArrayElements(indices, 0);
+    int length = env->GetArrayLength(indices);
+    std::vector<unsigned short> native_indices;
+    for (int i = 0; i < length; ++i) {
+        native_indices.push_back(pointer[i]);
+    }
+    reinterpret_cast<HostMesh*>(jmesh)->indices = native_indices;
+    env->ReleaseCharArrayElements(indices, pointer, 0);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_benchmark_HostMesh_setVerticesBuffer(JNIEnv * env,
+        jclass clazz, jlong jmesh, jobject vertices, jint offset, jint count) {
+    setVec3Buffer(env, vertices, offset, count,
+            reinterpret_cast<HostMesh*>(jmesh)->vertices);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_benchmark_HostMesh_setNormalsBuffer(JNIEnv * env,
+        jclass clazz, jlong jmesh, jobject normals, jint offset, jint count) {
+    setVec3Buffer(env, normals, offset, count,
+            reinterpret_cast<HostMesh*>(jmesh)->normals);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_benchmark_HostMesh_setTexCoordsBuffer(JNIEnv * env,
+        jclass clazz, jlong jmesh, jobject jtex_coords, jint offset,
+        jint count, jint components) {
+    const jfloat* tex_coords = directBufferAddress<jfloat>(env, jtex_coords,
+            offset);
+    int tex_coords_length = count / components;
+    std::vector<glm::vec2> native_tex_coords(tex_coords_length);
+    if (components == 2) {
+        std::memcpy(native_tex_coords.data(), tex_coords,
+                count * sizeof(jfloat));
+    } else {
+        for (int i = 0; i < tex_coords_length; ++i) {
+            std::memcpy(&native_tex_coords[i], tex_coords + i * components,
+                    sizeof(glm::vec2));
+        }
+    }
+    reinterpret_cast<HostMesh*>(jmesh)->tex_coords = std::move(
+            native_tex_coords);
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_benchmark_HostMesh_setIndicesIntBuffer(JNIEnv * env,
+        jclass clazz, jlong jmesh, jobject jindices, jint offset, jint count) {
+    const jint* indices = directBufferAddress<jint>(env, jindices, offset);
+    std::vector<unsigned short> native_indices(count);
+    jint max_index = 0;
+    for (int i = 0; i < count; ++i) {
+        jint index = indices[i];
+        max_index = std::max(max_index, index);
+        native_indices[i] = static_cast<unsigned short>(index);
+    }
+    reinterpret_cast<HostMesh*>(jmesh)->indices = std::move(native_indices);
+    return max_index;
+}
+
+}
@@ -0,0 +1,250 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Vertex cache efficiency of meshes before and after the steps of
+ * Mesh::optimizeVertexOrder(), measured with a simulated FIFO cache.
+ *
+ *   grid:     a row-major indexed grid, as simple generators emit
+ *   sphere:   a sphere whose every quad has its own four corners, as
+ *             GVRSphereSceneObject emits
+ *   shuffled: the grid's triangles in random order, as some exporters
+ *             leave them
+ *
+ * ACMR is transformed vertices per triangle (0.5 is the ideal for a large
+ * closed mesh, 3 the worst); ATVR is transformed vertices per vertex (1 is
+ * ideal). Each optimized mesh must draw the same triangles, with the same
+ * winding and the same vertex attributes.
+ *
+ *   g++ -O2 -std=c++11 -I ../../Framework/jni mesh_optimizer_benchmark.cpp \
+ *       ../../Framework/jni/objects/mesh_optimizer.cpp
+ ***************************************************************************/
+
+#include <algorithm>
+#include <chrono>
+#include <cmath>
+#include <cstdio>
+#include <cstring>
+#include <random>
+#include <vector>
+
+#include "objects/mesh_optimizer.h"
+
+namespace {
+
+using gvr::MeshOptimizer;
+
+struct Vertex {
+    float position[3];
+    float normal[3];
+    float tex_coord[2];
+};
+
+struct TestMesh {
+    const char* name;
+    std::vector<Vertex> vertices;
+    std::vector<unsigned short> indices;
+};
+
+double millisecondsSince(std::chrono::steady_clock::time_point start) {
+    auto elapsed = std::chrono::steady_clock::now() - start;
+    return std::chrono::duration<double, std::milli>(elapsed).count();
+}
+
+TestMesh grid(int side) {
+    TestMesh mesh;
+    mesh.name = "grid";
+    for (int row = 0; row < side; ++row) {
+        for (int column = 0; column < side; ++column) {
+            float u = (float) column / (side - 1);
+            float v = (float) row / (side - 1);
+            Vertex vertex = { { u, 0.0f, v }, { 0.0f, 1.0f, 0.0f }, { u, v } };
+            mesh.vertices.push_back(vertex);
+        }
+    }
+    for (int row = 0; row < side - 1; ++row) {
+        for (int column = 0; column < side - 1; ++column) {
+            int a = row * side + column;
+            int b = a + side;
+            unsigned short quad[] = { (unsigned short) a, (unsigned short) b,
+                    (unsigned short) (a + 1), (unsigned short) (a + 1),
+                    (unsigned short) b, (unsigned short) (b + 1) };
+            mesh.indices.insert(mesh.indices.end(), quad, quad + 6);
+        }
+    }
+    return mesh;
+}
+
+Vertex sphereVertex(int stack, int stacks, int slice, int slices) {
+    float theta = (float) stack / stacks * (float) M_PI;
+    float phi = (float) slice / slices * 2.0f * (float) M_PI;
+    float x = std::sin(theta) * std::cos(phi);
+    float y = std::cos(theta);
+    float z = std::sin(theta) * std::sin(phi);
+    Vertex vertex = { { x, y, z }, { x, y, z },
+            { (float) slice / slices, (float) stack / stacks } };
+    return vertex;
+}
+
+TestMesh sphere(int stacks, int slices) {
+    TestMesh mesh;
+    mesh.name = "sphere";
+    for (int stack = 0; stack < stacks; ++stack) {
+        for (int slice = 0; slice < slices; ++slice) {
+            int first = mesh.vertices.size();
+            mesh.vertices.push_back(sphereVertex(stack, stacks, slice, slices));
+            mesh.vertices.push_back(
+                    sphereVertex(stack + 1, stacks, slice, slices));
+            mesh.vertices.push_back(
+                    sphereVertex(stack + 1, stacks, slice + 1, slices));
+            mesh.vertices.push_back(
+                    sphereVertex(stack, stacks, slice + 1, slices));
+            unsigned short quad[] = { (unsigned short) first,
+                    (unsigned short) (first + 1), (unsigned short) (first + 2),
+                    (unsigned short) first, (unsigned short) (first + 2),
+                    (unsigned short) (first + 3) };
+            mesh.indices.insert(mesh.indices.end(), quad, quad + 6);
+        }
+    }
+    return mesh;
+}
+
+TestMesh shuffled(int side) {
+    TestMesh mesh = grid(side);
+    mesh.name = "shuffled";
+    int triangles = mesh.indices.size() / 3;
+    std::vector<int> order(triangles);
+    for (int t = 0; t < triangles; ++t) {
+        order[t] = t;
+    }
+    std::mt19937 random(1);
+    std::shuffle(order.begin(), order.end(), random);
+    std::vector<unsigned short> indices;
+    for (int t = 0; t < triangles; ++t) {
+        indices.insert(indices.end(), mesh.indices.begin() + order[t] * 3,
+                mesh.indices.begin() + order[t] * 3 + 3);
+    }
+    mesh.indices.swap(indices);
+    return mesh;
+}
+
+// As Mesh::optimizeVertexOrder(), on the interleaved vertices
+std::vector<int> optimize(TestMesh& mesh) {
+    int vertex_count = mesh.vertices.size();
+    std::vector<MeshOptimizer::VertexStream> streams;
+    MeshOptimizer::addStream(streams, mesh.vertices, vertex_count);
+    int welded_count;
+    std::vector<int> weld = MeshOptimizer::weldVertices(streams, vertex_count,
+            welded_count);
+    std::vector<unsigned short> indices(mesh.indices.size());
+    for (int i = 0; i < indices.size(); ++i) {
+        indices[i] = weld[mesh.indices[i]];
+    }
+    MeshOptimizer::reorderTriangles(indices, welded_count);
+    std::vector<int> first_use = MeshOptimizer::remapVertices(indices,
+            welded_count);
+    std::vector<int> remap(vertex_count);
+    for (int v = 0; v < vertex_count; ++v) {
+        remap[v] = first_use[weld[v]];
+    }
+    mesh.indices.swap(indices);
+    MeshOptimizer::applyRemap(remap, welded_count, mesh.vertices);
+    return remap;
+}
+
+// Each triangle starting at its smallest index, which keeps its winding
+std::vector<unsigned short> canonicalTriangles(
+        const std::vector<unsigned short>& indices) {
+    std::vector<unsigned short> triangles(indices);
+    for (int t = 0; t < triangles.size(); t += 3) {
+        while (triangles[t] > triangles[t + 1]
+                || triangles[t] > triangles[t + 2]) {
+            std::rotate(triangles.begin() + t, triangles.begin() + t + 1,
+                    triangles.begin() + t + 3);
+        }
+    }
+    std::vector<unsigned long long> keys;
+    for (int t = 0; t < triangles.size(); t += 3) {
+        keys.push_back(((unsigned long long) triangles[t] << 32)
+                | (triangles[t + 1] << 16) | triangles[t + 2]);
+    }
+    std::sort(keys.begin(), keys.end());
+    std::vector<unsigned short> sorted;
+    for (int k = 0; k < keys.size(); ++k) {
+        sorted.push_back(keys[k] >> 32);
+        sorted.push_back((keys[k] >> 16) & 0xFFFF);
+        sorted.push_back(keys[k] & 0xFFFF);
+    }
+    return sorted;
+}
+
+bool sameMesh(const TestMesh& before, const TestMesh& after,
+        const std::vector<int>& remap) {
+    std::vector<unsigned short> mapped(before.indices.size());
+    for (int i = 0; i < mapped.size(); ++i) {
+        mapped[i] = remap[before.indices[i]];
+    }
+    if (canonicalTriangles(mapped) != canonicalTriangles(after.indices)) {
+        return false;
+    }
+    for (int v = 0; v < before.vertices.size(); ++v) {
+        if (std::memcmp(&before.vertices[v], &after.vertices[remap[v]],
+                sizeof(Vertex)) != 0) {
+            return false;
+        }
+    }
+    return true;
+}
+
+void report(const char* stage, const TestMesh& mesh) {
+    int vertex_count = mesh.vertices.size();
+    float triangles = mesh.indices.size() / 3;
+    float used = MeshOptimizer::usedVertices(mesh.indices, vertex_count);
+    int transformed16 = MeshOptimizer::transformedVertices(mesh.indices,
+            vertex_count, 16);
+    int transformed32 = MeshOptimizer::transformedVertices(mesh.indices,
+            vertex_count, 32);
+    std::printf("  %-9s %6d vertices  ACMR %.3f / %.3f  ATVR %.3f / %.3f\n",
+            stage, vertex_count, transformed16 / triangles,
+            transformed32 / triangles, transformed16 / used,
+            transformed32 / used);
+}
+
+bool run(TestMesh mesh) {
+    std::printf("%s: %d triangles (cache of 16 / 32 entries)\n", mesh.name,
+            (int) mesh.indices.size() / 3);
+    report("before", mesh);
+    TestMesh before = mesh;
+    auto start = std::chrono::steady_clock::now();
+    std::vector<int> remap = optimize(mesh);
+    double milliseconds = millisecondsSince(start);
+    report("after", mesh);
+    std::printf("  optimized in %.2f ms\n", milliseconds);
+    if (!sameMesh(before, mesh, remap)) {
+        std::printf("optimized mesh draws different triangles\n");
+        return false;
+    }
+    return true;
+}
+
+}
+
+int main() {
+    bool same = run(grid(128));
+    same = run(sphere(90, 180)) && same;
+    same = run(shuffled(128)) && same;
+    return same ? 0 : 1;
+}
@@ -0,0 +1,261 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Levels of detail made by MeshSimplifier, as GVRLODGenerator makes them:
+ * each level keeps half the triangles of the one before.
+ *
+ *   sphere:  a unit sphere whose every quad has its own four corners, as
+ *            GVRSphereSceneObject emits, welded as Mesh::simplify() does
+ *   terrain: a 2 x 2 height field with a border, which never moves
+ *
+ * For each level this reports the triangles left, the error bound the
+ * simplifier gives, the largest distance from an input vertex to the level's
+ * surface, and the distance GVRLODGenerator would switch to the level at,
+ * for a 1024-pixel high eye buffer with a 95 degree field of view. The
+ * measured distance should stay under the bound.
+ *
+ *   g++ -O2 -std=c++11 -I ../../Framework/jni -I ../../Framework/jni/contrib \
+ *       mesh_simplifier_benchmark.cpp \
+ *       ../../Framework/jni/objects/mesh_simplifier.cpp \
+ *       ../../Framework/jni/objects/mesh_optimizer.cpp
+ ***************************************************************************/
+
+#include <algorithm>
+#include <chrono>
+#include <cmath>
+#include <cstdio>
+#include <vector>
+
+#include "glm/glm.hpp"
+
+#include "objects/mesh_optimizer.h"
+#include "objects/mesh_simplifier.h"
+
+namespace {
+
+using gvr::MeshOptimizer;
+using gvr::MeshSimplifier;
+
+const int LEVELS = 4;
+const float EYE_BUFFER_HEIGHT = 1024.0f;
+const float FOV_Y = 95.0f;
+
+struct Vertex {
+    glm::vec3 position;
+    glm::vec3 normal;
+    glm::vec2 tex_coord;
+};
+
+struct TestMesh {
+    const char* name;
+    std::vector<Vertex> vertices;
+    std::vector<unsigned short> indices;
+};
+
+double millisecondsSince(std::chrono::steady_clock::time_point start) {
+    auto elapsed = std::chrono::steady_clock::now() - start;
+    return std::chrono::duration<double, std::milli>(elapsed).count();
+}
+
+void addQuad(TestMesh& mesh, const Vertex& a, const Vertex& b,
+        const Vertex& c, const Vertex& d) {
+    unsigned short first = mesh.vertices.size();
+    mesh.vertices.push_back(a);
+    mesh.vertices.push_back(b);
+    mesh.vertices.push_back(c);
+    mesh.vertices.push_back(d);
+    unsigned short quad[] = { first, (unsigned short) (first + 1),
+            (unsigned short) (first + 2), first, (unsigned short) (first + 2),
+            (unsigned short) (first + 3) };
+    mesh.indices.insert(mesh.indices.end(), quad, quad + 6);
+}
+
+Vertex sphereVertex(int stack, int stacks, int slice, int slices) {
+    float theta = (float) stack / stacks * (float) M_PI;
+    float phi = (float) slice / slices * 2.0f * (float) M_PI;
+    glm::vec3 position(std::sin(theta) * std::cos(phi), std::cos(theta),
+            std::sin(theta) * std::sin(phi));
+    Vertex vertex = { position, position,
+            glm::vec2((float) slice / slices, (float) stack / stacks) };
+    return vertex;
+}
+
+TestMesh sphere(int stacks, int slices) {
+    TestMesh mesh;
+    mesh.name = "sphere";
+    for (int stack = 0; stack < stacks; ++stack) {
+        for (int slice = 0; slice < slices; ++slice) {
+            addQuad(mesh, sphereVertex(stack, stacks, slice, slices),
+                    sphereVertex(stack + 1, stacks, slice, slices),
+                    sphereVertex(stack + 1, stacks, slice + 1, slices),
+                    sphereVertex(stack, stacks, slice + 1, slices));
+        }
+    }
+    return mesh;
+}
+
+Vertex terrainVertex(int row, int column, int side) {
+    float x = 2.0f * column / side - 1.0f;
+    float z = 2.0f * row / side - 1.0f;
+    float y = 0.1f * std::sin(3.0f * x) * std::cos(2.0f * z)
+            + 0.02f * std::sin(11.0f * x + 7.0f * z);
+    Vertex vertex = { glm::vec3(x, y, z), glm::vec3(0.0f, 1.0f, 0.0f),
+            glm::vec2((float) column / side, (float) row / side) };
+    return vertex;
+}
+
+TestMesh terrain(int side) {
+    TestMesh mesh;
+    mesh.name = "terrain";
+    for (int row = 0; row < side; ++row) {
+        for (int column = 0; column < side; ++column) {
+            addQuad(mesh, terrainVertex(row, column, side),
+                    terrainVertex(row + 1, column, side),
+                    terrainVertex(row + 1, column + 1, side),
+                    terrainVertex(row, column + 1, side));
+        }
+    }
+    return mesh;
+}
+
+// As Mesh::simplify(), the first of each set of identical vertices
+std::vector<unsigned short> weldedIndices(const TestMesh& mesh) {
+    int vertex_count = mesh.vertices.size();
+    std::vector<MeshOptimizer::VertexStream> streams;
+    MeshOptimizer::addStream(streams, mesh.vertices, vertex_count);
+    int welded_count;
+    std::vector<int> weld = MeshOptimizer::weldVertices(streams, vertex_count,
+            welded_count);
+    std::vector<int> first(welded_count, -1);
+    for (int v = 0; v < vertex_count; ++v) {
+        if (first[weld[v]] < 0) {
+            first[weld[v]] = v;
+        }
+    }
+    std::vector<unsigned short> indices(mesh.indices.size());
+    for (int i = 0; i < indices.size(); ++i) {
+        indices[i] = first[weld[mesh.indices[i]]];
+    }
+    return indices;
+}
+
+// Ericson, "Real-Time Collision Detection", 5.1.5
+glm::vec3 closestPoint(const glm::vec3& p, const glm::vec3& a,
+        const glm::vec3& b, const glm::vec3& c) {
+    glm::vec3 ab = b - a;
+    glm::vec3 ac = c - a;
+    glm::vec3 ap = p - a;
+    float d1 = glm::dot(ab, ap);
+    float d2 = glm::dot(ac, ap);
+    if (d1 <= 0.0f && d2 <= 0.0f) {
+        return a;
+    }
+    glm::vec3 bp = p - b;
+    float d3 = glm::dot(ab, bp);
+    float d4 = glm::dot(ac, bp);
+    if (d3 >= 0.0f && d4 <= d3) {
+        return b;
+    }
+    float vc = d1 * d4 - d3 * d2;
+    if (vc <= 0.0f && d1 >= 0.0f && d3 <= 0.0f) {
+        return a + ab * (d1 / (d1 - d3));
+    }
+    glm::vec3 cp = p - c;
+    float d5 = glm::dot(ab, cp);
+    float d6 = glm::dot(ac, cp);
+    if (d6 >= 0.0f && d5 <= d6) {
+        return c;
+    }
+    float vb = d5 * d2 - d1 * d6;
+    if (vb <= 0.0f && d2 >= 0.0f && d6 <= 0.0f) {
+        return a + ac * (d2 / (d2 - d6));
+    }
+    float va = d3 * d6 - d5 * d4;
+    if (va <= 0.0f && d4 - d3 >= 0.0f && d5 - d6 >= 0.0f) {
+        return b + (c - b) * ((d4 - d3) / ((d4 - d3) + (d5 - d6)));
+    }
+    float denominator = 1.0f / (va + vb + vc);
+    return a + ab * (vb * denominator) + ac * (vc * denominator);
+}
+
+// The largest distance from a vertex of the input to the level's surface
+float deviation(const TestMesh& mesh,
+        const std::vector<unsigned short>& indices) {
+    float largest = 0.0f;
+    for (int v = 0; v < mesh.vertices.size(); ++v) {
+        const glm::vec3& p = mesh.vertices[v].position;
+        float nearest = INFINITY;
+        for (int i = 0; i < indices.size(); i += 3) {
+            const glm::vec3& a = mesh.vertices[indices[i]].position;
+            const glm::vec3& b = mesh.vertices[indices[i + 1]].position;
+            const glm::vec3& c = mesh.vertices[indices[i + 2]].position;
+            // The sphere's poles have triangles with (next to) no area
+            glm::vec3 normal = glm::cross(b - a, c - a);
+            if (glm::dot(normal, normal) < 1e-12f) {
+                continue;
+            }
+            glm::vec3 q = closestPoint(p, a, b, c);
+            nearest = std::min(nearest, glm::length(p - q));
+        }
+        largest = std::max(largest, nearest);
+    }
+    return largest;
+}
+
+bool run(const TestMesh& mesh) {
+    std::vector<glm::vec3> positions;
+    for (int v = 0; v < mesh.vertices.size(); ++v) {
+        positions.push_back(mesh.vertices[v].position);
+    }
+    float distance_per_error = EYE_BUFFER_HEIGHT
+            / (2.0f * std::tan(FOV_Y * (float) M_PI / 360.0f));
+
+    auto start = std::chrono::steady_clock::now();
+    MeshSimplifier simplifier(positions, weldedIndices(mesh));
+    double milliseconds = millisecondsSince(start);
+    std::printf("%s: %d triangles, set up in %.2f ms\n", mesh.name,
+            simplifier.triangleCount(), milliseconds);
+    bool bounded = true;
+    int target = simplifier.triangleCount();
+    for (int level = 1; level <= LEVELS; ++level) {
+        target /= 2;
+        start = std::chrono::steady_clock::now();
+        float error = simplifier.simplify(target);
+        milliseconds = millisecondsSince(start);
+        std::vector<unsigned short> indices = simplifier.indices();
+        float measured = deviation(mesh, indices);
+        std::printf("  level %d %6d triangles  bound %.5f  measured %.5f"
+                "  from %7.2f units  %.2f ms\n", level,
+                simplifier.triangleCount(), error, measured,
+                error * distance_per_error, milliseconds);
+        if (measured > error * 1.001f + 1e-6f) {
+            bounded = false;
+        }
+    }
+    if (!bounded) {
+        std::printf("measured distance is over the bound\n");
+    }
+    return bounded;
+}
+
+}
+
+int main() {
+    bool bounded = run(sphere(48, 96));
+    bounded = run(terrain(64)) && bounded;
+    return bounded ? 0 : 1;
+}
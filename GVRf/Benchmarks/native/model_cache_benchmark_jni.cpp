@@ -0,0 +1,76 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * The host native library of ModelCacheBenchmark.
+ *
+ * Jassimp sizes its buffers by asking the native library for the sizes of
+ * Assimp's structures. Assimp itself is only built for Android, so these are
+ * the size queries of jassimp.cpp alone, from Assimp's headers.
+ *
+ *   g++ -O2 -std=c++11 -shared -fPIC \
+ *       -I ../../Framework/jni/contrib/assimp/include \
+ *       -I $JAVA_HOME/include -I $JAVA_HOME/include/linux \
+ *       model_cache_benchmark_jni.cpp -o libmodelcachebenchmark.so
+ ***************************************************************************/
+
+#include <jni.h>
+
+#include "assimp/anim.h"
+
+extern "C" {
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_jassimp2_Jassimp_getVKeysize(JNIEnv * env, jclass clazz) {
+    return sizeof(aiVectorKey);
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_jassimp2_Jassimp_getQKeysize(JNIEnv * env, jclass clazz) {
+    return sizeof(aiQuatKey);
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_jassimp2_Jassimp_getV3Dsize(JNIEnv * env, jclass clazz) {
+    return sizeof(aiVector3D);
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_jassimp2_Jassimp_getfloatsize(JNIEnv * env, jclass clazz) {
+    return sizeof(float);
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_jassimp2_Jassimp_getintsize(JNIEnv * env, jclass clazz) {
+    return sizeof(int);
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_jassimp2_Jassimp_getuintsize(JNIEnv * env, jclass clazz) {
+    return sizeof(unsigned int);
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_jassimp2_Jassimp_getdoublesize(JNIEnv * env, jclass clazz) {
+    return sizeof(double);
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_jassimp2_Jassimp_getlongsize(JNIEnv * env, jclass clazz) {
+    return sizeof(long);
+}
+
+}
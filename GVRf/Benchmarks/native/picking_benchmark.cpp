@@ -0,0 +1,380 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Ray picking, with and without a BoundingVolumeHierarchy.
+ *
+ *   objects:   rays cast from the middle of a field of scattered boxes, as
+ *              PickingHierarchy does; every box a ray crosses is picked
+ *   triangles: rays cast at a tessellated sphere, keeping the closest hit,
+ *              as MeshEyePointee does with its triangle hierarchy
+ *
+ * Each is timed as a linear scan and through the hierarchy, and the two
+ * must pick the same things. They must also agree after boxes that were
+ * empty when the hierarchy was built get their bounds, as when meshes get
+ * their vertices after their objects were made pickable, and the hierarchy
+ * is updated as PickingHierarchy updates it.
+ *
+ *   g++ -O2 -std=c++11 -I ../../Framework/jni -I ../../Framework/jni/contrib \
+ *       picking_benchmark.cpp ../../Framework/jni/objects/bounding_volume.cpp
+ ***************************************************************************/
+
+#include <algorithm>
+#include <chrono>
+#include <cmath>
+#include <cstdio>
+#include <limits>
+#include <random>
+#include <vector>
+
+#include "glm/glm.hpp"
+
+#include "engine/picker/bounding_volume_hierarchy.h"
+#include "objects/bounding_volume.h"
+
+namespace {
+
+using gvr::BoundingVolume;
+using gvr::BoundingVolumeHierarchy;
+
+const int RAYS = 1000;
+
+bool enters(const BoundingVolume& box, const glm::vec3& origin,
+        const glm::vec3& inverse_direction) {
+    glm::vec3 t1 = (box.min_corner() - origin) * inverse_direction;
+    glm::vec3 t2 = (box.max_corner() - origin) * inverse_direction;
+    glm::vec3 entry = glm::min(t1, t2);
+    glm::vec3 exit = glm::max(t1, t2);
+    float t_near = std::max(std::max(entry.x, entry.y),
+            std::max(entry.z, 0.0f));
+    float t_far = std::min(std::min(exit.x, exit.y), exit.z);
+    return t_near <= t_far;
+}
+
+struct Ray {
+    glm::vec3 origin;
+    glm::vec3 direction;
+};
+
+glm::vec3 randomDirection(std::mt19937& random) {
+    std::normal_distribution<float> normal;
+    return glm::normalize(
+            glm::vec3(normal(random), normal(random), normal(random)));
+}
+
+double microsecondsSince(std::chrono::steady_clock::time_point start) {
+    auto elapsed = std::chrono::steady_clock::now() - start;
+    return std::chrono::duration<double, std::micro>(elapsed).count();
+}
+
+// Objects: every box a ray crosses
+
+struct BoxVisitor {
+    const std::vector<BoundingVolume>* boxes;
+    glm::vec3 origin;
+    glm::vec3 inverse_direction;
+    std::vector<int>* picked;
+
+    void visit(int item, float& max_distance) {
+        if (enters((*boxes)[item], origin, inverse_direction)) {
+            picked->push_back(item);
+        }
+    }
+};
+
+std::vector<BoundingVolume> scatterBoxes(int count, std::mt19937& random) {
+    std::uniform_real_distribution<float> position(-100.0f, 100.0f);
+    std::uniform_real_distribution<float> size(0.2f, 2.0f);
+    std::vector<BoundingVolume> boxes(count);
+    for (int i = 0; i < count; ++i) {
+        glm::vec3 center(position(random), position(random), position(random));
+        glm::vec3 half(size(random), size(random), size(random));
+        boxes[i].expand(center - half);
+        boxes[i].expand(center + half);
+    }
+    return boxes;
+}
+
+std::vector<Ray> raysFromCenter(std::mt19937& random) {
+    std::vector<Ray> rays(RAYS);
+    for (int r = 0; r < RAYS; ++r) {
+        rays[r].origin = glm::vec3(0.0f);
+        rays[r].direction = randomDirection(random);
+    }
+    return rays;
+}
+
+std::vector<int> pickLinear(const std::vector<BoundingVolume>& boxes,
+        const Ray& ray) {
+    std::vector<int> picked;
+    glm::vec3 inverse_direction = 1.0f / ray.direction;
+    for (int i = 0; i < boxes.size(); ++i) {
+        if (!boxes[i].empty()
+                && enters(boxes[i], ray.origin, inverse_direction)) {
+            picked.push_back(i);
+        }
+    }
+    return picked;
+}
+
+std::vector<int> pickHierarchy(const BoundingVolumeHierarchy& hierarchy,
+        const std::vector<BoundingVolume>& boxes, const Ray& ray,
+        std::vector<int>& stack) {
+    std::vector<int> picked;
+    BoxVisitor visitor = { &boxes, ray.origin, 1.0f / ray.direction, &picked };
+    hierarchy.intersect(ray.origin, ray.direction, stack, visitor);
+    std::sort(picked.begin(), picked.end());
+    return picked;
+}
+
+bool benchmarkObjects(int count) {
+    std::mt19937 random(count);
+    std::vector<BoundingVolume> boxes = scatterBoxes(count, random);
+    std::vector<Ray> rays = raysFromCenter(random);
+
+    auto start = std::chrono::steady_clock::now();
+    BoundingVolumeHierarchy hierarchy;
+    hierarchy.build(boxes);
+    double build_time = microsecondsSince(start);
+
+    std::vector<std::vector<int> > linear_picked(RAYS);
+    start = std::chrono::steady_clock::now();
+    for (int r = 0; r < RAYS; ++r) {
+        glm::vec3 inverse_direction = 1.0f / rays[r].direction;
+        for (int i = 0; i < count; ++i) {
+            if (enters(boxes[i], rays[r].origin, inverse_direction)) {
+                linear_picked[r].push_back(i);
+            }
+        }
+    }
+    double linear_time = microsecondsSince(start) / RAYS;
+
+    std::vector<std::vector<int> > hierarchy_picked(RAYS);
+    std::vector<int> stack;
+    start = std::chrono::steady_clock::now();
+    for (int r = 0; r < RAYS; ++r) {
+        BoxVisitor visitor = { &boxes, rays[r].origin, 1.0f
+                / rays[r].direction, &hierarchy_picked[r] };
+        hierarchy.intersect(rays[r].origin, rays[r].direction, stack, visitor);
+    }
+    double hierarchy_time = microsecondsSince(start) / RAYS;
+
+    long picked = 0;
+    bool same = true;
+    for (int r = 0; r < RAYS; ++r) {
+        std::sort(hierarchy_picked[r].begin(), hierarchy_picked[r].end());
+        same = same && hierarchy_picked[r] == linear_picked[r];
+        picked += linear_picked[r].size();
+    }
+    std::printf("%8d objects    linear %9.2f us/ray  hierarchy %6.2f us/ray"
+            "  build %8.0f us  %5.1f picked/ray\n", count, linear_time,
+            hierarchy_time, build_time, double(picked) / RAYS);
+    if (!same) {
+        std::printf("linear and hierarchy picking disagree\n");
+    }
+    return same;
+}
+
+// Objects whose boxes were empty when the hierarchy was built, and then
+// filled in: a tenth of them, refit as PickingHierarchy::refit() does
+bool checkFilledBoxes(int count) {
+    std::mt19937 random(count);
+    std::vector<BoundingVolume> filled = scatterBoxes(count, random);
+    std::vector<Ray> rays = raysFromCenter(random);
+    std::vector<BoundingVolume> boxes = filled;
+    for (int i = 0; i < count; i += 10) {
+        boxes[i].reset();
+    }
+
+    BoundingVolumeHierarchy hierarchy;
+    hierarchy.build(boxes);
+    float built_area = hierarchy.surfaceArea();
+    boxes = filled;
+    bool refit = hierarchy.refit(boxes);
+    if (!refit || hierarchy.surfaceArea() > 2.0f * built_area) {
+        hierarchy.build(boxes);
+    }
+
+    std::vector<int> stack;
+    int disagree = 0;
+    for (int r = 0; r < RAYS; ++r) {
+        if (pickHierarchy(hierarchy, boxes, rays[r], stack)
+                != pickLinear(boxes, rays[r])) {
+            ++disagree;
+        }
+    }
+    std::printf("%8d objects    a tenth filled after building: %s,"
+            " %d of %d rays disagree\n", count,
+            refit ? "refit" : "rebuilt", disagree, RAYS);
+    if (refit || disagree != 0) {
+        std::printf("linear and hierarchy picking disagree\n");
+        return false;
+    }
+    return true;
+}
+
+// Triangles: the closest hit, as MeshEyePointee::isPointed() finds it
+
+const float EPSILON = 0.00001f;
+
+struct Triangle {
+    glm::vec3 a, b, c;
+};
+
+// Moller-Trumbore, as in MeshEyePointee
+bool intersectTriangle(const Triangle& triangle, const glm::vec3& O,
+        const glm::vec3& D, float& t) {
+    glm::vec3 e1 = triangle.b - triangle.a;
+    glm::vec3 e2 = triangle.c - triangle.a;
+    glm::vec3 P = glm::cross(D, e2);
+    float det = glm::dot(e1, P);
+    if (det > -EPSILON && det < EPSILON) {
+        return false;
+    }
+    float inv_det = 1.0f / det;
+    glm::vec3 T = O - triangle.a;
+    float u = glm::dot(T, P) * inv_det;
+    if (u < 0.0f || u > 1.0f) {
+        return false;
+    }
+    glm::vec3 Q = glm::cross(T, e1);
+    float v = glm::dot(D, Q) * inv_det;
+    if (v < 0.0f || u + v > 1.0f) {
+        return false;
+    }
+    t = glm::dot(e2, Q) * inv_det;
+    return t > EPSILON;
+}
+
+struct TriangleVisitor {
+    const std::vector<Triangle>* triangles;
+    glm::vec3 origin;
+    glm::vec3 direction;
+    float closest;
+
+    void visit(int item, float& max_distance) {
+        float t;
+        if (intersectTriangle((*triangles)[item], origin, direction, t)
+                && t < closest) {
+            closest = t;
+            max_distance = t;
+        }
+    }
+};
+
+bool benchmarkTriangles(int rings) {
+    // A UV sphere of radius 1, with 2 * rings * rings triangles
+    int segments = 2 * rings;
+    std::vector<glm::vec3> vertices;
+    for (int ring = 0; ring <= rings; ++ring) {
+        float theta = ring * 3.14159265f / rings;
+        for (int segment = 0; segment <= segments; ++segment) {
+            float phi = segment * 2.0f * 3.14159265f / segments;
+            vertices.push_back(
+                    glm::vec3(std::sin(theta) * std::cos(phi),
+                            std::cos(theta), std::sin(theta) * std::sin(phi)));
+        }
+    }
+    std::vector<Triangle> triangles;
+    for (int ring = 0; ring < rings; ++ring) {
+        for (int segment = 0; segment < segments; ++segment) {
+            int a = ring * (segments + 1) + segment;
+            int b = a + segments + 1;
+            Triangle first = { vertices[a], vertices[b], vertices[a + 1] };
+            Triangle second = { vertices[a + 1], vertices[b], vertices[b + 1] };
+            triangles.push_back(first);
+            triangles.push_back(second);
+        }
+    }
+    int count = triangles.size();
+
+    std::vector<BoundingVolume> boxes(count);
+    for (int i = 0; i < count; ++i) {
+        boxes[i].expand(triangles[i].a);
+        boxes[i].expand(triangles[i].b);
+        boxes[i].expand(triangles[i].c);
+    }
+
+    // From a few units away, aimed at points around the sphere, so that
+    // some rays miss
+    std::mt19937 random(count);
+    std::vector<Ray> rays(RAYS);
+    for (int r = 0; r < RAYS; ++r) {
+        rays[r].origin = randomDirection(random) * 4.0f;
+        glm::vec3 target = randomDirection(random) * 1.2f;
+        rays[r].direction = glm::normalize(target - rays[r].origin);
+    }
+
+    auto start = std::chrono::steady_clock::now();
+    BoundingVolumeHierarchy hierarchy;
+    hierarchy.build(boxes);
+    double build_time = microsecondsSince(start);
+
+    const float infinity = std::numeric_limits<float>::infinity();
+    std::vector<float> linear_closest(RAYS, infinity);
+    start = std::chrono::steady_clock::now();
+    for (int r = 0; r < RAYS; ++r) {
+        for (int i = 0; i < count; ++i) {
+            float t;
+            if (intersectTriangle(triangles[i], rays[r].origin,
+                    rays[r].direction, t) && t < linear_closest[r]) {
+                linear_closest[r] = t;
+            }
+        }
+    }
+    double linear_time = microsecondsSince(start) / RAYS;
+
+    std::vector<float> hierarchy_closest(RAYS);
+    std::vector<int> stack;
+    start = std::chrono::steady_clock::now();
+    for (int r = 0; r < RAYS; ++r) {
+        TriangleVisitor visitor = { &triangles, rays[r].origin,
+                rays[r].direction, infinity };
+        hierarchy.intersect(rays[r].origin, rays[r].direction, stack, visitor);
+        hierarchy_closest[r] = visitor.closest;
+    }
+    double hierarchy_time = microsecondsSince(start) / RAYS;
+
+    int hits = 0;
+    bool same = true;
+    for (int r = 0; r < RAYS; ++r) {
+        same = same && hierarchy_closest[r] == linear_closest[r];
+        hits += linear_closest[r] != infinity;
+    }
+    std::printf("%8d triangles  linear %9.2f us/ray  hierarchy %6.2f us/ray"
+            "  build %8.0f us  %5.1f%% hit\n", count, linear_time,
+            hierarchy_time, build_time, 100.0 * hits / RAYS);
+    if (!same) {
+        std::printf("linear and hierarchy picking disagree\n");
+    }
+    return same;
+}
+
+}
+
+int main() {
+    bool same = true;
+    const int object_counts[] = { 1000, 10000, 100000, 1000000 };
+    for (int i = 0; i < 4; ++i) {
+        same = benchmarkObjects(object_counts[i]) && same;
+    }
+    same = checkFilledBoxes(10000) && same;
+    const int rings[] = { 8, 32, 128 };
+    for (int i = 0; i < 3; ++i) {
+        same = benchmarkTriangles(rings[i]) && same;
+    }
+    return same ? 0 : 1;
+}
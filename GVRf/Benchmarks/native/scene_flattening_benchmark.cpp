@@ -0,0 +1,159 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Per-frame cost of listing every object of a scene, as Renderer::cull()
+ * and Picker::pickScene() do:
+ *
+ *   copy:      the previous Scene::getWholeSceneObjects(), which copied the
+ *              roots and then each object's children into a new vector
+ *   flattened: walking the FlattenedHierarchy the scene now keeps
+ *
+ * and the cost the flattened list moves to edit time: detaching and
+ * re-attaching a subtree of a few hundred objects.
+ *
+ *   g++ -O2 -std=c++11 -I ../../Framework/jni scene_flattening_benchmark.cpp
+ ***************************************************************************/
+
+#include <chrono>
+#include <cstdio>
+#include <vector>
+
+#include "objects/flattened_hierarchy.h"
+
+namespace {
+
+struct Root;
+
+// The parts of SceneObject that the flattening needs
+struct Node {
+    std::vector<Node*> children_;
+    Root* owner_ = nullptr;
+    int index_ = -1;
+    int payload_ = 0;
+
+    const std::vector<Node*>& children() const {
+        return children_;
+    }
+    Root* flattened_owner() const {
+        return owner_;
+    }
+    int flattened_index() const {
+        return index_;
+    }
+    void set_flattened(Root* owner, int index) {
+        owner_ = owner;
+        index_ = index;
+    }
+};
+
+struct Root {
+    std::vector<Node*> roots_;
+    gvr::FlattenedHierarchy<Node, Root> flattened_;
+
+    Root() :
+            flattened_(this) {
+    }
+
+    std::vector<Node*> copyWholeSceneObjects() const {
+        std::vector<Node*> scene_objects(roots_);
+        for (size_t i = 0; i < scene_objects.size(); ++i) {
+            std::vector<Node*> children(scene_objects[i]->children());
+            for (auto it = children.begin(); it != children.end(); ++it) {
+                scene_objects.push_back(*it);
+            }
+        }
+        return scene_objects;
+    }
+};
+
+// A scene of 16 roots, each node having up to 4 children
+void build(Root& scene, std::vector<Node>& storage) {
+    size_t count = storage.size();
+    for (size_t i = 0; i < count; ++i) {
+        storage[i].payload_ = i;
+        if (i < 16) {
+            scene.roots_.push_back(&storage[i]);
+        } else {
+            storage[(i - 16) / 4].children_.push_back(&storage[i]);
+        }
+    }
+    for (auto it = scene.roots_.begin(); it != scene.roots_.end(); ++it) {
+        scene.flattened_.addSubtree(*it);
+    }
+}
+
+template<class Function>
+double nanosecondsPerCall(int calls, Function function) {
+    auto start = std::chrono::steady_clock::now();
+    for (int i = 0; i < calls; ++i) {
+        function();
+    }
+    auto elapsed = std::chrono::steady_clock::now() - start;
+    return std::chrono::duration<double, std::nano>(elapsed).count() / calls;
+}
+
+volatile long sink;
+
+long visit(const std::vector<Node*>& nodes) {
+    long sum = 0;
+    for (auto it = nodes.begin(); it != nodes.end(); ++it) {
+        sum += (*it)->payload_;
+    }
+    return sum;
+}
+
+void run(int count) {
+    std::vector<Node> storage(count);
+    Root scene;
+    build(scene, storage);
+    if (scene.flattened_.nodes().size() != storage.size()
+            || visit(scene.copyWholeSceneObjects())
+                    != visit(scene.flattened_.nodes())) {
+        std::printf("flattened scene does not match\n");
+        return;
+    }
+
+    int calls = 20000000 / count;
+    double copy = nanosecondsPerCall(calls, [&scene]() {
+        sink = visit(scene.copyWholeSceneObjects());
+    });
+    double flattened = nanosecondsPerCall(calls, [&scene]() {
+        sink = visit(scene.flattened_.nodes());
+    });
+
+    Node* subtree = &storage[count / 400];
+    scene.flattened_.removeSubtree(subtree);
+    int subtree_size = count - scene.flattened_.nodes().size();
+    scene.flattened_.addSubtree(subtree);
+    double edit = nanosecondsPerCall(calls, [&scene, subtree]() {
+        scene.flattened_.removeSubtree(subtree);
+        scene.flattened_.addSubtree(subtree);
+    });
+
+    std::printf("%7d nodes: copy %10.1f us  flattened %8.1f us"
+            "  detach+attach %5d nodes %8.1f us\n", count, copy / 1000,
+            flattened / 1000, subtree_size, edit / 1000);
+}
+
+}
+
+int main() {
+    run(1000);
+    run(10000);
+    run(100000);
+    return 0;
+}
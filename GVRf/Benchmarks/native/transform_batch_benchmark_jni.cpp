@@ -0,0 +1,131 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * The host native library of TransformBatchBenchmark.
+ *
+ * Builds the framework's Transform and TransformBatch on the host. Only
+ * Transform's scene graph bookkeeping is left out: transforms here have no
+ * owner object, so invalidating one only invalidates its matrix. The
+ * per-object functions do what transform_jni.cpp does.
+ *
+ *   g++ -O2 -std=c++11 -shared -fPIC -I ../../Framework/jni \
+ *       -I ../../Framework/jni/contrib \
+ *       -I $JAVA_HOME/include -I $JAVA_HOME/include/linux \
+ *       transform_batch_benchmark_jni.cpp \
+ *       ../../Framework/jni/objects/components/transform_batch.cpp \
+ *       -o libtransformbatchbenchmark.so
+ ***************************************************************************/
+
+#include <jni.h>
+
+#include "objects/components/transform.h"
+#include "objects/components/transform_batch.h"
+
+namespace gvr {
+
+Transform::Transform() :
+        Component(), position_(glm::vec3(0.0f, 0.0f, 0.0f)), rotation_(
+                glm::quat(1.0f, 0.0f, 0.0f, 0.0f)), scale_(
+                glm::vec3(1.0f, 1.0f, 1.0f)), model_matrix_(
+                Lazy<glm::mat4>(glm::mat4())) {
+}
+
+Transform::~Transform() {
+}
+
+void Transform::invalidate(bool rotationUpdated) {
+    if (model_matrix_.isValid()) {
+        model_matrix_.invalidate();
+    }
+}
+
+glm::mat4 Transform::getLocalModelMatrix() {
+    return glm::translate(glm::mat4(), position_) * glm::mat4_cast(rotation_)
+            * glm::scale(glm::mat4(), scale_);
+}
+
+glm::mat4 Transform::getModelMatrix() {
+    if (!model_matrix_.isValid()) {
+        model_matrix_.validate(getLocalModelMatrix());
+    }
+    return model_matrix_.element();
+}
+
+void Transform::setModelMatrix(glm::mat4 matrix) {
+    position_ = glm::vec3(matrix[3]);
+    invalidate(true);
+}
+
+extern "C" {
+
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_benchmark_HostTransform_ctor(JNIEnv * env, jclass clazz) {
+    return reinterpret_cast<jlong>(new Transform());
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_benchmark_HostTransform_setPosition(JNIEnv * env,
+        jclass clazz, jlong jtransform, jfloat x, jfloat y, jfloat z) {
+    Transform* transform = reinterpret_cast<Transform*>(jtransform);
+    transform->set_position(x, y, z);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_benchmark_HostTransform_setRotation(JNIEnv * env,
+        jclass clazz, jlong jtransform, jfloat w, jfloat x, jfloat y,
+        jfloat z) {
+    Transform* transform = reinterpret_cast<Transform*>(jtransform);
+    transform->set_rotation(w, x, y, z);
+}
+
+JNIEXPORT jfloat JNICALL
+Java_org_gearvrf_benchmark_HostTransform_getPositionX(JNIEnv * env,
+        jclass clazz, jlong jtransform) {
+    return reinterpret_cast<Transform*>(jtransform)->position_x();
+}
+
+JNIEXPORT jfloat JNICALL
+Java_org_gearvrf_benchmark_HostTransform_getPositionY(JNIEnv * env,
+        jclass clazz, jlong jtransform) {
+    return reinterpret_cast<Transform*>(jtransform)->position_y();
+}
+
+JNIEXPORT jfloat JNICALL
+Java_org_gearvrf_benchmark_HostTransform_getPositionZ(JNIEnv * env,
+        jclass clazz, jlong jtransform) {
+    return reinterpret_cast<Transform*>(jtransform)->position_z();
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_benchmark_HostTransform_batchSet(JNIEnv * env,
+        jclass clazz, jobject jtransforms, jint count, jint components,
+        jobject jdata) {
+    TransformBatch::set(env->GetDirectBufferAddress(jtransforms), count,
+            components, env->GetDirectBufferAddress(jdata));
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_benchmark_HostTransform_batchGet(JNIEnv * env,
+        jclass clazz, jobject jtransforms, jint count, jint components,
+        jobject jdata) {
+    TransformBatch::get(env->GetDirectBufferAddress(jtransforms), count,
+            components, env->GetDirectBufferAddress(jdata));
+}
+
+}
+
+}
@@ -0,0 +1,103 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.animation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.GVRHybridObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One {@link GVRAnimationEngine} frame with many running animations. This
+ * class lives in the framework's package so that it can drive an engine that
+ * is not attached to a {@link org.gearvrf.GVRContext}.
+ * <ul>
+ * <li>{@code tick} advances repeating animations that never finish: the
+ * steady state, which should not allocate.
+ * <li>{@code churn} stops and restarts a tenth of the animations
+ * every frame, so the engine drains its command queue and compacts its array.
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GVRAnimationEngineBenchmark {
+    private static final float FRAME_TIME = 1f / 60f;
+
+    @Param({ "10000" })
+    private int animations;
+
+    private GVRAnimationEngine engine;
+    private CountingAnimation[] running;
+    private int frame;
+
+    private static final class CountingAnimation extends GVRAnimation {
+        float sum;
+
+        CountingAnimation(float duration) {
+            super(null, duration);
+        }
+
+        @Override
+        protected void animate(GVRHybridObject target, float ratio) {
+            sum += ratio;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        engine = new GVRAnimationEngine();
+        running = new CountingAnimation[animations];
+        for (int index = 0; index < animations; ++index) {
+            running[index] = new CountingAnimation(1f + (index % 100) * 0.01f);
+            running[index].setRepeatMode(GVRRepeatMode.REPEATED);
+            running[index].setRepeatCount(-1);
+            engine.start(running[index]);
+        }
+        engine.runFrame(FRAME_TIME);
+    }
+
+    @Benchmark
+    public int tick() {
+        engine.runFrame(FRAME_TIME);
+        return ++frame;
+    }
+
+    @Benchmark
+    public int churn() {
+        final int stride = 10;
+        final int first = frame++ % stride;
+
+        for (int index = first; index < animations; index += stride) {
+            engine.stop(running[index]);
+            engine.start(running[index]);
+        }
+        engine.runFrame(FRAME_TIME);
+        return frame;
+    }
+}
@@ -0,0 +1,153 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.asynchronous;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loads a large KTX file through {@link CompressedTexture}, then copies every
+ * mip level into a direct buffer, the way the driver does in
+ * {@code glCompressedTexImage2D}.
+ * <ul>
+ * <li>{@code stream} reads a {@link BufferedInputStream}: the path taken by
+ * resources that are not plain files, and by all resources before files were
+ * mapped.
+ * <li>{@code mapped} reads a {@link FileInputStream}, which is mapped.
+ * </ul>
+ * Run with {@code -prof gc}: {@code gc.alloc.rate.norm} is the heap cost of
+ * a load.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx1g" })
+public class KtxLoadBenchmark {
+    private static final int GL_COMPRESSED_RGB8_ETC2 = 0x9274;
+    private static final int WIDTH = 4096;
+
+    @Param({ "16", "64" })
+    private int megabytes;
+
+    private File file;
+    private GVRCompressedTextureLoader loader;
+    private ByteBuffer upload;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("gvrf-benchmark", ".ktx");
+        writeKtx(file, megabytes * 1024 * 1024);
+        FileInputStream header = new FileInputStream(file);
+        try {
+            loader = CompressedTexture.sniff(header);
+        } finally {
+            header.close();
+        }
+        upload = ByteBuffer.allocateDirect((int) file.length());
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public int stream() throws IOException {
+        return upload(CompressedTexture.parse(new BufferedInputStream(
+                new FileInputStream(file)), true, loader));
+    }
+
+    @Benchmark
+    public int mapped() throws IOException {
+        return upload(CompressedTexture.parse(new FileInputStream(file), true,
+                loader));
+    }
+
+    private int upload(CompressedTexture texture) {
+        KTX.KtxCompressedTexture ktx = (KTX.KtxCompressedTexture) texture;
+        upload.clear();
+        for (int level = 0; level < ktx.levels; ++level) {
+            upload.put(ktx.getLevel(level));
+        }
+        return upload.get(upload.position() - 1);
+    }
+
+    /*
+     * An ETC2 mip chain, 4096 texels wide: ETC2 is half a byte per texel, so
+     * level 0 is three quarters of the file.
+     */
+    private static void writeKtx(File file, int bytes) throws IOException {
+        int height = bytes * 3 / 4 * 2 / WIDTH;
+        int levels = 1 + Integer.numberOfTrailingZeros(Integer
+                .highestOneBit(Math.min(WIDTH, height)));
+
+        int length = 64;
+        for (int level = 0; level < levels; ++level) {
+            length += 4 + imageSize(WIDTH >> level, height >> level);
+        }
+
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.setLength(length);
+            ByteBuffer buffer = out.getChannel().map(MapMode.READ_WRITE, 0,
+                    length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0x58544BAB).putInt(0xBB313120).putInt(0x0A1A0A0D);
+            buffer.putInt(0x04030201); // endianness
+            buffer.putInt(0).putInt(1).putInt(0); // glType, size, glFormat
+            buffer.putInt(GL_COMPRESSED_RGB8_ETC2).putInt(0x1907); // GL_RGB
+            buffer.putInt(WIDTH).putInt(height).putInt(0); // pixelDepth
+            buffer.putInt(0).putInt(1).putInt(levels).putInt(0);
+
+            for (int level = 0; level < levels; ++level) {
+                int imageSize = imageSize(WIDTH >> level, height >> level);
+                buffer.putInt(imageSize);
+                for (int index = 0; index < imageSize; ++index) {
+                    buffer.put((byte) (index * 31 + level));
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /** ETC2 RGB: 8 bytes per 4x4 block; always a multiple of four */
+    private static int imageSize(int width, int height) {
+        return ((Math.max(1, width) + 3) / 4) * ((Math.max(1, height) + 3) / 4)
+                * 8;
+    }
+}
@@ -0,0 +1,242 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.asynchronous;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.utility.Threads.Cancelable;
+import org.gearvrf.utility.Threads.ThreadPolicyProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@link Throttler}'s request queue under a head turn: {@value #REQUESTS}
+ * pending requests, of which {@value #UPDATES_PER_OP} change priority per
+ * operation, and a few are dispatched to loader threads. One request in ten
+ * has been canceled.
+ * <ul>
+ * <li>{@code groups} is the previous queue - lists of requests per
+ * priority, searched on every reschedule and scanned for cancellations on
+ * every dispatch - kept here as the baseline.
+ * <li>{@code heap} is {@link PriorityCancelingLifoThreadPolicyProvider}.
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThrottlerQueueBenchmark {
+    private static final int REQUESTS = 10000;
+    private static final int UPDATES_PER_OP = 256;
+    private static final int DISPATCHES_PER_OP = 4;
+
+    /** Distinct priorities in use: most apps use only a few */
+    @Param({ "4", "32" })
+    private int priorities;
+
+    @Param({ "groups", "heap" })
+    private String queue;
+
+    private ThreadPolicyProvider<PriorityCancelable> policy;
+    private Request[] requests;
+    private Random random;
+
+    private static final class Request extends PriorityCancelable {
+        int priority;
+        int highestPriority;
+        boolean wanted;
+        /** Bookkeeping of the groups baseline; the heap has heapIndex */
+        boolean queued;
+
+        Request(int priority, boolean wanted) {
+            this.priority = this.highestPriority = priority;
+            this.wanted = wanted;
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public boolean stillWanted() {
+            return wanted;
+        }
+
+        @Override
+        void updatePriority() {
+            priority = highestPriority;
+        }
+
+        @Override
+        int getPriority() {
+            return priority;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        policy = queue.equals("heap") ? new PriorityCancelingLifoThreadPolicyProvider()
+                : new GroupPolicy();
+        requests = new Request[REQUESTS];
+        for (int index = 0; index < REQUESTS; ++index) {
+            requests[index] = new Request(random.nextInt(priorities),
+                    random.nextInt(10) != 0);
+            policy.put(requests[index]);
+        }
+    }
+
+    @Benchmark
+    public Object headTurn() {
+        for (int update = 0; update < UPDATES_PER_OP; ++update) {
+            Request request = requests[random.nextInt(REQUESTS)];
+            request.highestPriority = random.nextInt(priorities);
+            policy.reschedule(request);
+        }
+
+        Object last = null;
+        for (int dispatch = 0; dispatch < DISPATCHES_PER_OP; ++dispatch) {
+            if (policy.isEmpty() == false) {
+                last = policy.get();
+            }
+        }
+
+        // Keep the queue full: replace what was dispatched or dropped
+        for (int index = 0; index < REQUESTS; index += REQUESTS / 16) {
+            Request request = requests[(index + random.nextInt(REQUESTS / 16))
+                    % REQUESTS];
+            if (request.heapIndex < 0 && request.queued == false) {
+                request.wanted = random.nextInt(10) != 0;
+                policy.put(request);
+            }
+        }
+        return last;
+    }
+
+    /**
+     * The queue before the indexed heap: a priority queue of per-priority
+     * lists. A HashMap stands in for the SparseArray, which needs a device.
+     */
+    private static final class GroupPolicy implements
+            ThreadPolicyProvider<PriorityCancelable> {
+        private static final class Group implements Comparable<Group> {
+            final int priority;
+            final List<PriorityCancelable> content = new ArrayList<PriorityCancelable>();
+
+            Group(int priority) {
+                this.priority = priority;
+            }
+
+            @Override
+            public int compareTo(Group another) {
+                return another.priority - priority;
+            }
+        }
+
+        private final PriorityQueue<Group> queue = new PriorityQueue<Group>();
+        private final Map<Integer, Group> groups = new HashMap<Integer, Group>();
+
+        @Override
+        public void put(PriorityCancelable procedure) {
+            ((Request) procedure).queued = true;
+            int priority = procedure.getPriority();
+            Group group = groups.get(priority);
+            if (group == null) {
+                group = new Group(priority);
+                queue.add(group);
+                groups.put(priority, group);
+            }
+            group.content.add(procedure);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            while (queue.size() > 0) {
+                Group first = queue.peek();
+                List<Cancelable> cancel = new ArrayList<Cancelable>();
+                for (Cancelable cancelable : first.content) {
+                    if (cancelable.stillWanted() != true) {
+                        cancel.add(cancelable);
+                    }
+                }
+                first.content.removeAll(cancel);
+                for (Cancelable canceled : cancel) {
+                    ((Request) canceled).queued = false;
+                }
+                if (first.content.size() > 0) {
+                    return false;
+                }
+                removeGroup(first);
+            }
+            return true;
+        }
+
+        @Override
+        public Runnable get() {
+            Group first = queue.peek();
+            if (first == null) {
+                return null;
+            }
+            PriorityCancelable threadProc = first.content
+                    .remove(first.content.size() - 1);
+            ((Request) threadProc).queued = false;
+            if (first.content.isEmpty()) {
+                removeGroup(first);
+            }
+            return threadProc;
+        }
+
+        @Override
+        public void reschedule(PriorityCancelable threadProc) {
+            int priority = threadProc.getPriority();
+            threadProc.updatePriority();
+            int newPriority = threadProc.getPriority();
+
+            Group group = groups.get(priority);
+            if (group != null && group.content.remove(threadProc)) {
+                if (priority == newPriority) {
+                    group.content.add(threadProc);
+                } else {
+                    put(threadProc);
+                }
+                if (group.content.isEmpty()) {
+                    removeGroup(group);
+                }
+            }
+        }
+
+        private void removeGroup(Group group) {
+            queue.remove(group);
+            groups.remove(group.priority);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.FrustumCuller;
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sphere culling of a batch of objects against one camera frustum.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrustumCullerBenchmark {
+    @Param({ "1000" })
+    private int count;
+
+    private final FrustumCuller culler = new FrustumCuller();
+    private float[] spheres;
+
+    @Setup
+    public void setup() {
+        Matrix4f viewProjection = new Matrix4f()
+                .perspective((float) Math.toRadians(90.0), 1.0f, 0.1f, 100.0f)
+                .lookAt(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, -1.0f, 0.0f, 1.0f, 0.0f);
+        culler.set(viewProjection);
+
+        Random random = new Random(42);
+        spheres = new float[count * 4];
+        for (int i = 0; i < spheres.length; i += 4) {
+            spheres[i] = (random.nextFloat() - 0.5f) * 200.0f;
+            spheres[i + 1] = (random.nextFloat() - 0.5f) * 200.0f;
+            spheres[i + 2] = (random.nextFloat() - 0.5f) * 200.0f;
+            spheres[i + 3] = random.nextFloat() * 2.0f;
+        }
+    }
+
+    @Benchmark
+    public int isSphereInsideFrustum() {
+        int visible = 0;
+        for (int i = 0; i < spheres.length; i += 4) {
+            if (culler.isSphereInsideFrustum(spheres[i], spheres[i + 1],
+                    spheres[i + 2], spheres[i + 3])) {
+                ++visible;
+            }
+        }
+        return visible;
+    }
+}
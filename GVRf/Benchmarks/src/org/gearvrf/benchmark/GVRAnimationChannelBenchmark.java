@@ -0,0 +1,108 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.animation.keyframe.GVRAnimationBehavior;
+import org.gearvrf.animation.keyframe.GVRAnimationChannel;
+import org.gearvrf.animation.keyframe.GVRAnimationClip;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Keyframe sampling of a set of {@link GVRAnimationChannel}s, the per-frame
+ * work of one skinned character, channel by channel and through the compiled
+ * {@link GVRAnimationClip}. Run with {@code -prof gc}: sampling is expected to
+ * allocate nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GVRAnimationChannelBenchmark {
+    private static final int KEYS = 120;
+    private static final float DURATION = 4.0f;
+
+    @Param({ "60" })
+    private int channelCount;
+
+    private GVRAnimationChannel[] channels;
+    private GVRAnimationClip clip;
+    private Matrix4f[] transforms;
+    private float time;
+
+    @Setup
+    public void setup() {
+        channels = new GVRAnimationChannel[channelCount];
+        transforms = new Matrix4f[channelCount];
+
+        Vector3f position = new Vector3f();
+        Vector3f scale = new Vector3f();
+        Quaternionf rotation = new Quaternionf();
+        for (int c = 0; c < channelCount; ++c) {
+            GVRAnimationChannel channel = new GVRAnimationChannel("bone" + c,
+                    KEYS, KEYS, KEYS, GVRAnimationBehavior.DEFAULT,
+                    GVRAnimationBehavior.DEFAULT);
+            for (int k = 0; k < KEYS; ++k) {
+                float t = k * DURATION / (KEYS - 1);
+                channel.setPosKeyVector(k, t, position.set(k, c, -k));
+                channel.setRotKeyQuaternion(k, t,
+                        rotation.identity().rotateAxis(t, 0.0f, 1.0f, 0.0f));
+                channel.setScaleKeyVector(k, t, scale.set(1.0f, 1.0f, 1.0f));
+            }
+            channels[c] = channel;
+            transforms[c] = new Matrix4f();
+        }
+        clip = new GVRAnimationClip(Arrays.asList(channels));
+    }
+
+    private float advance() {
+        time += 1.0f / 60.0f;
+        if (time >= DURATION) {
+            time = 0.0f;
+        }
+        return time;
+    }
+
+    @Benchmark
+    public Matrix4f[] animateChannels() {
+        float t = advance();
+        for (int c = 0; c < channels.length; ++c) {
+            channels[c].animate(t, transforms[c]);
+        }
+        return transforms;
+    }
+
+    @Benchmark
+    public Matrix4f[] sampleClip() {
+        return clip.sampleTransforms(advance(), transforms);
+    }
+}
@@ -0,0 +1,72 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-frame {@link Matrix4f} operations: model-view composition, inversion
+ * (picking, normal matrices) and camera look-at.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Matrix4fBenchmark {
+    private final Matrix4f left = new Matrix4f();
+    private final Matrix4f right = new Matrix4f();
+    private final Matrix4f dest = new Matrix4f();
+
+    @Setup
+    public void setup() {
+        left.translationRotateScale(new Vector3f(1.0f, 2.0f, 3.0f),
+                new Quaternionf().rotateAxis(0.5f, 0.0f, 1.0f, 0.0f),
+                new Vector3f(1.5f, 1.5f, 1.5f));
+        right.perspective((float) Math.toRadians(90.0), 1.0f, 0.1f, 1000.0f);
+    }
+
+    @Benchmark
+    public Matrix4f mul() {
+        return left.mul(right, dest);
+    }
+
+    @Benchmark
+    public Matrix4f invert() {
+        return left.invert(dest);
+    }
+
+    @Benchmark
+    public Matrix4f lookAt() {
+        return right.lookAt(0.0f, 1.7f, 5.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f,
+                0.0f, dest);
+    }
+}
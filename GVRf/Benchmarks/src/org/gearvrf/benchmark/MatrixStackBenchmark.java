@@ -0,0 +1,60 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Matrix4f;
+import org.joml.MatrixStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link MatrixStack} push/transform/pop, the pattern of a recursive scene
+ * graph walk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixStackBenchmark {
+    private static final int DEPTH = 16;
+
+    private final MatrixStack stack = new MatrixStack(DEPTH + 1);
+    private final Matrix4f dest = new Matrix4f();
+
+    @Benchmark
+    public Matrix4f pushPop() {
+        stack.loadIdentity();
+        for (int i = 0; i < DEPTH; ++i) {
+            stack.pushMatrix();
+            stack.translate(0.0f, 1.0f, 0.0f).rotateY(0.1f);
+        }
+        stack.get(dest);
+        for (int i = 0; i < DEPTH; ++i) {
+            stack.popMatrix();
+        }
+        return dest;
+    }
+}
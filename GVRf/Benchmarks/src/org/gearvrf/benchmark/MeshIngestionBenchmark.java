@@ -0,0 +1,189 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Handing an imported mesh to a {@code GVRMesh}, as
+ * {@code GVRJassimpAdapter.createMesh()} does: through Java arrays, as it
+ * used to, or straight from the importer's direct buffers.
+ *
+ * The mesh is a grid of {@code vertices} vertices, in direct buffers laid out
+ * as jassimp's {@code AiMesh} lays them out, with {@code components} floats
+ * per texture coordinate. The native side is built on the host by
+ * {@code native/mesh_ingestion_benchmark_jni.cpp}; put the library on
+ * {@code java.library.path}. {@code gc.alloc.rate.norm} is the Java heap each
+ * mesh costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.library.path=native")
+public class MeshIngestionBenchmark {
+    @Param({ "65536" })
+    private int vertices;
+
+    @Param({ "2", "3" })
+    private int components;
+
+    private long mesh;
+    private ByteBuffer positions;
+    private ByteBuffer normals;
+    private ByteBuffer texCoords;
+    private ByteBuffer faces;
+
+    @Setup
+    public void setup() {
+        mesh = HostMesh.ctor();
+        int side = (int) Math.sqrt(vertices);
+        positions = allocate(vertices * 3 * 4);
+        normals = allocate(vertices * 3 * 4);
+        texCoords = allocate(vertices * components * 4);
+        for (int i = 0; i < vertices; ++i) {
+            float u = (float) (i % side) / side;
+            float v = (float) (i / side) / side;
+            positions.putFloat(u).putFloat(0.0f).putFloat(v);
+            normals.putFloat(0.0f).putFloat(1.0f).putFloat(0.0f);
+            texCoords.putFloat(u).putFloat(v);
+            for (int c = 2; c < components; ++c) {
+                texCoords.putFloat(0.0f);
+            }
+        }
+        faces = allocate((side - 1) * (side - 1) * 6 * 4);
+        for (int row = 0; row < side - 1; ++row) {
+            for (int column = 0; column < side - 1; ++column) {
+                int a = row * side + column;
+                int b = a + side;
+                faces.putInt(a).putInt(b).putInt(a + 1);
+                faces.putInt(a + 1).putInt(b).putInt(b + 1);
+            }
+        }
+        positions.clear();
+        normals.clear();
+        texCoords.clear();
+        faces.clear();
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    // As AiMesh.getTexCoordU() and getTexCoordV()
+    private float getTexCoord(int vertex, int component) {
+        return texCoords.getFloat((vertex * components + component) * 4);
+    }
+
+    @Benchmark
+    public int arrays() {
+        FloatBuffer verticesBuffer = positions.asFloatBuffer();
+        float[] verticesArray = new float[verticesBuffer.capacity()];
+        verticesBuffer.get(verticesArray, 0, verticesBuffer.capacity());
+        HostMesh.setVertices(mesh, verticesArray);
+
+        FloatBuffer normalsBuffer = normals.asFloatBuffer();
+        float[] normalsArray = new float[normalsBuffer.capacity()];
+        normalsBuffer.get(normalsArray, 0, normalsBuffer.capacity());
+        HostMesh.setNormals(mesh, normalsArray);
+
+        FloatBuffer coords = FloatBuffer.allocate(vertices * 2);
+        if (components == 2) {
+            coords.put(texCoords.asFloatBuffer());
+        } else {
+            for (int i = 0; i < vertices; ++i) {
+                coords.put(getTexCoord(i, 0));
+                coords.put(getTexCoord(i, 1));
+            }
+        }
+        HostMesh.setTexCoords(mesh, coords.array());
+
+        IntBuffer indexBuffer = faces.asIntBuffer();
+        CharBuffer triangles = CharBuffer.allocate(indexBuffer.capacity());
+        for (int i = 0; i < indexBuffer.capacity(); ++i) {
+            triangles.put((char) indexBuffer.get());
+        }
+        HostMesh.setIndices(mesh, triangles.array());
+        return HostMesh.elementCount(mesh);
+    }
+
+    @Benchmark
+    public int directBuffers() {
+        FloatBuffer verticesBuffer = positions.asFloatBuffer();
+        HostMesh.setVerticesBuffer(mesh, verticesBuffer,
+                verticesBuffer.position(), verticesBuffer.remaining());
+
+        FloatBuffer normalsBuffer = normals.asFloatBuffer();
+        HostMesh.setNormalsBuffer(mesh, normalsBuffer,
+                normalsBuffer.position(), normalsBuffer.remaining());
+
+        FloatBuffer coordsBuffer = texCoords.asFloatBuffer();
+        HostMesh.setTexCoordsBuffer(mesh, coordsBuffer,
+                coordsBuffer.position(), coordsBuffer.remaining(), components);
+
+        IntBuffer indexBuffer = faces.asIntBuffer();
+        HostMesh.setIndicesIntBuffer(mesh, indexBuffer, indexBuffer.position(),
+                indexBuffer.remaining());
+        return HostMesh.elementCount(mesh);
+    }
+}
+
+final class HostMesh {
+    static {
+        System.loadLibrary("meshingestionbenchmark");
+    }
+
+    static native long ctor();
+
+    static native int elementCount(long mesh);
+
+    static native void setVertices(long mesh, float[] vertices);
+
+    static native void setNormals(long mesh, float[] normals);
+
+    static native void setTexCoords(long mesh, float[] texCoords);
+
+    static native void setIndices(long mesh, char[] indices);
+
+    static native void setVerticesBuffer(long mesh, FloatBuffer vertices,
+            int offset, int count);
+
+    static native void setNormalsBuffer(long mesh, FloatBuffer normals,
+            int offset, int count);
+
+    static native void setTexCoordsBuffer(long mesh, FloatBuffer texCoords,
+            int offset, int count, int components);
+
+    static native int setIndicesIntBuffer(long mesh, IntBuffer indices,
+            int offset, int count);
+}
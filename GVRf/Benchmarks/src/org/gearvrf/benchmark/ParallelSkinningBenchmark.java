@@ -0,0 +1,122 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.animation.keyframe.GVRAnimationBehavior;
+import org.gearvrf.animation.keyframe.GVRAnimationChannel;
+import org.gearvrf.animation.keyframe.GVRAnimationClip;
+import org.gearvrf.utility.ParallelLoop;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The CPU part of a skinning frame - sampling each character's clip and
+ * composing its bone chain - for 1 to N characters on a {@link ParallelLoop},
+ * as done by {@link org.gearvrf.animation.keyframe.GVRKeyFrameBatch}.
+ * Compare {@code threads=1} with higher values to see the scaling.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSkinningBenchmark {
+    private static final int BONES = 60;
+    private static final int KEYS = 120;
+    private static final float DURATION = 4.0f;
+
+    @Param({ "1", "8", "64" })
+    private int characters;
+
+    @Param({ "1", "2", "4" })
+    private int threads;
+
+    private ParallelLoop loop;
+    private GVRAnimationClip[] clips;
+    private Matrix4f[][] locals;
+    private Matrix4f[][] globals;
+    private float time;
+
+    private final ParallelLoop.Body evaluate = new ParallelLoop.Body() {
+        @Override
+        public void run(int index) {
+            Matrix4f[] local = clips[index].sampleTransforms(time, locals[index]);
+            Matrix4f[] global = globals[index];
+
+            global[0].set(local[0]);
+            for (int b = 1; b < BONES; ++b) {
+                global[b - 1].mul(local[b], global[b]);
+            }
+        }
+    };
+
+    @Setup
+    public void setup() {
+        loop = new ParallelLoop(threads);
+        clips = new GVRAnimationClip[characters];
+        locals = new Matrix4f[characters][BONES];
+        globals = new Matrix4f[characters][BONES];
+
+        Vector3f position = new Vector3f();
+        Vector3f scale = new Vector3f(1.0f, 1.0f, 1.0f);
+        Quaternionf rotation = new Quaternionf();
+        for (int c = 0; c < characters; ++c) {
+            List<GVRAnimationChannel> channels = new ArrayList<GVRAnimationChannel>();
+            for (int b = 0; b < BONES; ++b) {
+                GVRAnimationChannel channel = new GVRAnimationChannel("bone" + b,
+                        KEYS, KEYS, KEYS, GVRAnimationBehavior.DEFAULT,
+                        GVRAnimationBehavior.DEFAULT);
+                for (int k = 0; k < KEYS; ++k) {
+                    float t = k * DURATION / (KEYS - 1);
+                    channel.setPosKeyVector(k, t, position.set(0.0f, 0.1f, 0.0f));
+                    channel.setRotKeyQuaternion(k, t,
+                            rotation.identity().rotateAxis(t + c, 1.0f, 0.0f, 0.0f));
+                    channel.setScaleKeyVector(k, t, scale);
+                }
+                channels.add(channel);
+                locals[c][b] = new Matrix4f();
+                globals[c][b] = new Matrix4f();
+            }
+            clips[c] = new GVRAnimationClip(channels);
+        }
+    }
+
+    @Benchmark
+    public Matrix4f[][] evaluate() {
+        time += 1.0f / 60.0f;
+        if (time >= DURATION) {
+            time = 0.0f;
+        }
+        loop.run(characters, evaluate);
+        return globals;
+    }
+}
@@ -0,0 +1,69 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Quaternionf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Quaternionf} interpolation as used by keyframe rotation channels.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuaternionfBenchmark {
+    private final Quaternionf begin = new Quaternionf();
+    private final Quaternionf end = new Quaternionf();
+    private final Quaternionf dest = new Quaternionf();
+    private float factor;
+
+    @Setup
+    public void setup() {
+        begin.rotateAxis(0.25f, 0.0f, 1.0f, 0.0f);
+        end.rotateAxis(2.0f, 1.0f, 0.0f, 0.0f);
+    }
+
+    @Benchmark
+    public Quaternionf slerp() {
+        factor += 0.001f;
+        if (factor > 1.0f) {
+            factor = 0.0f;
+        }
+        return begin.slerp(end, factor, dest);
+    }
+
+    @Benchmark
+    public Quaternionf nlerp() {
+        factor += 0.001f;
+        if (factor > 1.0f) {
+            factor = 0.0f;
+        }
+        return begin.nlerp(end, factor, dest);
+    }
+}
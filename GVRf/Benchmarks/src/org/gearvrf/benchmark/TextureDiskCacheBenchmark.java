@@ -0,0 +1,136 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.gearvrf.utility.DiskCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold versus warm texture loads through {@link DiskCache}, the way
+ * {@code AsyncBitmapTexture} uses it. {@code ImageIO} stands in for
+ * {@code BitmapFactory}.
+ * <ul>
+ * <li>{@code cold} hashes the PNG, misses, decodes it and stores the pixels.
+ * <li>{@code warm} hashes the PNG and copies the pixels out of the mapped
+ * cache entry.
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextureDiskCacheBenchmark {
+    private static final String KEY_SUFFIX = "-2048-4194304.bitmap";
+
+    @Param({ "512", "2048" })
+    private int size;
+
+    private File directory;
+    private DiskCache cache;
+    private byte[] png;
+    private int[] pixels;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Smooth gradients plus noise compress about as well as photos
+        Random random = new Random(42);
+        BufferedImage image = new BufferedImage(size, size,
+                BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < size; ++y) {
+            for (int x = 0; x < size; ++x) {
+                int noise = random.nextInt(16);
+                image.setRGB(x, y, 0xFF000000 | ((x * 255 / size + noise) << 16)
+                        | ((y * 255 / size + noise) << 8) | (noise * 8));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        png = out.toByteArray();
+
+        pixels = new int[size * size];
+        directory = Files.createTempDirectory("gvrf-disk-cache").toFile();
+        cache = new DiskCache(directory, 256L * 1024 * 1024);
+        cold(); // Leaves the entry for warm()
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public int cold() throws IOException {
+        String key = key();
+        cache.remove(key);
+        if (cache.get(key) != null) {
+            throw new IllegalStateException("hit on a cold load");
+        }
+
+        final BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        image.getRGB(0, 0, size, size, pixels, 0, size);
+        cache.put(key, pixels.length * 4, new DiskCache.Writer() {
+            @Override
+            public void write(ByteBuffer buffer) {
+                buffer.asIntBuffer().put(pixels);
+                buffer.position(buffer.limit());
+            }
+        });
+        return pixels[pixels.length / 2];
+    }
+
+    @Benchmark
+    public int warm() throws IOException {
+        ByteBuffer buffer = cache.get(key());
+        if (buffer == null) {
+            throw new IllegalStateException("miss on a warm load");
+        }
+        IntBuffer source = buffer.asIntBuffer();
+        source.get(pixels);
+        return pixels[pixels.length / 2];
+    }
+
+    private String key() throws IOException {
+        return DiskCache.hash(new ByteArrayInputStream(png)) + KEY_SUFFIX;
+    }
+}
@@ -0,0 +1,121 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.utility.GrowBeforeQueueThreadPoolExecutor;
+import org.gearvrf.utility.WorkStealingThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Many short background tasks, the pattern of asset streaming, on the
+ * default {@link GrowBeforeQueueThreadPoolExecutor} and on the
+ * {@link WorkStealingThreadPool}.
+ * <ul>
+ * <li>{@code burst}: four threads each submit {@value #TASKS} tasks and wait
+ * for them, contending on the pool's submission path.
+ * <li>{@code nested}: tasks that each submit {@value #SUBTASKS} more tasks
+ * from a pool thread, as a {@code ThreadLimiter} or a loader does.
+ * </ul>
+ * Each task burns about a microsecond of CPU, so the scores are dominated by
+ * scheduling cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThreadPoolBenchmark {
+    private static final int TASKS = 64;
+    private static final int SUBTASKS = 8;
+    private static final long TOKENS = 200;
+
+    @Param({ "growBeforeQueue", "workStealing" })
+    private String pool;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        executor = pool.equals("workStealing") ? new WorkStealingThreadPool(
+                "benchmark") : new GrowBeforeQueueThreadPoolExecutor(
+                "benchmark");
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void burst() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(TASKS);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                Blackhole.consumeCPU(TOKENS);
+                done.countDown();
+            }
+        };
+        for (int index = 0; index < TASKS; ++index) {
+            executor.execute(task);
+        }
+        done.await();
+    }
+
+    @Benchmark
+    public void nested() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(TASKS / SUBTASKS
+                * SUBTASKS);
+        final Runnable subtask = new Runnable() {
+            @Override
+            public void run() {
+                Blackhole.consumeCPU(TOKENS);
+                done.countDown();
+            }
+        };
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                for (int index = 0; index < SUBTASKS; ++index) {
+                    executor.execute(subtask);
+                }
+            }
+        };
+        for (int index = 0; index < TASKS / SUBTASKS; ++index) {
+            executor.execute(task);
+        }
+        done.await();
+    }
+}
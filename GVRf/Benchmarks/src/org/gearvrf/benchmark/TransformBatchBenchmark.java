@@ -0,0 +1,158 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Moving every object of a scene once a frame: a position and a rotation per
+ * object, set with a native call per {@code GVRTransform} setter, or through
+ * one {@code GVRTransformBatch} call; then the positions read back the same
+ * two ways.
+ * 
+ * The native side is the framework's {@code Transform} and
+ * {@code TransformBatch}, built on the host by
+ * {@code native/transform_batch_benchmark_jni.cpp}; the Java side does what
+ * {@code GVRTransform} and {@code GVRTransformBatch} do. Put the library on
+ * {@code java.library.path}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.library.path=native")
+public class TransformBatchBenchmark {
+    // As GVRTransformBatch.POSITION and ROTATION
+    private static final int POSITION = 1;
+    private static final int ROTATION = 2;
+
+    @Param({ "2000" })
+    private int count;
+
+    private long[] transforms;
+    private ByteBuffer addresses;
+    // A position and a rotation quaternion per object, as a vehicle
+    // simulation might produce them
+    private float[] values;
+    private FloatBuffer data;
+
+    @Setup
+    public void setup() {
+        transforms = new long[count];
+        addresses = ByteBuffer.allocateDirect(count * 8).order(
+                ByteOrder.nativeOrder());
+        for (int i = 0; i < count; ++i) {
+            transforms[i] = HostTransform.ctor();
+            addresses.putLong(i * 8, transforms[i]);
+        }
+        values = new float[count * 7];
+        for (int i = 0, j = 0; i < count; ++i, j += 7) {
+            values[j] = i;
+            values[j + 2] = -i;
+            values[j + 3] = (float) Math.cos(i * 0.5f);
+            values[j + 5] = (float) Math.sin(i * 0.5f);
+        }
+        data = ByteBuffer.allocateDirect(count * 7 * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    private void move() {
+        for (int j = 1; j < values.length; j += 7) {
+            values[j] += 1.0f;
+        }
+    }
+
+    @Benchmark
+    public void setPerObject() {
+        move();
+        for (int i = 0, j = 0; i < count; ++i, j += 7) {
+            HostTransform.setPosition(transforms[i], values[j], values[j + 1],
+                    values[j + 2]);
+            HostTransform.setRotation(transforms[i], values[j + 3],
+                    values[j + 4], values[j + 5], values[j + 6]);
+        }
+    }
+
+    @Benchmark
+    public void setBatch() {
+        move();
+        data.clear();
+        data.put(values);
+        data.clear();
+        HostTransform.batchSet(addresses, count, POSITION | ROTATION, data);
+    }
+
+    @Benchmark
+    public float getPerObject() {
+        float sum = 0.0f;
+        for (int i = 0; i < count; ++i) {
+            sum += HostTransform.getPositionX(transforms[i])
+                    + HostTransform.getPositionY(transforms[i])
+                    + HostTransform.getPositionZ(transforms[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float getBatch() {
+        HostTransform.batchGet(addresses, count, POSITION, data);
+        float sum = 0.0f;
+        for (int j = 0; j < count * 3; j += 3) {
+            sum += data.get(j) + data.get(j + 1) + data.get(j + 2);
+        }
+        return sum;
+    }
+}
+
+final class HostTransform {
+    static {
+        System.loadLibrary("transformbatchbenchmark");
+    }
+
+    static native long ctor();
+
+    static native void setPosition(long transform, float x, float y, float z);
+
+    static native void setRotation(long transform, float w, float x, float y,
+            float z);
+
+    static native float getPositionX(long transform);
+
+    static native float getPositionY(long transform);
+
+    static native float getPositionZ(long transform);
+
+    static native void batchSet(ByteBuffer transforms, int count,
+            int components, FloatBuffer data);
+
+    static native void batchGet(ByteBuffer transforms, int count,
+            int components, FloatBuffer data);
+}
@@ -0,0 +1,74 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Vector3f} operations used by keyframe position/scale channels and
+ * picking.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Vector3fBenchmark {
+    private final Vector3f a = new Vector3f();
+    private final Vector3f b = new Vector3f();
+    private final Vector3f dest = new Vector3f();
+    private final Quaternionf rotation = new Quaternionf();
+
+    @Setup
+    public void setup() {
+        a.set(1.0f, 2.0f, 3.0f);
+        b.set(-4.0f, 5.0f, 0.5f);
+        rotation.rotateAxis(0.75f, 0.0f, 1.0f, 0.0f);
+    }
+
+    @Benchmark
+    public Vector3f lerp() {
+        return a.lerp(b, 0.3f, dest);
+    }
+
+    @Benchmark
+    public Vector3f crossNormalize() {
+        return a.cross(b, dest).normalize();
+    }
+
+    @Benchmark
+    public float dot() {
+        return a.dot(b);
+    }
+
+    @Benchmark
+    public Vector3f rotate() {
+        return a.rotate(rotation, dest);
+    }
+}
@@ -0,0 +1,311 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.jassimp2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading a model from {@link GVRJassimpCache}, against parsing the same
+ * geometry from OBJ text.
+ *
+ * The model is {@code meshes} grids of {@code vertices} vertices each, with
+ * normals and texture coordinates, a material per mesh, a node per mesh, and
+ * an animation channel per node. Reading the cache maps the file, rebuilds
+ * the scene and then reads every position, as handing the meshes to
+ * {@code GVRMesh} would. Parsing the OBJ text into direct buffers is only the
+ * first step of re-importing it: Assimp also post-processes the scene, and
+ * jassimp copies it into Java, neither of which can run on the host.
+ *
+ * Jassimp asks its native library for the sizes of Assimp's structures, so
+ * this benchmark needs the host library built from
+ * {@code native/model_cache_benchmark_jni.cpp} on {@code java.library.path}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.library.path=native")
+public class ModelCacheBenchmark {
+    static {
+        System.loadLibrary("modelcachebenchmark");
+    }
+
+    private static final int TRIANGLE = 0x4; // aiPrimitiveType_TRIANGLE
+    private static final int KEYS = 100;
+    private static final GVRNewWrapperProvider WRAPPER_PROVIDER =
+            new GVRNewWrapperProvider();
+
+    @Param({ "8" })
+    private int meshes;
+
+    @Param({ "16384" })
+    private int vertices;
+
+    private File cache;
+    private File obj;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        AiScene scene = createScene();
+        cache = File.createTempFile("model", GVRJassimpCache.EXTENSION);
+        GVRJassimpCache.write(scene, cache);
+        obj = File.createTempFile("model", ".obj");
+        writeObj(scene, obj);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.delete();
+        obj.delete();
+    }
+
+    @Benchmark
+    public float readCache() throws IOException {
+        AiScene scene = GVRJassimpCache.read(cache);
+        float sum = 0.0f;
+        for (AiMesh mesh : scene.getMeshes()) {
+            FloatBuffer positions = mesh.getPositionBuffer();
+            while (positions.hasRemaining()) {
+                sum += positions.get();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float parseObj() throws IOException {
+        List<FloatBuffer> positions = new ArrayList<FloatBuffer>();
+        FloatArray v = new FloatArray();
+        FloatArray vt = new FloatArray();
+        FloatArray vn = new FloatArray();
+        IntArray f = new IntArray();
+        BufferedReader reader = new BufferedReader(new FileReader(obj));
+        try {
+            for (String line; (line = reader.readLine()) != null;) {
+                String[] tokens = line.split(" ");
+                if (tokens[0].equals("v")) {
+                    v.add(tokens, 3);
+                } else if (tokens[0].equals("vt")) {
+                    vt.add(tokens, 2);
+                } else if (tokens[0].equals("vn")) {
+                    vn.add(tokens, 3);
+                } else if (tokens[0].equals("f")) {
+                    for (int i = 1; i < 4; ++i) {
+                        String index = tokens[i];
+                        f.add(Integer.parseInt(index.substring(0,
+                                index.indexOf('/'))) - 1);
+                    }
+                } else if (tokens[0].equals("o") && v.size > 0) {
+                    positions.add(v.toBuffer());
+                    vt.toBuffer();
+                    vn.toBuffer();
+                    f.toBuffer();
+                }
+            }
+            positions.add(v.toBuffer());
+            vt.toBuffer();
+            vn.toBuffer();
+            f.toBuffer();
+        } finally {
+            reader.close();
+        }
+        float sum = 0.0f;
+        for (FloatBuffer buffer : positions) {
+            while (buffer.hasRemaining()) {
+                sum += buffer.get();
+            }
+        }
+        return sum;
+    }
+
+    private AiScene createScene() {
+        AiScene scene = new AiScene();
+        int side = (int) Math.sqrt(vertices);
+        int faces = (side - 1) * (side - 1) * 2;
+        AiNode root = WRAPPER_PROVIDER.wrapSceneNode(null,
+                identity(), new int[0], "root");
+        AiAnimation animation = new AiAnimation("animation", KEYS, 30.0);
+        for (int m = 0; m < meshes; ++m) {
+            ByteBuffer positions = allocate(vertices * 3 * 4);
+            ByteBuffer normals = allocate(vertices * 3 * 4);
+            ByteBuffer texCoords = allocate(vertices * 2 * 4);
+            for (int i = 0; i < vertices; ++i) {
+                float u = (float) (i % side) / side;
+                float v = (float) (i / side) / side;
+                positions.putFloat(u).putFloat(m).putFloat(v);
+                normals.putFloat(0.0f).putFloat(1.0f).putFloat(0.0f);
+                texCoords.putFloat(u).putFloat(v);
+            }
+            ByteBuffer indices = allocate(faces * 3 * 4);
+            for (int row = 0; row < side - 1; ++row) {
+                for (int column = 0; column < side - 1; ++column) {
+                    int a = row * side + column;
+                    int b = a + side;
+                    indices.putInt(a).putInt(b).putInt(a + 1);
+                    indices.putInt(a + 1).putInt(b).putInt(b + 1);
+                }
+            }
+            positions.clear();
+            normals.clear();
+            texCoords.clear();
+            indices.clear();
+            AiMesh mesh = new AiMesh("mesh" + m, m, TRIANGLE, vertices,
+                    faces, positions, indices, null);
+            mesh.setVectorChannels(normals, null, null);
+            mesh.setTexCoordBuffer(0, 2, texCoords);
+            scene.getMeshes().add(mesh);
+
+            AiMaterial material = new AiMaterial();
+            for (AiTextureType type : AiTextureType.values()) {
+                material.setTextureNumber(AiTextureType.toRawValue(type), 0);
+            }
+            material.getProperties().add(
+                    new AiMaterial.Property("$clr.diffuse", 0, 0, 1, Jassimp
+                            .wrapColor4(1.0f, 0.5f, 0.25f, 1.0f)));
+            material.getProperties().add(
+                    new AiMaterial.Property("?mat.name", 0, 0, 3, "material"
+                            + m));
+            scene.getMaterials().add(material);
+
+            WRAPPER_PROVIDER.wrapSceneNode(root, identity(),
+                    new int[] { m }, "node" + m);
+            AiNodeAnim channel = new AiNodeAnim("node" + m, KEYS, KEYS, KEYS,
+                    0, 0);
+            for (int k = 0; k < KEYS; ++k) {
+                channel.getPosKeyBuffer().putDouble(
+                        k * Jassimp.NATIVE_AIVEKTORKEY_SIZE, k);
+            }
+            animation.getChannels().add(channel);
+        }
+        scene.setSceneRoot(root);
+        scene.getAnimations().add(animation);
+        return scene;
+    }
+
+    private static void writeObj(AiScene scene, File file) throws IOException {
+        Writer writer = new BufferedWriter(new FileWriter(file));
+        try {
+            int first = 1;
+            for (AiMesh mesh : scene.getMeshes()) {
+                writer.write("o " + mesh.getName() + "\n");
+                FloatBuffer positions = mesh.getPositionBuffer();
+                FloatBuffer normals = mesh.getNormalBuffer();
+                FloatBuffer texCoords = mesh.getTexCoordBuffer(0);
+                for (int i = 0; i < mesh.getNumVertices(); ++i) {
+                    writer.write("v " + positions.get() + " "
+                            + positions.get() + " " + positions.get() + "\n");
+                }
+                for (int i = 0; i < mesh.getNumVertices(); ++i) {
+                    writer.write("vt " + texCoords.get() + " "
+                            + texCoords.get() + "\n");
+                }
+                for (int i = 0; i < mesh.getNumVertices(); ++i) {
+                    writer.write("vn " + normals.get() + " " + normals.get()
+                            + " " + normals.get() + "\n");
+                }
+                IntBuffer indices = mesh.getIndexBuffer();
+                while (indices.hasRemaining()) {
+                    writer.write("f");
+                    for (int i = 0; i < 3; ++i) {
+                        int index = indices.get() + first;
+                        writer.write(" " + index + "/" + index + "/" + index);
+                    }
+                    writer.write("\n");
+                }
+                first += mesh.getNumVertices();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static float[] identity() {
+        return new float[] { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1 };
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    // Growable arrays, emptied into direct buffers as jassimp's are
+    private static final class FloatArray {
+        float[] values = new float[1024];
+        int size;
+
+        void add(String[] tokens, int count) {
+            if (size + count > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            for (int i = 1; i <= count; ++i) {
+                values[size++] = Float.parseFloat(tokens[i]);
+            }
+        }
+
+        FloatBuffer toBuffer() {
+            FloatBuffer buffer = allocate(size * 4).asFloatBuffer();
+            buffer.put(values, 0, size).flip();
+            size = 0;
+            return buffer;
+        }
+    }
+
+    private static final class IntArray {
+        int[] values = new int[1024];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = value;
+        }
+
+        IntBuffer toBuffer() {
+            IntBuffer buffer = allocate(size * 4).asIntBuffer();
+            buffer.put(values, 0, size).flip();
+            size = 0;
+            return buffer;
+        }
+    }
+}
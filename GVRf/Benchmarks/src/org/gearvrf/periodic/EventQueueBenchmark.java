@@ -0,0 +1,113 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.periodic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One frame of {@link GVRPeriodicEngine} bookkeeping with many periodic
+ * events, for the {@link PriorityEventQueue} and the {@link TimingWheel}
+ * backends. Each frame releases the due events and schedules their next run,
+ * and reschedules a few pending events, as UI code does when it postpones a
+ * timeout. This class lives in the framework's package to reach the
+ * package-private queues.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventQueueBenchmark {
+    private static final float FRAME_TIME = 1f / 60f;
+    private static final int RESCHEDULES_PER_FRAME = 32;
+
+    @Param({ "1000", "10000" })
+    private int events;
+
+    @Param({ "priorityQueue", "timingWheel" })
+    private String backend;
+
+    private EventQueue queue;
+    private Task[] tasks;
+    private Random random;
+    private float now;
+
+    private static final class Task extends EventQueue.Entry {
+        final float period;
+        float time;
+
+        Task(float period, float time) {
+            this.period = period;
+            this.time = time;
+        }
+
+        @Override
+        float getScheduledTime() {
+            return time;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        now = 0f;
+        queue = backend.equals("timingWheel") ? new TimingWheel(now,
+                FRAME_TIME) : new PriorityEventQueue();
+
+        tasks = new Task[events];
+        for (int index = 0; index < events; ++index) {
+            // Periods from a quarter second to ten seconds
+            float period = 0.25f + random.nextFloat() * 9.75f;
+            tasks[index] = new Task(period, random.nextFloat() * period);
+            queue.add(tasks[index]);
+        }
+    }
+
+    @Benchmark
+    public int frame() {
+        now += FRAME_TIME;
+
+        int released = 0;
+        for (EventQueue.Entry due = queue.poll(now); due != null; due = queue
+                .poll(now)) {
+            Task task = (Task) due;
+            task.time += task.period;
+            queue.add(task);
+            ++released;
+        }
+
+        for (int count = 0; count < RESCHEDULES_PER_FRAME; ++count) {
+            Task task = tasks[random.nextInt(events)];
+            queue.remove(task);
+            task.time = now + task.period;
+            queue.add(task);
+        }
+        return released;
+    }
+}
@@ -1,6 +1,7 @@
 #include "../jassimp2/jassimp.h"
 
 #include <assimp/cimport.h>
+#include <assimp/config.h>
 #include <assimp/scene.h>
 
 #include "android/asset_manager_jni.h"
@@ -16,6 +17,10 @@
 #define lprintf
 #endif
 
+/* GVRf meshes hold 16-bit indices, so SplitLargeMeshes keeps them below
+ * 65536 vertices, with room for the face that reaches the limit */
+#define MAX_MESH_VERTICES (0xFFFF - 2)
+
 class DeleteLocalRef {
 private:
     JNIEnv* mEnv;
@@ -1518,13 +1523,18 @@ static jobject importHelper(JNIEnv *env, jclass jClazz, jstring jFilename, jlong
 
 	/* do import */
 	const aiScene *cScene;
+	aiPropertyStore* properties = aiCreatePropertyStore();
+	aiSetImportPropertyInteger(properties, AI_CONFIG_PP_SLM_VERTEX_LIMIT,
+			MAX_MESH_VERTICES);
 	if (assetManager) {
 		AAssetManager* mgr = AAssetManager_fromJava(env, assetManager);
 
 		int assetSize;
 		char *pBuffer = extractAsset(mgr, cFilename, &assetSize);
-		if (!pBuffer)
+		if (!pBuffer) {
+			aiReleasePropertyStore(properties);
 			return NULL;
+		}
 
 		char* extension = 0;
 		if (cFilename != 0) {
@@ -1534,13 +1544,15 @@ static jobject importHelper(JNIEnv *env, jclass jClazz, jstring jFilename, jlong
 			}
 		}
 
-		cScene = aiImportFileFromMemory(pBuffer, assetSize, (unsigned int) postProcess,
-				extension);
+		cScene = aiImportFileFromMemoryWithProperties(pBuffer, assetSize,
+				(unsigned int) postProcess, extension, properties);
 
 		delete pBuffer;
 	} else {
-		cScene = aiImportFile(cFilename, (unsigned int) postProcess);
+		cScene = aiImportFileExWithProperties(cFilename, (unsigned int) postProcess,
+				NULL, properties);
 	}
+	aiReleasePropertyStore(properties);
 
 	lprintf("jassimp aiImportFile done");
 	if (!cScene)
@@ -19,10 +19,25 @@
 
 #include "importer.h"
 
+#include "assimp/config.h"
+
 namespace gvr {
+namespace {
+// Meshes hold 16-bit indices, so SplitLargeMeshes keeps them below 65536
+// vertices, with room for the face that reaches the limit
+const int MAX_MESH_VERTICES = 0xFFFF - 2;
+
+Assimp::Importer* createImporter() {
+    Assimp::Importer* importer = new Assimp::Importer();
+    importer->SetPropertyInteger(AI_CONFIG_PP_SLM_VERTEX_LIMIT,
+            MAX_MESH_VERTICES);
+    return importer;
+}
+}
+
 AssimpImporter* Importer::readFileFromAssets(char* buffer, long size,
         const char * filename, int settings) {
-    Assimp::Importer* importer = new Assimp::Importer();
+    Assimp::Importer* importer = createImporter();
     char* hint = 0;
 
     if (filename != 0) {
@@ -37,7 +52,7 @@ AssimpImporter* Importer::readFileFromAssets(char* buffer, long size,
 }
 
 AssimpImporter* Importer::readFileFromSDCard(const char * filename, int settings) {
-    Assimp::Importer* importer = new Assimp::Importer();
+    Assimp::Importer* importer = createImporter();
     importer->ReadFile(filename, settings);
     return new AssimpImporter(importer);
 }
@@ -0,0 +1,406 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * A bounding volume hierarchy over axis-aligned boxes, for ray queries.
+ *
+ * Built top down with the surface area heuristic, over binned box centers.
+ * When the boxes move, refit() updates the node bounds in place, without
+ * changing the tree; a caller should build() again once the tree has
+ * degraded, which it can tell from surfaceArea().
+ *
+ * Items are the indices of the boxes passed to build(). Items with empty
+ * boxes are left out, so refit() cannot take in a box that has stopped being
+ * empty; it says so, and the caller must build() again.
+ *
+ * Has no GL or JNI dependencies, so it can be built on the host.
+ ***************************************************************************/
+
+#ifndef BOUNDING_VOLUME_HIERARCHY_H_
+#define BOUNDING_VOLUME_HIERARCHY_H_
+
+#include <algorithm>
+#include <limits>
+#include <vector>
+
+#include "glm/glm.hpp"
+
+#include "objects/bounding_volume.h"
+
+namespace gvr {
+
+class BoundingVolumeHierarchy {
+public:
+    static const int MAX_LEAF_SIZE = 4;
+
+    BoundingVolumeHierarchy() :
+            nodes_(), items_(), box_count_(0) {
+    }
+
+    bool empty() const {
+        return nodes_.empty();
+    }
+
+    int item_count() const {
+        return items_.size();
+    }
+
+    void clear() {
+        nodes_.clear();
+        items_.clear();
+        box_count_ = 0;
+    }
+
+    void build(const std::vector<BoundingVolume>& boxes) {
+        clear();
+        box_count_ = boxes.size();
+        for (int i = 0; i < boxes.size(); ++i) {
+            if (!boxes[i].empty()) {
+                items_.push_back(i);
+            }
+        }
+        if (items_.empty()) {
+            return;
+        }
+
+        std::vector<int> stack;
+        nodes_.push_back(Node(0, items_.size()));
+        stack.push_back(0);
+        while (!stack.empty()) {
+            int index = stack.back();
+            stack.pop_back();
+            fit(index, boxes);
+            split(index, boxes, stack);
+        }
+    }
+
+    // Update the bounds of every node, after the boxes have moved. Returns
+    // false, and leaves the tree as it was, if boxes have been added or
+    // removed, or have become empty or stopped being empty since build():
+    // then only build() picks the same items as a linear scan.
+    bool refit(const std::vector<BoundingVolume>& boxes) {
+        if ((int) boxes.size() != box_count_) {
+            return false;
+        }
+        int filled = 0;
+        for (int i = 0; i < boxes.size(); ++i) {
+            if (!boxes[i].empty()) {
+                ++filled;
+            }
+        }
+        if (filled != items_.size()) {
+            return false;
+        }
+        for (int i = 0; i < items_.size(); ++i) {
+            if (boxes[items_[i]].empty()) {
+                return false;
+            }
+        }
+
+        // Children are always stored after their parent
+        for (int index = nodes_.size() - 1; index >= 0; --index) {
+            Node& node = nodes_[index];
+            if (node.count > 0) {
+                fit(index, boxes);
+            } else {
+                const Node& left = nodes_[node.first];
+                const Node& right = nodes_[node.first + 1];
+                node.min_corner = glm::min(left.min_corner, right.min_corner);
+                node.max_corner = glm::max(left.max_corner, right.max_corner);
+            }
+        }
+        return true;
+    }
+
+    // Of the root's box: grows as the tree degrades under refit()
+    float surfaceArea() const {
+        if (nodes_.empty()) {
+            return 0.0f;
+        }
+        return area(nodes_[0].min_corner, nodes_[0].max_corner);
+    }
+
+    /*
+     * Call visitor.visit(item, max_distance) for every item whose box the
+     * ray origin + t * direction enters, for some 0 <= t <= max_distance.
+     * The visitor can lower max_distance, to skip the boxes beyond the
+     * closest hit it has found. Nearer boxes are visited first.
+     *
+     * stack is scratch space, passed in so that it can be reused.
+     */
+    template<class Visitor>
+    void intersect(const glm::vec3& origin, const glm::vec3& direction,
+            std::vector<int>& stack, Visitor& visitor,
+            float max_distance = std::numeric_limits<float>::infinity()) const {
+        if (nodes_.empty()) {
+            return;
+        }
+        glm::vec3 inverse_direction = 1.0f / direction;
+
+        stack.clear();
+        float distance;
+        if (enters(nodes_[0], origin, inverse_direction, max_distance,
+                distance)) {
+            stack.push_back(0);
+        }
+        while (!stack.empty()) {
+            const Node& node = nodes_[stack.back()];
+            stack.pop_back();
+
+            if (node.count > 0) {
+                for (int i = node.first; i < node.first + node.count; ++i) {
+                    visitor.visit(items_[i], max_distance);
+                }
+                continue;
+            }
+
+            float left_distance, right_distance;
+            bool left = enters(nodes_[node.first], origin, inverse_direction,
+                    max_distance, left_distance);
+            bool right = enters(nodes_[node.first + 1], origin,
+                    inverse_direction, max_distance, right_distance);
+            if (left && right) {
+                // Push the farther child first, to pop the nearer one
+                if (left_distance < right_distance) {
+                    stack.push_back(node.first + 1);
+                    stack.push_back(node.first);
+                } else {
+                    stack.push_back(node.first);
+                    stack.push_back(node.first + 1);
+                }
+            } else if (left) {
+                stack.push_back(node.first);
+            } else if (right) {
+                stack.push_back(node.first + 1);
+            }
+        }
+    }
+
+private:
+    static const int BIN_COUNT = 16;
+
+    struct Node {
+        Node(int first, int count) :
+                min_corner(), max_corner(), first(first), count(count) {
+        }
+
+        glm::vec3 min_corner;
+        glm::vec3 max_corner;
+        // A leaf holds items_[first, first + count); an internal node has
+        // count 0, and its children at nodes_[first] and nodes_[first + 1]
+        int first;
+        int count;
+    };
+
+    struct Bin {
+        Bin() :
+                count(0), min_corner(std::numeric_limits<float>::infinity()),
+                max_corner(-std::numeric_limits<float>::infinity()) {
+        }
+
+        int count;
+        glm::vec3 min_corner;
+        glm::vec3 max_corner;
+    };
+
+    static float area(const glm::vec3& min_corner,
+            const glm::vec3& max_corner) {
+        glm::vec3 extent = max_corner - min_corner;
+        return 2.0f
+                * (extent.x * extent.y + extent.y * extent.z
+                        + extent.z * extent.x);
+    }
+
+    static glm::vec3 center(const BoundingVolume& box) {
+        return (box.min_corner() + box.max_corner()) * 0.5f;
+    }
+
+    // Slab test: whether the ray enters the node's box before max_distance
+    static bool enters(const Node& node, const glm::vec3& origin,
+            const glm::vec3& inverse_direction, float max_distance,
+            float& distance) {
+        glm::vec3 t1 = (node.min_corner - origin) * inverse_direction;
+        glm::vec3 t2 = (node.max_corner - origin) * inverse_direction;
+        glm::vec3 entry = glm::min(t1, t2);
+        glm::vec3 exit = glm::max(t1, t2);
+        float t_near = std::max(std::max(entry.x, entry.y),
+                std::max(entry.z, 0.0f));
+        float t_far = std::min(std::min(exit.x, exit.y),
+                std::min(exit.z, max_distance));
+        distance = t_near;
+        return t_near <= t_far;
+    }
+
+    void fit(int index, const std::vector<BoundingVolume>& boxes) {
+        Node& node = nodes_[index];
+        node.min_corner = glm::vec3(std::numeric_limits<float>::infinity());
+        node.max_corner = glm::vec3(-std::numeric_limits<float>::infinity());
+        for (int i = node.first; i < node.first + node.count; ++i) {
+            const BoundingVolume& box = boxes[items_[i]];
+            node.min_corner = glm::min(node.min_corner, box.min_corner());
+            node.max_corner = glm::max(node.max_corner, box.max_corner());
+        }
+    }
+
+    // Split a node in two, or leave it a leaf when that is cheaper
+    void split(int index, const std::vector<BoundingVolume>& boxes,
+            std::vector<int>& stack) {
+        int first = nodes_[index].first;
+        int count = nodes_[index].count;
+        if (count <= MAX_LEAF_SIZE) {
+            return;
+        }
+
+        glm::vec3 center_min(std::numeric_limits<float>::infinity());
+        glm::vec3 center_max(-std::numeric_limits<float>::infinity());
+        for (int i = first; i < first + count; ++i) {
+            glm::vec3 c = center(boxes[items_[i]]);
+            center_min = glm::min(center_min, c);
+            center_max = glm::max(center_max, c);
+        }
+        glm::vec3 extent = center_max - center_min;
+        int axis = extent.x > extent.y ? (extent.x > extent.z ? 0 : 2)
+                : (extent.y > extent.z ? 1 : 2);
+
+        int middle = first + count / 2;
+        bool binned = false;
+        if (extent[axis] > 0.0f) {
+            float scale = BIN_COUNT / extent[axis];
+            Bin bins[BIN_COUNT];
+            for (int i = first; i < first + count; ++i) {
+                const BoundingVolume& box = boxes[items_[i]];
+                Bin& bin = bins[binOf(center(box)[axis], center_min[axis],
+                        scale)];
+                ++bin.count;
+                bin.min_corner = glm::min(bin.min_corner, box.min_corner());
+                bin.max_corner = glm::max(bin.max_corner, box.max_corner());
+            }
+
+            // Cost of splitting after each bin: area times count, per side
+            float left_cost[BIN_COUNT - 1];
+            Bin sweep;
+            for (int b = 0; b < BIN_COUNT - 1; ++b) {
+                accumulate(sweep, bins[b]);
+                left_cost[b] =
+                        sweep.count == 0 ?
+                                0.0f :
+                                sweep.count
+                                        * area(sweep.min_corner,
+                                                sweep.max_corner);
+            }
+            float best_cost = std::numeric_limits<float>::infinity();
+            int best_bin = -1;
+            sweep = Bin();
+            for (int b = BIN_COUNT - 1; b > 0; --b) {
+                accumulate(sweep, bins[b]);
+                float right_cost =
+                        sweep.count == 0 ?
+                                0.0f :
+                                sweep.count
+                                        * area(sweep.min_corner,
+                                                sweep.max_corner);
+                float cost = left_cost[b - 1] + right_cost;
+                if (cost < best_cost) {
+                    best_cost = cost;
+                    best_bin = b - 1;
+                }
+            }
+
+            const Node& node = nodes_[index];
+            float leaf_cost = count * area(node.min_corner, node.max_corner);
+            if (best_cost >= leaf_cost && count <= 4 * MAX_LEAF_SIZE) {
+                return;
+            }
+
+            int* partition = std::partition(&items_[first],
+                    &items_[first] + count,
+                    BinFilter(boxes, axis, center_min[axis], scale,
+                            best_bin));
+            int split_at = partition - &items_[0];
+            if (split_at != first && split_at != first + count) {
+                middle = split_at;
+                binned = true;
+            }
+        }
+        if (!binned) {
+            // No useful split by bins: the centers coincide, or all fall
+            // in one bin. Split by position along the axis instead.
+            std::nth_element(&items_[first], &items_[middle],
+                    &items_[first] + count,
+                    CenterLess(boxes, axis));
+        }
+
+        int left = nodes_.size();
+        nodes_.push_back(Node(first, middle - first));
+        nodes_.push_back(Node(middle, first + count - middle));
+        nodes_[index].first = left;
+        nodes_[index].count = 0;
+        stack.push_back(left + 1);
+        stack.push_back(left);
+    }
+
+    static int binOf(float value, float min_value, float scale) {
+        int bin = int((value - min_value) * scale);
+        return std::min(std::max(bin, 0), BIN_COUNT - 1);
+    }
+
+    static void accumulate(Bin& sum, const Bin& bin) {
+        sum.count += bin.count;
+        sum.min_corner = glm::min(sum.min_corner, bin.min_corner);
+        sum.max_corner = glm::max(sum.max_corner, bin.max_corner);
+    }
+
+    struct BinFilter {
+        BinFilter(const std::vector<BoundingVolume>& boxes, int axis,
+                float min_value, float scale, int last_bin) :
+                boxes(boxes), axis(axis), min_value(min_value), scale(
+                        scale), last_bin(last_bin) {
+        }
+
+        bool operator()(int item) const {
+            return binOf(center(boxes[item])[axis], min_value, scale)
+                    <= last_bin;
+        }
+
+        const std::vector<BoundingVolume>& boxes;
+        int axis;
+        float min_value;
+        float scale;
+        int last_bin;
+    };
+
+    struct CenterLess {
+        CenterLess(const std::vector<BoundingVolume>& boxes, int axis) :
+                boxes(boxes), axis(axis) {
+        }
+
+        bool operator()(int lhs, int rhs) const {
+            return center(boxes[lhs])[axis] < center(boxes[rhs])[axis];
+        }
+
+        const std::vector<BoundingVolume>& boxes;
+        int axis;
+    };
+
+private:
+    std::vector<Node> nodes_;
+    std::vector<int> items_;
+    // The number of boxes built from, empty or not
+    int box_count_;
+};
+
+}
+#endif
@@ -19,13 +19,17 @@
 
 #include "picker.h"
 
+#include <algorithm>
+#include <cstring>
 #include <limits>
+#include <stdint.h>
 
 #include "glm/glm.hpp"
 #include "glm/gtc/matrix_inverse.hpp"
 
 #include "engine/picker/eye_point_data.h"
 #include "engine/picker/eye_pointee_holder_data.h"
+#include "engine/picker/picking_hierarchy.h"
 #include "objects/scene.h"
 #include "objects/scene_object.h"
 #include "objects/components/camera_rig.h"
@@ -41,31 +45,103 @@ Picker::Picker() {
 Picker::~Picker() {
 }
 
-std::vector<EyePointeeHolder*> Picker::pickScene(Scene* scene, float ox,
-        float oy, float oz, float dx, float dy, float dz) {
-    std::vector<SceneObject*> scene_objects = scene->getWholeSceneObjects();
-    std::vector<EyePointeeHolder*> eye_pointee_holders;
-    for (auto it = scene_objects.begin(); it != scene_objects.end(); ++it) {
-        EyePointeeHolder* eye_pointee_holder = (*it)->eye_pointee_holder();
-        if (eye_pointee_holder != 0 && eye_pointee_holder->enable()) {
-            eye_pointee_holders.push_back(eye_pointee_holder);
+namespace {
+// Keeps every hit, and sets it on its holder
+struct HolderSink: public PickingHierarchy::Sink {
+    std::vector<EyePointeeHolderData> picked;
+
+    void add(int ray, EyePointeeHolder* holder, const EyePointData& data) {
+        holder->set_hit(data.hit());
+        picked.push_back(EyePointeeHolderData(holder, data.distance()));
+    }
+};
+
+// Keeps the nearest hits of each ray, in order, in caller-owned records:
+// capacity records per ray, and an int count per ray. Neither need be
+// aligned, so they are only read and written with memcpy.
+struct RecordSink: public PickingHierarchy::Sink {
+    RecordSink(void* records, int capacity, void* counts) :
+            records(static_cast<char*>(records)), capacity(capacity), counts(
+                    static_cast<char*>(counts)) {
+    }
+
+    void add(int ray, EyePointeeHolder* holder, const EyePointData& data) {
+        int count = countOf(ray);
+        int stored = std::min(count, capacity);
+        ++count;
+        std::memcpy(counts + ray * sizeof(int), &count, sizeof(count));
+
+        float distance = data.distance();
+        int index = stored;
+        while (index > 0 && distance < distanceAt(ray, index - 1)) {
+            --index;
+        }
+        if (index == capacity) {
+            return;
         }
+        int moved = std::min(stored, capacity - 1) - index;
+        std::memmove(record(ray, index + 1), record(ray, index),
+                moved * Picker::RECORD_SIZE);
+
+        int64_t address = reinterpret_cast<intptr_t>(holder);
+        glm::vec3 hit = data.hit();
+        float values[4] = { distance, hit.x, hit.y, hit.z };
+        std::memcpy(record(ray, index), &address, sizeof(address));
+        std::memcpy(record(ray, index) + sizeof(address), values,
+                sizeof(values));
     }
 
-    std::vector<EyePointeeHolder*> picked_holders;
+    void clear(int ray_count) {
+        std::memset(counts, 0, ray_count * sizeof(int));
+    }
+
+    int countOf(int ray) {
+        int count;
+        std::memcpy(&count, counts + ray * sizeof(int), sizeof(count));
+        return count;
+    }
+
+    char* record(int ray, int index) {
+        return records + (ray * capacity + index) * Picker::RECORD_SIZE;
+    }
+
+    float distanceAt(int ray, int index) {
+        float distance;
+        std::memcpy(&distance, record(ray, index) + sizeof(int64_t),
+                sizeof(distance));
+        return distance;
+    }
+
+    char* records;
+    int capacity;
+    char* counts;
+};
+
+// Picks in the space of the main camera rig's head
+bool pickFromHead(Scene* scene, const float* rays, int ray_count,
+        PickingHierarchy::Sink& sink) {
     Transform* const t = scene->main_camera_rig()->getHeadTransform();
-    if (nullptr != t) {
-        glm::mat4 view_matrix = glm::affineInverse(t->getModelMatrix());
-
-        std::vector<EyePointeeHolderData> picked_holder_data;
-        for (auto it = eye_pointee_holders.begin(); it != eye_pointee_holders.end(); ++it) {
-            EyePointData data = (*it)->isPointed(view_matrix, ox, oy, oz, dx, dy, dz);
-            if (data.pointed()) {
-                (*it)->set_hit(data.hit());
-                picked_holder_data.push_back(EyePointeeHolderData(*it, data.distance()));
-            }
-        }
+    if (nullptr == t) {
+        return false;
+    }
+    glm::mat4 view_matrix = glm::affineInverse(t->getModelMatrix());
+
+    // Only the holders whose bounds the ray crosses are tested
+    std::vector<int> stack;
+    stack.reserve(64);
+    scene->picking_hierarchy().pick(view_matrix, rays, ray_count, stack,
+            sink);
+    return true;
+}
+}
 
+std::vector<EyePointeeHolder*> Picker::pickScene(Scene* scene, float ox,
+        float oy, float oz, float dx, float dy, float dz) {
+    std::vector<EyePointeeHolder*> picked_holders;
+    HolderSink sink;
+    float ray[6] = { ox, oy, oz, dx, dy, dz };
+    if (pickFromHead(scene, ray, 1, sink)) {
+        std::vector<EyePointeeHolderData>& picked_holder_data = sink.picked;
         std::sort(picked_holder_data.begin(), picked_holder_data.end(), compareEyePointeeHolderData);
         for (auto it = picked_holder_data.begin(); it != picked_holder_data.end(); ++it) {
             EyePointeeHolder* holder = it->eye_pointee_holder();
@@ -80,6 +156,22 @@ std::vector<EyePointeeHolder*> Picker::pickScene(Scene* scene) {
     return Picker::pickScene(scene, 0, 0, 0, 0, 0, -1.0f);
 }
 
+int Picker::pickScene(Scene* scene, float ox, float oy, float oz, float dx,
+        float dy, float dz, void* records, int capacity) {
+    int count = 0;
+    RecordSink sink(records, capacity, &count);
+    float ray[6] = { ox, oy, oz, dx, dy, dz };
+    pickFromHead(scene, ray, 1, sink);
+    return count;
+}
+
+void Picker::pickScene(Scene* scene, const float* rays, int ray_count,
+        void* records, int capacity, void* counts) {
+    RecordSink sink(records, capacity, counts);
+    sink.clear(ray_count);
+    pickFromHead(scene, rays, ray_count, sink);
+}
+
 float Picker::pickSceneObject(const SceneObject* scene_object,
         const CameraRig* camera_rig) {
     glm::mat4 view_matrix = glm::affineInverse(
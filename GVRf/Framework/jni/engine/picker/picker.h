@@ -41,6 +41,29 @@ public:
     static std::vector<EyePointeeHolder*> pickScene(
             Scene* scene, float ox, float oy, float oz,
             float dx, float dy, float dz);
+
+    /*
+     * Writes the hits, nearest first, to records of RECORD_SIZE bytes: the
+     * holder's address as an int64_t, then the distance and the x, y and z
+     * of the hit point as floats, in native byte order. Keeps the nearest
+     * capacity hits, and returns how many hits there are.
+     *
+     * Unlike the overloads above, does not set the holders' hits, so any
+     * number of threads can call it at once.
+     */
+    static const int RECORD_SIZE = 24;
+    static int pickScene(Scene* scene, float ox, float oy, float oz,
+            float dx, float dy, float dz, void* records, int capacity);
+
+    /*
+     * Picks ray_count rays at once, sharing the work between them. Ray r is
+     * the six floats ox, oy, oz, dx, dy, dz at rays + 6 * r. Its nearest
+     * hits go to the capacity records from records + r * capacity *
+     * RECORD_SIZE, as above, and the number of its hits to the r-th int of
+     * counts. None of the buffers need be aligned.
+     */
+    static void pickScene(Scene* scene, const float* rays, int ray_count,
+            void* records, int capacity, void* counts);
     static float pickSceneObject(
             const SceneObject* scene_object,
             const CameraRig* camera_rig);
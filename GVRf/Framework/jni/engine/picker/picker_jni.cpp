@@ -29,6 +29,14 @@ JNIEXPORT jlongArray JNICALL
 Java_org_gearvrf_NativePicker_pickScene(JNIEnv * env,
         jobject obj, jlong jscene, jfloat ox, jfloat oy, jfloat z, jfloat dx,
         jfloat dy, jfloat dz);
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativePicker_pickSceneToBuffer(JNIEnv * env,
+        jobject obj, jlong jscene, jfloat ox, jfloat oy, jfloat oz, jfloat dx,
+        jfloat dy, jfloat dz, jobject jrecords, jint capacity);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativePicker_pickRaysToBuffer(JNIEnv * env,
+        jobject obj, jlong jscene, jobject jrays, jint offset,
+        jint ray_count, jobject jrecords, jint capacity, jobject jcounts);
 JNIEXPORT jfloat JNICALL
 Java_org_gearvrf_NativePicker_pickSceneObject(JNIEnv * env,
         jobject obj, jlong jscene_object, jlong jcamera_rig);
@@ -59,6 +67,34 @@ Java_org_gearvrf_NativePicker_pickScene(JNIEnv * env,
     return jeye_pointee_holders;
 }
 
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativePicker_pickSceneToBuffer(JNIEnv * env,
+        jobject obj, jlong jscene, jfloat ox, jfloat oy, jfloat oz, jfloat dx,
+        jfloat dy, jfloat dz, jobject jrecords, jint capacity) {
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    void* records = env->GetDirectBufferAddress(jrecords);
+    if (records == 0) {
+        capacity = 0;
+    }
+    return Picker::pickScene(scene, ox, oy, oz, dx, dy, dz, records, capacity);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativePicker_pickRaysToBuffer(JNIEnv * env,
+        jobject obj, jlong jscene, jobject jrays, jint offset,
+        jint ray_count, jobject jrecords, jint capacity, jobject jcounts) {
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    float* rays = static_cast<float*>(env->GetDirectBufferAddress(jrays));
+    void* records = env->GetDirectBufferAddress(jrecords);
+    void* counts = env->GetDirectBufferAddress(jcounts);
+    if (rays == 0 || records == 0 || counts == 0) {
+        LOGE("pickRaysToBuffer(): buffers must be direct");
+        return;
+    }
+    Picker::pickScene(scene, rays + offset, ray_count, records, capacity,
+            counts);
+}
+
 JNIEXPORT jfloat JNICALL
 Java_org_gearvrf_NativePicker_pickSceneObject(JNIEnv * env,
         jobject obj, jlong jscene_object, jlong jcamera_rig) {
@@ -0,0 +1,189 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * The pickable objects of a scene, in a bounding volume hierarchy.
+ ***************************************************************************/
+
+#include "picking_hierarchy.h"
+
+#include <cstring>
+
+#include "glm/gtc/matrix_inverse.hpp"
+
+#include "engine/picker/eye_point_data.h"
+#include "objects/eye_pointee.h"
+#include "objects/mesh.h"
+#include "objects/scene.h"
+#include "objects/scene_object.h"
+#include "objects/components/eye_pointee_holder.h"
+#include "objects/components/transform.h"
+
+namespace gvr {
+
+std::atomic<int> PickingHierarchy::generation_(0);
+
+PickingHierarchy::PickingHierarchy(Scene* scene) :
+        scene_(scene), dirty_(true), moved_(false), generation_built_(0),
+        geometry_changes_fitted_(0), holders_(), boxes_(), unbounded_(),
+        hierarchy_(), built_area_(0.0f) {
+    pthread_rwlock_init(&lock_, 0);
+}
+
+PickingHierarchy::~PickingHierarchy() {
+    pthread_rwlock_destroy(&lock_);
+}
+
+namespace {
+// Runs the exact test on the holders whose bounds the ray crosses
+struct PickVisitor {
+    const std::vector<EyePointeeHolder*>* holders;
+    const glm::mat4* view_matrix;
+    int ray;
+    float ox, oy, oz, dx, dy, dz;
+    PickingHierarchy::Sink* sink;
+
+    void visit(int item, float& max_distance) {
+        test((*holders)[item]);
+    }
+
+    void test(EyePointeeHolder* holder) {
+        EyePointData data = holder->isPointed(*view_matrix, ox, oy, oz, dx,
+                dy, dz);
+        if (data.pointed()) {
+            sink->add(ray, holder, data);
+        }
+    }
+};
+}
+
+void PickingHierarchy::pick(const glm::mat4& view_matrix, float ox, float oy,
+        float oz, float dx, float dy, float dz, std::vector<int>& stack,
+        Sink& sink) {
+    float ray[6] = { ox, oy, oz, dx, dy, dz };
+    pick(view_matrix, ray, 1, stack, sink);
+}
+
+void PickingHierarchy::pick(const glm::mat4& view_matrix, const float* rays,
+        int ray_count, std::vector<int>& stack, Sink& sink) {
+    if (outOfDate()) {
+        pthread_rwlock_wrlock(&lock_);
+        if (dirty_ || generation_built_ != generation_) {
+            build();
+        } else if (moved_
+                || geometry_changes_fitted_ != Mesh::geometry_changes()) {
+            refit();
+        }
+        pthread_rwlock_unlock(&lock_);
+    }
+    // Changes made from here on are seen by the next pick
+    pthread_rwlock_rdlock(&lock_);
+
+    // The hierarchy is in world space. Affine transforms keep the ray
+    // parameter t, so distances are unchanged.
+    glm::mat4 inverse_view = glm::affineInverse(view_matrix);
+    for (int r = 0; r < ray_count; ++r) {
+        float ray[6];
+        std::memcpy(ray, rays + 6 * r, sizeof(ray));
+        glm::vec3 origin(inverse_view * glm::vec4(ray[0], ray[1], ray[2], 1.0f));
+        glm::vec3 direction(
+                inverse_view * glm::vec4(ray[3], ray[4], ray[5], 0.0f));
+
+        PickVisitor visitor = { &holders_, &view_matrix, r, ray[0], ray[1],
+                ray[2], ray[3], ray[4], ray[5], &sink };
+        hierarchy_.intersect(origin, direction, stack, visitor);
+        for (auto it = unbounded_.begin(); it != unbounded_.end(); ++it) {
+            visitor.test(*it);
+        }
+    }
+    pthread_rwlock_unlock(&lock_);
+}
+
+bool PickingHierarchy::outOfDate() const {
+    return dirty_ || moved_ || generation_built_ != generation_
+            || geometry_changes_fitted_ != Mesh::geometry_changes();
+}
+
+void PickingHierarchy::build() {
+    // Cleared first, so that changes made while building are seen by the
+    // next pick
+    dirty_ = false;
+    moved_ = false;
+    generation_built_ = generation_.load();
+    geometry_changes_fitted_ = Mesh::geometry_changes();
+
+    holders_.clear();
+    boxes_.clear();
+    unbounded_.clear();
+
+    const std::vector<SceneObject*>& scene_objects =
+            scene_->getWholeSceneObjects();
+    BoundingVolume box;
+    for (auto it = scene_objects.begin(); it != scene_objects.end(); ++it) {
+        EyePointeeHolder* holder = (*it)->eye_pointee_holder();
+        if (holder == 0 || !holder->enable()) {
+            continue;
+        }
+        if (bound(holder, box)) {
+            holders_.push_back(holder);
+            boxes_.push_back(box);
+        } else {
+            unbounded_.push_back(holder);
+        }
+    }
+
+    hierarchy_.build(boxes_);
+    built_area_ = hierarchy_.surfaceArea();
+}
+
+void PickingHierarchy::refit() {
+    moved_ = false;
+    geometry_changes_fitted_ = Mesh::geometry_changes();
+
+    for (int i = 0; i < holders_.size(); ++i) {
+        bound(holders_[i], boxes_[i]);
+    }
+    // The tree leaves out empty boxes, so a holder whose mesh has only now
+    // got vertices needs a new tree. So do nodes that refitting has
+    // loosened as objects moved apart.
+    if (!hierarchy_.refit(boxes_)
+            || hierarchy_.surfaceArea() > 2.0f * built_area_) {
+        build();
+    }
+}
+
+bool PickingHierarchy::bound(EyePointeeHolder* holder, BoundingVolume& box) {
+    box.reset();
+    SceneObject* owner_object = holder->owner_object();
+    Transform* transform = owner_object ? owner_object->transform() : 0;
+    if (transform == 0) {
+        // Never pointed at: leave the box empty
+        return true;
+    }
+
+    glm::mat4 model_matrix = transform->getModelMatrix();
+    const std::vector<EyePointee*>& pointees = holder->pointees();
+    for (auto it = pointees.begin(); it != pointees.end(); ++it) {
+        const BoundingVolume* volume = (*it)->getBoundingVolume();
+        if (volume == 0) {
+            return false;
+        }
+        box.expand(*volume, model_matrix);
+    }
+    return true;
+}
+
+}
@@ -0,0 +1,123 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * The pickable objects of a scene, in a bounding volume hierarchy.
+ *
+ * Built when first picked, and rebuilt after pickable objects are added,
+ * removed, enabled or disabled; refit when they move, or when the vertices
+ * of any mesh change. A picking ray then
+ * only runs the exact EyePointeeHolder::isPointed() test on the objects
+ * whose world-space bounds it crosses.
+ *
+ * Any number of threads can pick at once: they only wait for each other
+ * while the hierarchy is being rebuilt or refit.
+ ***************************************************************************/
+
+#ifndef PICKING_HIERARCHY_H_
+#define PICKING_HIERARCHY_H_
+
+#include <pthread.h>
+#include <atomic>
+#include <vector>
+
+#include "glm/glm.hpp"
+
+#include "engine/picker/bounding_volume_hierarchy.h"
+#include "objects/bounding_volume.h"
+
+namespace gvr {
+class EyePointData;
+class EyePointeeHolder;
+class Scene;
+
+class PickingHierarchy {
+public:
+    explicit PickingHierarchy(Scene* scene);
+    ~PickingHierarchy();
+
+    // Pickable objects were added, removed, enabled or disabled
+    void invalidate() {
+        dirty_ = true;
+    }
+
+    // Pickable objects moved
+    void moved() {
+        moved_ = true;
+    }
+
+    // Eye pointees changed, in any scene
+    static void invalidateAll() {
+        ++generation_;
+    }
+
+    // Receives the holders each ray points at, in no particular order
+    class Sink {
+    public:
+        virtual ~Sink() {
+        }
+        virtual void add(int ray, EyePointeeHolder* holder,
+                const EyePointData& data) = 0;
+    };
+
+    // Passes to sink, as ray 0, the holders that the ray o + t * d, in the
+    // space of view_matrix, points at. stack is scratch space, owned by the
+    // caller so that it can be reused.
+    void pick(const glm::mat4& view_matrix, float ox, float oy, float oz,
+            float dx, float dy, float dz, std::vector<int>& stack, Sink& sink);
+
+    // Picks ray_count rays at once, updating and locking the hierarchy only
+    // once. Ray r is the six floats ox, oy, oz, dx, dy, dz at rays + 6 * r,
+    // which need not be aligned.
+    void pick(const glm::mat4& view_matrix, const float* rays, int ray_count,
+            std::vector<int>& stack, Sink& sink);
+
+private:
+    PickingHierarchy(const PickingHierarchy& picking_hierarchy);
+    PickingHierarchy(PickingHierarchy&& picking_hierarchy);
+    PickingHierarchy& operator=(const PickingHierarchy& picking_hierarchy);
+    PickingHierarchy& operator=(PickingHierarchy&& picking_hierarchy);
+
+    bool outOfDate() const;
+    void build();
+    void refit();
+    static bool bound(EyePointeeHolder* holder, BoundingVolume& box);
+
+private:
+    Scene* scene_;
+    // Held for reading while picking, and for writing while updating
+    pthread_rwlock_t lock_;
+
+    // Set from any thread, without the lock
+    std::atomic<bool> dirty_;
+    std::atomic<bool> moved_;
+    static std::atomic<int> generation_;
+    // Read without the lock, to tell whether to take it for writing
+    std::atomic<int> generation_built_;
+    // Mesh::geometry_changes() when the boxes were last fit
+    std::atomic<unsigned int> geometry_changes_fitted_;
+
+    // Holders with bounds, in the order of their boxes
+    std::vector<EyePointeeHolder*> holders_;
+    std::vector<BoundingVolume> boxes_;
+    // Holders whose pointees cannot tell their bounds: always tested
+    std::vector<EyePointeeHolder*> unbounded_;
+    BoundingVolumeHierarchy hierarchy_;
+    float built_area_;
+};
+
+}
+#endif
@@ -0,0 +1,195 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Tests world-space bounding boxes, and whole hierarchies of them, against
+ * the six planes of a camera's view frustum.
+ *
+ * The planes are extracted once per camera. A hierarchy is walked top
+ * down: a subtree whose bounds are outside a plane is skipped entirely, and
+ * a subtree whose bounds are inside a plane does not test that plane again
+ * below it. Each node also remembers the plane that last rejected it, and
+ * tests that one first.
+ *
+ * Has no GL or JNI dependencies, so it can be built on the host.
+ ***************************************************************************/
+
+#ifndef FRUSTUM_CULLER_H_
+#define FRUSTUM_CULLER_H_
+
+#include <cmath>
+#include <utility>
+#include <vector>
+
+#include "glm/glm.hpp"
+
+#include "objects/bounding_volume.h"
+
+namespace gvr {
+
+class FrustumCuller {
+public:
+    static const int PLANE_COUNT = 6;
+    // Plane masks: a set bit means the plane still has to be tested
+    static const int ALL_PLANES = (1 << PLANE_COUNT) - 1;
+    static const int INSIDE = 0;
+    static const int OUTSIDE = -1;
+
+    FrustumCuller() {
+    }
+
+    explicit FrustumCuller(const glm::mat4& vp_matrix) {
+        set(vp_matrix);
+    }
+
+    // Right, left, bottom, top, far and near planes, facing inwards, in the
+    // space vp_matrix transforms from
+    void set(const glm::mat4& vp_matrix) {
+        glm::vec4 x = row(vp_matrix, 0);
+        glm::vec4 y = row(vp_matrix, 1);
+        glm::vec4 z = row(vp_matrix, 2);
+        glm::vec4 w = row(vp_matrix, 3);
+        planes_[0] = normalize(w - x);
+        planes_[1] = normalize(w + x);
+        planes_[2] = normalize(w + y);
+        planes_[3] = normalize(w - y);
+        planes_[4] = normalize(w - z);
+        planes_[5] = normalize(w + z);
+    }
+
+    const glm::vec4& plane(int index) const {
+        return planes_[index];
+    }
+
+    /*
+     * Test a box against the planes in mask, starting with plane_hint.
+     *
+     * Returns OUTSIDE, or the planes of mask the box straddles: INSIDE when
+     * it is inside all of them. When the box is outside, plane_hint is set
+     * to the plane it is outside of.
+     */
+    int intersect(const BoundingVolume& box, int mask, int& plane_hint) const {
+        if (box.empty()) {
+            return OUTSIDE;
+        }
+        const glm::vec3& min_corner = box.min_corner();
+        const glm::vec3& max_corner = box.max_corner();
+
+        int hint = plane_hint;
+        if ((mask & (1 << hint))
+                && farthest(planes_[hint], min_corner, max_corner) <= 0.0f) {
+            return OUTSIDE;
+        }
+
+        int straddled = INSIDE;
+        for (int p = 0; p < PLANE_COUNT; ++p) {
+            if (!(mask & (1 << p))) {
+                continue;
+            }
+            const glm::vec4& plane = planes_[p];
+            if (p != hint && farthest(plane, min_corner, max_corner) <= 0.0f) {
+                plane_hint = p;
+                return OUTSIDE;
+            }
+            if (nearest(plane, min_corner, max_corner) <= 0.0f) {
+                straddled |= 1 << p;
+            }
+        }
+        return straddled;
+    }
+
+    /*
+     * Walk the hierarchies under roots, and call visitor.visit(node, mask)
+     * for every node whose subtree bounds are not outside the frustum. mask
+     * is the set of planes the subtree straddles: INSIDE when the node, and
+     * everything under it, is inside the frustum.
+     *
+     * Node must provide:
+     *     const std::vector<Node*>& children() const;
+     *     const BoundingVolume& getBoundingVolume();  // of the subtree
+     *     int cull_plane() const;
+     *     void set_cull_plane(int plane);
+     *
+     * stack is scratch space, passed in so that it can be reused.
+     */
+    template<class Node, class Visitor>
+    void cull(const std::vector<Node*>& roots,
+            std::vector<std::pair<Node*, int> >& stack,
+            Visitor& visitor) const {
+        stack.clear();
+        for (auto it = roots.rbegin(); it != roots.rend(); ++it) {
+            stack.push_back(std::make_pair(*it, int(ALL_PLANES)));
+        }
+
+        while (!stack.empty()) {
+            Node* node = stack.back().first;
+            int mask = stack.back().second;
+            stack.pop_back();
+
+            if (mask != INSIDE) {
+                int plane = node->cull_plane();
+                mask = intersect(node->getBoundingVolume(), mask, plane);
+                if (mask == OUTSIDE) {
+                    node->set_cull_plane(plane);
+                    continue;
+                }
+            }
+
+            visitor.visit(node, mask);
+
+            const std::vector<Node*>& children = node->children();
+            for (auto it = children.rbegin(); it != children.rend(); ++it) {
+                stack.push_back(std::make_pair(*it, mask));
+            }
+        }
+    }
+
+private:
+    static glm::vec4 row(const glm::mat4& matrix, int index) {
+        return glm::vec4(matrix[0][index], matrix[1][index], matrix[2][index],
+                matrix[3][index]);
+    }
+
+    static glm::vec4 normalize(const glm::vec4& plane) {
+        float length = std::sqrt(
+                plane.x * plane.x + plane.y * plane.y + plane.z * plane.z);
+        return plane / length;
+    }
+
+    // Signed distance of the box corner farthest along the plane's normal
+    static float farthest(const glm::vec4& plane, const glm::vec3& min_corner,
+            const glm::vec3& max_corner) {
+        return plane.x * (plane.x > 0.0f ? max_corner.x : min_corner.x)
+                + plane.y * (plane.y > 0.0f ? max_corner.y : min_corner.y)
+                + plane.z * (plane.z > 0.0f ? max_corner.z : min_corner.z)
+                + plane.w;
+    }
+
+    // Signed distance of the box corner farthest against the plane's normal
+    static float nearest(const glm::vec4& plane, const glm::vec3& min_corner,
+            const glm::vec3& max_corner) {
+        return plane.x * (plane.x > 0.0f ? min_corner.x : max_corner.x)
+                + plane.y * (plane.y > 0.0f ? min_corner.y : max_corner.y)
+                + plane.z * (plane.z > 0.0f ? min_corner.z : max_corner.z)
+                + plane.w;
+    }
+
+private:
+    glm::vec4 planes_[PLANE_COUNT];
+};
+
+}
+#endif
@@ -22,6 +22,7 @@
 #include "glm/gtc/matrix_inverse.hpp"
 
 #include "eglextension/tiledrendering/tiled_rendering_enhancer.h"
+#include "engine/renderer/frustum_culler.h"
 #include "objects/material.h"
 #include "objects/post_effect_data.h"
 #include "objects/scene.h"
@@ -58,6 +59,7 @@ int Renderer::getNumberTriangles() {
 }
 
 static std::vector<RenderData*> render_data_vector;
+static std::vector<std::pair<SceneObject*, int> > cull_stack;
 
 void Renderer::cull(Scene *scene, Camera *camera, ShaderManager* shader_manager) {
     glm::mat4 view_matrix = camera->getViewMatrix();
@@ -65,7 +67,7 @@ void Renderer::cull(Scene *scene, Camera *camera, ShaderManager* shader_manager)
     glm::mat4 vp_matrix = glm::mat4(projection_matrix * view_matrix);
 
     render_data_vector.clear();
-    std::vector<SceneObject*> scene_objects = scene->getWholeSceneObjects();
+    const std::vector<SceneObject*>& scene_objects = scene->getWholeSceneObjects();
 
     // do occlusion culling, if enabled
     occlusion_cull(scene, scene_objects);
@@ -168,7 +170,7 @@ void Renderer::renderCamera(Scene* scene, Camera* camera, int framebufferId,
 }
 
 void Renderer::occlusion_cull(Scene* scene,
-        std::vector<SceneObject*> scene_objects) {
+        const std::vector<SceneObject*>& scene_objects) {
 #if _GVRF_USE_GLES3_
     if (!scene->get_occlusion_culling()) {
         return;
@@ -207,267 +209,164 @@ void Renderer::occlusion_cull(Scene* scene,
 }
 
 void Renderer::frustum_cull(Scene* scene, Camera *camera,
-        std::vector<SceneObject*> scene_objects,
+        const std::vector<SceneObject*>& scene_objects,
         std::vector<RenderData*>& render_data_vector, glm::mat4 vp_matrix,
         ShaderManager* shader_manager) {
-    for (auto it = scene_objects.begin(); it != scene_objects.end(); ++it) {
-        SceneObject *scene_object = (*it);
-        RenderData* render_data = scene_object->render_data();
-        if (render_data == 0 || render_data->pass(0)->material() == 0) {
-            continue;
-        }
-
-        // Check for frustum culling flag
-        if (!scene->get_frustum_culling()) {
-            //No occlusion or frustum tests enabled
+    Transform* t = camera->owner_object()->transform();
+
+    // Check for frustum culling flag
+    if (!scene->get_frustum_culling()) {
+        //No occlusion or frustum tests enabled, but levels of detail are
+        //still drawn only in their range
+        for (auto it = scene_objects.begin(); it != scene_objects.end(); ++it) {
+            RenderData* render_data = (*it)->render_data();
+            if (render_data == 0 || render_data->pass(0)->material() == 0) {
+                continue;
+            }
+            Mesh* mesh = render_data->mesh();
+            Transform* transform = (*it)->transform();
+            if (t != nullptr && mesh != 0 && transform != nullptr) {
+                float distance = camera_distance(mesh, transform,
+                        t->position());
+                render_data->set_camera_distance(distance);
+                if (!(*it)->inLODRange(distance)) {
+                    continue;
+                }
+            }
             render_data_vector.push_back(render_data);
-            continue;
-        }
-
-        // Frustum culling setup
-        Mesh* currentMesh = render_data->mesh();
-        if (currentMesh == NULL) {
-            continue;
-        }
-
-        const BoundingVolume& bounding_volume = currentMesh->getBoundingVolume();
-
-        Transform* t = render_data->owner_object()->transform();
-        if (nullptr == t) {
-            continue;
-        }
-        glm::mat4 model_matrix_tmp(t->getModelMatrix());
-        glm::mat4 mvp_matrix_tmp(vp_matrix * model_matrix_tmp);
-
-        // Frustum
-        float frustum[6][4];
-
-        // Matrix to array
-        float mvp_matrix_array[16] = { 0.0 };
-        const float *mat_to_array = (const float*) glm::value_ptr(
-                mvp_matrix_tmp);
-        memcpy(mvp_matrix_array, mat_to_array, sizeof(float) * 16);
-
-        // Build the frustum
-        build_frustum(frustum, mvp_matrix_array);
-
-        // Check for being inside or outside frustum
-        bool is_inside = is_cube_in_frustum(frustum, bounding_volume);
-
-        // Only push those scene objects that are inside of the frustum
-        if (!is_inside) {
-            scene_object->set_in_frustum(false);
-            continue;
         }
+        return;
+    }
 
-        // Transform the bounding sphere
-        glm::vec4 sphere_center(bounding_volume.center(), 1.0f);
-        glm::vec4 transformed_sphere_center = mvp_matrix_tmp * sphere_center;
+    if (nullptr == t) {
+        return;
+    }
 
-        // Calculate distance from camera
-        t = camera->owner_object()->transform();
-        if (nullptr == t) {
-            continue;
+    // The planes are built once, in world space, and tested against the
+    // cached world-space bounds of each subtree
+    struct Visitor {
+        Scene* scene;
+        const FrustumCuller* culler;
+        glm::vec3 camera_position;
+        glm::mat4 vp_matrix;
+        std::vector<RenderData*>* render_data_vector;
+        ShaderManager* shader_manager;
+
+        void visit(SceneObject* scene_object, int mask) {
+            // A leaf's mesh bounds are its subtree bounds, already tested
+            if (mask != FrustumCuller::INSIDE
+                    && !scene_object->children().empty()) {
+                int plane = scene_object->cull_plane();
+                if (culler->intersect(scene_object->getMeshBoundingVolume(),
+                        mask, plane) == FrustumCuller::OUTSIDE) {
+                    scene_object->set_in_frustum(false);
+                    return;
+                }
+            }
+            frustum_cull_object(scene, scene_object, camera_position,
+                    vp_matrix, *render_data_vector, shader_manager);
         }
-        glm::vec3 camera_position = t->position();
-        glm::vec4 position(camera_position, 1.0f);
-        glm::vec4 difference = transformed_sphere_center - position;
-        float distance = glm::dot(difference, difference);
+    };
 
-        // this distance will be used when sorting transparent objects
-        render_data->set_camera_distance(distance);
+    FrustumCuller culler(vp_matrix);
+    Visitor visitor = { scene, &culler, t->position(), vp_matrix,
+            &render_data_vector, shader_manager };
+    culler.cull(scene->scene_objects(), cull_stack, visitor);
+}
 
-        // Check if this is the correct LOD level
-        if (!scene_object->inLODRange(distance)) {
-            // not in range, don't add it to the list
-            continue;
-        }
+// The squared distance from the camera to the center of the mesh's bounds,
+// in world space: what LOD ranges and transparent sorting go by
+float Renderer::camera_distance(Mesh* mesh, Transform* transform,
+        const glm::vec3& camera_position) {
+    const BoundingVolume& bounding_volume = mesh->getBoundingVolume();
+    glm::mat4 model_matrix(transform->getModelMatrix());
 
-        scene_object->set_in_frustum();
-        bool visible = scene_object->visible();
+    // Transform the bounding sphere into world space, where the camera is
+    glm::vec4 sphere_center(bounding_volume.center(), 1.0f);
+    glm::vec4 transformed_sphere_center = model_matrix * sphere_center;
 
-        //If visibility flag was set by an earlier occlusion query,
-        //turn visibility on for the object
-        if (visible) {
-            render_data_vector.push_back(render_data);
-        }
+    glm::vec4 position(camera_position, 1.0f);
+    glm::vec4 difference = transformed_sphere_center - position;
+    return glm::dot(difference, difference);
+}
 
-        if (render_data->pass(0)->material() == 0
-                || !scene->get_occlusion_culling()) {
-            continue;
-        }
+void Renderer::frustum_cull_object(Scene* scene, SceneObject* scene_object,
+        const glm::vec3& camera_position, const glm::mat4& vp_matrix,
+        std::vector<RenderData*>& render_data_vector,
+        ShaderManager* shader_manager) {
+    RenderData* render_data = scene_object->render_data();
+    if (render_data == 0 || render_data->pass(0)->material() == 0) {
+        return;
+    }
 
-#if _GVRF_USE_GLES3_
-        //If a previous query is active, do not issue a new query.
-        //This avoids overloading the GPU with too many queries
-        //Queries may span multiple frames
+    Mesh* currentMesh = render_data->mesh();
+    if (currentMesh == NULL) {
+        return;
+    }
 
-        bool is_query_issued = scene_object->is_query_issued();
-        if (!is_query_issued) {
-            //Setup basic bounding box and material
-            RenderData* bounding_box_render_data(new RenderData());
-            Mesh* bounding_box_mesh = render_data->mesh()->getBoundingBox();
-            bounding_box_render_data->set_mesh(bounding_box_mesh);
+    Transform* t = scene_object->transform();
+    if (nullptr == t) {
+        return;
+    }
 
-            GLuint *query = scene_object->get_occlusion_array();
+    float distance = camera_distance(currentMesh, t, camera_position);
 
-            glDepthFunc (GL_LEQUAL);
-            glEnable (GL_DEPTH_TEST);
-            glColorMask(GL_FALSE, GL_FALSE, GL_FALSE, GL_FALSE);
+    // this distance will be used when sorting transparent objects
+    render_data->set_camera_distance(distance);
 
-            //Issue the query only with a bounding box
-            glBeginQuery(GL_ANY_SAMPLES_PASSED, query[0]);
-            shader_manager->getBoundingBoxShader()->render(mvp_matrix_tmp,
-                    bounding_box_render_data,
-                    bounding_box_render_data->pass(0)->material());
-            glEndQuery (GL_ANY_SAMPLES_PASSED);
-            scene_object->set_query_issued(true);
+    // Check if this is the correct LOD level
+    if (!scene_object->inLODRange(distance)) {
+        // not in range, don't add it to the list
+        return;
+    }
 
-            glColorMask(GL_TRUE, GL_TRUE, GL_TRUE, GL_TRUE);
+    scene_object->set_in_frustum();
+    bool visible = scene_object->visible();
 
-            //Delete the generated bounding box mesh
-            bounding_box_mesh->cleanUp();
-            delete bounding_box_render_data;
-        }
-#endif
+    //If visibility flag was set by an earlier occlusion query,
+    //turn visibility on for the object
+    if (visible) {
+        render_data_vector.push_back(render_data);
     }
-}
 
-void Renderer::build_frustum(float frustum[6][4], float mvp_matrix[16]) {
-    float t;
-
-    /* Extract the numbers for the RIGHT plane */
-    frustum[0][0] = mvp_matrix[3] - mvp_matrix[0];
-    frustum[0][1] = mvp_matrix[7] - mvp_matrix[4];
-    frustum[0][2] = mvp_matrix[11] - mvp_matrix[8];
-    frustum[0][3] = mvp_matrix[15] - mvp_matrix[12];
-
-    /* Normalize the result */
-    t = sqrt(
-            frustum[0][0] * frustum[0][0] + frustum[0][1] * frustum[0][1]
-                    + frustum[0][2] * frustum[0][2]);
-    frustum[0][0] /= t;
-    frustum[0][1] /= t;
-    frustum[0][2] /= t;
-    frustum[0][3] /= t;
-
-    /* Extract the numbers for the LEFT plane */
-    frustum[1][0] = mvp_matrix[3] + mvp_matrix[0];
-    frustum[1][1] = mvp_matrix[7] + mvp_matrix[4];
-    frustum[1][2] = mvp_matrix[11] + mvp_matrix[8];
-    frustum[1][3] = mvp_matrix[15] + mvp_matrix[12];
-
-    /* Normalize the result */
-    t = sqrt(
-            frustum[1][0] * frustum[1][0] + frustum[1][1] * frustum[1][1]
-                    + frustum[1][2] * frustum[1][2]);
-    frustum[1][0] /= t;
-    frustum[1][1] /= t;
-    frustum[1][2] /= t;
-    frustum[1][3] /= t;
-
-    /* Extract the BOTTOM plane */
-    frustum[2][0] = mvp_matrix[3] + mvp_matrix[1];
-    frustum[2][1] = mvp_matrix[7] + mvp_matrix[5];
-    frustum[2][2] = mvp_matrix[11] + mvp_matrix[9];
-    frustum[2][3] = mvp_matrix[15] + mvp_matrix[13];
-
-    /* Normalize the result */
-    t = sqrt(
-            frustum[2][0] * frustum[2][0] + frustum[2][1] * frustum[2][1]
-                    + frustum[2][2] * frustum[2][2]);
-    frustum[2][0] /= t;
-    frustum[2][1] /= t;
-    frustum[2][2] /= t;
-    frustum[2][3] /= t;
-
-    /* Extract the TOP plane */
-    frustum[3][0] = mvp_matrix[3] - mvp_matrix[1];
-    frustum[3][1] = mvp_matrix[7] - mvp_matrix[5];
-    frustum[3][2] = mvp_matrix[11] - mvp_matrix[9];
-    frustum[3][3] = mvp_matrix[15] - mvp_matrix[13];
-
-    /* Normalize the result */
-    t = sqrt(
-            frustum[3][0] * frustum[3][0] + frustum[3][1] * frustum[3][1]
-                    + frustum[3][2] * frustum[3][2]);
-    frustum[3][0] /= t;
-    frustum[3][1] /= t;
-    frustum[3][2] /= t;
-    frustum[3][3] /= t;
-
-    /* Extract the FAR plane */
-    frustum[4][0] = mvp_matrix[3] - mvp_matrix[2];
-    frustum[4][1] = mvp_matrix[7] - mvp_matrix[6];
-    frustum[4][2] = mvp_matrix[11] - mvp_matrix[10];
-    frustum[4][3] = mvp_matrix[15] - mvp_matrix[14];
-
-    /* Normalize the result */
-    t = sqrt(
-            frustum[4][0] * frustum[4][0] + frustum[4][1] * frustum[4][1]
-                    + frustum[4][2] * frustum[4][2]);
-    frustum[4][0] /= t;
-    frustum[4][1] /= t;
-    frustum[4][2] /= t;
-    frustum[4][3] /= t;
-
-    /* Extract the NEAR plane */
-    frustum[5][0] = mvp_matrix[3] + mvp_matrix[2];
-    frustum[5][1] = mvp_matrix[7] + mvp_matrix[6];
-    frustum[5][2] = mvp_matrix[11] + mvp_matrix[10];
-    frustum[5][3] = mvp_matrix[15] + mvp_matrix[14];
-
-    /* Normalize the result */
-    t = sqrt(
-            frustum[5][0] * frustum[5][0] + frustum[5][1] * frustum[5][1]
-                    + frustum[5][2] * frustum[5][2]);
-    frustum[5][0] /= t;
-    frustum[5][1] /= t;
-    frustum[5][2] /= t;
-    frustum[5][3] /= t;
-}
+    if (!scene->get_occlusion_culling()) {
+        return;
+    }
 
-bool Renderer::is_cube_in_frustum(float frustum[6][4],
-        const BoundingVolume &bounding_volume) {
-    int p;
-    glm::vec3 min_corner = bounding_volume.min_corner();
-    glm::vec3 max_corner = bounding_volume.max_corner();
-
-    float Xmin = min_corner[0];
-    float Ymin = min_corner[1];
-    float Zmin = min_corner[2];
-    float Xmax = max_corner[0];
-    float Ymax = max_corner[1];
-    float Zmax = max_corner[2];
-
-    for (p = 0; p < 6; p++) {
-        if (frustum[p][0] * (Xmin) + frustum[p][1] * (Ymin)
-                + frustum[p][2] * (Zmin) + frustum[p][3] > 0)
-            continue;
-        if (frustum[p][0] * (Xmax) + frustum[p][1] * (Ymin)
-                + frustum[p][2] * (Zmin) + frustum[p][3] > 0)
-            continue;
-        if (frustum[p][0] * (Xmin) + frustum[p][1] * (Ymax)
-                + frustum[p][2] * (Zmin) + frustum[p][3] > 0)
-            continue;
-        if (frustum[p][0] * (Xmax) + frustum[p][1] * (Ymax)
-                + frustum[p][2] * (Zmin) + frustum[p][3] > 0)
-            continue;
-        if (frustum[p][0] * (Xmin) + frustum[p][1] * (Ymin)
-                + frustum[p][2] * (Zmax) + frustum[p][3] > 0)
-            continue;
-        if (frustum[p][0] * (Xmax) + frustum[p][1] * (Ymin)
-                + frustum[p][2] * (Zmax) + frustum[p][3] > 0)
-            continue;
-        if (frustum[p][0] * (Xmin) + frustum[p][1] * (Ymax)
-                + frustum[p][2] * (Zmax) + frustum[p][3] > 0)
-            continue;
-        if (frustum[p][0] * (Xmax) + frustum[p][1] * (Ymax)
-                + frustum[p][2] * (Zmax) + frustum[p][3] > 0)
-            continue;
-        return false;
+#if _GVRF_USE_GLES3_
+    //If a previous query is active, do not issue a new query.
+    //This avoids overloading the GPU with too many queries
+    //Queries may span multiple frames
+
+    bool is_query_issued = scene_object->is_query_issued();
+    if (!is_query_issued) {
+        //Setup basic bounding box and material
+        RenderData* bounding_box_render_data(new RenderData());
+        Mesh* bounding_box_mesh = render_data->mesh()->getBoundingBox();
+        bounding_box_render_data->set_mesh(bounding_box_mesh);
+
+        GLuint *query = scene_object->get_occlusion_array();
+        glm::mat4 mvp_matrix_tmp(vp_matrix * t->getModelMatrix());
+
+        glDepthFunc (GL_LEQUAL);
+        glEnable (GL_DEPTH_TEST);
+        glColorMask(GL_FALSE, GL_FALSE, GL_FALSE, GL_FALSE);
+
+        //Issue the query only with a bounding box
+        glBeginQuery(GL_ANY_SAMPLES_PASSED, query[0]);
+        shader_manager->getBoundingBoxShader()->render(mvp_matrix_tmp,
+                bounding_box_render_data,
+                bounding_box_render_data->pass(0)->material());
+        glEndQuery (GL_ANY_SAMPLES_PASSED);
+        scene_object->set_query_issued(true);
+
+        glColorMask(GL_TRUE, GL_TRUE, GL_TRUE, GL_TRUE);
+
+        //Delete the generated bounding box mesh
+        bounding_box_mesh->cleanUp();
+        delete bounding_box_render_data;
     }
-    return true;
+#endif
 }
 
 void Renderer::renderCamera(Scene* scene, Camera* camera,
@@ -48,6 +48,7 @@ class PostEffectShaderManager;
 class RenderData;
 class RenderTexture;
 class ShaderManager;
+class Transform;
 
 class Renderer {
 private:
@@ -96,15 +97,17 @@ private:
             PostEffectShaderManager* post_effect_shader_manager);
 
     static void occlusion_cull(Scene* scene,
-            std::vector<SceneObject*> scene_objects);
+            const std::vector<SceneObject*>& scene_objects);
     static void frustum_cull(Scene* scene, Camera *camera,
-            std::vector<SceneObject*> scene_objects,
+            const std::vector<SceneObject*>& scene_objects,
             std::vector<RenderData*>& render_data_vector, glm::mat4 vp_matrix,
             ShaderManager* shader_manager);
-    static void build_frustum(float frustum[6][4], float mvp_matrix[16]);
-
-    static bool is_cube_in_frustum(float frustum[6][4],
-            const BoundingVolume &bounding_volume);
+    static void frustum_cull_object(Scene* scene, SceneObject* scene_object,
+            const glm::vec3& camera_position, const glm::mat4& vp_matrix,
+            std::vector<RenderData*>& render_data_vector,
+            ShaderManager* shader_manager);
+    static float camera_distance(Mesh* mesh, Transform* transform,
+            const glm::vec3& camera_position);
 
     static void set_face_culling(int cull_face);
 
@@ -40,6 +40,13 @@ public:
 
     void expand(const glm::vec3 point);
     void expand(const BoundingVolume &volume);
+    // Expand by the axis-aligned box around volume, transformed by matrix
+    void expand(const BoundingVolume &volume, const glm::mat4 &matrix);
+    void reset();
+
+    bool empty() const {
+        return min_corner_[0] > max_corner_[0];
+    }
 
     const glm::vec3& center() const { return center_; }
     float radius() const { return radius_; }
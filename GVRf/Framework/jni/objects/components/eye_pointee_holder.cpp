@@ -20,6 +20,7 @@
 
 #include "eye_pointee_holder.h"
 
+#include "objects/scene.h"
 #include "objects/scene_object.h"
 #include "objects/eye_pointee.h"
 
@@ -33,11 +34,20 @@ EyePointeeHolder::~EyePointeeHolder() {
 
 void EyePointeeHolder::addPointee(EyePointee* pointee) {
     pointees_.push_back(pointee);
+    invalidatePicking();
 }
 
 void EyePointeeHolder::removePointee(EyePointee* pointee) {
     pointees_.erase(std::remove(pointees_.begin(), pointees_.end(), pointee),
             pointees_.end());
+    invalidatePicking();
+}
+
+void EyePointeeHolder::invalidatePicking() {
+    SceneObject* ownerObject = owner_object();
+    if (nullptr != ownerObject && nullptr != ownerObject->flattened_owner()) {
+        ownerObject->flattened_owner()->picking_hierarchy().invalidate();
+    }
 }
 
 EyePointData EyePointeeHolder::isPointed(const glm::mat4& view_matrix, float ox,
@@ -44,6 +44,7 @@ public:
 
     void set_enable(bool enable) {
         enable_ = enable;
+        invalidatePicking();
     }
 
     const glm::vec3& hit() const {
@@ -54,6 +55,10 @@ public:
         hit_ = hit;
     }
 
+    const std::vector<EyePointee*>& pointees() const {
+        return pointees_;
+    }
+
     void addPointee(EyePointee* pointee);
     void removePointee(EyePointee* pointee);
     EyePointData isPointed(const glm::mat4& view_matrix);
@@ -66,6 +71,8 @@ private:
     EyePointeeHolder& operator=(const EyePointeeHolder& eye_pointee_holder);
     EyePointeeHolder& operator=(EyePointeeHolder&& eye_pointee_holder);
 
+    void invalidatePicking();
+
 private:
     bool enable_;
     glm::vec3 hit_;
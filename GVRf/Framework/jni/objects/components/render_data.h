@@ -28,6 +28,7 @@
 
 #include "objects/components/component.h"
 #include "objects/render_pass.h"
+#include "objects/scene_object.h"
 #include "objects/components/texture_capturer.h"
 
 namespace gvr {
@@ -67,6 +68,9 @@ public:
 
     void set_mesh(Mesh* mesh) {
         mesh_ = mesh;
+        if (owner_object()) {
+            owner_object()->dirtyBoundingVolume();
+        }
     }
 
     void add_pass(RenderPass* render_pass) {
@@ -167,6 +167,15 @@ public:
         invalidate(false);
     }
 
+    // Sets all three at once, invalidating the model matrix only once
+    void set_position_rotation_scale(const glm::vec3& position,
+            const glm::quat& rotation, const glm::vec3& scale) {
+        position_ = position;
+        rotation_ = rotation;
+        scale_ = scale;
+        invalidate(true);
+    }
+
     void invalidate(bool rotationUpdated);
     glm::mat4 getModelMatrix();
     glm::mat4 getLocalModelMatrix();
@@ -0,0 +1,126 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Reads and writes many transforms at once, from packed float buffers.
+ ***************************************************************************/
+
+#include "transform_batch.h"
+
+#include <cstring>
+#include <stdint.h>
+
+#include "glm/gtc/type_ptr.hpp"
+
+#include "objects/components/transform.h"
+
+namespace gvr {
+
+namespace {
+Transform* transformAt(const void* transforms, int index) {
+    int64_t address;
+    std::memcpy(&address, static_cast<const char*>(transforms)
+            + index * sizeof(address), sizeof(address));
+    return reinterpret_cast<Transform*>(static_cast<intptr_t>(address));
+}
+}
+
+int TransformBatch::recordSize(int components) {
+    return ((components & POSITION) ? 3 : 0)
+            + ((components & ROTATION) ? 4 : 0)
+            + ((components & SCALE) ? 3 : 0);
+}
+
+void TransformBatch::set(const void* transforms, int count, int components,
+        const void* data) {
+    const char* next = static_cast<const char*>(data);
+    for (int i = 0; i < count; ++i) {
+        Transform* transform = transformAt(transforms, i);
+        glm::vec3 position = transform->position();
+        glm::quat rotation = transform->rotation();
+        glm::vec3 scale = transform->scale();
+
+        float values[4];
+        if (components & POSITION) {
+            std::memcpy(values, next, 3 * sizeof(float));
+            next += 3 * sizeof(float);
+            position = glm::vec3(values[0], values[1], values[2]);
+        }
+        if (components & ROTATION) {
+            std::memcpy(values, next, 4 * sizeof(float));
+            next += 4 * sizeof(float);
+            rotation = glm::quat(values[0], values[1], values[2], values[3]);
+        }
+        if (components & SCALE) {
+            std::memcpy(values, next, 3 * sizeof(float));
+            next += 3 * sizeof(float);
+            scale = glm::vec3(values[0], values[1], values[2]);
+        }
+        transform->set_position_rotation_scale(position, rotation, scale);
+    }
+}
+
+void TransformBatch::get(const void* transforms, int count, int components,
+        void* data) {
+    char* next = static_cast<char*>(data);
+    for (int i = 0; i < count; ++i) {
+        const Transform* transform = transformAt(transforms, i);
+        if (components & POSITION) {
+            const glm::vec3& position = transform->position();
+            float values[3] = { position.x, position.y, position.z };
+            std::memcpy(next, values, sizeof(values));
+            next += sizeof(values);
+        }
+        if (components & ROTATION) {
+            const glm::quat& rotation = transform->rotation();
+            float values[4] = { rotation.w, rotation.x, rotation.y, rotation.z };
+            std::memcpy(next, values, sizeof(values));
+            next += sizeof(values);
+        }
+        if (components & SCALE) {
+            const glm::vec3& scale = transform->scale();
+            float values[3] = { scale.x, scale.y, scale.z };
+            std::memcpy(next, values, sizeof(values));
+            next += sizeof(values);
+        }
+    }
+}
+
+void TransformBatch::setModelMatrices(const void* transforms, int count,
+        const void* data) {
+    const char* next = static_cast<const char*>(data);
+    for (int i = 0; i < count; ++i) {
+        float values[MATRIX_SIZE];
+        std::memcpy(values, next, sizeof(values));
+        next += sizeof(values);
+        transformAt(transforms, i)->setModelMatrix(glm::make_mat4(values));
+    }
+}
+
+void TransformBatch::getModelMatrices(const void* transforms, int count,
+        bool local, void* data) {
+    char* next = static_cast<char*>(data);
+    for (int i = 0; i < count; ++i) {
+        Transform* transform = transformAt(transforms, i);
+        glm::mat4 matrix =
+                local ? transform->getLocalModelMatrix() :
+                        transform->getModelMatrix();
+        std::memcpy(next, glm::value_ptr(matrix), MATRIX_SIZE * sizeof(float));
+        next += MATRIX_SIZE * sizeof(float);
+    }
+}
+
+}
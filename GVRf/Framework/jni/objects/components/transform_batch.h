@@ -0,0 +1,60 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Reads and writes many transforms at once, from packed float buffers.
+ *
+ * The transforms are given as their addresses, one int64_t each. Neither
+ * the addresses nor the floats need be aligned: they come from Java direct
+ * buffers, so they are only read and written with memcpy.
+ ***************************************************************************/
+
+#ifndef TRANSFORM_BATCH_H_
+#define TRANSFORM_BATCH_H_
+
+namespace gvr {
+
+class TransformBatch {
+public:
+    // Which of a transform's components a record holds, in this order:
+    // position x, y, z; rotation w, x, y, z; scale x, y, z
+    static const int POSITION = 1;
+    static const int ROTATION = 2;
+    static const int SCALE = 4;
+
+    static const int MATRIX_SIZE = 16;
+
+    static int recordSize(int components);
+
+    static void set(const void* transforms, int count, int components,
+            const void* data);
+    static void get(const void* transforms, int count, int components,
+            void* data);
+
+    // Column-major matrices. Setting one decomposes it, as
+    // Transform::setModelMatrix() does; getting one gets the world matrix,
+    // or the local one.
+    static void setModelMatrices(const void* transforms, int count,
+            const void* data);
+    static void getModelMatrices(const void* transforms, int count,
+            bool local, void* data);
+
+private:
+    TransformBatch();
+};
+
+}
+#endif
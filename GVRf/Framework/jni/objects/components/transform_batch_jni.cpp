@@ -0,0 +1,106 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * JNI
+ ***************************************************************************/
+
+#include "transform_batch.h"
+
+#include "util/gvr_jni.h"
+#include "util/gvr_log.h"
+
+namespace gvr {
+extern "C" {
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBatch_set(JNIEnv * env,
+        jobject obj, jobject jtransforms, jint count, jint components,
+        jobject jdata, jint offset);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBatch_get(JNIEnv * env,
+        jobject obj, jobject jtransforms, jint count, jint components,
+        jobject jdata, jint offset);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBatch_setModelMatrices(JNIEnv * env,
+        jobject obj, jobject jtransforms, jint count, jobject jdata,
+        jint offset);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBatch_getModelMatrices(JNIEnv * env,
+        jobject obj, jobject jtransforms, jint count, jboolean local,
+        jobject jdata, jint offset);
+}
+
+namespace {
+// The buffers' addresses: the data from its position, which is offset floats
+// in. The Java side only passes direct buffers.
+bool addresses(JNIEnv * env, jobject jtransforms, jobject jdata, jint offset,
+        void*& transforms, char*& data) {
+    transforms = env->GetDirectBufferAddress(jtransforms);
+    data = static_cast<char*>(env->GetDirectBufferAddress(jdata));
+    if (transforms == 0 || data == 0) {
+        LOGE("TransformBatch: buffers must be direct");
+        return false;
+    }
+    data += offset * sizeof(jfloat);
+    return true;
+}
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBatch_set(JNIEnv * env,
+        jobject obj, jobject jtransforms, jint count, jint components,
+        jobject jdata, jint offset) {
+    void* transforms;
+    char* data;
+    if (addresses(env, jtransforms, jdata, offset, transforms, data)) {
+        TransformBatch::set(transforms, count, components, data);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBatch_get(JNIEnv * env,
+        jobject obj, jobject jtransforms, jint count, jint components,
+        jobject jdata, jint offset) {
+    void* transforms;
+    char* data;
+    if (addresses(env, jtransforms, jdata, offset, transforms, data)) {
+        TransformBatch::get(transforms, count, components, data);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBatch_setModelMatrices(JNIEnv * env,
+        jobject obj, jobject jtransforms, jint count, jobject jdata,
+        jint offset) {
+    void* transforms;
+    char* data;
+    if (addresses(env, jtransforms, jdata, offset, transforms, data)) {
+        TransformBatch::setModelMatrices(transforms, count, data);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBatch_getModelMatrices(JNIEnv * env,
+        jobject obj, jobject jtransforms, jint count, jboolean local,
+        jobject jdata, jint offset) {
+    void* transforms;
+    char* data;
+    if (addresses(env, jtransforms, jdata, offset, transforms, data)) {
+        TransformBatch::getModelMatrices(transforms, count, local, data);
+    }
+}
+
+}
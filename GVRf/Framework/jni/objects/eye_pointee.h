@@ -27,6 +27,7 @@
 #include "objects/hybrid_object.h"
 
 namespace gvr {
+class BoundingVolume;
 
 class EyePointee: public HybridObject {
 public:
@@ -40,6 +41,12 @@ public:
     virtual EyePointData isPointed(const glm::mat4& mv_matrix, float ox,
             float oy, float oz, float dx, float dy, float dz) = 0;
 
+    // Bounds, in the owner object's space, of everything isPointed() can
+    // hit; or nullptr when unknown, and every picking ray must be tested
+    virtual const BoundingVolume* getBoundingVolume() {
+        return nullptr;
+    }
+
 private:
     EyePointee(const EyePointee& eye_pointee);
     EyePointee(EyePointee&& eye_pointee);
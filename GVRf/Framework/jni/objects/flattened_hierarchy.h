@@ -0,0 +1,138 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Every node of a hierarchy, in one flat array that is kept up to date as
+ * subtrees are added and removed.
+ *
+ * Each node stores its owner and its index in the array, so that removal
+ * is a swap with the last node: O(1) per node, and nodes are not kept in
+ * any particular order. A node can be in one hierarchy at a time.
+ *
+ * Node must provide:
+ *     const std::vector<Node*>& children() const;
+ *     Owner* flattened_owner() const;
+ *     int flattened_index() const;
+ *     void set_flattened(Owner* owner, int index);
+ *
+ * Has no GL or JNI dependencies, so it can be built on the host.
+ ***************************************************************************/
+
+#ifndef FLATTENED_HIERARCHY_H_
+#define FLATTENED_HIERARCHY_H_
+
+#include <vector>
+
+namespace gvr {
+
+template<class Node, class Owner>
+class FlattenedHierarchy {
+public:
+    explicit FlattenedHierarchy(Owner* owner) :
+            owner_(owner), nodes_(), stack_() {
+    }
+
+    ~FlattenedHierarchy() {
+        clear();
+    }
+
+    const std::vector<Node*>& nodes() const {
+        return nodes_;
+    }
+
+    bool contains(const Node* node) const {
+        return node->flattened_owner() == owner_;
+    }
+
+    // Add root, and every descendant that is not already here
+    void addSubtree(Node* root) {
+        if (contains(root)) {
+            return;
+        }
+        size_t first = nodes_.size();
+        push(root);
+        // Breadth first: the nodes just added are the queue
+        for (size_t i = first; i < nodes_.size(); ++i) {
+            const std::vector<Node*>& children = nodes_[i]->children();
+            for (auto it = children.begin(); it != children.end(); ++it) {
+                if (!contains(*it)) {
+                    push(*it);
+                }
+            }
+        }
+    }
+
+    // Remove root, and every descendant that is here
+    void removeSubtree(Node* root) {
+        if (!contains(root)) {
+            return;
+        }
+        stack_.clear();
+        stack_.push_back(root);
+        while (!stack_.empty()) {
+            Node* node = stack_.back();
+            stack_.pop_back();
+            remove(node);
+
+            const std::vector<Node*>& children = node->children();
+            for (auto it = children.begin(); it != children.end(); ++it) {
+                if (contains(*it)) {
+                    stack_.push_back(*it);
+                }
+            }
+        }
+    }
+
+    // Remove one node, leaving its descendants
+    void remove(Node* node) {
+        if (!contains(node)) {
+            return;
+        }
+        int index = node->flattened_index();
+        Node* last = nodes_.back();
+        nodes_[index] = last;
+        last->set_flattened(owner_, index);
+        nodes_.pop_back();
+        node->set_flattened(nullptr, -1);
+    }
+
+    void clear() {
+        for (auto it = nodes_.begin(); it != nodes_.end(); ++it) {
+            (*it)->set_flattened(nullptr, -1);
+        }
+        nodes_.clear();
+    }
+
+private:
+    FlattenedHierarchy(const FlattenedHierarchy& hierarchy);
+    FlattenedHierarchy(FlattenedHierarchy&& hierarchy);
+    FlattenedHierarchy& operator=(const FlattenedHierarchy& hierarchy);
+    FlattenedHierarchy& operator=(FlattenedHierarchy&& hierarchy);
+
+    void push(Node* node) {
+        node->set_flattened(owner_, nodes_.size());
+        nodes_.push_back(node);
+    }
+
+private:
+    Owner* owner_;
+    std::vector<Node*> nodes_;
+    // Scratch space for removeSubtree(), kept to avoid allocations
+    std::vector<Node*> stack_;
+};
+
+}
+#endif
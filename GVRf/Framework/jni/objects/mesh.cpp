@@ -28,8 +28,11 @@
 #include "util/gvr_log.h"
 #include "util/gvr_gl.h"
 #include "glm/gtc/matrix_inverse.hpp"
+#include "objects/mesh_simplifier.h"
 
 namespace gvr {
+std::atomic<unsigned int> Mesh::geometry_changes_(0);
+
 Mesh* Mesh::getBoundingBox() {
 
     Mesh* mesh = new Mesh();
@@ -289,6 +292,191 @@ void Mesh::generateVAO() {
 #endif
 }
 
+std::vector<int> Mesh::optimizeVertexOrder() {
+    int vertex_count = vertices_.size();
+    for (int i = 0; i < indices_.size(); ++i) {
+        if (indices_[i] >= vertex_count) {
+            return std::vector<int>();
+        }
+    }
+
+    int welded_count;
+    std::vector<int> weld = MeshOptimizer::weldVertices(vertexStreams(),
+            vertex_count, welded_count);
+    std::vector<unsigned short> indices(indices_.size());
+    for (int i = 0; i < indices_.size(); ++i) {
+        indices[i] = weld[indices_[i]];
+    }
+    if (!MeshOptimizer::reorderTriangles(indices, welded_count)) {
+        return std::vector<int>();
+    }
+    std::vector<int> first_use = MeshOptimizer::remapVertices(indices,
+            welded_count);
+    std::vector<int> remap(vertex_count);
+    for (int v = 0; v < vertex_count; ++v) {
+        remap[v] = first_use[weld[v]];
+    }
+
+    indices_.swap(indices);
+    MeshOptimizer::applyRemap(remap, welded_count, vertices_);
+    MeshOptimizer::applyRemap(remap, welded_count, normals_);
+    MeshOptimizer::applyRemap(remap, welded_count, tex_coords_);
+    for (auto it = float_vectors_.begin(); it != float_vectors_.end(); ++it) {
+        MeshOptimizer::applyRemap(remap, welded_count, it->second);
+    }
+    for (auto it = vec2_vectors_.begin(); it != vec2_vectors_.end(); ++it) {
+        MeshOptimizer::applyRemap(remap, welded_count, it->second);
+    }
+    for (auto it = vec3_vectors_.begin(); it != vec3_vectors_.end(); ++it) {
+        MeshOptimizer::applyRemap(remap, welded_count, it->second);
+    }
+    for (auto it = vec4_vectors_.begin(); it != vec4_vectors_.end(); ++it) {
+        MeshOptimizer::applyRemap(remap, welded_count, it->second);
+    }
+    MeshOptimizer::applyRemap(remap, welded_count, vertexBoneData_.boneData);
+
+    vao_dirty_ = true;
+    bone_data_dirty_ = true;
+    geometryChanged();
+    return remap;
+}
+
+namespace {
+// Copies the values of the vertices a level uses, to their new indices
+template<class T>
+void copyUsed(const std::vector<int>& remap, int used_count,
+        const std::vector<T>& values, std::vector<T>& used) {
+    used.resize(used_count);
+    for (int v = 0; v < remap.size(); ++v) {
+        if (remap[v] < used_count) {
+            used[remap[v]] = values[v];
+        }
+    }
+}
+}
+
+namespace {
+template<class T>
+size_t vectorsByteCount(const std::map<std::string, std::vector<T>>& vectors) {
+    size_t byte_count = 0;
+    for (auto it = vectors.begin(); it != vectors.end(); ++it) {
+        byte_count += it->second.size() * sizeof(T);
+    }
+    return byte_count;
+}
+}
+
+size_t Mesh::byte_count() const {
+    return vertices_.size() * sizeof(glm::vec3)
+            + normals_.size() * sizeof(glm::vec3)
+            + tex_coords_.size() * sizeof(glm::vec2)
+            + vectorsByteCount(float_vectors_)
+            + vectorsByteCount(vec2_vectors_)
+            + vectorsByteCount(vec3_vectors_)
+            + vectorsByteCount(vec4_vectors_)
+            + vertexBoneData_.boneData.size() * sizeof(VertexBoneData::BoneData)
+            + indices_.size() * sizeof(unsigned short);
+}
+
+std::vector<Mesh*> Mesh::simplify(const std::vector<int>& triangle_counts,
+        std::vector<float>& errors) {
+    std::vector<Mesh*> levels;
+    int vertex_count = vertices_.size();
+    if (vertexBoneData_.getNumBones() > 0 || indices_.size() % 3 != 0) {
+        return levels;
+    }
+    for (int i = 0; i < indices_.size(); ++i) {
+        if (indices_[i] >= vertex_count) {
+            return levels;
+        }
+    }
+
+    // Simplify the first of each set of identical vertices, so faces that
+    // have their own corners are joined
+    int welded_count;
+    std::vector<int> weld = MeshOptimizer::weldVertices(vertexStreams(),
+            vertex_count, welded_count);
+    std::vector<int> first(welded_count, -1);
+    for (int v = 0; v < vertex_count; ++v) {
+        if (first[weld[v]] < 0) {
+            first[weld[v]] = v;
+        }
+    }
+    std::vector<unsigned short> welded(indices_.size());
+    for (int i = 0; i < indices_.size(); ++i) {
+        welded[i] = first[weld[indices_[i]]];
+    }
+
+    MeshSimplifier simplifier(vertices_, welded);
+    for (int l = 0; l < triangle_counts.size(); ++l) {
+        errors.push_back(simplifier.simplify(triangle_counts[l]));
+        std::vector<unsigned short> indices = simplifier.indices();
+        MeshOptimizer::reorderTriangles(indices, vertex_count);
+        int used_count = MeshOptimizer::usedVertices(indices, vertex_count);
+        std::vector<int> remap = MeshOptimizer::remapVertices(indices,
+                vertex_count);
+
+        Mesh* level = new Mesh();
+        level->indices_.swap(indices);
+        copyUsed(remap, used_count, vertices_, level->vertices_);
+        if (normals_.size() == vertex_count) {
+            copyUsed(remap, used_count, normals_, level->normals_);
+        }
+        if (tex_coords_.size() == vertex_count) {
+            copyUsed(remap, used_count, tex_coords_, level->tex_coords_);
+        }
+        for (auto it = float_vectors_.begin(); it != float_vectors_.end();
+                ++it) {
+            if (it->second.size() == vertex_count) {
+                copyUsed(remap, used_count, it->second,
+                        level->float_vectors_[it->first]);
+            }
+        }
+        for (auto it = vec2_vectors_.begin(); it != vec2_vectors_.end(); ++it) {
+            if (it->second.size() == vertex_count) {
+                copyUsed(remap, used_count, it->second,
+                        level->vec2_vectors_[it->first]);
+            }
+        }
+        for (auto it = vec3_vectors_.begin(); it != vec3_vectors_.end(); ++it) {
+            if (it->second.size() == vertex_count) {
+                copyUsed(remap, used_count, it->second,
+                        level->vec3_vectors_[it->first]);
+            }
+        }
+        for (auto it = vec4_vectors_.begin(); it != vec4_vectors_.end(); ++it) {
+            if (it->second.size() == vertex_count) {
+                copyUsed(remap, used_count, it->second,
+                        level->vec4_vectors_[it->first]);
+            }
+        }
+        levels.push_back(level);
+    }
+    return levels;
+}
+
+std::vector<MeshOptimizer::VertexStream> Mesh::vertexStreams() {
+    int vertex_count = vertices_.size();
+    std::vector<MeshOptimizer::VertexStream> streams;
+    MeshOptimizer::addStream(streams, vertices_, vertex_count);
+    MeshOptimizer::addStream(streams, normals_, vertex_count);
+    MeshOptimizer::addStream(streams, tex_coords_, vertex_count);
+    for (auto it = float_vectors_.begin(); it != float_vectors_.end(); ++it) {
+        MeshOptimizer::addStream(streams, it->second, vertex_count);
+    }
+    for (auto it = vec2_vectors_.begin(); it != vec2_vectors_.end(); ++it) {
+        MeshOptimizer::addStream(streams, it->second, vertex_count);
+    }
+    for (auto it = vec3_vectors_.begin(); it != vec3_vectors_.end(); ++it) {
+        MeshOptimizer::addStream(streams, it->second, vertex_count);
+    }
+    for (auto it = vec4_vectors_.begin(); it != vec4_vectors_.end(); ++it) {
+        MeshOptimizer::addStream(streams, it->second, vertex_count);
+    }
+    MeshOptimizer::addStream(streams, vertexBoneData_.boneData, vertex_count);
+    return streams;
+}
+
 void Mesh::generateBoneArrayBuffers() {
     if (!bone_data_dirty_) {
         return;
@@ -20,6 +20,7 @@
 #ifndef MESH_H_
 #define MESH_H_
 
+#include <atomic>
 #include <map>
 #include <memory>
 #include <vector>
@@ -38,6 +39,7 @@
 #include "objects/components/bone.h"
 #include "objects/hybrid_object.h"
 #include "objects/material.h"
+#include "objects/mesh_optimizer.h"
 #include "objects/bounding_volume.h"
 #include "objects/vertex_bone_data.h"
 
@@ -68,6 +70,7 @@ public:
         tex_coords.swap(tex_coords_);
         std::vector<unsigned short> indices;
         indices.swap(indices_);
+        geometryChanged();
 
         deleteVaos();
     }
@@ -89,6 +92,20 @@ public:
         bone_data_dirty_ = true;
     }
 
+    // Changes whenever the vertices or triangles do
+    unsigned int geometry_version() const {
+        return geometry_version_;
+    }
+
+    // The memory the vertex attributes and indices take
+    size_t byte_count() const;
+
+    // Changes whenever the vertices or triangles of any mesh do, so that
+    // whatever caches the bounds of many meshes knows when to look again
+    static unsigned int geometry_changes() {
+        return geometry_changes_;
+    }
+
     const std::vector<glm::vec3>& vertices() const {
         return vertices_;
     }
@@ -98,6 +115,7 @@ public:
         have_bounding_volume_ = false;
         getBoundingVolume(); // calculate bounding volume
         vao_dirty_ = true;
+        geometryChanged();
     }
 
     void set_vertices(std::vector<glm::vec3>&& vertices) {
@@ -105,6 +123,7 @@ public:
         have_bounding_volume_ = false;
         getBoundingVolume(); // calculate bounding volume
         vao_dirty_ = true;
+        geometryChanged();
     }
 
     const std::vector<glm::vec3>& normals() const {
@@ -142,11 +161,13 @@ public:
     void set_triangles(const std::vector<unsigned short>& triangles) {
         indices_ = triangles;
         vao_dirty_ = true;
+        geometryChanged();
     }
 
     void set_triangles(std::vector<unsigned short>&& triangles) {
         indices_ = std::move(triangles);
         vao_dirty_ = true;
+        geometryChanged();
     }
 
     const std::vector<unsigned short>& indices() const {
@@ -156,11 +177,13 @@ public:
     void set_indices(const std::vector<unsigned short>& indices) {
         indices_ = indices;
         vao_dirty_ = true;
+        geometryChanged();
     }
 
     void set_indices(std::vector<unsigned short>&& indices) {
         indices_ = std::move(indices);
         vao_dirty_ = true;
+        geometryChanged();
     }
 
     const std::vector<float>& getFloatVector(std::string key) const {
@@ -293,11 +316,32 @@ public:
 
     void generateBoneArrayBuffers();
 
+    // Welds identical vertices, then reorders the triangles for the vertex
+    // cache and the vertices for vertex fetch, moving every vertex attribute
+    // with its vertex. Returns each vertex's new index, or nothing if the
+    // indices are not triangles.
+    std::vector<int> optimizeVertexOrder();
+
+    // Simplified copies of the mesh, down to each of triangle_counts in
+    // turn, with the error of each in errors. Copies that could not be
+    // simplified as far as asked have more triangles. Returns nothing for
+    // meshes with bones or indices that are not triangles.
+    std::vector<Mesh*> simplify(const std::vector<int>& triangle_counts,
+            std::vector<float>& errors);
+
 private:
     Mesh(const Mesh& mesh);
     Mesh(Mesh&& mesh);
     Mesh& operator=(const Mesh& mesh);
 
+    // Every vertex attribute with a value per vertex
+    std::vector<MeshOptimizer::VertexStream> vertexStreams();
+
+    void geometryChanged() {
+        ++geometry_version_;
+        ++geometry_changes_;
+    }
+
 private:
     std::vector<glm::vec3> vertices_;
     std::vector<glm::vec3> normals_;
@@ -328,6 +372,8 @@ private:
 
     bool have_bounding_volume_;
     BoundingVolume bounding_volume;
+    unsigned int geometry_version_ = 0;
+    static std::atomic<unsigned int> geometry_changes_;
 
     // Bone data for the shader
     VertexBoneData vertexBoneData_;
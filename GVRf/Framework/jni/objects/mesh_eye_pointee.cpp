@@ -25,90 +25,161 @@
 #include "glm/glm.hpp"
 #include "glm/gtc/matrix_inverse.hpp"
 
+#include "engine/picker/picking_hierarchy.h"
 #include "objects/mesh.h"
 #include "util/gvr_log.h"
 
 namespace gvr {
-MeshEyePointee::MeshEyePointee(Mesh* mesh) :
-        EyePointee(), mesh_(mesh) {
-}
 
-MeshEyePointee::~MeshEyePointee() {
-}
+namespace {
+//http://en.wikipedia.org/wiki/M%C3%B6ller%E2%80%93Trumbore_intersection_algorithm
+bool intersectTriangle(const glm::vec3& O, const glm::vec3& D,
+        const glm::vec3& V1, const glm::vec3& V2, const glm::vec3& V3,
+        float& t, float& u, float& v) {
+    glm::vec3 e1(V2 - V1);
+    glm::vec3 e2(V3 - V1);
 
-EyePointData MeshEyePointee::isPointed(const glm::mat4& mv_matrix, float ox,
-        float oy, float oz, float dx, float dy, float dz) {
-    return isPointed(mesh_, mv_matrix, ox, oy, oz, dx, dy, dz);
-}
+    glm::vec3 P = glm::cross(D, e2);
 
-EyePointData MeshEyePointee::isPointed(const Mesh* mesh,
-        const glm::mat4& matrix, float ox, float oy, float oz, float dx,
-        float dy, float dz) {
-    glm::mat4 inv_mv_matrix = glm::affineInverse(matrix);
-    std::vector<glm::vec4> relative_veritces;
+    float det = glm::dot(e1, P);
+
+    const float EPSILON = 0.00001f;
 
-    for (auto it = mesh->vertices().begin(); it != mesh->vertices().end();
-            ++it) {
-        glm::vec4 mesh_vertex(*it, 1.0f);
-        relative_veritces.push_back(matrix * mesh_vertex);
+    if (det > -EPSILON && det < EPSILON) {
+        return false;
     }
 
-    EyePointData data;
+    float inv_det = 1.0f / det;
 
-    //http://en.wikipedia.org/wiki/M%C3%B6ller%E2%80%93Trumbore_intersection_algorithm
-    for (int i = 0; i < mesh->triangles().size(); i += 3) {
-        glm::vec3 O(ox, oy, oz);
-        glm::vec3 D(dx, dy, dz);
+    glm::vec3 T(O - V1);
 
-        glm::vec3 V1(relative_veritces[mesh->triangles()[i]]);
-        glm::vec3 V2(relative_veritces[mesh->triangles()[i + 1]]);
-        glm::vec3 V3(relative_veritces[mesh->triangles()[i + 2]]);
+    u = glm::dot(T, P) * inv_det;
 
-        glm::vec3 e1(V2 - V1);
-        glm::vec3 e2(V3 - V1);
+    if (u < 0.0f || u > 1.0f) {
+        return false;
+    }
 
-        glm::vec3 P = glm::cross(D, e2);
+    glm::vec3 Q = glm::cross(T, e1);
 
-        float det = glm::dot(e1, P);
+    v = glm::dot(D, Q) * inv_det;
 
-        const float EPSILON = 0.00001f;
+    if (v < 0.0f || (u + v) > 1.0f) {
+        return false;
+    }
 
-        if (det > -EPSILON && det < EPSILON) {
-            continue;
-        }
+    t = glm::dot(e2, Q) * inv_det;
 
-        float inv_det = 1.0f / det;
+    return t > EPSILON;
+}
 
-        glm::vec3 T(O - V1);
+// Keeps the closest hit, on one triangle of the mesh
+void testTriangle(const Mesh* mesh, int triangle, const glm::vec3& O,
+        const glm::vec3& D, EyePointData& data) {
+    const std::vector<glm::vec3>& vertices = mesh->vertices();
+    const std::vector<unsigned short>& triangles = mesh->triangles();
+
+    const glm::vec3& V1 = vertices[triangles[triangle]];
+    const glm::vec3& V2 = vertices[triangles[triangle + 1]];
+    const glm::vec3& V3 = vertices[triangles[triangle + 2]];
+
+    float t, u, v;
+    if (intersectTriangle(O, D, V1, V2, V3, t, u, v)
+            && t < data.distance()) {
+        data.setDistance(t);
+        data.setHit((1.0f - u - v) * V1 + u * V2 + v * V3);
+    }
+}
 
-        float u = glm::dot(T, P) * inv_det;
+struct TriangleVisitor {
+    const Mesh* mesh;
+    glm::vec3 O;
+    glm::vec3 D;
+    EyePointData* data;
 
-        if (u < 0.0f || u > 1.0f) {
-            continue;
-        }
+    void visit(int item, float& max_distance) {
+        testTriangle(mesh, item * 3, O, D, *data);
+        max_distance = data->distance();
+    }
+};
+}
 
-        glm::vec3 Q = glm::cross(T, e1);
+MeshEyePointee::MeshEyePointee(Mesh* mesh) :
+        EyePointee(), mesh_(mesh), use_hierarchy_(false), hierarchy_(),
+        hierarchy_mesh_(0), hierarchy_version_(0), stack_() {
+    pthread_mutex_init(&mutex_, 0);
+}
 
-        float v = glm::dot(D, Q) * inv_det;
+MeshEyePointee::~MeshEyePointee() {
+    pthread_mutex_destroy(&mutex_);
+}
 
-        if (v < 0.0f || (u + v) > 1.0f) {
-            continue;
-        }
+void MeshEyePointee::set_mesh(Mesh* mesh) {
+    mesh_ = mesh;
+    PickingHierarchy::invalidateAll();
+}
 
-        float t = glm::dot(e2, Q) * inv_det;
+const BoundingVolume* MeshEyePointee::getBoundingVolume() {
+    if (mesh_ == 0) {
+        return nullptr;
+    }
+    return &mesh_->getBoundingVolume();
+}
+
+EyePointData MeshEyePointee::isPointed(const glm::mat4& mv_matrix, float ox,
+        float oy, float oz, float dx, float dy, float dz) {
+    if (!use_hierarchy_ || mesh_ == 0) {
+        return isPointed(mesh_, mv_matrix, ox, oy, oz, dx, dy, dz);
+    }
+
+    glm::mat4 inv_mv_matrix = glm::affineInverse(mv_matrix);
+    TriangleVisitor visitor;
+    visitor.mesh = mesh_;
+    visitor.O = glm::vec3(inv_mv_matrix * glm::vec4(ox, oy, oz, 1.0f));
+    visitor.D = glm::vec3(inv_mv_matrix * glm::vec4(dx, dy, dz, 0.0f));
+    EyePointData data;
+    visitor.data = &data;
+
+    pthread_mutex_lock(&mutex_);
+    if (hierarchy_mesh_ != mesh_
+            || hierarchy_version_ != mesh_->geometry_version()) {
+        buildHierarchy();
+    }
+    hierarchy_.intersect(visitor.O, visitor.D, stack_, visitor);
+    pthread_mutex_unlock(&mutex_);
+
+    return data;
+}
 
-        if (t > EPSILON) {
-            float distance = t;
-            if (distance < data.distance()) {
-                data.setDistance(distance);
-                data.setHit(
-                        glm::vec3(
-                                inv_mv_matrix
-                                        * glm::vec4(
-                                                (1.0f - u - v) * V1 + u * V2
-                                                        + v * V3, 1.0f)));
-            }
-        }
+void MeshEyePointee::buildHierarchy() {
+    const std::vector<glm::vec3>& vertices = mesh_->vertices();
+    const std::vector<unsigned short>& triangles = mesh_->triangles();
+
+    std::vector<BoundingVolume> boxes(triangles.size() / 3);
+    for (int i = 0; i < boxes.size(); ++i) {
+        boxes[i].expand(vertices[triangles[i * 3]]);
+        boxes[i].expand(vertices[triangles[i * 3 + 1]]);
+        boxes[i].expand(vertices[triangles[i * 3 + 2]]);
+    }
+    hierarchy_.build(boxes);
+    hierarchy_mesh_ = mesh_;
+    hierarchy_version_ = mesh_->geometry_version();
+}
+
+/*
+ * The ray is brought into the mesh's space, rather than every vertex into
+ * the ray's: affine transforms keep the ray parameter, so the distance is
+ * the same.
+ */
+EyePointData MeshEyePointee::isPointed(const Mesh* mesh,
+        const glm::mat4& matrix, float ox, float oy, float oz, float dx,
+        float dy, float dz) {
+    glm::mat4 inv_mv_matrix = glm::affineInverse(matrix);
+    glm::vec3 O(inv_mv_matrix * glm::vec4(ox, oy, oz, 1.0f));
+    glm::vec3 D(inv_mv_matrix * glm::vec4(dx, dy, dz, 0.0f));
+
+    EyePointData data;
+    for (int i = 0; i < mesh->triangles().size(); i += 3) {
+        testTriangle(mesh, i, O, D, data);
     }
 
     return data;
@@ -22,7 +22,10 @@
 #define MESH_EYE_POINTEE_H_
 
 #include <memory>
+#include <pthread.h>
+#include <vector>
 
+#include "engine/picker/bounding_volume_hierarchy.h"
 #include "objects/eye_pointee.h"
 
 namespace gvr {
@@ -37,10 +40,21 @@ public:
         return mesh_;
     }
 
-    void set_mesh(Mesh* mesh) {
-        mesh_ = mesh;
+    void set_mesh(Mesh* mesh);
+
+    // Whether to test rays against a bounding volume hierarchy of the
+    // mesh's triangles, instead of against every triangle. The hierarchy is
+    // built on first use, and again whenever the mesh's geometry changes.
+    bool use_hierarchy() const {
+        return use_hierarchy_;
+    }
+
+    void set_use_hierarchy(bool use_hierarchy) {
+        use_hierarchy_ = use_hierarchy;
     }
 
+    const BoundingVolume* getBoundingVolume();
+
     EyePointData isPointed(const glm::mat4& mv_matrix);
     EyePointData isPointed(const glm::mat4& mv_matrix, float ox, float oy,
             float oz, float dx, float dy, float dz);
@@ -53,8 +67,16 @@ private:
     MeshEyePointee& operator=(const MeshEyePointee& mesh_eye_pointee);
     MeshEyePointee& operator=(MeshEyePointee&& mesh_eye_pointee);
 
+    void buildHierarchy();
+
 private:
     Mesh* mesh_;
+    bool use_hierarchy_;
+    pthread_mutex_t mutex_;
+    BoundingVolumeHierarchy hierarchy_;
+    const Mesh* hierarchy_mesh_;
+    unsigned int hierarchy_version_;
+    std::vector<int> stack_;
 };
 }
 #endif
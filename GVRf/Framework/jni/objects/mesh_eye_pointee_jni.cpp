@@ -31,6 +31,10 @@ Java_org_gearvrf_NativeMeshEyePointee_ctor(JNIEnv * env,
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeMeshEyePointee_setMesh(JNIEnv * env,
         jobject obj, jlong jmesh_eye_pointee, jlong jmesh);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMeshEyePointee_setUseHierarchy(JNIEnv * env,
+        jobject obj, jlong jmesh_eye_pointee, jboolean use_hierarchy);
 }
 
 JNIEXPORT jlong JNICALL
@@ -49,4 +53,12 @@ Java_org_gearvrf_NativeMeshEyePointee_setMesh(JNIEnv * env,
     mesh_eye_pointee->set_mesh(mesh);
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMeshEyePointee_setUseHierarchy(JNIEnv * env,
+        jobject obj, jlong jmesh_eye_pointee, jboolean use_hierarchy) {
+    MeshEyePointee* mesh_eye_pointee =
+            reinterpret_cast<MeshEyePointee*>(jmesh_eye_pointee);
+    mesh_eye_pointee->set_use_hierarchy(static_cast<bool>(use_hierarchy));
+}
+
 }
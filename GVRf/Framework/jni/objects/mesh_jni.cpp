@@ -20,6 +20,9 @@
 
 #include "mesh.h"
 
+#include <algorithm>
+#include <cstring>
+
 #include "util/gvr_log.h"
 #include "util/gvr_jni.h"
 #include "android/asset_manager_jni.h"
@@ -67,6 +70,23 @@ JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeMesh_setIndices(JNIEnv * env,
         jobject obj, jlong jmesh, jcharArray indices);
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setVerticesBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jobject jvertices, jint offset, jint count);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setNormalsBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jobject jnormals, jint offset, jint count);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setTexCoordsBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jobject jtex_coords, jint offset,
+        jint count, jint components);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setIndicesShortBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jobject jindices, jint offset, jint count);
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeMesh_setIndicesIntBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jobject jindices, jint offset, jint count);
+
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeMesh_setFloatVector(JNIEnv * env,
         jobject obj, jlong jmesh, jstring key, jfloatArray float_vector);
@@ -98,6 +118,27 @@ Java_org_gearvrf_NativeMesh_getBoundingBox(JNIEnv * env,
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeMesh_setBones(JNIEnv * env,
         jobject obj, jlong jmesh, jlongArray jBonePtrArray);
+
+JNIEXPORT jintArray JNICALL
+Java_org_gearvrf_NativeMesh_optimizeVertexOrder(JNIEnv * env,
+        jobject obj, jlong jmesh);
+
+JNIEXPORT jlongArray JNICALL
+Java_org_gearvrf_NativeMesh_simplify(JNIEnv * env,
+        jobject obj, jlong jmesh, jintArray jtriangleCounts,
+        jfloatArray jerrors);
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeMesh_getVertexCount(JNIEnv * env,
+        jobject obj, jlong jmesh);
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeMesh_getIndexCount(JNIEnv * env,
+        jobject obj, jlong jmesh);
+
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativeMesh_getByteCount(JNIEnv * env,
+        jobject obj, jlong jmesh);
 }
 ;
 
@@ -126,12 +167,10 @@ Java_org_gearvrf_NativeMesh_setVertices(JNIEnv * env,
             reinterpret_cast<glm::vec3*>(jvertices_pointer);
     int vertices_length = static_cast<int>(env->GetArrayLength(vertices))
             / (sizeof(glm::vec3) / sizeof(jfloat));
-    std::vector<glm::vec3> native_vertices;
-    for (int i = 0; i < vertices_length; ++i) {
-        native_vertices.push_back(vertices_pointer[i]);
-    }
-    mesh->set_vertices(native_vertices);
-    env->ReleaseFloatArrayElements(vertices, jvertices_pointer, 0);
+    std::vector<glm::vec3> native_vertices(vertices_pointer,
+            vertices_pointer + vertices_length);
+    mesh->set_vertices(std::move(native_vertices));
+    env->ReleaseFloatArrayElements(vertices, jvertices_pointer, JNI_ABORT);
 }
 
 JNIEXPORT jfloatArray JNICALL
@@ -153,12 +192,10 @@ Java_org_gearvrf_NativeMesh_setNormals(JNIEnv * env,
     glm::vec3* normals_pointer = reinterpret_cast<glm::vec3*>(jnormals_pointer);
     int normals_length = static_cast<int>(env->GetArrayLength(normals))
             / (sizeof(glm::vec3) / sizeof(jfloat));
-    std::vector<glm::vec3> native_normals;
-    for (int i = 0; i < normals_length; ++i) {
-        native_normals.push_back(normals_pointer[i]);
-    }
-    mesh->set_normals(native_normals);
-    env->ReleaseFloatArrayElements(normals, jnormals_pointer, 0);
+    std::vector<glm::vec3> native_normals(normals_pointer,
+            normals_pointer + normals_length);
+    mesh->set_normals(std::move(native_normals));
+    env->ReleaseFloatArrayElements(normals, jnormals_pointer, JNI_ABORT);
 }
 
 JNIEXPORT jfloatArray JNICALL
@@ -181,12 +218,10 @@ Java_org_gearvrf_NativeMesh_setTexCoords(JNIEnv * env,
             reinterpret_cast<glm::vec2*>(jtex_coords_pointer);
     int tex_coords_length = static_cast<int>(env->GetArrayLength(tex_coords))
             / (sizeof(glm::vec2) / sizeof(jfloat));
-    std::vector<glm::vec2> native_tex_coords;
-    for (int i = 0; i < tex_coords_length; ++i) {
-        native_tex_coords.push_back(tex_coords_pointer[i]);
-    }
-    mesh->set_tex_coords(native_tex_coords);
-    env->ReleaseFloatArrayElements(tex_coords, jtex_coords_pointer, 0);
+    std::vector<glm::vec2> native_tex_coords(tex_coords_pointer,
+            tex_coords_pointer + tex_coords_length);
+    mesh->set_tex_coords(std::move(native_tex_coords));
+    env->ReleaseFloatArrayElements(tex_coords, jtex_coords_pointer, JNI_ABORT);
 }
 
 JNIEXPORT jcharArray JNICALL
@@ -207,12 +242,10 @@ Java_org_gearvrf_NativeMesh_setTriangles(JNIEnv * env,
     unsigned short* triangles_pointer =
             static_cast<unsigned short*>(jtriangles_pointer);
     int triangles_length = env->GetArrayLength(triangles);
-    std::vector<unsigned short> native_triangles;
-    for (int i = 0; i < triangles_length; ++i) {
-        native_triangles.push_back(triangles_pointer[i]);
-    }
-    mesh->set_triangles(native_triangles);
-    env->ReleaseCharArrayElements(triangles, jtriangles_pointer, 0);
+    std::vector<unsigned short> native_triangles(triangles_pointer,
+            triangles_pointer + triangles_length);
+    mesh->set_triangles(std::move(native_triangles));
+    env->ReleaseCharArrayElements(triangles, jtriangles_pointer, JNI_ABORT);
 }
 
 JNIEXPORT jcharArray JNICALL
@@ -233,12 +266,91 @@ Java_org_gearvrf_NativeMesh_setIndices(JNIEnv * env,
     unsigned short* indices_pointer =
             static_cast<unsigned short*>(jindices_pointer);
     int indices_length = env->GetArrayLength(indices);
-    std::vector<unsigned short> native_indices;
-    for (int i = 0; i < indices_length; ++i) {
-        native_indices.push_back(indices_pointer[i]);
+    std::vector<unsigned short> native_indices(indices_pointer,
+            indices_pointer + indices_length);
+    mesh->set_indices(std::move(native_indices));
+    env->ReleaseCharArrayElements(indices, jindices_pointer, JNI_ABORT);
+}
+
+/*
+ * The direct buffer setters: count elements from offset elements into the
+ * buffer, copied once, straight into the mesh's vectors. The Java side only
+ * passes direct buffers, of at least count elements.
+ */
+template<class Element>
+static const Element* directBufferAddress(JNIEnv * env, jobject jbuffer,
+        jint offset) {
+    const Element* address = static_cast<const Element*>(
+            env->GetDirectBufferAddress(jbuffer));
+    return address == 0 ? 0 : address + offset;
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setVerticesBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jobject jvertices, jint offset, jint count) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    const jfloat* vertices = directBufferAddress<jfloat>(env, jvertices, offset);
+    std::vector<glm::vec3> native_vertices(count / 3);
+    std::memcpy(native_vertices.data(), vertices, count * sizeof(jfloat));
+    mesh->set_vertices(std::move(native_vertices));
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setNormalsBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jobject jnormals, jint offset, jint count) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    const jfloat* normals = directBufferAddress<jfloat>(env, jnormals, offset);
+    std::vector<glm::vec3> native_normals(count / 3);
+    std::memcpy(native_normals.data(), normals, count * sizeof(jfloat));
+    mesh->set_normals(std::move(native_normals));
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setTexCoordsBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jobject jtex_coords, jint offset,
+        jint count, jint components) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    const jfloat* tex_coords = directBufferAddress<jfloat>(env, jtex_coords,
+            offset);
+    int tex_coords_length = count / components;
+    std::vector<glm::vec2> native_tex_coords(tex_coords_length);
+    if (components == 2) {
+        std::memcpy(native_tex_coords.data(), tex_coords,
+                count * sizeof(jfloat));
+    } else {
+        // Keep u and v, drop the rest
+        for (int i = 0; i < tex_coords_length; ++i) {
+            std::memcpy(&native_tex_coords[i], tex_coords + i * components,
+                    sizeof(glm::vec2));
+        }
+    }
+    mesh->set_tex_coords(std::move(native_tex_coords));
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setIndicesShortBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jobject jindices, jint offset, jint count) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    const jshort* indices = directBufferAddress<jshort>(env, jindices, offset);
+    std::vector<unsigned short> native_indices(count);
+    std::memcpy(native_indices.data(), indices, count * sizeof(jshort));
+    mesh->set_indices(std::move(native_indices));
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeMesh_setIndicesIntBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jobject jindices, jint offset, jint count) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    const jint* indices = directBufferAddress<jint>(env, jindices, offset);
+    std::vector<unsigned short> native_indices(count);
+    jint max_index = 0;
+    for (int i = 0; i < count; ++i) {
+        jint index = indices[i];
+        max_index = std::max(max_index, index);
+        native_indices[i] = static_cast<unsigned short>(index);
     }
-    mesh->set_indices(native_indices);
-    env->ReleaseCharArrayElements(indices, jindices_pointer, 0);
+    mesh->set_indices(std::move(native_indices));
+    return max_index;
 }
 
 JNIEXPORT jfloatArray JNICALL
@@ -404,4 +516,58 @@ Java_org_gearvrf_NativeMesh_setBones(JNIEnv * env, jobject obj, jlong jmesh,
 	env->ReleaseLongArrayElements(jBonePtrArray, bonesPtr, JNI_ABORT);
 }
 
+JNIEXPORT jintArray JNICALL
+Java_org_gearvrf_NativeMesh_optimizeVertexOrder(JNIEnv * env,
+        jobject obj, jlong jmesh) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    std::vector<int> remap = mesh->optimizeVertexOrder();
+    if (remap.empty()) {
+        return 0;
+    }
+    jintArray jremap = env->NewIntArray(remap.size());
+    env->SetIntArrayRegion(jremap, 0, remap.size(), remap.data());
+    return jremap;
+}
+
+JNIEXPORT jlongArray JNICALL
+Java_org_gearvrf_NativeMesh_simplify(JNIEnv * env,
+        jobject obj, jlong jmesh, jintArray jtriangleCounts,
+        jfloatArray jerrors) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    std::vector<int> triangle_counts(env->GetArrayLength(jtriangleCounts));
+    env->GetIntArrayRegion(jtriangleCounts, 0, triangle_counts.size(),
+            triangle_counts.data());
+    std::vector<float> errors;
+    std::vector<Mesh*> levels = mesh->simplify(triangle_counts, errors);
+    env->SetFloatArrayRegion(jerrors, 0, errors.size(), errors.data());
+    std::vector<jlong> jlevels(levels.size());
+    for (int i = 0; i < levels.size(); ++i) {
+        jlevels[i] = reinterpret_cast<jlong>(levels[i]);
+    }
+    jlongArray jlevelArray = env->NewLongArray(jlevels.size());
+    env->SetLongArrayRegion(jlevelArray, 0, jlevels.size(), jlevels.data());
+    return jlevelArray;
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeMesh_getVertexCount(JNIEnv * env,
+        jobject obj, jlong jmesh) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    return mesh->vertices().size();
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeMesh_getIndexCount(JNIEnv * env,
+        jobject obj, jlong jmesh) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    return mesh->indices().size();
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativeMesh_getByteCount(JNIEnv * env,
+        jobject obj, jlong jmesh) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    return mesh->byte_count();
+}
+
 }
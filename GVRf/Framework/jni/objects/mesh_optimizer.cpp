@@ -0,0 +1,239 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Orders the triangles and vertices of an indexed triangle list for the
+ * GPU's post-transform vertex cache and vertex fetch.
+ ***************************************************************************/
+
+#include "mesh_optimizer.h"
+
+#include <cstring>
+
+#include <stdint.h>
+
+namespace gvr {
+namespace {
+const int NONE = -1;
+
+const unsigned char* attribute(const MeshOptimizer::VertexStream& stream,
+        int vertex) {
+    return static_cast<const unsigned char*>(stream.data)
+            + vertex * stream.stride;
+}
+
+// FNV-1a over every attribute of the vertex
+uint32_t hashVertex(const std::vector<MeshOptimizer::VertexStream>& streams,
+        int vertex) {
+    uint32_t hash = 2166136261u;
+    for (int s = 0; s < streams.size(); ++s) {
+        const unsigned char* bytes = attribute(streams[s], vertex);
+        for (int b = 0; b < streams[s].stride; ++b) {
+            hash = (hash ^ bytes[b]) * 16777619u;
+        }
+    }
+    return hash;
+}
+
+bool sameVertex(const std::vector<MeshOptimizer::VertexStream>& streams,
+        int a, int b) {
+    for (int s = 0; s < streams.size(); ++s) {
+        if (std::memcmp(attribute(streams[s], a), attribute(streams[s], b),
+                streams[s].stride) != 0) {
+            return false;
+        }
+    }
+    return true;
+}
+}
+
+std::vector<int> MeshOptimizer::weldVertices(
+        const std::vector<VertexStream>& streams, int vertex_count,
+        int& welded_count) {
+    // Open addressing, holding the first vertex of each distinct value
+    int table_size = 1;
+    while (table_size < vertex_count * 2) {
+        table_size <<= 1;
+    }
+    std::vector<int> table(table_size, NONE);
+    std::vector<int> remap(vertex_count);
+    welded_count = 0;
+    for (int v = 0; v < vertex_count; ++v) {
+        int slot = hashVertex(streams, v) & (table_size - 1);
+        while (table[slot] != NONE && !sameVertex(streams, table[slot], v)) {
+            slot = (slot + 1) & (table_size - 1);
+        }
+        if (table[slot] == NONE) {
+            table[slot] = v;
+            remap[v] = welded_count++;
+        } else {
+            remap[v] = remap[table[slot]];
+        }
+    }
+    return remap;
+}
+
+bool MeshOptimizer::reorderTriangles(std::vector<unsigned short>& indices,
+        int vertex_count, int cache_size) {
+    if (indices.size() % 3 != 0) {
+        return false;
+    }
+    for (int i = 0; i < indices.size(); ++i) {
+        if (indices[i] >= vertex_count) {
+            return false;
+        }
+    }
+
+    // The triangles of each vertex, from adjacency[offsets[v]] to
+    // adjacency[offsets[v + 1]]
+    std::vector<int> offsets(vertex_count + 1, 0);
+    for (int i = 0; i < indices.size(); ++i) {
+        ++offsets[indices[i] + 1];
+    }
+    for (int v = 0; v < vertex_count; ++v) {
+        offsets[v + 1] += offsets[v];
+    }
+    std::vector<int> adjacency(indices.size());
+    std::vector<int> next_slot(offsets.begin(), offsets.end() - 1);
+    for (int i = 0; i < indices.size(); ++i) {
+        adjacency[next_slot[indices[i]]++] = i / 3;
+    }
+
+    // Triangles of each vertex not emitted yet
+    std::vector<int> live(vertex_count);
+    for (int v = 0; v < vertex_count; ++v) {
+        live[v] = offsets[v + 1] - offsets[v];
+    }
+    // When each vertex last entered the cache; it is still there while
+    // time - cache_time[v] <= cache_size
+    std::vector<int> cache_time(vertex_count, 0);
+    int time = cache_size + 1;
+    std::vector<bool> emitted(indices.size() / 3, false);
+    std::vector<int> dead_ends;
+    std::vector<int> candidates;
+    int cursor = 0;
+
+    std::vector<unsigned short> reordered;
+    reordered.reserve(indices.size());
+    for (;;) {
+        // Prefer the candidate that stays in the cache through its own
+        // fan and has been there longest
+        int fanning = NONE;
+        int best_priority = -1;
+        for (int i = 0; i < candidates.size(); ++i) {
+            int v = candidates[i];
+            if (live[v] > 0) {
+                int priority = 0;
+                if (time - cache_time[v] + 2 * live[v] <= cache_size) {
+                    priority = time - cache_time[v];
+                }
+                if (priority > best_priority) {
+                    best_priority = priority;
+                    fanning = v;
+                }
+            }
+        }
+        // Dead end: go back to a recent vertex, then on in input order
+        while (fanning == NONE && !dead_ends.empty()) {
+            int v = dead_ends.back();
+            dead_ends.pop_back();
+            if (live[v] > 0) {
+                fanning = v;
+            }
+        }
+        while (fanning == NONE && cursor < vertex_count) {
+            if (live[cursor] > 0) {
+                fanning = cursor;
+            }
+            ++cursor;
+        }
+        if (fanning == NONE) {
+            break;
+        }
+
+        candidates.clear();
+        for (int a = offsets[fanning]; a < offsets[fanning + 1]; ++a) {
+            int triangle = adjacency[a];
+            if (emitted[triangle]) {
+                continue;
+            }
+            emitted[triangle] = true;
+            for (int corner = 0; corner < 3; ++corner) {
+                int v = indices[triangle * 3 + corner];
+                reordered.push_back(v);
+                dead_ends.push_back(v);
+                candidates.push_back(v);
+                --live[v];
+                if (time - cache_time[v] > cache_size) {
+                    cache_time[v] = time++;
+                }
+            }
+        }
+    }
+
+    indices.swap(reordered);
+    return true;
+}
+
+std::vector<int> MeshOptimizer::remapVertices(
+        std::vector<unsigned short>& indices, int vertex_count) {
+    std::vector<int> remap(vertex_count, NONE);
+    int next = 0;
+    for (int i = 0; i < indices.size(); ++i) {
+        int& index = remap[indices[i]];
+        if (index == NONE) {
+            index = next++;
+        }
+        indices[i] = index;
+    }
+    for (int v = 0; v < vertex_count; ++v) {
+        if (remap[v] == NONE) {
+            remap[v] = next++;
+        }
+    }
+    return remap;
+}
+
+int MeshOptimizer::transformedVertices(
+        const std::vector<unsigned short>& indices, int vertex_count,
+        int cache_size) {
+    // When each vertex entered the cache, counted in misses; it is still
+    // there until cache_size more vertices have entered
+    std::vector<int> entered(vertex_count, -cache_size - 1);
+    int misses = 0;
+    for (int i = 0; i < indices.size(); ++i) {
+        int v = indices[i];
+        if (misses - entered[v] > cache_size) {
+            entered[v] = misses++;
+        }
+    }
+    return misses;
+}
+
+int MeshOptimizer::usedVertices(const std::vector<unsigned short>& indices,
+        int vertex_count) {
+    std::vector<bool> used(vertex_count, false);
+    int count = 0;
+    for (int i = 0; i < indices.size(); ++i) {
+        if (!used[indices[i]]) {
+            used[indices[i]] = true;
+            ++count;
+        }
+    }
+    return count;
+}
+
+}
@@ -0,0 +1,113 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Orders the triangles and vertices of an indexed triangle list for the
+ * GPU's post-transform vertex cache and vertex fetch.
+ *
+ * weldVertices() first gives vertices that are the same in every attribute
+ * one index, as generated meshes that emit the corners of each face
+ * separately need. reorderTriangles() is Tipsify (Sander, Nehab and
+ * Barczak, "Fast Triangle Reordering for Vertex Locality and Reduced
+ * Overdraw", 2007): it fans around one vertex at a time, moving on to the
+ * vertex of the last triangles that will still be in the cache, and keeps
+ * each triangle's winding. remapVertices() then numbers the vertices in the order the new
+ * triangles use them, so vertex fetch walks the vertex buffers in order.
+ *
+ * transformedVertices() simulates a FIFO cache, for the average cache miss
+ * ratio (ACMR, transformed vertices per triangle) and the average
+ * transformed vertex ratio (ATVR, transformed vertices per vertex; 1 is
+ * ideal).
+ *
+ * Has no GL or JNI dependencies, so it can be built on the host.
+ ***************************************************************************/
+
+#ifndef MESH_OPTIMIZER_H_
+#define MESH_OPTIMIZER_H_
+
+#include <vector>
+
+namespace gvr {
+
+class MeshOptimizer {
+private:
+    MeshOptimizer();
+
+public:
+    // Smaller than the caches of current mobile GPUs, so orders made for it
+    // suit them all
+    static const int CACHE_SIZE = 16;
+
+    // One attribute of every vertex, stride bytes apart
+    struct VertexStream {
+        const void* data;
+        int stride;
+    };
+
+    // Adds the attribute, if it has a value per vertex
+    template<class T>
+    static void addStream(std::vector<VertexStream>& streams,
+            const std::vector<T>& values, int vertex_count) {
+        if (values.size() == vertex_count && vertex_count > 0) {
+            VertexStream stream = { values.data(), sizeof(T) };
+            streams.push_back(stream);
+        }
+    }
+
+    // Gives vertices whose attributes are the same, byte for byte, one
+    // index, numbered in first occurrence order. Returns each vertex's new
+    // index, and sets welded_count to the number of distinct vertices.
+    static std::vector<int> weldVertices(
+            const std::vector<VertexStream>& streams, int vertex_count,
+            int& welded_count);
+
+    // Returns false, leaving the indices alone, if they are not triangles
+    // of vertex_count vertices
+    static bool reorderTriangles(std::vector<unsigned short>& indices,
+            int vertex_count, int cache_size = CACHE_SIZE);
+
+    // Renumbers the vertices in first use order, vertices no triangle uses
+    // last. Returns each vertex's new index.
+    static std::vector<int> remapVertices(std::vector<unsigned short>& indices,
+            int vertex_count);
+
+    // Moves each value to its vertex's new index, of new_count. Vectors that
+    // do not have a value per vertex are left alone.
+    template<class T>
+    static void applyRemap(const std::vector<int>& remap, int new_count,
+            std::vector<T>& values) {
+        if (values.size() != remap.size()) {
+            return;
+        }
+        std::vector<T> remapped(new_count);
+        for (int i = 0; i < remap.size(); ++i) {
+            remapped[remap[i]] = values[i];
+        }
+        values.swap(remapped);
+    }
+
+    // Vertices a FIFO cache of cache_size entries transforms, drawing the
+    // triangles in order
+    static int transformedVertices(const std::vector<unsigned short>& indices,
+            int vertex_count, int cache_size = CACHE_SIZE);
+
+    // Vertices the triangles use
+    static int usedVertices(const std::vector<unsigned short>& indices,
+            int vertex_count);
+};
+
+}
+#endif
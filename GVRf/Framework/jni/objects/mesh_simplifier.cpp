@@ -0,0 +1,334 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Simplifies an indexed triangle list by quadric error metrics.
+ ***************************************************************************/
+
+#include "mesh_simplifier.h"
+
+#include <algorithm>
+#include <cmath>
+#include <functional>
+#include <iterator>
+
+#include <stdint.h>
+
+namespace gvr {
+namespace {
+
+struct PositionLess {
+    const std::vector<glm::vec3>* positions;
+
+    bool operator()(int a, int b) const {
+        const glm::vec3& p = (*positions)[a];
+        const glm::vec3& q = (*positions)[b];
+        if (p.x != q.x) {
+            return p.x < q.x;
+        }
+        if (p.y != q.y) {
+            return p.y < q.y;
+        }
+        return p.z < q.z;
+    }
+};
+
+void addNeighbors(const std::vector<unsigned short>& indices,
+        const std::vector<int>& triangles, int vertex,
+        std::vector<int>& neighbors) {
+    for (int i = 0; i < triangles.size(); ++i) {
+        for (int corner = 0; corner < 3; ++corner) {
+            int v = indices[triangles[i] * 3 + corner];
+            if (v != vertex) {
+                neighbors.push_back(v);
+            }
+        }
+    }
+    std::sort(neighbors.begin(), neighbors.end());
+    neighbors.erase(std::unique(neighbors.begin(), neighbors.end()),
+            neighbors.end());
+}
+
+bool hasCorner(const std::vector<unsigned short>& indices, int triangle,
+        int vertex) {
+    return indices[triangle * 3] == vertex
+            || indices[triangle * 3 + 1] == vertex
+            || indices[triangle * 3 + 2] == vertex;
+}
+
+}
+
+MeshSimplifier::MeshSimplifier(const std::vector<glm::vec3>& positions,
+        const std::vector<unsigned short>& indices) :
+        positions_(positions), triangles_(positions.size()),
+        quadrics_(positions.size()), locked_(positions.size(), false),
+        versions_(positions.size(), 0), triangle_count_(0), cost_(0.0) {
+    if (indices.size() % 3 != 0) {
+        return;
+    }
+    for (int i = 0; i < indices.size(); ++i) {
+        if (indices[i] >= positions.size()) {
+            return;
+        }
+    }
+    indices_ = indices;
+    triangle_count_ = indices.size() / 3;
+    live_.assign(triangle_count_, true);
+
+    for (int v = 0; v < quadrics_.size(); ++v) {
+        std::fill(quadrics_[v].a, quadrics_[v].a + 10, 0.0);
+    }
+    for (int t = 0; t < triangle_count_; ++t) {
+        int a = indices_[t * 3];
+        int b = indices_[t * 3 + 1];
+        int c = indices_[t * 3 + 2];
+        triangles_[a].push_back(t);
+        triangles_[b].push_back(t);
+        triangles_[c].push_back(t);
+        if (a == b || b == c || c == a) {
+            locked_[a] = locked_[b] = locked_[c] = true;
+            continue;
+        }
+        glm::vec3 normal = glm::cross(positions_[b] - positions_[a],
+                positions_[c] - positions_[a]);
+        float length = glm::length(normal);
+        if (length > 0.0f) {
+            normal /= length;
+            addPlane(quadrics_[a], normal, positions_[a]);
+            addPlane(quadrics_[b], normal, positions_[a]);
+            addPlane(quadrics_[c], normal, positions_[a]);
+        }
+    }
+    lockSharedVertices();
+    lockBoundaryVertices();
+
+    for (int t = 0; t < triangle_count_; ++t) {
+        for (int corner = 0; corner < 3; ++corner) {
+            int a = indices_[t * 3 + corner];
+            int b = indices_[t * 3 + (corner + 1) % 3];
+            pushCollapse(a, b);
+            pushCollapse(b, a);
+        }
+    }
+}
+
+float MeshSimplifier::simplify(int target_triangles) {
+    while (triangle_count_ > target_triangles && !heap_.empty()) {
+        std::pop_heap(heap_.begin(), heap_.end(), std::greater<Collapse>());
+        Collapse next = heap_.back();
+        heap_.pop_back();
+        // Stale: one end has moved, or taken over another vertex since
+        if (versions_[next.from] != next.from_version
+                || versions_[next.to] != next.to_version
+                || triangles_[next.from].empty()) {
+            continue;
+        }
+        if (!canCollapse(next.from, next.to)) {
+            continue;
+        }
+        cost_ = std::max(cost_, next.cost);
+        collapse(next.from, next.to);
+    }
+    return std::sqrt(cost_);
+}
+
+std::vector<unsigned short> MeshSimplifier::indices() const {
+    std::vector<unsigned short> indices;
+    indices.reserve(triangle_count_ * 3);
+    for (int t = 0; t < live_.size(); ++t) {
+        if (live_[t]) {
+            indices.insert(indices.end(), indices_.begin() + t * 3,
+                    indices_.begin() + t * 3 + 3);
+        }
+    }
+    return indices;
+}
+
+void MeshSimplifier::addPlane(Quadric& quadric, const glm::vec3& normal,
+        const glm::vec3& point) {
+    double a = normal.x;
+    double b = normal.y;
+    double c = normal.z;
+    double d = -glm::dot(normal, point);
+    double* q = quadric.a;
+    q[0] += a * a;
+    q[1] += a * b;
+    q[2] += a * c;
+    q[3] += a * d;
+    q[4] += b * b;
+    q[5] += b * c;
+    q[6] += b * d;
+    q[7] += c * c;
+    q[8] += c * d;
+    q[9] += d * d;
+}
+
+double MeshSimplifier::distance(const Quadric& quadric,
+        const glm::vec3& point) {
+    double x = point.x;
+    double y = point.y;
+    double z = point.z;
+    const double* q = quadric.a;
+    double error = q[0] * x * x + 2.0 * q[1] * x * y + 2.0 * q[2] * x * z
+            + 2.0 * q[3] * x + q[4] * y * y + 2.0 * q[5] * y * z
+            + 2.0 * q[6] * y + q[7] * z * z + 2.0 * q[8] * z + q[9];
+    // Rounding can take an exact fit below zero
+    return std::max(error, 0.0);
+}
+
+void MeshSimplifier::lockSharedVertices() {
+    // Only vertices of triangles, so unused copies lock nothing
+    std::vector<int> order;
+    for (int v = 0; v < positions_.size(); ++v) {
+        if (!triangles_[v].empty()) {
+            order.push_back(v);
+        }
+    }
+    PositionLess less = { &positions_ };
+    std::sort(order.begin(), order.end(), less);
+    for (int i = 1; i < order.size(); ++i) {
+        if (positions_[order[i]] == positions_[order[i - 1]]) {
+            locked_[order[i]] = true;
+            locked_[order[i - 1]] = true;
+        }
+    }
+}
+
+void MeshSimplifier::lockBoundaryVertices() {
+    // Every edge as its lower and higher vertex; an edge of a closed
+    // manifold has exactly two triangles
+    std::vector<uint32_t> edges;
+    edges.reserve(indices_.size());
+    for (int t = 0; t < triangle_count_; ++t) {
+        for (int corner = 0; corner < 3; ++corner) {
+            uint32_t a = indices_[t * 3 + corner];
+            uint32_t b = indices_[t * 3 + (corner + 1) % 3];
+            edges.push_back(a < b ? (a << 16) | b : (b << 16) | a);
+        }
+    }
+    std::sort(edges.begin(), edges.end());
+    for (int i = 0; i < edges.size();) {
+        int end = i + 1;
+        while (end < edges.size() && edges[end] == edges[i]) {
+            ++end;
+        }
+        if (end - i != 2) {
+            locked_[edges[i] >> 16] = true;
+            locked_[edges[i] & 0xFFFF] = true;
+        }
+        i = end;
+    }
+}
+
+void MeshSimplifier::pushCollapses(int vertex) {
+    const std::vector<int>& triangles = triangles_[vertex];
+    for (int i = 0; i < triangles.size(); ++i) {
+        for (int corner = 0; corner < 3; ++corner) {
+            int v = indices_[triangles[i] * 3 + corner];
+            if (v != vertex) {
+                pushCollapse(vertex, v);
+                pushCollapse(v, vertex);
+            }
+        }
+    }
+}
+
+void MeshSimplifier::pushCollapse(int from, int to) {
+    if (locked_[from]) {
+        return;
+    }
+    Quadric sum = quadrics_[from];
+    for (int i = 0; i < 10; ++i) {
+        sum.a[i] += quadrics_[to].a[i];
+    }
+    Collapse collapse = { distance(sum, positions_[to]), from, to,
+            versions_[from], versions_[to] };
+    heap_.push_back(collapse);
+    std::push_heap(heap_.begin(), heap_.end(), std::greater<Collapse>());
+}
+
+bool MeshSimplifier::canCollapse(int from, int to) const {
+    const std::vector<int>& triangles = triangles_[from];
+    int shared = 0;
+    for (int i = 0; i < triangles.size(); ++i) {
+        if (hasCorner(indices_, triangles[i], to)) {
+            ++shared;
+            continue;
+        }
+        // The triangle must not fold over when from moves onto to
+        int t = triangles[i];
+        int corner = indices_[t * 3] == from ? 0
+                : indices_[t * 3 + 1] == from ? 1 : 2;
+        const glm::vec3& b = positions_[indices_[t * 3 + (corner + 1) % 3]];
+        const glm::vec3& c = positions_[indices_[t * 3 + (corner + 2) % 3]];
+        glm::vec3 before = glm::cross(b - positions_[from],
+                c - positions_[from]);
+        glm::vec3 after = glm::cross(b - positions_[to], c - positions_[to]);
+        if (glm::dot(before, after) <= 0.0f
+                && glm::dot(before, before) > 0.0f) {
+            return false;
+        }
+    }
+    if (shared == 0) {
+        return false;
+    }
+
+    // Link condition: the two ends may only share the vertices opposite
+    // the edge, or the collapse pinches the surface
+    std::vector<int> from_neighbors;
+    std::vector<int> to_neighbors;
+    addNeighbors(indices_, triangles_[from], from, from_neighbors);
+    addNeighbors(indices_, triangles_[to], to, to_neighbors);
+    std::vector<int> common;
+    std::set_intersection(from_neighbors.begin(), from_neighbors.end(),
+            to_neighbors.begin(), to_neighbors.end(),
+            std::back_inserter(common));
+    return common.size() == shared;
+}
+
+void MeshSimplifier::collapse(int from, int to) {
+    std::vector<int> triangles;
+    triangles.swap(triangles_[from]);
+    for (int i = 0; i < triangles.size(); ++i) {
+        int t = triangles[i];
+        if (hasCorner(indices_, t, to)) {
+            live_[t] = false;
+            --triangle_count_;
+            for (int corner = 0; corner < 3; ++corner) {
+                int v = indices_[t * 3 + corner];
+                if (v != from) {
+                    std::vector<int>& list = triangles_[v];
+                    list.erase(std::find(list.begin(), list.end(), t));
+                }
+            }
+        } else {
+            for (int corner = 0; corner < 3; ++corner) {
+                if (indices_[t * 3 + corner] == from) {
+                    indices_[t * 3 + corner] = to;
+                }
+            }
+            triangles_[to].push_back(t);
+        }
+    }
+    for (int i = 0; i < 10; ++i) {
+        quadrics_[to].a[i] += quadrics_[from].a[i];
+    }
+    ++versions_[from];
+    ++versions_[to];
+    pushCollapses(to);
+}
+
+}
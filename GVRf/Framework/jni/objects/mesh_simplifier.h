@@ -0,0 +1,110 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Simplifies an indexed triangle list by quadric error metrics (Garland and
+ * Heckbert, "Surface Simplification Using Quadric Error Metrics", 1997).
+ *
+ * Each vertex carries the sum of the squared distances to the planes of its
+ * triangles. Edges are collapsed cheapest first, moving one end onto the
+ * other, so the remaining triangles only use vertices of the input and keep
+ * every vertex attribute as it was. Vertices on a boundary, on a seam (with
+ * the same position as another vertex of a triangle) or on an edge of more
+ * than two triangles never move, so outlines and texture seams stay
+ * closed, and collapses that would fold a triangle over or make the surface
+ * non-manifold are skipped.
+ *
+ * Simplifying in steps continues the same sequence of collapses, so each
+ * level's error is measured from the input, not from the level before.
+ *
+ * Has no GL or JNI dependencies, so it can be built on the host.
+ ***************************************************************************/
+
+#ifndef MESH_SIMPLIFIER_H_
+#define MESH_SIMPLIFIER_H_
+
+#include <vector>
+
+#include "glm/glm.hpp"
+
+namespace gvr {
+
+class MeshSimplifier {
+public:
+    // Has no triangles if the indices are not triangles of the positions
+    MeshSimplifier(const std::vector<glm::vec3>& positions,
+            const std::vector<unsigned short>& indices);
+
+    // Collapses edges until at most target_triangles are left, or no edge
+    // can be collapsed. Returns the error so far, in the units of the
+    // positions: the square root of the largest quadric error of a
+    // collapse, which is at least the distance from the kept vertex to
+    // each input plane it now stands in for.
+    float simplify(int target_triangles);
+
+    int triangleCount() const {
+        return triangle_count_;
+    }
+
+    // The remaining triangles, as indices of the input vertices
+    std::vector<unsigned short> indices() const;
+
+private:
+    MeshSimplifier(const MeshSimplifier& simplifier);
+    MeshSimplifier& operator=(const MeshSimplifier& simplifier);
+
+    // The symmetric 4x4 matrix of a sum of squared plane distances
+    struct Quadric {
+        double a[10];
+    };
+
+    struct Collapse {
+        double cost;
+        int from;
+        int to;
+        int from_version;
+        int to_version;
+
+        bool operator>(const Collapse& collapse) const {
+            return cost > collapse.cost;
+        }
+    };
+
+    static void addPlane(Quadric& quadric, const glm::vec3& normal,
+            const glm::vec3& point);
+    static double distance(const Quadric& quadric, const glm::vec3& point);
+
+    void lockSharedVertices();
+    void lockBoundaryVertices();
+    void pushCollapses(int vertex);
+    void pushCollapse(int from, int to);
+    bool canCollapse(int from, int to) const;
+    void collapse(int from, int to);
+
+    std::vector<glm::vec3> positions_;
+    std::vector<unsigned short> indices_;
+    std::vector<bool> live_;
+    std::vector<std::vector<int> > triangles_;
+    std::vector<Quadric> quadrics_;
+    std::vector<bool> locked_;
+    std::vector<int> versions_;
+    std::vector<Collapse> heap_;
+    int triangle_count_;
+    double cost_;
+};
+
+}
+#endif
@@ -23,7 +23,7 @@
 
 namespace gvr {
 Scene::Scene() :
-        HybridObject(), scene_objects_(), main_camera_rig_(), frustum_flag_(
+        HybridObject(), scene_objects_(), whole_scene_objects_(this), picking_hierarchy_(this), main_camera_rig_(), frustum_flag_(
                 false), dirtyFlag_(0), occlusion_flag_(false) {
 }
 
@@ -32,24 +32,31 @@ Scene::~Scene() {
 
 void Scene::addSceneObject(SceneObject* scene_object) {
     scene_objects_.push_back(scene_object);
+    whole_scene_objects_.addSubtree(scene_object);
+    picking_hierarchy_.invalidate();
 }
 
 void Scene::removeSceneObject(SceneObject* scene_object) {
     scene_objects_.erase(
             std::remove(scene_objects_.begin(), scene_objects_.end(),
                     scene_object), scene_objects_.end());
+    whole_scene_objects_.removeSubtree(scene_object);
+    picking_hierarchy_.invalidate();
 }
 
-std::vector<SceneObject*> Scene::getWholeSceneObjects() {
-    std::vector<SceneObject*> scene_objects(scene_objects_);
-    for (int i = 0; i < scene_objects.size(); ++i) {
-        std::vector<SceneObject*> children(scene_objects[i]->children());
-        for (auto it = children.begin(); it != children.end(); ++it) {
-            scene_objects.push_back(*it);
-        }
-    }
+void Scene::onChildAdded(SceneObject* child) {
+    whole_scene_objects_.addSubtree(child);
+    picking_hierarchy_.invalidate();
+}
+
+void Scene::onChildRemoved(SceneObject* child) {
+    whole_scene_objects_.removeSubtree(child);
+    picking_hierarchy_.invalidate();
+}
 
-    return scene_objects;
+void Scene::onSceneObjectDeleted(SceneObject* scene_object) {
+    whole_scene_objects_.remove(scene_object);
+    picking_hierarchy_.invalidate();
 }
 
 }
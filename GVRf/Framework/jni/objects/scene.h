@@ -26,6 +26,8 @@
 
 
 #include "objects/hybrid_object.h"
+#include "objects/flattened_hierarchy.h"
+#include "engine/picker/picking_hierarchy.h"
 #include "components/camera_rig.h"
 #include "engine/renderer/renderer.h"
 
@@ -47,7 +49,23 @@ public:
     void set_main_camera_rig(CameraRig* camera_rig) {
         main_camera_rig_ = camera_rig;
     }
-    std::vector<SceneObject*> getWholeSceneObjects();
+
+    // Every scene object, roots and descendants, in no particular order.
+    // Kept up to date as objects are added and removed: no copy is made.
+    const std::vector<SceneObject*>& getWholeSceneObjects() const {
+        return whole_scene_objects_.nodes();
+    }
+
+    // Called by SceneObject when a child is added to or removed from one of
+    // this scene's objects
+    void onChildAdded(SceneObject* child);
+    void onChildRemoved(SceneObject* child);
+    void onSceneObjectDeleted(SceneObject* scene_object);
+
+    // The pickable objects, for Picker::pickScene()
+    PickingHierarchy& picking_hierarchy() {
+        return picking_hierarchy_;
+    }
 
     int getSceneDirtyFlag() { return 1 || dirtyFlag_;  /* force to be true */}
     void setSceneDirtyFlag(int dirtyBits) { dirtyFlag_ |= dirtyBits; }
@@ -80,6 +98,8 @@ private:
 
 private:
     std::vector<SceneObject*> scene_objects_;
+    FlattenedHierarchy<SceneObject, Scene> whole_scene_objects_;
+    PickingHierarchy picking_hierarchy_;
     CameraRig* main_camera_rig_;
 
     int dirtyFlag_;
@@ -23,6 +23,7 @@
 #include "objects/components/camera_rig.h"
 #include "objects/components/eye_pointee_holder.h"
 #include "objects/components/render_data.h"
+#include "objects/scene.h"
 #include "util/gvr_log.h"
 #include "mesh.h"
 
@@ -40,6 +41,9 @@ SceneObject::SceneObject() :
 }
 
 SceneObject::~SceneObject() {
+    if (scene_) {
+        scene_->onSceneObjectDeleted(this);
+    }
 #if _GVRF_USE_GLES3_
     delete queries_;
 #endif
@@ -137,12 +141,18 @@ void SceneObject::attachEyePointeeHolder(
     }
     eye_pointee_holder_ = eye_pointee_holder;
     eye_pointee_holder_->set_owner_object(self);
+    if (scene_) {
+        scene_->picking_hierarchy().invalidate();
+    }
 }
 
 void SceneObject::detachEyePointeeHolder() {
     if (eye_pointee_holder_) {
         eye_pointee_holder_->removeOwnerObject();
         eye_pointee_holder_ = NULL;
+        if (scene_) {
+            scene_->picking_hierarchy().invalidate();
+        }
     }
 }
 
@@ -157,6 +167,9 @@ void SceneObject::addChildObject(SceneObject* self, SceneObject* child) {
     }
     children_.push_back(child);
     child->parent_ = self;
+    if (scene_) {
+        scene_->onChildAdded(child);
+    }
     Transform* const t = child->transform();
     if (nullptr != t) {
         t->invalidate(false);
@@ -169,6 +182,9 @@ void SceneObject::removeChildObject(SceneObject* child) {
         children_.erase(std::remove(children_.begin(), children_.end(), child),
                 children_.end());
         child->parent_ = NULL;
+        if (child->scene_) {
+            child->scene_->onChildRemoved(child);
+        }
     }
 
     Transform* const t = child->transform();
@@ -249,6 +265,13 @@ bool SceneObject::isColliding(SceneObject *scene_object) {
     return result;
 }
 
+void SceneObject::onTransformChanged() {
+    dirtyBoundingVolume();
+    if (scene_ && eye_pointee_holder_) {
+        scene_->picking_hierarchy().moved();
+    }
+}
+
 void SceneObject::dirtyBoundingVolume() {
     if(bounding_volume_dirty_) {
         return;
@@ -261,20 +284,44 @@ void SceneObject::dirtyBoundingVolume() {
     }
 }
 
-BoundingVolume& SceneObject::getBoundingVolume() {
-    if(!bounding_volume_dirty_) {
+/*
+ * Meshes do not know the objects that draw them, so a change to any mesh's
+ * vertices has every cached volume check its own mesh, and its children's
+ * volumes, on its next use.
+ */
+const BoundingVolume& SceneObject::getBoundingVolume() {
+    // Read first: a mesh changed while this runs is seen by the next call
+    unsigned int geometry_changes = Mesh::geometry_changes();
+    if(!bounding_volume_dirty_
+            && bounds_geometry_changes_ == geometry_changes) {
         return bounding_volume_;
     }
 
-    if(render_data_ && render_data_->mesh()) {
-        bounding_volume_.expand(render_data_->mesh()->getBoundingVolume());
+    Mesh* mesh = render_data_ ? render_data_->mesh() : nullptr;
+    if(bounding_volume_dirty_ || mesh != bounds_mesh_
+            || (mesh && mesh->geometry_version() != bounds_mesh_version_)) {
+        mesh_bounding_volume_.reset();
+        if(transform_ && mesh) {
+            mesh_bounding_volume_.expand(mesh->getBoundingVolume(),
+                    transform_->getModelMatrix());
+        }
+        bounds_mesh_ = mesh;
+        bounds_mesh_version_ = mesh ? mesh->geometry_version() : 0;
     }
 
+    bounding_volume_ = mesh_bounding_volume_;
     for(int i=0; i<children_.size(); i++) {
         SceneObject *child = children_[i];
         bounding_volume_.expand(child->getBoundingVolume());
     }
 
+    bounding_volume_dirty_ = false;
+    bounds_geometry_changes_ = geometry_changes;
     return bounding_volume_;
 }
+
+const BoundingVolume& SceneObject::getMeshBoundingVolume() {
+    getBoundingVolume();
+    return mesh_bounding_volume_;
+}
 }
@@ -31,7 +31,9 @@ namespace gvr {
 class Camera;
 class CameraRig;
 class EyePointeeHolder;
+class Mesh;
 class RenderData;
+class Scene;
 
 class SceneObject: public HybridObject {
 public:
@@ -111,6 +113,19 @@ public:
         return children_;
     }
 
+    // The scene this object is in, directly or through its ancestors; and
+    // its place in that scene's getWholeSceneObjects()
+    Scene* flattened_owner() const {
+        return scene_;
+    }
+    int flattened_index() const {
+        return scene_index_;
+    }
+    void set_flattened(Scene* scene, int index) {
+        scene_ = scene;
+        scene_index_ = index;
+    }
+
     void addChildObject(SceneObject* self, SceneObject* child);
     void removeChildObject(SceneObject* child);
     int getChildrenCount() const;
@@ -145,8 +160,21 @@ public:
         return false;
     }
 
+    // World-space bounds of this object and all its descendants, and of
+    // this object's own mesh. Cached until a transform, mesh or child
+    // changes anywhere below this object, or the vertices of a mesh do.
     void dirtyBoundingVolume();
-    BoundingVolume& getBoundingVolume();
+    void onTransformChanged();
+    const BoundingVolume& getBoundingVolume();
+    const BoundingVolume& getMeshBoundingVolume();
+
+    // The frustum plane that last culled this object's subtree
+    int cull_plane() const {
+        return cull_plane_;
+    }
+    void set_cull_plane(int plane) {
+        cull_plane_ = plane;
+    }
 
 private:
     SceneObject(const SceneObject& scene_object);
@@ -163,11 +191,20 @@ private:
     EyePointeeHolder* eye_pointee_holder_ = nullptr;
     SceneObject* parent_ = nullptr;
     std::vector<SceneObject*> children_;
+    Scene* scene_ = nullptr;
+    int scene_index_ = -1;
     float lod_min_range_;
     float lod_max_range_;
     bool using_lod_;
     BoundingVolume bounding_volume_;
+    BoundingVolume mesh_bounding_volume_;
     bool bounding_volume_dirty_;
+    // What mesh_bounding_volume_ was worked out from
+    const Mesh* bounds_mesh_ = nullptr;
+    unsigned int bounds_mesh_version_ = 0;
+    // Mesh::geometry_changes() when bounding_volume_ was last checked
+    unsigned int bounds_geometry_changes_ = 0;
+    int cull_plane_ = 0;
 
     //Flags to check for visibility of a node and
     //whether there are any pending occlusion queries on it
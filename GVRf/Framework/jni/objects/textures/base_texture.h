@@ -56,6 +56,7 @@ public:
                 GL_RGBA, GL_UNSIGNED_BYTE, pixels);
         glGenerateMipmap (GL_TEXTURE_2D);
         AndroidBitmap_unlockPixels(env, bitmap);
+        byte_count_ = info.width * info.height * 4;
     }
 
     explicit BaseTexture(int width, int height, const unsigned char* pixels,
@@ -65,6 +66,7 @@ public:
         glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA,
                 GL_UNSIGNED_BYTE, pixels);
         glGenerateMipmap (GL_TEXTURE_2D);
+        byte_count_ = width * height * 4;
     }
 
     explicit BaseTexture(int* texture_parameters) :
@@ -76,6 +78,7 @@ public:
         glTexImage2D(GL_TEXTURE_2D, 0, GL_LUMINANCE, width, height, 0,
                 GL_LUMINANCE, GL_UNSIGNED_BYTE, data);
         glGenerateMipmap (GL_TEXTURE_2D);
+        byte_count_ = width * height;
         return (glGetError() == 0) ? 1 : 0;
     }
 
@@ -83,6 +86,11 @@ public:
         return TARGET;
     }
 
+    // The size of the image last uploaded, without its mipmaps
+    int byte_count() const {
+        return byte_count_;
+    }
+
 private:
     BaseTexture(const BaseTexture& base_texture);
     BaseTexture(BaseTexture&& base_texture);
@@ -91,6 +99,7 @@ private:
 
 private:
     static const GLenum TARGET = GL_TEXTURE_2D;
+    int byte_count_ = 0;
 };
 
 }
@@ -35,6 +35,9 @@ Java_org_gearvrf_NativeBaseTexture_bareConstructor(JNIEnv * env, jobject obj, ji
 JNIEXPORT jboolean JNICALL
 Java_org_gearvrf_NativeBaseTexture_update(JNIEnv * env, jobject obj,
         jlong jtexture, jint width, jint height, jbyteArray jdata);
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeBaseTexture_getByteCount(JNIEnv * env, jobject obj,
+        jlong jtexture);
 }
 ;
 
@@ -95,4 +98,11 @@ Java_org_gearvrf_NativeBaseTexture_update(JNIEnv * env, jobject obj,
     return result;
 }
 
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeBaseTexture_getByteCount(JNIEnv * env, jobject obj,
+        jlong jtexture) {
+    BaseTexture* texture = reinterpret_cast<BaseTexture*>(jtexture);
+    return texture->byte_count();
+}
+
 }
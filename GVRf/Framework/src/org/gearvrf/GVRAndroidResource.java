@@ -49,6 +49,15 @@ public class GVRAndroidResource {
         OPEN, READING, CLOSED
     }
 
+    /**
+     * Where a resource is read from. Resources of the same type share I/O
+     * characteristics: network reads, say, have much more latency than asset
+     * reads.
+     */
+    public enum ResourceType {
+        ANDROID_ASSETS, ANDROID_RESOURCE, LINUX_FILESYSTEM, NETWORK
+    }
+
     /*
      * Instance members
      */
@@ -290,11 +299,40 @@ public class GVRAndroidResource {
         return null;
     }
 
+    /**
+     * Returns the path of the resource, if it is a file.
+     * 
+     * @return The Linux file path, or {@code null} if the resource is not
+     *         {@linkplain ResourceType#LINUX_FILESYSTEM a file}
+     * @since 2.0.3
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Returns where this resource is read from.
+     * 
+     * @return The type of the source of this resource
+     */
+    public ResourceType getResourceType() {
+        if (filePath != null) {
+            return ResourceType.LINUX_FILESYSTEM;
+        } else if (resourceId != 0) {
+            return ResourceType.ANDROID_RESOURCE;
+        } else if (assetPath != null) {
+            return ResourceType.ANDROID_ASSETS;
+        } else {
+            return ResourceType.NETWORK;
+        }
+    }
+
     /*
      * Auto-generated hashCode() and equals(), for container support &c.
      * 
      * These check only the private 'parameter capture' fields - not the
-     * InputStream.
+     * InputStream. URLs are compared as strings: URL.equals() and
+     * URL.hashCode() do blocking DNS lookups.
      */
 
     @Override
@@ -306,7 +344,7 @@ public class GVRAndroidResource {
         result = prime * result
                 + ((filePath == null) ? 0 : filePath.hashCode());
         result = prime * result
-                + ((url == null) ? 0 : url.hashCode());
+                + ((url == null) ? 0 : url.toExternalForm().hashCode());
         result = prime * result + resourceId;
         return result;
     }
@@ -337,6 +375,13 @@ public class GVRAndroidResource {
         } else if (!filePath.equals(other.filePath)) {
             return false;
         }
+        if (url == null) {
+            if (other.url != null) {
+                return false;
+            }
+        } else if (!url.toExternalForm().equals(other.url.toExternalForm())) {
+            return false;
+        }
         if (resourceId != other.resourceId) {
             return false;
         }
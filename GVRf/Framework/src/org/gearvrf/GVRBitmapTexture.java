@@ -113,6 +113,7 @@ public class GVRBitmapTexture extends GVRTexture {
         super(gvrContext, NativeBaseTexture.fileConstructor(gvrContext
                 .getContext().getAssets(), pngAssetFilename, textureParameters
                 .getCurrentValuesArray()));
+        setByteCount(NativeBaseTexture.getByteCount(getNative()));
     }
 
     /**
@@ -226,6 +227,7 @@ public class GVRBitmapTexture extends GVRTexture {
      * @since 1.6.3
      */
     public Future<Boolean> update(int width, int height, byte[] grayscaleData) {
+        setByteCount(width * height);
         final int widthOnCall = width, heightOnCall = height;
         final byte[] grayscaleDataOnCall = grayscaleData;
         RunnableFuture<Boolean> updateTask = new GVRFutureOnGlThread<Boolean>(
@@ -295,6 +297,7 @@ public class GVRBitmapTexture extends GVRTexture {
      * @since 1.6.3
      */
     public Future<Boolean> update(Bitmap bitmap) {
+        setByteCount(bitmap.getRowBytes() * bitmap.getHeight());
         final Bitmap onCallBitmap = bitmap;
         RunnableFuture<Boolean> updateTask = new GVRFutureOnGlThread<Boolean>(
                 new Callable<Boolean>() {
@@ -321,4 +324,6 @@ class NativeBaseTexture {
 
     static native boolean update(long pointer, int width, int height,
             byte[] grayscaleData);
+
+    static native int getByteCount(long pointer);
 }
@@ -108,6 +108,18 @@ public abstract class GVRContext {
      */
     public static final int DEFAULT_PRIORITY = 0;
 
+    /**
+     * The initial budget of the {@linkplain #getTextureCache() texture cache,}
+     * in bytes of decoded image data.
+     */
+    public static final long DEFAULT_TEXTURE_CACHE_BUDGET = 64L * 1024 * 1024;
+
+    /**
+     * The initial budget of the {@linkplain #getMeshCache() mesh cache,} in
+     * bytes of vertex and index data.
+     */
+    public static final long DEFAULT_MESH_CACHE_BUDGET = 16L * 1024 * 1024;
+
     /**
      * The ID of the GLthread. We use this ID to prevent non-GL thread from
      * calling GL functions.
@@ -222,12 +234,16 @@ public abstract class GVRContext {
             GVRAssimpImporter assimpImporter = GVRImporter
                     .readFileFromResources(this, androidResource, settings);
             mesh = assimpImporter.getMesh(0);
+            if (settings.contains(GVRImportSettings.OPTIMIZE_VERTEX_ORDER)) {
+                mesh.optimizeVertexOrder();
+            }
             meshCache.put(androidResource, mesh);
         }
         return mesh;
     }
 
-    private final ResourceCache<GVRMesh> meshCache = new ResourceCache<GVRMesh>();
+    private final ResourceCache<GVRMesh> meshCache = new ResourceCache<GVRMesh>(
+            ResourceCache.MESH_WEIGHER, DEFAULT_MESH_CACHE_BUDGET);
 
     /**
      * Loads a mesh file, asynchronously, at a default priority.
@@ -243,8 +259,8 @@ public abstract class GVRContext {
      * <p>
      * The asynchronous methods improve throughput in three ways. First, by
      * doing all the work on a background thread, then delivering the loaded
-     * mesh to the GL thread on a {@link #runOnGlThread(Runnable)
-     * runOnGlThread()} callback. Second, they use a throttler to avoid
+     * mesh to the GL thread within the per-frame
+     * {@linkplain #setResourceUploadBudget(long, float) upload budget}. Second, they use a throttler to avoid
      * overloading the system and/or running out of memory. Third, they do
      * 'request consolidation' - if you issue any requests for a particular file
      * while there is still a pending request, the file will only be read once,
@@ -310,8 +326,8 @@ public abstract class GVRContext {
      * <p>
      * The asynchronous methods improve throughput in three ways. First, by
      * doing all the work on a background thread, then delivering the loaded
-     * mesh to the GL thread on a {@link #runOnGlThread(Runnable)
-     * runOnGlThread()} callback. Second, they use a throttler to avoid
+     * mesh to the GL thread within the per-frame
+     * {@linkplain #setResourceUploadBudget(long, float) upload budget}. Second, they use a throttler to avoid
      * overloading the system and/or running out of memory. Third, they do
      * 'request consolidation' - if you issue any requests for a particular file
      * while there is still a pending request, the file will only be read once,
@@ -940,7 +956,8 @@ public abstract class GVRContext {
         return texture;
     }
 
-    private final ResourceCache<GVRTexture> textureCache = new ResourceCache<GVRTexture>();
+    private final ResourceCache<GVRTexture> textureCache = new ResourceCache<GVRTexture>(
+            ResourceCache.TEXTURE_WEIGHER, DEFAULT_TEXTURE_CACHE_BUDGET);
 
     /**
      * Loads a cube map texture synchronously.
@@ -2070,6 +2087,84 @@ public abstract class GVRContext {
         return GVRPeriodicEngine.getInstance(this);
     }
 
+    /**
+     * The cache used by the {@code loadTexture()} methods.
+     * 
+     * Use it to {@linkplain ResourceCache#setBudget(long) change the budget,}
+     * to {@linkplain ResourceCache#pin(GVRAndroidResource) pin} textures that
+     * should never be reloaded, or to check the hit rate.
+     * 
+     * @return The texture cache.
+     */
+    public ResourceCache<GVRTexture> getTextureCache() {
+        return textureCache;
+    }
+
+    /**
+     * Keep decoded bitmap textures in a disk cache, in the app's cache
+     * directory.
+     * 
+     * Decoding large JPEG and PNG files is usually the slowest part of
+     * loading a scene. With the disk cache, the first asynchronous load of an
+     * image stores the decoded (and possibly downsampled) pixels; later loads
+     * of an image with the same content, in this run or a later one, copy the
+     * pixels from a memory-mapped file instead of decoding. Entries are keyed
+     * by a hash of the image data, or by a file's path, size and modification
+     * time, so changed images are never served stale. Images loaded from a
+     * URL are not cached.
+     * 
+     * <p>
+     * Calling this again resizes the cache in place: shrinking it deletes the
+     * least recently used images.
+     * 
+     * <p>
+     * The disk cache is disabled by default.
+     * 
+     * @param maxBytes
+     *            Size limit of the cache; least recently used images are
+     *            deleted to stay under it. 0 disables the cache.
+     * @throws IOException
+     *             If the cache directory can't be created
+     */
+    public void setTextureDiskCacheSize(long maxBytes) throws IOException {
+        GVRAsynchronousResourceLoader.setTextureDiskCacheSize(this, maxBytes);
+    }
+
+    /**
+     * Limit the GL work that finished asynchronous loads do per frame.
+     * 
+     * The {@code loadTexture()} and {@code loadMesh()} methods decode on
+     * background threads, then upload on the GL thread. Uploads wait in a
+     * queue and run in request priority order, once per frame, until the
+     * frame has uploaded {@code maxBytes} or spent {@code maxMilliseconds}:
+     * a burst of finished loads is spread over several frames instead of
+     * dropping one. At least one upload runs every frame.
+     * 
+     * <p>
+     * The default is no byte limit and 4 milliseconds.
+     * 
+     * @param maxBytes
+     *            Bytes uploaded per frame; {@link Long#MAX_VALUE} for no limit
+     * @param maxMilliseconds
+     *            Time spent uploading per frame;
+     *            {@link Float#POSITIVE_INFINITY} for no limit
+     * @see GVRAsynchronousResourceLoader#getPendingUploadCount()
+     */
+    public void setResourceUploadBudget(long maxBytes, float maxMilliseconds) {
+        GVRAsynchronousResourceLoader.setUploadBudget(this, maxBytes,
+                maxMilliseconds);
+    }
+
+    /**
+     * The cache used by the {@code loadMesh()} methods.
+     * 
+     * @return The mesh cache.
+     * @see #getTextureCache()
+     */
+    public ResourceCache<GVRMesh> getMeshCache() {
+        return meshCache;
+    }
+
     /**
      * Register a method that is called every time GVRF creates a new
      * {@link GVRContext}.
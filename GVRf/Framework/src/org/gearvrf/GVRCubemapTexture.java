@@ -60,6 +60,12 @@ public class GVRCubemapTexture extends GVRTexture {
             GVRTextureParameters textureParameters) {
         super(gvrContext, NativeCubemapTexture.bitmapArrayConstructor(
                 bitmapArray, textureParameters.getCurrentValuesArray()));
+
+        int byteCount = 0;
+        for (Bitmap bitmap : bitmapArray) {
+            byteCount += bitmap.getRowBytes() * bitmap.getHeight();
+        }
+        setByteCount(byteCount);
     }
 
     /**
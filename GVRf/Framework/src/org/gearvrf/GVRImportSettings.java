@@ -18,7 +18,8 @@ import java.util.EnumSet;
 
 /**
  * Encapsulates Assimp import settings to be passed in to GVRImporter.
- * Do not change these values since they must match values defined in Assimp's postprocess.h
+ * Do not change these values since they must match values defined in Assimp's postprocess.h;
+ * settings GVRf applies itself, after Assimp, have the value 0.
  * 
  */
 public enum GVRImportSettings {
@@ -83,12 +84,32 @@ public enum GVRImportSettings {
         /**
      * Flip UV mapping in y direction.
      */
-    FLIP_UV(0x800000);
+    FLIP_UV(0x800000),
+    
+    /**
+     * Tell GVRf to {@linkplain GVRMesh#optimizeVertexOrder() reorder} the triangles of each imported mesh for the
+     * vertex cache, then its vertices in the order the triangles fetch them. Unlike IMPROVE_VERTEX_CACHE_LOCALITY,
+     * this also orders the vertices, and it works on the meshes GVRf builds, so it can be combined with it.
+     */
+    OPTIMIZE_VERTEX_ORDER(0),
+    
+    /**
+     * Tell GVRf to give each imported mesh {@linkplain GVRLODGenerator levels of detail}, simplified copies drawn
+     * in its place from far enough away that the difference is under a pixel. Combined with OPTIMIZE_VERTEX_ORDER,
+     * the meshes are optimized first, which joins faces that have their own corners so they simplify further.
+     */
+    GENERATE_LODS(0);
     
     private int mValue;
     
+    /**
+     * Assimp's SplitLargeMeshes step. Meshes hold 16-bit indices, so every import splits meshes of 65536
+     * vertices or more into several, each with its own bounds.
+     */
+    private static final int SPLIT_LARGE_MESHES = 0x80;
+    
     private static EnumSet<GVRImportSettings> recommendedSettings = EnumSet.of(TRIANGULATE, FLIP_UV, JOIN_IDENTICAL_VERTICES,
-            LIMIT_BONE_WEIGHT, SORTBY_PRIMITIVE_TYPE);
+            LIMIT_BONE_WEIGHT, SORTBY_PRIMITIVE_TYPE, IMPROVE_VERTEX_CACHE_LOCALITY);
     
     private GVRImportSettings(int settings) {
         mValue = settings;
@@ -103,11 +124,13 @@ public enum GVRImportSettings {
      * It's highly recommended to use one of the predefined settings fuctions lie {@link #getRecommendedSettings() getRecommendedSettings} or
      * if you want additional settings use {@link #getRecommendedSettingsWith(EnumSet<GVRImportSettings>) getRecommendedSettingsWith}.
      * 
+     * Meshes too large for 16-bit indices are always split.
+     * 
      * @param settings EnumSet of all import settings desired
      * @return flag in the assimp import format.
      */
     public static int getAssimpImportFlags(EnumSet<GVRImportSettings> settings) {
-        int flags = 0;
+        int flags = SPLIT_LARGE_MESHES;
         for (GVRImportSettings s : settings) {
             flags |= s.getValue();
         }
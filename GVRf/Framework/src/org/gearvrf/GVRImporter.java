@@ -17,6 +17,7 @@ package org.gearvrf;
 
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -33,6 +34,7 @@ import org.gearvrf.jassimp.AiScene;
 import org.gearvrf.jassimp.AiTextureType;
 import org.gearvrf.jassimp.GVROldWrapperProvider;
 import org.gearvrf.jassimp2.GVRJassimpAdapter;
+import org.gearvrf.jassimp2.GVRJassimpCache;
 import org.gearvrf.jassimp2.GVRJassimpSceneObject;
 import org.gearvrf.jassimp2.Jassimp;
 import org.gearvrf.scene_objects.GVRModelSceneObject;
@@ -131,33 +133,55 @@ final class GVRImporter {
         Jassimp.setWrapperProvider(GVRJassimpAdapter.sWrapperProvider);
         org.gearvrf.jassimp2.AiScene assimpScene = null;
 
-        switch (volumeType) {
-        case ANDROID_ASSETS:
-            assimpScene = Jassimp.importAssetFile(filePath,
-                    GVRJassimpAdapter.get().toJassimpSettings(settings),
-                    context.getContext().getAssets());
-            break;
-
-        case ANDROID_SDCARD:
-            String sdPath = Environment.getExternalStorageDirectory().getAbsolutePath();
-            assimpScene = Jassimp.importFile(sdPath + File.separator + filePath,
-                    GVRJassimpAdapter.get().toJassimpSettings(settings));
-            break;
-
-        case LINUX_FILESYSTEM:
-            assimpScene = Jassimp.importFile(filePath,
-                    GVRJassimpAdapter.get().toJassimpSettings(settings));
-            break;
-
-        case NETWORK:
-            // filePath is a URL in this case
-            File tmpFile = downloadFile(context.getActivity(), filePath);
-            if (tmpFile != null) {
-                assimpScene = Jassimp.importFile(tmpFile.getAbsolutePath(),
+        File cacheFile = getCacheFile(context, filePath, volumeType, settings);
+        if (cacheFile != null && cacheFile.isFile()) {
+            try {
+                assimpScene = GVRJassimpCache.read(cacheFile);
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot read the cached import of %s: %s",
+                        filePath, e.getMessage());
+                cacheFile.delete();
+            }
+        }
+
+        if (assimpScene == null) {
+            switch (volumeType) {
+            case ANDROID_ASSETS:
+                assimpScene = Jassimp.importAssetFile(filePath,
+                        GVRJassimpAdapter.get().toJassimpSettings(settings),
+                        context.getContext().getAssets());
+                break;
+
+            case ANDROID_SDCARD:
+                String sdPath = Environment.getExternalStorageDirectory().getAbsolutePath();
+                assimpScene = Jassimp.importFile(sdPath + File.separator + filePath,
                         GVRJassimpAdapter.get().toJassimpSettings(settings));
-                tmpFile.delete();
+                break;
+
+            case LINUX_FILESYSTEM:
+                assimpScene = Jassimp.importFile(filePath,
+                        GVRJassimpAdapter.get().toJassimpSettings(settings));
+                break;
+
+            case NETWORK:
+                // filePath is a URL in this case
+                File tmpFile = downloadFile(context.getActivity(), filePath);
+                if (tmpFile != null) {
+                    assimpScene = Jassimp.importFile(tmpFile.getAbsolutePath(),
+                            GVRJassimpAdapter.get().toJassimpSettings(settings));
+                    tmpFile.delete();
+                }
+                break;
+            }
+
+            if (assimpScene != null && cacheFile != null) {
+                try {
+                    GVRJassimpCache.write(assimpScene, cacheFile);
+                } catch (IOException e) {
+                    Log.w(TAG, "Cannot cache the import of %s: %s",
+                            filePath, e.getMessage());
+                }
             }
-            break;
         }
 
         if (assimpScene == null) {
@@ -165,8 +189,73 @@ final class GVRImporter {
                     " from " + volumeType);
         }
 
-        return new GVRJassimpSceneObject(context, assimpScene,
+        GVRJassimpSceneObject model = new GVRJassimpSceneObject(context, assimpScene,
                 new GVRResourceVolume(context, volumeType, FileNameUtils.getParentDirectory(filePath)));
+        if (settings.contains(GVRImportSettings.OPTIMIZE_VERTEX_ORDER)) {
+            optimizeVertexOrder(model);
+        }
+        if (settings.contains(GVRImportSettings.GENERATE_LODS)) {
+            new GVRLODGenerator(context).generate(model);
+        }
+        return model;
+    }
+
+    /**
+     * Applies {@link GVRImportSettings#OPTIMIZE_VERTEX_ORDER} to the meshes of
+     * an imported model.
+     */
+    private static void optimizeVertexOrder(GVRSceneObject sceneObject) {
+        GVRRenderData renderData = sceneObject.getRenderData();
+        if (renderData != null && renderData.getMesh() != null) {
+            renderData.getMesh().optimizeVertexOrder();
+        }
+        for (GVRSceneObject child : sceneObject.children()) {
+            optimizeVertexOrder(child);
+        }
+    }
+
+    /**
+     * The file the import of a model is cached in, or {@code null} if
+     * {@link GVRJassimpCache} is off, or the model is not a local file in a
+     * {@linkplain GVRJassimpCache#isCacheable(String) single-file format}.
+     */
+    private static File getCacheFile(GVRContext context, String filePath,
+            GVRResourceVolume.VolumeType volumeType,
+            EnumSet<GVRImportSettings> settings) {
+        File directory = GVRJassimpCache.getDirectory();
+        if (directory == null || !GVRJassimpCache.isCacheable(filePath)) {
+            return null;
+        }
+
+        try {
+            InputStream source;
+            switch (volumeType) {
+            case ANDROID_ASSETS:
+                source = context.getContext().getAssets().open(filePath);
+                break;
+            case ANDROID_SDCARD:
+                String sdPath = Environment.getExternalStorageDirectory()
+                        .getAbsolutePath();
+                source = new FileInputStream(sdPath + File.separator
+                        + filePath);
+                break;
+            case LINUX_FILESYSTEM:
+                source = new FileInputStream(filePath);
+                break;
+            default:
+                return null;
+            }
+            try {
+                return new File(directory, GVRJassimpCache.key(
+                        new BufferedInputStream(source), settings)
+                        + GVRJassimpCache.EXTENSION);
+            } finally {
+                source.close();
+            }
+        } catch (IOException e) {
+            // Let the import report it
+            return null;
+        }
     }
 
     private static File downloadFile(Context context, String urlString) {
@@ -235,6 +324,12 @@ final class GVRImporter {
         recurseAssimpNodes(context, assimpImporter, assetRelativeFilename, wholeSceneObject,
                 rootNode, sWrapperProvider);
 
+        if (settings.contains(GVRImportSettings.OPTIMIZE_VERTEX_ORDER)) {
+            optimizeVertexOrder(wholeSceneObject);
+        }
+        if (settings.contains(GVRImportSettings.GENERATE_LODS)) {
+            new GVRLODGenerator(context).generate(wholeSceneObject);
+        }
         return wholeSceneObject;
     }
 
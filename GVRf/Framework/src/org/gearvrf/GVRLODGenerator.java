@@ -0,0 +1,247 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import static android.opengl.GLES20.GL_TRIANGLES;
+
+import org.gearvrf.utility.Exceptions;
+import org.gearvrf.utility.VrAppSettings;
+
+/**
+ * Gives scene objects levels of detail, made by {@linkplain GVRMesh#simplify
+ * simplifying} their meshes.
+ *
+ * Each level is a child of the object, drawn with the object's material, and
+ * has about {@linkplain #setReduction(float) half} the triangles of the level
+ * before. The {@linkplain GVRSceneObject#setLODRange(float, float) LOD
+ * ranges} of the object and its levels are chosen so that a level is only
+ * drawn once its error, projected onto the eye buffer, is under
+ * {@linkplain #setPixelError(float) a pixel}: a level whose surface may be
+ * {@code e} from the object's is drawn from
+ * {@code e * height / (2 * tan(fovY / 2)) / pixelError} away.
+ *
+ * <p>
+ * Ranges are worked out for the object's scale when the levels are made, and
+ * replace any the object had. They are kept whether or not the scene is
+ * {@linkplain GVRScene#setFrustumCulling(boolean) frustum culled}, so only
+ * one level of each object is drawn. Only meshes drawn as {@code GL_TRIANGLES},
+ * without bones, are simplified; levels use the first render pass.
+ * Simplifying keeps boundaries and texture seams closed, so meshes with many
+ * of them simplify less.
+ *
+ * @see GVRImportSettings#GENERATE_LODS
+ * @since 2.0.3
+ */
+public class GVRLODGenerator {
+    /** Levels made for each object, unless {@link #setLevels(int)} is called */
+    public static final int DEFAULT_LEVELS = 3;
+    /** Triangles kept from one level to the next, by default */
+    public static final float DEFAULT_REDUCTION = 0.5f;
+    /** Error allowed on the eye buffer, in pixels, by default */
+    public static final float DEFAULT_PIXEL_ERROR = 1.0f;
+
+    // Levels that keep more of the level before are not worth drawing
+    private static final float MAX_KEPT = 0.9f;
+    // Fewer triangles than this are not worth simplifying
+    private static final int MIN_TRIANGLES = 4;
+
+    private final GVRContext mContext;
+    private int mLevels = DEFAULT_LEVELS;
+    private float mReduction = DEFAULT_REDUCTION;
+    private float mPixelError = DEFAULT_PIXEL_ERROR;
+    // Pixels an error of one unit covers, one unit away
+    private float mPixelsPerUnit;
+
+    /**
+     * Makes levels for the eye buffer of the app, seen through the
+     * {@linkplain GVRPerspectiveCamera#getDefaultFovY() default field of
+     * view}.
+     *
+     * @param gvrContext
+     *            Current {@link GVRContext}
+     */
+    public GVRLODGenerator(GVRContext gvrContext) {
+        mContext = gvrContext;
+        int height = gvrContext.getActivity().getAppSettings()
+                .getEyeBufferParms().getResolutionHeight();
+        if (height <= 0) {
+            height = VrAppSettings.DEFAULT_FBO_RESOLUTION;
+        }
+        setScreen(height, GVRPerspectiveCamera.getDefaultFovY());
+    }
+
+    /**
+     * @param levels
+     *            How many levels to make for each object, besides the object
+     *            itself. Fewer are made when the mesh cannot be simplified
+     *            further.
+     */
+    public void setLevels(int levels) {
+        if (levels < 1) {
+            throw Exceptions.IllegalArgument("levels must be at least 1");
+        }
+        mLevels = levels;
+    }
+
+    /**
+     * @param reduction
+     *            The part of a level's triangles the next level keeps,
+     *            between 0 and 1
+     */
+    public void setReduction(float reduction) {
+        if (reduction <= 0.0f || reduction >= 1.0f) {
+            throw Exceptions.IllegalArgument(
+                    "reduction must be between 0 and 1, not %f", reduction);
+        }
+        mReduction = reduction;
+    }
+
+    /**
+     * @param pixelError
+     *            How far, in pixels of the eye buffer, a level may draw its
+     *            surface from the object's
+     */
+    public void setPixelError(float pixelError) {
+        if (pixelError <= 0.0f) {
+            throw Exceptions.IllegalArgument(
+                    "pixelError must be positive, not %f", pixelError);
+        }
+        mPixelError = pixelError;
+    }
+
+    /**
+     * Sets the screen the errors are projected onto.
+     *
+     * @param heightPixels
+     *            The height of the eye buffer, in pixels
+     * @param fovY
+     *            The vertical field of view, in degrees
+     */
+    public void setScreen(int heightPixels, float fovY) {
+        if (heightPixels <= 0 || fovY <= 0.0f || fovY >= 180.0f) {
+            throw Exceptions.IllegalArgument(
+                    "Bad screen: %d pixels high, %f degrees", heightPixels,
+                    fovY);
+        }
+        mPixelsPerUnit = (float) (heightPixels
+                / (2.0 * Math.tan(Math.toRadians(fovY) / 2.0)));
+    }
+
+    /**
+     * Gives an object, and each of its descendants, levels of detail.
+     *
+     * @param sceneObject
+     *            The root of the objects
+     * @return The number of objects given levels
+     */
+    public int generate(GVRSceneObject sceneObject) {
+        int generated = 0;
+        // Before adding levels, which are children too
+        for (GVRSceneObject child : sceneObject.getChildren()) {
+            generated += generate(child);
+        }
+        if (generateLevels(sceneObject)) {
+            ++generated;
+        }
+        return generated;
+    }
+
+    private boolean generateLevels(GVRSceneObject sceneObject) {
+        GVRRenderData renderData = sceneObject.getRenderData();
+        if (renderData == null || renderData.getMesh() == null
+                || renderData.getDrawMode() != GL_TRIANGLES) {
+            return false;
+        }
+        GVRMesh mesh = renderData.getMesh();
+        int triangles = mesh.getIndexCount() / 3;
+        int levels = 0;
+        int[] triangleCounts = new int[mLevels];
+        for (float count = triangles * mReduction; levels < mLevels
+                && count >= MIN_TRIANGLES; count *= mReduction) {
+            triangleCounts[levels++] = (int) count;
+        }
+        if (levels == 0) {
+            return false;
+        }
+        if (levels < mLevels) {
+            int[] counts = new int[levels];
+            System.arraycopy(triangleCounts, 0, counts, 0, levels);
+            triangleCounts = counts;
+        }
+        float[] errors = new float[levels];
+        GVRMesh[] meshes = mesh.simplify(triangleCounts, errors);
+
+        float distancePerError = getScale(sceneObject) * mPixelsPerUnit
+                / mPixelError;
+        GVRSceneObject previous = sceneObject;
+        int previousTriangles = triangles;
+        float near = 0.0f;
+        for (int i = 0; i < meshes.length; ++i) {
+            int levelTriangles = meshes[i].getIndexCount() / 3;
+            if (levelTriangles > previousTriangles * MAX_KEPT) {
+                break;
+            }
+            float far = Math.max(errors[i] * distancePerError, near);
+            previous.setLODRange(near, far);
+
+            GVRSceneObject level = new GVRSceneObject(mContext, meshes[i]);
+            level.setName(sceneObject.getName() + "_LOD" + (i + 1));
+            copyRenderState(renderData, level.getRenderData());
+            sceneObject.addChildObject(level);
+            previous = level;
+            previousTriangles = levelTriangles;
+            near = far;
+        }
+        if (previous == sceneObject) {
+            return false;
+        }
+        previous.setLODRange(near, Float.MAX_VALUE);
+        return true;
+    }
+
+    // The largest scale of the object's model matrix
+    private static float getScale(GVRSceneObject sceneObject) {
+        float[] matrix = sceneObject.getTransform().getModelMatrix();
+        float scale = 0.0f;
+        for (int column = 0; column < 3; ++column) {
+            float x = matrix[column * 4];
+            float y = matrix[column * 4 + 1];
+            float z = matrix[column * 4 + 2];
+            scale = Math.max(scale, (float) Math.sqrt(x * x + y * y + z * z));
+        }
+        return scale;
+    }
+
+    private static void copyRenderState(GVRRenderData from, GVRRenderData to) {
+        to.setMaterial(from.getMaterial());
+        to.setCullFace(from.getCullFace());
+        to.setRenderMask(from.getRenderMask());
+        to.setRenderingOrder(from.getRenderingOrder());
+        to.setDepthTest(from.getDepthTest());
+        to.setAlphaBlend(from.getAlphaBlend());
+        to.setOffset(from.getOffset());
+        to.setOffsetFactor(from.getOffsetFactor());
+        to.setOffsetUnits(from.getOffsetUnits());
+        if (from.getLight() != null) {
+            to.setLight(from.getLight());
+            if (from.isLightEnabled()) {
+                to.enableLight();
+            } else {
+                to.disableLight();
+            }
+        }
+    }
+}
@@ -17,7 +17,14 @@ package org.gearvrf;
 
 import static org.gearvrf.utility.Assert.*;
 
+import java.nio.Buffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import org.gearvrf.utility.Exceptions;
@@ -69,6 +76,23 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
         NativeMesh.setVertices(getNative(), vertices);
     }
 
+    /**
+     * Sets the 3D vertices of the mesh from a direct buffer, as
+     * {@link #setVertices(float[])} does from an array, without copying them
+     * into a Java array first.
+     * 
+     * @param vertices
+     *            Direct buffer, in the native byte order, containing the packed
+     *            vertex data, from its position to its limit. Its position is
+     *            left unchanged.
+     * @since 2.0.3
+     */
+    public void setVertices(FloatBuffer vertices) {
+        checkValidBuffer("vertices", vertices, vertices.order(), 3);
+        NativeMesh.setVerticesBuffer(getNative(), vertices,
+                vertices.position(), vertices.remaining());
+    }
+
     /**
      * Get the normal vectors of the mesh. Each normal vector is represented as
      * a packed {@code float} triplet:
@@ -95,6 +119,23 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
         NativeMesh.setNormals(getNative(), normals);
     }
 
+    /**
+     * Sets the normal vectors of the mesh from a direct buffer, as
+     * {@link #setNormals(float[])} does from an array, without copying them
+     * into a Java array first.
+     * 
+     * @param normals
+     *            Direct buffer, in the native byte order, containing the packed
+     *            normal data, from its position to its limit. Its position is
+     *            left unchanged.
+     * @since 2.0.3
+     */
+    public void setNormals(FloatBuffer normals) {
+        checkValidBuffer("normals", normals, normals.order(), 3);
+        NativeMesh.setNormalsBuffer(getNative(), normals, normals.position(),
+                normals.remaining());
+    }
+
     /**
      * Get the u,v texture coordinates for the mesh. Each texture coordinate is
      * represented as a packed {@code float} pair:
@@ -121,6 +162,48 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
         NativeMesh.setTexCoords(getNative(), texCoords);
     }
 
+    /**
+     * Sets the texture coordinates for the mesh from a direct buffer, as
+     * {@link #setTexCoords(float[])} does from an array, without copying them
+     * into a Java array first.
+     * 
+     * @param texCoords
+     *            Direct buffer, in the native byte order, containing the packed
+     *            texture coordinate data, from its position to its limit. Its
+     *            position is left unchanged.
+     * @since 2.0.3
+     */
+    public void setTexCoords(FloatBuffer texCoords) {
+        setTexCoords(texCoords, 2);
+    }
+
+    /**
+     * Sets the texture coordinates for the mesh from a direct buffer of
+     * coordinates with any number of components, such as an importer's
+     * {@code u, v, w} triplets. Only the first two components, u and v, of
+     * each coordinate are kept.
+     * 
+     * @param texCoords
+     *            Direct buffer, in the native byte order, containing the packed
+     *            texture coordinate data, from its position to its limit. Its
+     *            position is left unchanged.
+     * @param components
+     *            The number of {@code float}s in each texture coordinate: at
+     *            least 2.
+     * @since 2.0.3
+     */
+    public void setTexCoords(FloatBuffer texCoords, int components) {
+        if (components < 2) {
+            throw Exceptions.IllegalArgument(
+                    "Texture coordinates need at least 2 components, not %d",
+                    components);
+        }
+        checkValidBuffer("texCoords", texCoords, texCoords.order(),
+                components);
+        NativeMesh.setTexCoordsBuffer(getNative(), texCoords,
+                texCoords.position(), texCoords.remaining(), components);
+    }
+
     /**
      * Get the triangle vertex indices of the mesh. The indices for each
      * triangle are represented as a packed {@code char} triplet, where
@@ -166,6 +249,41 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
         return NativeMesh.getIndices(getNative());
     }
 
+    /**
+     * Get the number of vertices of the mesh, without copying them as
+     * {@link #getVertices()} does.
+     * 
+     * @return The number of vertices: a third of the length of
+     *         {@link #getVertices()}.
+     * @since 2.0.3
+     */
+    public int getVertexCount() {
+        return NativeMesh.getVertexCount(getNative());
+    }
+
+    /**
+     * Get the number of vertex indices of the mesh, without copying them as
+     * {@link #getIndices()} does.
+     * 
+     * @return The length of {@link #getIndices()}: three times the number of
+     *         triangles.
+     * @since 2.0.3
+     */
+    public int getIndexCount() {
+        return NativeMesh.getIndexCount(getNative());
+    }
+
+    /**
+     * Get the size of the mesh's data: its vertices, every vertex attribute
+     * and its indices.
+     * 
+     * @return The size, in bytes
+     * @since 2.0.3
+     */
+    public long getByteCount() {
+        return NativeMesh.getByteCount(getNative());
+    }
+
     /**
      * Sets the vertex indices of the mesh. The indices for each
      * vertex.
@@ -177,6 +295,61 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
         NativeMesh.setIndices(getNative(), indices);
     }
 
+    /**
+     * Sets the vertex indices of the mesh from a direct buffer, as
+     * {@link #setIndices(char[])} does from an array, without copying them
+     * into a Java array first.
+     * 
+     * @param indices
+     *            Direct buffer, in the native byte order, containing the packed
+     *            index data, from its position to its limit. Its position is
+     *            left unchanged.
+     * @since 2.0.3
+     */
+    public void setIndices(CharBuffer indices) {
+        checkValidBuffer("indices", indices, indices.order(), 1);
+        NativeMesh.setIndicesShortBuffer(getNative(), indices,
+                indices.position(), indices.remaining());
+    }
+
+    /**
+     * Sets the vertex indices of the mesh from a direct buffer of unsigned
+     * {@code short}s, without copying them into a Java array first.
+     * 
+     * @param indices
+     *            Direct buffer, in the native byte order, containing the packed
+     *            index data, from its position to its limit, read as unsigned
+     *            values. Its position is left unchanged.
+     * @since 2.0.3
+     */
+    public void setIndices(ShortBuffer indices) {
+        checkValidBuffer("indices", indices, indices.order(), 1);
+        NativeMesh.setIndicesShortBuffer(getNative(), indices,
+                indices.position(), indices.remaining());
+    }
+
+    /**
+     * Sets the vertex indices of the mesh from a direct buffer of {@code int}
+     * s, such as an importer's, without copying them into a Java array first.
+     * The mesh holds 16-bit indices: indices above 65535 are truncated, and
+     * logged. Imported meshes are split to fit.
+     * 
+     * @param indices
+     *            Direct buffer, in the native byte order, containing the packed
+     *            index data, from its position to its limit. Its position is
+     *            left unchanged.
+     * @since 2.0.3
+     */
+    public void setIndices(IntBuffer indices) {
+        checkValidBuffer("indices", indices, indices.order(), 1);
+        int maxIndex = NativeMesh.setIndicesIntBuffer(getNative(), indices,
+                indices.position(), indices.remaining());
+        if (maxIndex > 0xFFFF) {
+            Log.w(TAG, "Index %d does not fit in 16 bits: indices truncated",
+                    maxIndex);
+        }
+    }
+
     /**
      * Get the array of {@code float} scalars bound to the shader attribute
      * {@code key}.
@@ -344,6 +517,92 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
         }
     }
 
+    /**
+     * Gives vertices that are the same in every attribute one index, reorders
+     * the triangles of the mesh for the GPU's post-transform vertex cache,
+     * then its vertices in the order the triangles use them, so each draw
+     * transforms and fetches fewer vertices. Every vertex attribute and bone
+     * weight moves with its vertex, so the mesh looks the same.
+     * 
+     * <p>
+     * Imported meshes are optimized with
+     * {@link GVRImportSettings#OPTIMIZE_VERTEX_ORDER}. Generated meshes, such
+     * as those of {@link org.gearvrf.scene_objects.GVRSphereSceneObject},
+     * which give each face its own corners, can call this once their
+     * vertices, attributes, indices and bones are set. Meshes drawn as
+     * anything but triangles should not be optimized; meshes whose indices
+     * are not a triangle list are left alone.
+     * 
+     * @since 2.0.3
+     */
+    public void optimizeVertexOrder() {
+        int[] remap = NativeMesh.optimizeVertexOrder(getNative());
+        if (remap == null) {
+            return;
+        }
+        for (GVRBone bone : mBones) {
+            // Welded vertices had the same weights, so keep one of each
+            List<GVRBoneWeight> weights = new ArrayList<GVRBoneWeight>();
+            BitSet weighted = new BitSet();
+            for (GVRBoneWeight weight : bone.getBoneWeights()) {
+                int vertexId = weight.getVertexId();
+                if (vertexId >= 0 && vertexId < remap.length) {
+                    vertexId = remap[vertexId];
+                    if (weighted.get(vertexId)) {
+                        continue;
+                    }
+                    weighted.set(vertexId);
+                    weight.setVertexId(vertexId);
+                }
+                weights.add(weight);
+            }
+            if (weights.size() != bone.getBoneWeights().size()) {
+                bone.setBoneWeights(weights);
+            }
+        }
+    }
+
+    /**
+     * Makes simplified copies of this mesh, for levels of detail. Each copy
+     * collapses more edges of the mesh, cheapest by quadric error first,
+     * until it has at most the next of {@code triangleCounts} triangles or
+     * nothing more can be collapsed. The copies keep the vertices they use
+     * as they are, with every attribute, and their boundaries and texture
+     * seams closed.
+     * 
+     * <p>
+     * The meshes of skinned models, with bones, are not simplified.
+     * 
+     * @param triangleCounts
+     *            The most triangles each copy should have, largest first.
+     * @param errors
+     *            Receives the error of each copy: how far, in the units of
+     *            the mesh, its surface may be from this mesh's. Must be at
+     *            least as long as {@code triangleCounts}.
+     * @return The copies, one for each triangle count, or none if this mesh
+     *         has bones or its indices are not a triangle list.
+     * 
+     * @see GVRLODGenerator
+     * @since 2.0.3
+     */
+    public GVRMesh[] simplify(int[] triangleCounts, float[] errors) {
+        if (errors.length < triangleCounts.length) {
+            throw Exceptions.IllegalArgument(
+                    "Need an error for each of %d triangle counts, have %d",
+                    triangleCounts.length, errors.length);
+        }
+        if (!mBones.isEmpty()) {
+            return new GVRMesh[0];
+        }
+        long[] levels = NativeMesh.simplify(getNative(), triangleCounts,
+                errors);
+        GVRMesh[] meshes = new GVRMesh[levels.length];
+        for (int i = 0; i < levels.length; ++i) {
+            meshes[i] = new GVRMesh(getGVRContext(), levels[i]);
+        }
+        return meshes;
+    }
+
     /**
      * Gets the vertex bone data.
      *
@@ -400,6 +659,23 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
         checkDivisibleDataLength(parameterName, data, expectedComponents);
     }
 
+    private void checkValidBuffer(String parameterName, Buffer data,
+            ByteOrder order, int expectedComponents) {
+        checkNotNull(parameterName, data);
+        if (!data.isDirect()) {
+            throw Exceptions.IllegalArgument("%s must be a direct buffer",
+                    parameterName);
+        }
+        // Native code reads the buffer as it is laid out in memory
+        if (order != ByteOrder.nativeOrder()) {
+            throw Exceptions.IllegalArgument(
+                    "%s must be in the native byte order, not %s",
+                    parameterName, order);
+        }
+        checkDivisibleDataLength(parameterName, data.remaining(),
+                expectedComponents);
+    }
+
     private void checkVectorLengthWithVertices(String parameterName,
             int dataLength, int expectedComponents) {
         int verticesNumber = getVertices().length / 3;
@@ -440,6 +716,21 @@ class NativeMesh {
 
     static native void setIndices(long mesh, char[] indices);
 
+    static native void setVerticesBuffer(long mesh, FloatBuffer vertices,
+            int offset, int count);
+
+    static native void setNormalsBuffer(long mesh, FloatBuffer normals,
+            int offset, int count);
+
+    static native void setTexCoordsBuffer(long mesh, FloatBuffer texCoords,
+            int offset, int count, int components);
+
+    static native void setIndicesShortBuffer(long mesh, Buffer indices,
+            int offset, int count);
+
+    static native int setIndicesIntBuffer(long mesh, IntBuffer indices,
+            int offset, int count);
+
     static native float[] getFloatVector(long mesh, String key);
 
     static native void setFloatVector(long mesh, String key, float[] floatVector);
@@ -459,4 +750,15 @@ class NativeMesh {
     static native long getBoundingBox(long mesh);
 
     static native void setBones(long mesh, long[] bonePtrs);
+
+    static native int[] optimizeVertexOrder(long mesh);
+
+    static native long[] simplify(long mesh, int[] triangleCounts,
+            float[] errors);
+
+    static native int getVertexCount(long mesh);
+
+    static native int getIndexCount(long mesh);
+
+    static native long getByteCount(long mesh);
 }
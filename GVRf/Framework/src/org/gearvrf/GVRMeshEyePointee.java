@@ -107,10 +107,31 @@ public class GVRMeshEyePointee extends GVREyePointee {
         mMesh = mesh;
         NativeMeshEyePointee.setMesh(getNative(), mesh.getNative());
     }
+
+    /**
+     * Test picking rays against a bounding volume hierarchy of the mesh's
+     * triangles, instead of against every triangle.
+     * 
+     * The hits are the same; a ray just skips the triangles it cannot cross.
+     * Worth it for meshes of more than a few dozen triangles that are picked
+     * often, at the cost of some memory. The hierarchy is built on the first
+     * pick, and again after the mesh's vertices or triangles change.
+     * 
+     * @param useHierarchy
+     *            {@code true} to use a hierarchy; {@code false}, the default,
+     *            to test every triangle.
+     * @since 2.0.3
+     */
+    public void setUseTriangleHierarchy(boolean useHierarchy) {
+        NativeMeshEyePointee.setUseHierarchy(getNative(), useHierarchy);
+    }
 }
 
 class NativeMeshEyePointee {
     static native long ctor(long mesh);
 
     static native void setMesh(long meshEyePointee, long mesh);
+
+    static native void setUseHierarchy(long meshEyePointee,
+            boolean useHierarchy);
 }
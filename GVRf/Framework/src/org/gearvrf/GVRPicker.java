@@ -15,11 +15,14 @@
 
 package org.gearvrf;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
 
+import org.gearvrf.utility.Exceptions;
 import org.gearvrf.utility.Log;
 
 /**
@@ -39,6 +42,18 @@ import org.gearvrf.utility.Log;
 public class GVRPicker {
     private static final String TAG = Log.tag(GVRPicker.class);
 
+    /*
+     * The results the list overload of findObjects() picks into: one per
+     * thread, so that threads can still pick at once
+     */
+    private static final ThreadLocal<GVRPickResults> sListResults = //
+            new ThreadLocal<GVRPickResults>() {
+        @Override
+        protected GVRPickResults initialValue() {
+            return new GVRPickResults();
+        }
+    };
+
     private GVRPicker() {
     }
 
@@ -62,9 +77,7 @@ public class GVRPicker {
      * That is, either the {@linkplain #pickScene(GVRScene) short pickScene()},
      * or the
      * {@linkplain #pickScene(GVRScene, float, float, float, float, float, float)
-     * long pickScene()}, or
-     * {@linkplain #findObjects(GVRScene, float, float, float, float, float, float)
-     * findObjects()} calls will invalidate previous hit data. There are two
+     * long pickScene()} call will invalidate previous hit data. There are two
      * ways to avoid getting invalid hit data:
      * <ul>
      * <li>Use the high-level
@@ -106,27 +119,22 @@ public class GVRPicker {
      */
     public static final GVREyePointeeHolder[] pickScene(GVRScene scene, float ox, float oy, float oz, float dx,
             float dy, float dz) {
-        sFindObjectsLock.lock();
-        try {
-            final long[] ptrs = NativePicker.pickScene(scene.getNative(), ox, oy, oz,
-                    dx, dy, dz);
-            final ArrayList<GVREyePointeeHolder> eyePointeeHolders = new ArrayList<GVREyePointeeHolder>(ptrs.length);
-            final GVRContext gvrContext = scene.getGVRContext();
-
-            for (int i = 0, length = ptrs.length; i < length; ++i) {
-                Log.d(TAG, "pickScene(): ptrs[%d] = %x", i, ptrs[i]);
-                final GVREyePointeeHolder holder = GVREyePointeeHolder.lookup(gvrContext, ptrs[i]);
-                Log.d(TAG, "pickScene(): eyePointeeHolders[%d] = %s", i, holder);
-                if (null != holder) {
-                    eyePointeeHolders.add(holder);
-                }
-            }
+        final long[] ptrs = NativePicker.pickScene(scene.getNative(), ox, oy, oz,
+                dx, dy, dz);
+        final ArrayList<GVREyePointeeHolder> eyePointeeHolders = new ArrayList<GVREyePointeeHolder>(ptrs.length);
+        final GVRContext gvrContext = scene.getGVRContext();
 
-            GVREyePointeeHolder[] result = new GVREyePointeeHolder[eyePointeeHolders.size()];
-            return eyePointeeHolders.toArray(result);
-        } finally {
-            sFindObjectsLock.unlock();
+        for (int i = 0, length = ptrs.length; i < length; ++i) {
+            Log.d(TAG, "pickScene(): ptrs[%d] = %x", i, ptrs[i]);
+            final GVREyePointeeHolder holder = GVREyePointeeHolder.lookup(gvrContext, ptrs[i]);
+            Log.d(TAG, "pickScene(): eyePointeeHolders[%d] = %s", i, holder);
+            if (null != holder) {
+                eyePointeeHolders.add(holder);
+            }
         }
+
+        GVREyePointeeHolder[] result = new GVREyePointeeHolder[eyePointeeHolders.size()];
+        return eyePointeeHolders.toArray(result);
     }
 
     /**
@@ -140,9 +148,7 @@ public class GVRPicker {
      * That is, either the {@linkplain #pickScene(GVRScene) short pickScene()},
      * or the
      * {@linkplain #pickScene(GVRScene, float, float, float, float, float, float)
-     * long pickScene()}, or
-     * {@linkplain #findObjects(GVRScene, float, float, float, float, float, float)
-     * findObjects()} calls will invalidate previous hit data. There are two
+     * long pickScene()} call will invalidate previous hit data. There are two
      * ways to avoid getting invalid hit data:
      * <ul>
      * <li>Use the high-level
@@ -250,11 +256,16 @@ public class GVRPicker {
      * the lower-level methods are not: The
      * {@linkplain GVREyePointeeHolder#getHit() hit location} is stored in the
      * native eye pointee holder during the ray casting operation and it is only
-     * valid until the next ray cast operation. This method guarantees that only
-     * one thread at a time is doing a ray cast into a particular scene graph,
-     * and it extracts the hit data during within its synchronized block. You
-     * can then examine the return list without worrying about another thread
-     * corrupting your hit data.
+     * valid until the next ray cast operation. This method does not use the
+     * holder's hit location at all, so any number of threads can call it at
+     * once, and you can examine the return list without worrying about another
+     * thread corrupting your hit data.
+     * 
+     * <p>
+     * To pick often, say once per frame for each of several cursors, use
+     * {@link #findObjects(GVRScene, float, float, float, float, float, float, GVRPickResults)}
+     * with a {@link GVRPickResults} per cursor: it allocates nothing, once its
+     * results have grown large enough.
      * 
      * @param scene
      *            The {@link GVRScene} with all the objects to be tested.
@@ -288,22 +299,128 @@ public class GVRPicker {
      */
     public static final List<GVRPickedObject> findObjects(GVRScene scene, float ox, float oy, float oz, float dx,
             float dy, float dz) {
-        sFindObjectsLock.lock();
-        try {
-            final GVRContext gvrContext = scene.getGVRContext();
-
-            final long[] pointers = NativePicker.pickScene(scene.getNative(), ox, oy, oz, dx, dy, dz);
-            final List<GVRPickedObject> result = new ArrayList<GVRPickedObject>(pointers.length);
-            for (final long pointer : pointers) {
-                final GVREyePointeeHolder holder = GVREyePointeeHolder.lookup(gvrContext, pointer);
-                if (null != holder) {
-                    result.add(new GVRPickedObject(holder));
-                }
+        final GVRPickResults results = sListResults.get();
+        final int size = findObjects(scene, ox, oy, oz, dx, dy, dz, results);
+        final List<GVRPickedObject> result = new ArrayList<GVRPickedObject>(size);
+        for (int i = 0; i < size; ++i) {
+            final GVRSceneObject sceneObject = results.getHitObject(i);
+            if (null != sceneObject) {
+                result.add(new GVRPickedObject(sceneObject, new float[] {
+                        results.getHitX(i), results.getHitY(i),
+                        results.getHitZ(i) }));
             }
-            return result;
-        } finally {
-            sFindObjectsLock.unlock();
         }
+        // Don't keep the holders alive until this thread picks again
+        results.clear();
+        return result;
+    }
+
+    /**
+     * Casts a ray into the scene graph, and puts the objects it intersects in
+     * a {@link GVRPickResults} you own.
+     * 
+     * The ray is defined as in
+     * {@link #findObjects(GVRScene, float, float, float, float, float, float)}
+     * . Any previous contents of {@code results} are replaced.
+     * 
+     * <p>
+     * This method takes no locks, and does not touch the
+     * {@linkplain GVREyePointeeHolder#getHit() hit location} stored in the
+     * native eye pointee holders: any number of threads can pick into the same
+     * scene at once, as long as each one uses its own results. Once the
+     * results have grown large enough to hold all the hits, picking into them
+     * again allocates nothing.
+     * 
+     * @param scene
+     *            The {@link GVRScene} with all the objects to be tested.
+     * @param ox
+     *            The x coordinate of the ray origin.
+     * @param oy
+     *            The y coordinate of the ray origin.
+     * @param oz
+     *            The z coordinate of the ray origin.
+     * @param dx
+     *            The x vector of the ray direction.
+     * @param dy
+     *            The y vector of the ray direction.
+     * @param dz
+     *            The z vector of the ray direction.
+     * @param results
+     *            Receives the hits, sorted by distance from the camera rig.
+     * @return The number of hits, {@link GVRPickResults#size()}
+     * 
+     * @since 2.0.3
+     */
+    public static final int findObjects(GVRScene scene, float ox, float oy,
+            float oz, float dx, float dy, float dz, GVRPickResults results) {
+        final long nativeScene = scene.getNative();
+        int count = NativePicker.pickSceneToBuffer(nativeScene, ox, oy, oz,
+                dx, dy, dz, results.mRecords, results.capacity());
+        while (count > results.capacity()) {
+            // Rare: grow, and pick again. The scene may have changed in
+            // between, so check again.
+            results.grow(count);
+            count = NativePicker.pickSceneToBuffer(nativeScene, ox, oy, oz,
+                    dx, dy, dz, results.mRecords, results.capacity());
+        }
+        results.resolve(scene.getGVRContext(), count);
+        return results.size();
+    }
+
+    /**
+     * Casts a batch of rays into the scene graph in one call, and puts the
+     * nearest objects each one intersects in a {@link GVRBatchPickResults} you
+     * own.
+     * 
+     * Casting, say, a ray per finger or per cursor this way is much cheaper
+     * than one {@code findObjects()} call per ray: the picker brings the
+     * scene's picking hierarchy up to date, and crosses into native code, once
+     * per batch instead of once per ray. Like
+     * {@link #findObjects(GVRScene, float, float, float, float, float, float, GVRPickResults)}
+     * , it takes no locks, and any number of threads can call it at once as
+     * long as each one uses its own results.
+     * 
+     * @param scene
+     *            The {@link GVRScene} with all the objects to be tested.
+     * @param rays
+     *            A direct buffer of rays, in the native byte order, from its
+     *            position to its limit: six floats per ray, the origin
+     *            {@code [ox, oy, oz]} and the direction {@code [dx, dy, dz]},
+     *            defined as in
+     *            {@link #findObjects(GVRScene, float, float, float, float, float, float)}
+     *            . Its position is left unchanged.
+     * @param results
+     *            Receives the nearest {@link GVRBatchPickResults#getHitsPerRay()}
+     *            hits of each ray, sorted by distance from the camera rig.
+     * @return The number of rays
+     * @throws IllegalArgumentException
+     *             If {@code rays} is not a direct buffer in the native byte
+     *             order, or does not hold a whole number of rays.
+     * 
+     * @since 2.0.3
+     */
+    public static final int findObjects(GVRScene scene, FloatBuffer rays,
+            GVRBatchPickResults results) {
+        if (!rays.isDirect()) {
+            throw Exceptions.IllegalArgument("rays must be a direct buffer");
+        }
+        if (rays.order() != ByteOrder.nativeOrder()) {
+            throw Exceptions.IllegalArgument(
+                    "rays must be in the native byte order, not %s",
+                    rays.order());
+        }
+        if (rays.remaining() % 6 != 0) {
+            throw Exceptions.IllegalArgument(
+                    "rays must hold six floats per ray, not %d floats",
+                    rays.remaining());
+        }
+        final int rayCount = rays.remaining() / 6;
+        results.ensureRayCapacity(rayCount);
+        NativePicker.pickRaysToBuffer(scene.getNative(), rays,
+                rays.position(), rayCount, results.mRecords,
+                results.mHitsPerRay, results.mCounts);
+        results.resolve(scene.getGVRContext(), rayCount);
+        return rayCount;
     }
 
     /**
@@ -339,9 +456,9 @@ public class GVRPicker {
         private final GVRSceneObject sceneObject;
         private final float[] hitLocation;
 
-        private GVRPickedObject(GVREyePointeeHolder holder) {
-            sceneObject = holder.getOwnerObject();
-            hitLocation = holder.getHit();
+        private GVRPickedObject(GVRSceneObject sceneObject, float[] hitLocation) {
+            this.sceneObject = sceneObject;
+            this.hitLocation = hitLocation;
         }
 
         /**
@@ -381,13 +498,354 @@ public class GVRPicker {
         }
     }
 
-    static final ReentrantLock sFindObjectsLock = new ReentrantLock();
+    /**
+     * The hits of a
+     * {@link GVRPicker#findObjects(GVRScene, float, float, float, float, float, float, GVRPickResults)
+     * findObjects()} call, sorted by distance from the camera rig.
+     * 
+     * Meant to be kept and picked into again and again, for example by a
+     * cursor controller that picks once per frame: the hits are kept in a
+     * direct buffer that the native picker writes into, and the buffer only
+     * grows when a ray hits more objects than it has ever hit before.
+     * 
+     * <p>
+     * Not thread safe: give each thread that picks its own results.
+     * 
+     * @since 2.0.3
+     */
+    public static class GVRPickResults {
+        /*
+         * Must match Picker::RECORD_SIZE: the holder's native address, then the
+         * distance and the hit point
+         */
+        private static final int RECORD_SIZE = 24;
+        private static final int DISTANCE = 8;
+        private static final int HIT_X = 12;
+        private static final int HIT_Y = 16;
+        private static final int HIT_Z = 20;
+
+        private static final int DEFAULT_CAPACITY = 8;
+
+        private ByteBuffer mRecords;
+        private GVREyePointeeHolder[] mHolders;
+        private int mSize;
+
+        /** Results with room for a few hits; they grow as needed. */
+        public GVRPickResults() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        /**
+         * Results with room for {@code capacity} hits; they grow as needed.
+         * 
+         * @param capacity
+         *            The number of hits to make room for up front.
+         */
+        public GVRPickResults(int capacity) {
+            allocate(Math.max(capacity, 1));
+        }
+
+        /** The number of hits. */
+        public int size() {
+            return mSize;
+        }
+
+        /**
+         * Drops the hits, and the eye pointee holders they refer to. Keeps
+         * the room for them.
+         */
+        public void clear() {
+            Arrays.fill(mHolders, 0, mSize, null);
+            mSize = 0;
+        }
+
+        /**
+         * The eye pointee holder that was hit.
+         * 
+         * @param index
+         *            From 0, nearest, to {@link #size()} - 1, farthest.
+         */
+        public GVREyePointeeHolder getEyePointeeHolder(int index) {
+            checkIndex(index);
+            return mHolders[index];
+        }
+
+        /**
+         * The scene object that was hit: the owner of
+         * {@link #getEyePointeeHolder(int)}.
+         * 
+         * @param index
+         *            From 0, nearest, to {@link #size()} - 1, farthest.
+         * @return The owner object, or {@code null} if the holder has been
+         *         detached since it was hit.
+         */
+        public GVRSceneObject getHitObject(int index) {
+            checkIndex(index);
+            return mHolders[index].getOwnerObject();
+        }
+
+        /**
+         * The distance from the ray origin to the hit, in units of the ray
+         * direction's length.
+         * 
+         * @param index
+         *            From 0, nearest, to {@link #size()} - 1, farthest.
+         */
+        public float getDistance(int index) {
+            return getFloat(index, DISTANCE);
+        }
+
+        /** The x coordinate of the hit location, in model space */
+        public float getHitX(int index) {
+            return getFloat(index, HIT_X);
+        }
+
+        /** The y coordinate of the hit location, in model space */
+        public float getHitY(int index) {
+            return getFloat(index, HIT_Y);
+        }
+
+        /** The z coordinate of the hit location, in model space */
+        public float getHitZ(int index) {
+            return getFloat(index, HIT_Z);
+        }
+
+        private float getFloat(int index, int offset) {
+            checkIndex(index);
+            return mRecords.getFloat(index * RECORD_SIZE + offset);
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= mSize) {
+                throw new IndexOutOfBoundsException("index " + index
+                        + ", size " + mSize);
+            }
+        }
+
+        private int capacity() {
+            return mHolders.length;
+        }
+
+        private void allocate(int capacity) {
+            mRecords = ByteBuffer.allocateDirect(capacity * RECORD_SIZE)
+                    .order(ByteOrder.nativeOrder());
+            mHolders = new GVREyePointeeHolder[capacity];
+            mSize = 0;
+        }
+
+        private void grow(int count) {
+            allocate(Math.max(count, 2 * capacity()));
+        }
+
+        private void resolve(GVRContext gvrContext, int count) {
+            mSize = GVRPicker.resolve(gvrContext, mRecords, mHolders, 0, count);
+            Arrays.fill(mHolders, mSize, mHolders.length, null);
+        }
+    }
+
+    /**
+     * The hits of a
+     * {@link GVRPicker#findObjects(GVRScene, FloatBuffer, GVRBatchPickResults)
+     * batched findObjects()} call: the nearest few hits of each ray, sorted by
+     * distance from the camera rig.
+     * 
+     * Like {@link GVRPickResults}, meant to be kept and picked into again and
+     * again; it only allocates when a batch has more rays than any before it.
+     * 
+     * <p>
+     * Not thread safe: give each thread that picks its own results.
+     * 
+     * @since 2.0.3
+     */
+    public static class GVRBatchPickResults {
+        private static final int RECORD_SIZE = GVRPickResults.RECORD_SIZE;
+
+        private final int mHitsPerRay;
+        private ByteBuffer mRecords;
+        private ByteBuffer mCounts;
+        private GVREyePointeeHolder[] mHolders;
+        private int[] mSizes;
+        private int mRayCount;
+
+        /** Results that keep the nearest hit of each ray. */
+        public GVRBatchPickResults() {
+            this(1);
+        }
+
+        /**
+         * Results that keep the nearest {@code hitsPerRay} hits of each ray.
+         * 
+         * @param hitsPerRay
+         *            The number of hits to keep per ray, at least 1.
+         */
+        public GVRBatchPickResults(int hitsPerRay) {
+            if (hitsPerRay < 1) {
+                throw Exceptions.IllegalArgument(
+                        "hitsPerRay must be at least 1, not %d", hitsPerRay);
+            }
+            mHitsPerRay = hitsPerRay;
+            allocate(1);
+        }
+
+        /** The number of hits kept per ray. */
+        public int getHitsPerRay() {
+            return mHitsPerRay;
+        }
+
+        /** The number of rays in the last batch. */
+        public int getRayCount() {
+            return mRayCount;
+        }
+
+        /**
+         * The number of hits kept for a ray: at most {@link #getHitsPerRay()}
+         * 
+         * @param ray
+         *            From 0 to {@link #getRayCount()} - 1, in the order of the
+         *            batch.
+         */
+        public int size(int ray) {
+            checkRay(ray);
+            return mSizes[ray];
+        }
+
+        /**
+         * The eye pointee holder that was hit.
+         * 
+         * @param ray
+         *            From 0 to {@link #getRayCount()} - 1.
+         * @param index
+         *            From 0, nearest, to {@link #size(int) size(ray)} - 1.
+         */
+        public GVREyePointeeHolder getEyePointeeHolder(int ray, int index) {
+            return mHolders[slot(ray, index)];
+        }
+
+        /**
+         * The scene object that was hit: the owner of
+         * {@link #getEyePointeeHolder(int, int)}.
+         * 
+         * @return The owner object, or {@code null} if the holder has been
+         *         detached since it was hit.
+         */
+        public GVRSceneObject getHitObject(int ray, int index) {
+            return mHolders[slot(ray, index)].getOwnerObject();
+        }
+
+        /**
+         * The distance from the ray origin to the hit, in units of the ray
+         * direction's length.
+         */
+        public float getDistance(int ray, int index) {
+            return getFloat(ray, index, GVRPickResults.DISTANCE);
+        }
+
+        /** The x coordinate of the hit location, in model space */
+        public float getHitX(int ray, int index) {
+            return getFloat(ray, index, GVRPickResults.HIT_X);
+        }
+
+        /** The y coordinate of the hit location, in model space */
+        public float getHitY(int ray, int index) {
+            return getFloat(ray, index, GVRPickResults.HIT_Y);
+        }
+
+        /** The z coordinate of the hit location, in model space */
+        public float getHitZ(int ray, int index) {
+            return getFloat(ray, index, GVRPickResults.HIT_Z);
+        }
+
+        private float getFloat(int ray, int index, int offset) {
+            return mRecords.getFloat(slot(ray, index) * RECORD_SIZE + offset);
+        }
+
+        private int slot(int ray, int index) {
+            checkRay(ray);
+            if (index < 0 || index >= mSizes[ray]) {
+                throw new IndexOutOfBoundsException("index " + index
+                        + ", size " + mSizes[ray]);
+            }
+            return ray * mHitsPerRay + index;
+        }
+
+        private void checkRay(int ray) {
+            if (ray < 0 || ray >= mRayCount) {
+                throw new IndexOutOfBoundsException("ray " + ray
+                        + ", ray count " + mRayCount);
+            }
+        }
+
+        private void allocate(int rayCount) {
+            mRecords = ByteBuffer.allocateDirect(
+                    rayCount * mHitsPerRay * RECORD_SIZE).order(
+                    ByteOrder.nativeOrder());
+            mCounts = ByteBuffer.allocateDirect(rayCount * 4).order(
+                    ByteOrder.nativeOrder());
+            mHolders = new GVREyePointeeHolder[rayCount * mHitsPerRay];
+            mSizes = new int[rayCount];
+            mRayCount = 0;
+        }
+
+        private void ensureRayCapacity(int rayCount) {
+            if (rayCount > mSizes.length) {
+                allocate(Math.max(rayCount, 2 * mSizes.length));
+            }
+        }
+
+        private void resolve(GVRContext gvrContext, int rayCount) {
+            mRayCount = rayCount;
+            for (int ray = 0; ray < rayCount; ++ray) {
+                final int first = ray * mHitsPerRay;
+                final int count = Math.min(mCounts.getInt(ray * 4),
+                        mHitsPerRay);
+                mSizes[ray] = GVRPicker.resolve(gvrContext, mRecords,
+                        mHolders, first, count);
+                Arrays.fill(mHolders, first + mSizes[ray], first
+                        + mHitsPerRay, null);
+            }
+        }
+    }
+
+    /*
+     * Map the native addresses of records [first, first + count) to holders,
+     * dropping any that no longer have a Java object, and return how many are
+     * left
+     */
+    private static int resolve(GVRContext gvrContext, ByteBuffer records,
+            GVREyePointeeHolder[] holders, int first, int count) {
+        final int recordSize = GVRPickResults.RECORD_SIZE;
+        int size = 0;
+        for (int i = 0; i < count; ++i) {
+            final int from = (first + i) * recordSize;
+            final GVREyePointeeHolder holder = GVREyePointeeHolder.lookup(
+                    gvrContext, records.getLong(from));
+            if (null == holder) {
+                continue;
+            }
+            final int to = (first + size) * recordSize;
+            if (to != from) {
+                for (int offset = GVRPickResults.DISTANCE; offset < recordSize; offset += 4) {
+                    records.putFloat(to + offset, records.getFloat(from + offset));
+                }
+            }
+            holders[first + size++] = holder;
+        }
+        return size;
+    }
 }
 
 final class NativePicker {
     static native long[] pickScene(long scene, float ox, float oy, float oz,
             float dx, float dy, float dz);
 
+    static native int pickSceneToBuffer(long scene, float ox, float oy,
+            float oz, float dx, float dy, float dz, ByteBuffer records,
+            int capacity);
+
+    static native void pickRaysToBuffer(long scene, FloatBuffer rays,
+            int offset, int rayCount, ByteBuffer records, int capacity,
+            ByteBuffer counts);
+
     static native float pickSceneObject(long sceneObject, long cameraRig);
 
     static native float[] pickSceneObjectAgainstBoundingBox(long sceneObject,
@@ -450,16 +450,10 @@ public class GVRSceneObject extends GVRHybridObject implements PrettyPrint {
      *            New {@link GVREyePointeeHolder}.
      */
     public void attachEyePointeeHolder(GVREyePointeeHolder eyePointeeHolder) {
-        // see GVRPicker.findObjects
-        GVRPicker.sFindObjectsLock.lock();
-        try {
-            mEyePointeeHolder = eyePointeeHolder;
-            eyePointeeHolder.setOwnerObject(this);
-            NativeSceneObject.attachEyePointeeHolder(getNative(),
-                eyePointeeHolder.getNative());
-        } finally {
-            GVRPicker.sFindObjectsLock.unlock();
-        }
+        mEyePointeeHolder = eyePointeeHolder;
+        eyePointeeHolder.setOwnerObject(this);
+        NativeSceneObject.attachEyePointeeHolder(getNative(),
+            eyePointeeHolder.getNative());
     }
 
     /**
@@ -500,17 +494,11 @@ public class GVRSceneObject extends GVRHybridObject implements PrettyPrint {
      * Detach the object's current {@link GVREyePointeeHolder}.
      */
     public void detachEyePointeeHolder() {
-        // see GVRPicker.findObjects
-        GVRPicker.sFindObjectsLock.lock();
-        try {
-            if (mEyePointeeHolder != null) {
-                mEyePointeeHolder.setOwnerObject(null);
-            }
-            mEyePointeeHolder = null;
-            NativeSceneObject.detachEyePointeeHolder(getNative());
-        } finally {
-            GVRPicker.sFindObjectsLock.unlock();
+        if (mEyePointeeHolder != null) {
+            mEyePointeeHolder.setOwnerObject(null);
         }
+        mEyePointeeHolder = null;
+        NativeSceneObject.detachEyePointeeHolder(getNative());
     }
 
     /**
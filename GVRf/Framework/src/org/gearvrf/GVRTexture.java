@@ -17,10 +17,32 @@ package org.gearvrf;
 
 /** Wrapper for a GL texture. */
 public class GVRTexture extends GVRHybridObject {
+    private volatile int mByteCount = 0;
+
     protected GVRTexture(GVRContext gvrContext, long ptr) {
         super(gvrContext, ptr);
     }
 
+    /**
+     * Get the approximate size of the texture's image data, as uploaded to
+     * GL. The texture cache uses this to weigh textures.
+     * 
+     * @return Size in bytes, or 0 if unknown.
+     */
+    public int getByteCount() {
+        return mByteCount;
+    }
+
+    /**
+     * Record the size of the image data, for {@link #getByteCount()}.
+     * 
+     * @param byteCount
+     *            Size in bytes.
+     */
+    protected void setByteCount(int byteCount) {
+        mByteCount = byteCount;
+    }
+
     /**
      * Get the ID generated by {@code glGenTextures()}.
      * 
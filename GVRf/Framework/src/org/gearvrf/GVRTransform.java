@@ -26,6 +26,10 @@ import org.joml.Matrix4f;
  * translation, rotation and scaling. Rotations can be made in either quaternion
  * or angle/axis terms; rotation values can be retrieved as either quaternion
  * components or as Euler angles.
+ * 
+ * <p>
+ * Each getter and setter is a call into native code. To move many objects
+ * every frame, use a {@link GVRTransformBatch}.
  */
 public class GVRTransform extends GVRComponent {
     GVRTransform(GVRContext gvrContext) {
@@ -0,0 +1,243 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.List;
+
+import org.gearvrf.utility.Exceptions;
+
+/**
+ * Reads and writes a fixed set of {@link GVRTransform}s at once, from a direct
+ * {@link FloatBuffer}.
+ *
+ * Every {@code GVRTransform} getter and setter is a call into native code.
+ * Moving a few thousand objects a frame with {@link GVRTransform#setPosition}
+ * and {@link GVRTransform#setRotation} costs a few thousand of those calls;
+ * {@link #set(int, FloatBuffer)} makes one, however many transforms there
+ * are. Setting a transform's position, rotation and scale together also
+ * invalidates its model matrix, and its children's, only once.
+ *
+ * <p>
+ * Build a batch once, for the objects that move together, and keep it: it
+ * holds the transforms, and their native addresses in a direct buffer. Fill a
+ * direct {@code FloatBuffer}, in the {@linkplain ByteOrder#nativeOrder()
+ * native byte order}, with one record per transform, in the batch's order,
+ * and pass it to a setter; or pass one to a getter to read the transforms
+ * back. Records hold the {@linkplain #POSITION position} x, y and
+ * z, the {@linkplain #ROTATION rotation} quaternion's w, x, y and z, and the
+ * {@linkplain #SCALE scale} x, y and z, in that order, or only the ones you
+ * ask for; or else a whole {@linkplain #setModelMatrices(FloatBuffer) model
+ * matrix}.
+ *
+ * <p>
+ * Like the {@code GVRTransform} methods, a batch is not synchronized.
+ *
+ * @since 2.0.3
+ */
+public class GVRTransformBatch {
+    /** Records hold the position: x, y, z */
+    public static final int POSITION = 1;
+    /** Records hold the rotation quaternion: w, x, y, z */
+    public static final int ROTATION = 2;
+    /** Records hold the scale: x, y, z */
+    public static final int SCALE = 4;
+    /** Records hold the position, rotation and scale, in that order */
+    public static final int ALL = POSITION | ROTATION | SCALE;
+
+    /** The number of floats in a model matrix record */
+    public static final int MATRIX_SIZE = 16;
+
+    private final GVRTransform[] mTransforms;
+    private final ByteBuffer mAddresses;
+
+    /**
+     * A batch of transforms.
+     *
+     * @param transforms
+     *            The transforms, in the order of the records.
+     */
+    public GVRTransformBatch(List<GVRTransform> transforms) {
+        this(transforms.toArray(new GVRTransform[transforms.size()]));
+    }
+
+    /**
+     * A batch of transforms.
+     *
+     * @param transforms
+     *            The transforms, in the order of the records.
+     */
+    public GVRTransformBatch(GVRTransform... transforms) {
+        mTransforms = transforms.clone();
+        mAddresses = ByteBuffer.allocateDirect(mTransforms.length * 8).order(
+                ByteOrder.nativeOrder());
+        for (int i = 0; i < mTransforms.length; ++i) {
+            mAddresses.putLong(i * 8, mTransforms[i].getNative());
+        }
+    }
+
+    /** The number of transforms in the batch. */
+    public int size() {
+        return mTransforms.length;
+    }
+
+    /**
+     * The transform of a record.
+     *
+     * @param index
+     *            From 0 to {@link #size()} - 1.
+     */
+    public GVRTransform getTransform(int index) {
+        return mTransforms[index];
+    }
+
+    /**
+     * The number of floats in a record.
+     *
+     * @param components
+     *            Any combination of {@link #POSITION}, {@link #ROTATION} and
+     *            {@link #SCALE}.
+     */
+    public static int recordSize(int components) {
+        checkComponents(components);
+        return ((components & POSITION) != 0 ? 3 : 0)
+                + ((components & ROTATION) != 0 ? 4 : 0)
+                + ((components & SCALE) != 0 ? 3 : 0);
+    }
+
+    /**
+     * Set some or all of the position, rotation and scale of every transform,
+     * as {@link GVRTransform#setPosition(float, float, float)},
+     * {@link GVRTransform#setRotation(float, float, float, float)} and
+     * {@link GVRTransform#setScale(float, float, float)} would.
+     *
+     * @param components
+     *            What the records hold: any combination of {@link #POSITION},
+     *            {@link #ROTATION} and {@link #SCALE}. The other components
+     *            are left unchanged.
+     * @param data
+     *            A direct buffer of {@link #size()} records, from its
+     *            position. Its position is left unchanged.
+     */
+    public void set(int components, FloatBuffer data) {
+        checkData(data, recordSize(components));
+        NativeTransformBatch.set(mAddresses, mTransforms.length, components,
+                data, data.position());
+    }
+
+    /**
+     * Get some or all of the position, rotation and scale of every transform,
+     * as {@link GVRTransform#getPositionX()} and the other getters would.
+     *
+     * @param components
+     *            What to put in the records: any combination of
+     *            {@link #POSITION}, {@link #ROTATION} and {@link #SCALE}.
+     * @param data
+     *            A direct buffer with room for {@link #size()} records, from
+     *            its position. Its position is left unchanged.
+     */
+    public void get(int components, FloatBuffer data) {
+        checkData(data, recordSize(components));
+        NativeTransformBatch.get(mAddresses, mTransforms.length, components,
+                data, data.position());
+    }
+
+    /**
+     * Set every transform from a model matrix, as
+     * {@link GVRTransform#setModelMatrix(float[])} would.
+     *
+     * @param data
+     *            A direct buffer of {@link #size()} matrices of
+     *            {@link #MATRIX_SIZE} floats, in OpenGL-compatible
+     *            column-major format, from its position. Its position is left
+     *            unchanged.
+     */
+    public void setModelMatrices(FloatBuffer data) {
+        checkData(data, MATRIX_SIZE);
+        NativeTransformBatch.setModelMatrices(mAddresses, mTransforms.length,
+                data, data.position());
+    }
+
+    /**
+     * Get the model matrix of every transform, as
+     * {@link GVRTransform#getModelMatrix()} would.
+     *
+     * @param data
+     *            A direct buffer with room for {@link #size()} matrices of
+     *            {@link #MATRIX_SIZE} floats, from its position. Its position
+     *            is left unchanged.
+     */
+    public void getModelMatrices(FloatBuffer data) {
+        checkData(data, MATRIX_SIZE);
+        NativeTransformBatch.getModelMatrices(mAddresses, mTransforms.length,
+                false, data, data.position());
+    }
+
+    /**
+     * Get the local model matrix of every transform, as
+     * {@link GVRTransform#getLocalModelMatrix()} would.
+     *
+     * @param data
+     *            A direct buffer with room for {@link #size()} matrices of
+     *            {@link #MATRIX_SIZE} floats, from its position. Its position
+     *            is left unchanged.
+     */
+    public void getLocalModelMatrices(FloatBuffer data) {
+        checkData(data, MATRIX_SIZE);
+        NativeTransformBatch.getModelMatrices(mAddresses, mTransforms.length,
+                true, data, data.position());
+    }
+
+    private static void checkComponents(int components) {
+        if (components == 0 || (components & ~ALL) != 0) {
+            throw Exceptions.IllegalArgument(
+                    "components must combine POSITION, ROTATION and SCALE, not %d",
+                    components);
+        }
+    }
+
+    private void checkData(FloatBuffer data, int recordSize) {
+        if (!data.isDirect()) {
+            throw Exceptions.IllegalArgument("data must be a direct buffer");
+        }
+        if (data.order() != ByteOrder.nativeOrder()) {
+            throw Exceptions.IllegalArgument(
+                    "data must be in the native byte order, not %s",
+                    data.order());
+        }
+        if (data.remaining() < mTransforms.length * recordSize) {
+            throw Exceptions.IllegalArgument(
+                    "data holds %d floats, not %d records of %d floats",
+                    data.remaining(), mTransforms.length, recordSize);
+        }
+    }
+}
+
+class NativeTransformBatch {
+    static native void set(ByteBuffer transforms, int count, int components,
+            FloatBuffer data, int offset);
+
+    static native void get(ByteBuffer transforms, int count, int components,
+            FloatBuffer data, int offset);
+
+    static native void setModelMatrices(ByteBuffer transforms, int count,
+            FloatBuffer data, int offset);
+
+    static native void getModelMatrices(ByteBuffer transforms, int count,
+            boolean local, FloatBuffer data, int offset);
+}
@@ -118,6 +118,19 @@ public abstract class GVRAnimation {
     
     private boolean isFinished = false;
 
+    /**
+     * Slot in the {@linkplain GVRAnimationEngine engine's} array of running
+     * animations, or -1 when not running. Only touched on the GL thread.
+     */
+    int mEngineIndex = -1;
+
+    /**
+     * Set by {@link GVRAnimationEngine#stop(GVRAnimation)}, on any thread, so
+     * that the engine skips the animation from then on, without waiting for
+     * its queued stop request.
+     */
+    volatile boolean mStopped = false;
+
     /**
      * Base constructor.
      * 
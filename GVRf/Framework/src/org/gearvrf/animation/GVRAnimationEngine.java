@@ -15,12 +15,15 @@
 
 package org.gearvrf.animation;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
 import org.gearvrf.GVRSceneObject;
+import org.gearvrf.animation.keyframe.GVRKeyFrameAnimation;
+import org.gearvrf.animation.keyframe.GVRKeyFrameBatch;
 
 /**
  * This class runs {@linkplain GVRAnimation animations}.
@@ -59,13 +62,43 @@ public class GVRAnimationEngine {
         });
     }
 
-    private final List<GVRAnimation> mAnimations = new ArrayList<GVRAnimation>();
+    private static final int INITIAL_CAPACITY = 16;
+
+    /*
+     * Requests from start() and stop(), applied on the GL thread
+     */
+    private final Queue<Command> mCommands = new ConcurrentLinkedQueue<Command>();
+
+    /*
+     * The running animations, in start order. Only touched on the GL thread.
+     */
+    private GVRAnimation[] mAnimations = new GVRAnimation[INITIAL_CAPACITY];
+    private int mAnimationCount = 0;
+
     private final GVRDrawFrameListener mOnDrawFrame = new DrawFrame();
+    private volatile GVRKeyFrameBatch mKeyFrameBatch = null;
+
+    private static final class Command {
+        final GVRAnimation animation;
+        final boolean start;
+
+        Command(GVRAnimation animation, boolean start) {
+            this.animation = animation;
+            this.start = start;
+        }
+    }
 
     protected GVRAnimationEngine(GVRContext gvrContext) {
         gvrContext.registerDrawFrameListener(mOnDrawFrame);
     }
 
+    /**
+     * Creates an engine that is not attached to a context: it only runs
+     * animations when {@link #runFrame(float)} is called.
+     */
+    GVRAnimationEngine() {
+    }
+
     /**
      * The animation engine is an optional part of GVRF: You do have to call
      * {@code getInstance()} to lazy-create the singleton.
@@ -111,10 +144,9 @@ public class GVRAnimationEngine {
      */
     public GVRAnimation start(GVRAnimation animation) {
         if (animation.getRepeatCount() != 0) {
-            synchronized (mAnimations) {
-                animation.reset();
-                mAnimations.add(animation);
-            }
+            animation.reset();
+            animation.mStopped = false;
+            mCommands.add(new Command(animation, true));
         }
         return animation;
     }
@@ -136,28 +168,111 @@ public class GVRAnimationEngine {
      * spinning some sort of In Progress object. In a case like this, stopping
      * in mid-animation is harmless.
      * 
+     * <p>
+     * The animation is not advanced again once this returns, unless the GL
+     * thread is already advancing it for the current frame.
+     * 
      * @param animation
      *            an animation
      */
     public void stop(GVRAnimation animation) {
-        synchronized (mAnimations) {
-            mAnimations.remove(animation);
+        animation.mStopped = true;
+        mCommands.add(new Command(animation, false));
+    }
+
+    /**
+     * Evaluate all running {@linkplain GVRKeyFrameAnimation keyframe
+     * animations} together, in parallel, at the end of each frame.
+     * 
+     * @param batch
+     *            The batch, or {@code null} to evaluate each keyframe
+     *            animation on its own, on the GL thread.
+     */
+    public void setKeyFrameBatch(GVRKeyFrameBatch batch) {
+        mKeyFrameBatch = batch;
+    }
+
+    /**
+     * Runs one frame: applies pending {@link #start(GVRAnimation)} and
+     * {@link #stop(GVRAnimation)} calls, then advances every running
+     * animation. Must be called on the GL thread.
+     * 
+     * @param frameTime
+     *            elapsed time since the previous frame, in seconds
+     */
+    void runFrame(float frameTime) {
+        applyCommands();
+
+        final GVRKeyFrameBatch batch = mKeyFrameBatch;
+        final GVRAnimation[] animations = mAnimations;
+        final int count = mAnimationCount;
+        int kept = 0;
+
+        /*
+         * Animations that finish or are stopped are dropped by compacting the
+         * array in place. Animations started from a callback only run from
+         * next frame, as their commands are still queued.
+         */
+        for (int index = 0; index < count; ++index) {
+            GVRAnimation animation = animations[index];
+            if (animation == null) {
+                continue; // stopped
+            }
+            if (animation.mStopped) {
+                // Its queued stop request will find it gone
+                animation.mEngineIndex = -1;
+                continue;
+            }
+            if (animation instanceof GVRKeyFrameAnimation) {
+                ((GVRKeyFrameAnimation) animation).setBatch(batch);
+            }
+            if (animation.onDrawFrame(frameTime)) {
+                animation.mEngineIndex = kept;
+                animations[kept++] = animation;
+            } else {
+                animation.mEngineIndex = -1;
+            }
+        }
+        Arrays.fill(animations, kept, count, null);
+        mAnimationCount = kept;
+
+        if (batch != null) {
+            batch.run();
         }
     }
 
+    private void applyCommands() {
+        Command command;
+        while ((command = mCommands.poll()) != null) {
+            GVRAnimation animation = command.animation;
+            int index = animation.mEngineIndex;
+
+            if (command.start) {
+                // start() has reset it already
+                if (index < 0) {
+                    add(animation);
+                }
+            } else if (index >= 0) {
+                // Leave a hole; the next pass over the array closes it
+                mAnimations[index] = null;
+                animation.mEngineIndex = -1;
+            }
+        }
+    }
+
+    private void add(GVRAnimation animation) {
+        if (mAnimationCount == mAnimations.length) {
+            mAnimations = Arrays.copyOf(mAnimations, mAnimationCount * 2);
+        }
+        animation.mEngineIndex = mAnimationCount;
+        mAnimations[mAnimationCount++] = animation;
+    }
+
     private final class DrawFrame implements GVRDrawFrameListener {
 
         @Override
         public void onDrawFrame(float frameTime) {
-            synchronized (mAnimations) {
-                List<GVRAnimation> animations = new ArrayList<GVRAnimation>(
-                        mAnimations);
-                for (GVRAnimation animation : animations) {
-                    if (animation.onDrawFrame(frameTime) == false) {
-                        mAnimations.remove(animation);
-                    }
-                }
-            }
+            runFrame(frameTime);
         }
     }
 }
@@ -21,94 +21,77 @@ import org.joml.Vector3f;
  */
 public final class GVRAnimationChannel implements PrettyPrint {
     private static final String TAG = GVRAnimationChannel.class.getSimpleName();
-    protected static interface ValueInterpolator<T> {
-        T interpolate(T begin, T end, float factor);
-    }
-
-    protected static ValueInterpolator<Vector3f> sInterpolatorVector3f = new ValueInterpolator<Vector3f>() {
-        public Vector3f interpolate(Vector3f begin, Vector3f end, float factor) {
-            return new Vector3f().set(end).sub(begin).mul(factor).add(begin);
-        }
-    };
 
-    protected static ValueInterpolator<Quaternionf> sInterpolatorQuaternion = new ValueInterpolator<Quaternionf>() {
-        public Quaternionf interpolate(Quaternionf begin, Quaternionf end, float factor) {
-            return new Quaternionf().set(begin).slerp(end, factor);
-        }
-    };
+    /*
+     * Keys are stored packed: each key is the time followed by its value
+     * components, so a channel with n position keys holds a float[4 * n].
+     */
+    static final int POSITION_KEY_SIZE = 4;
+    static final int ROTATION_KEY_SIZE = 5;
+    static final int SCALE_KEY_SIZE = 4;
 
-    protected class KeyFrameInterplator<T> {
-        GVRKeyFrame<T>[] keys;
-        ValueInterpolator<T> interpolator;
+    protected static final class KeyFrameInterpolator {
+        final float[] keys;
+        final int keySize;
 
         private int lastKeyIndex;
 
-        KeyFrameInterplator(GVRKeyFrame<T>[] keys, ValueInterpolator<T> interpolator) {
+        KeyFrameInterpolator(float[] keys, int keySize) {
             this.keys = keys;
-            this.interpolator = interpolator;
+            this.keySize = keySize;
             lastKeyIndex = -1;
         }
 
-        protected T interpolate(float time) {
-            int index = getKeyIndex(time);
-            int nextIndex = index + 1;
-
-            if (index != -1 && keys[index].getTime() <= time && time < keys[nextIndex].getTime()) {
-                // interpolate
-                float deltaTime = (float)(keys[nextIndex].getTime() - keys[index].getTime());
-                float factor = (float)((time - keys[index].getTime()) / deltaTime);
-
-                T start = keys[index].getValue();
-                T end = keys[nextIndex].getValue();
-
-                return interpolator.interpolate(start, end, factor);
-            } else {
-                // time is out of range of animation time frame
-                float firstFrameTime = keys[0].getTime();
-                float lastFrameTime = keys[keys.length - 1].getTime();
-                T firstFrameValue = keys[0].getValue();
-                T lastFrameValue = keys[keys.length - 1].getValue();
-
-                if (time <= firstFrameTime) {
-                    return firstFrameValue;
-                } else if (time >= lastFrameTime) {
-                    return lastFrameValue;
-                } else {
-                    // Shouldn't happen
-                    return lastFrameValue;
-                }
+        int getNumKeys() {
+            return keys.length / keySize;
+        }
+
+        float getTime(int keyIndex) {
+            return keys[keyIndex * keySize];
+        }
+
+        /*
+         * Returns the offset of the first value component of the key to use
+         * when time is outside the interval of two keys.
+         */
+        int getClampedOffset(float time) {
+            if (time <= keys[0]) {
+                return 1;
             }
+            return keys.length - keySize + 1;
         }
 
         protected int getKeyIndex(float time) {
+            final int numKeys = getNumKeys();
+
             // Try cached key first
             if (lastKeyIndex != -1) {
-                if (keys[lastKeyIndex].getTime() <= time && time < keys[lastKeyIndex + 1].getTime()) {
+                if (getTime(lastKeyIndex) <= time && time < getTime(lastKeyIndex + 1)) {
                     return lastKeyIndex;
                 }
 
                 // Try neighboring keys
-                if (lastKeyIndex + 2 < keys.length &&
-                        keys[lastKeyIndex + 1].getTime() <= time && time < keys[lastKeyIndex + 2].getTime()) {
+                if (lastKeyIndex + 2 < numKeys &&
+                        getTime(lastKeyIndex + 1) <= time && time < getTime(lastKeyIndex + 2)) {
                     return ++lastKeyIndex;
                 }
 
                 if (lastKeyIndex >= 1 &&
-                        keys[lastKeyIndex - 1].getTime() <= time && time < keys[lastKeyIndex].getTime()) {
+                        getTime(lastKeyIndex - 1) <= time && time < getTime(lastKeyIndex)) {
                     return --lastKeyIndex;
                 }
             }
 
             // Binary search for the interval
             // Each of the index i represents an interval I(i) = [time(i), time(i + 1)).
-            int low = 0, high = keys.length - 2;
+            int low = 0, high = numKeys - 2;
             // invariant: I(low)...I(high) contains time if time can be found
             // post-condition: |high - low| <= 1, only need to check I(low) and I(low + 1)
             while (high - low > 1) {
                 int mid = (low + high) / 2;
-                if (time < keys[mid].getTime()) {
+                if (time < getTime(mid)) {
                     high = mid;
-                } else if (time >= keys[mid + 1].getTime()) {
+                } else if (time >= getTime(mid + 1)) {
                     low = mid + 1;
                 } else {
                     // time in I(mid) by definition
@@ -116,16 +99,18 @@ public final class GVRAnimationChannel implements PrettyPrint {
                 }
             }
 
-            if (keys[low].getTime() <= time && time < keys[low + 1].getTime()) {
+            if (getTime(low) <= time && time < getTime(low + 1)) {
                 return lastKeyIndex = low;
             }
 
-            if (low + 2 < keys.length &&
-                    keys[low + 1].getTime() <= time && time < keys[low + 2].getTime()) {
+            if (low + 2 < numKeys &&
+                    getTime(low + 1) <= time && time < getTime(low + 2)) {
                 return lastKeyIndex = low + 1;
             }
 
-            Log.v(TAG, "Warning: interpolation failed at time " + time);
+            if (time > keys[0] && time < keys[keys.length - keySize]) {
+                Log.v(TAG, "Warning: interpolation failed at time " + time);
+            }
             return lastKeyIndex = -1;
         }
     }
@@ -144,17 +129,22 @@ public final class GVRAnimationChannel implements PrettyPrint {
             int numScaleKeys, GVRAnimationBehavior preBehavior, GVRAnimationBehavior postBehavior) {
 
         m_nodeName = nodeName;
-        mPositionKeys = new GVRPositionKey[numPosKeys];
-        mRotationKeys = new GVRRotationKey[numRotKeys];
-        mScaleKeys = new GVRScaleKey[numScaleKeys];
+        mPositionKeys = new float[numPosKeys * POSITION_KEY_SIZE];
+        mRotationKeys = new float[numRotKeys * ROTATION_KEY_SIZE];
+        mScaleKeys = new float[numScaleKeys * SCALE_KEY_SIZE];
         mPreState = preBehavior;
         mPostState = postBehavior;
 
-        mPositionInterpolator = new KeyFrameInterplator<Vector3f>(mPositionKeys, sInterpolatorVector3f);
-        mRotationInterpolator = new KeyFrameInterplator<Quaternionf>(mRotationKeys, sInterpolatorQuaternion);
-        mScaleInterpolator = new KeyFrameInterplator<Vector3f>(mScaleKeys, sInterpolatorVector3f);
+        mPositionInterpolator = new KeyFrameInterpolator(mPositionKeys, POSITION_KEY_SIZE);
+        mRotationInterpolator = new KeyFrameInterpolator(mRotationKeys, ROTATION_KEY_SIZE);
+        mScaleInterpolator = new KeyFrameInterpolator(mScaleKeys, SCALE_KEY_SIZE);
 
         mCurrentTransform = new Matrix4f();
+        mRotationBegin = new Quaternionf();
+        mRotationEnd = new Quaternionf();
+        mPosition = new Vector3f();
+        mRotation = new Quaternionf();
+        mScale = new Vector3f();
     }
 
 
@@ -176,7 +166,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the number of position keys
      */
     public int getNumPosKeys() {
-        return mPositionKeys.length;
+        return mPositionInterpolator.getNumKeys();
     }
     
     /**
@@ -186,7 +176,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the time component
      */
     public double getPosKeyTime(int keyIndex) {
-        return mPositionKeys[keyIndex].getTime();
+        return mPositionInterpolator.getTime(keyIndex);
     }
 
     /**
@@ -197,11 +187,29 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the position as vector
      */
     public Vector3f getPosKeyVector(int keyIndex) {
-        return mPositionKeys[keyIndex].getValue();
+        return getPosKeyVector(keyIndex, new Vector3f());
+    }
+
+    /**
+     * Copies the position of a key into a vector.
+     * 
+     * @param keyIndex the index of the position key
+     * @param dest vector to receive the position
+     * 
+     * @return dest
+     */
+    public Vector3f getPosKeyVector(int keyIndex, Vector3f dest) {
+        int offset = keyIndex * POSITION_KEY_SIZE;
+        return dest.set(mPositionKeys[offset + 1], mPositionKeys[offset + 2],
+                mPositionKeys[offset + 3]);
     }
 
     public void setPosKeyVector(int keyIndex, float time, Vector3f pos) {
-        mPositionKeys[keyIndex] = new GVRPositionKey(time, pos.x, pos.y, pos.z);
+        int offset = keyIndex * POSITION_KEY_SIZE;
+        mPositionKeys[offset] = time;
+        mPositionKeys[offset + 1] = pos.x;
+        mPositionKeys[offset + 2] = pos.y;
+        mPositionKeys[offset + 3] = pos.z;
     }
 
     /** 
@@ -210,7 +218,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the number of rotation keys
      */
     public int getNumRotKeys() {
-       return mRotationKeys.length;
+       return mRotationInterpolator.getNumKeys();
     }
 
 
@@ -221,7 +229,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the time component
      */
     public double getRotKeyTime(int keyIndex) {
-        return mRotationKeys[keyIndex].getTime();
+        return mRotationInterpolator.getTime(keyIndex);
     }
 
 
@@ -234,11 +242,30 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the rotation as quaternion
      */
     public Quaternionf getRotKeyQuaternion(int keyIndex) {
-        return mRotationKeys[keyIndex].getValue();
+        return getRotKeyQuaternion(keyIndex, new Quaternionf());
     } 
 
+    /**
+     * Copies the rotation of a key into a quaternion.
+     * 
+     * @param keyIndex the index of the rotation key
+     * @param dest quaternion to receive the rotation
+     * 
+     * @return dest
+     */
+    public Quaternionf getRotKeyQuaternion(int keyIndex, Quaternionf dest) {
+        int offset = keyIndex * ROTATION_KEY_SIZE;
+        return dest.set(mRotationKeys[offset + 1], mRotationKeys[offset + 2],
+                mRotationKeys[offset + 3], mRotationKeys[offset + 4]);
+    }
+
     public void setRotKeyQuaternion(int keyIndex, float time, Quaternionf rot) {
-        mRotationKeys[keyIndex] = new GVRRotationKey(time, rot.x, rot.y, rot.z, rot.w);
+        int offset = keyIndex * ROTATION_KEY_SIZE;
+        mRotationKeys[offset] = time;
+        mRotationKeys[offset + 1] = rot.x;
+        mRotationKeys[offset + 2] = rot.y;
+        mRotationKeys[offset + 3] = rot.z;
+        mRotationKeys[offset + 4] = rot.w;
     }
 
     /** 
@@ -247,7 +274,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the number of scaling keys
      */
     public int getNumScaleKeys() {
-        return mScaleKeys.length;
+        return mScaleInterpolator.getNumKeys();
     }
 
 
@@ -258,7 +285,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the time component
      */
     public double getScaleKeyTime(int keyIndex) {
-        return mRotationKeys[keyIndex].getTime();
+        return mScaleInterpolator.getTime(keyIndex);
     }
 
 
@@ -270,11 +297,29 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the scaling factor as vector
      */
     public Vector3f getScaleKeyVector(int keyIndex) {
-        return mScaleKeys[keyIndex].getValue();
+        return getScaleKeyVector(keyIndex, new Vector3f());
+    }
+
+    /**
+     * Copies the scaling factor of a key into a vector.
+     * 
+     * @param keyIndex the index of the scale key
+     * @param dest vector to receive the scaling factor
+     * 
+     * @return dest
+     */
+    public Vector3f getScaleKeyVector(int keyIndex, Vector3f dest) {
+        int offset = keyIndex * SCALE_KEY_SIZE;
+        return dest.set(mScaleKeys[offset + 1], mScaleKeys[offset + 2],
+                mScaleKeys[offset + 3]);
     }
 
     public void setScaleKeyVector(int keyIndex, float time, Vector3f scale) {
-        mScaleKeys[keyIndex] = new GVRScaleKey(time, scale.x, scale.y, scale.z);
+        int offset = keyIndex * SCALE_KEY_SIZE;
+        mScaleKeys[offset] = time;
+        mScaleKeys[offset + 1] = scale.x;
+        mScaleKeys[offset + 2] = scale.y;
+        mScaleKeys[offset + 3] = scale.z;
     }
 
     /** 
@@ -304,19 +349,34 @@ public final class GVRAnimationChannel implements PrettyPrint {
     }
 
     /**
-     * Obtains the transform for a specific time in animation.
+     * Obtains the transform for a specific time in animation.<p>
+     * 
+     * The returned matrix is owned by the channel and is overwritten by the
+     * next call.
      * 
      * @param animationTime The time in animation.
      * 
      * @return The transform.
      */
     public Matrix4f animate(float animationTime) {
-        Vector3f scale = getScale(animationTime);
-        Vector3f pos = getPosition(animationTime);
-        Quaternionf rot = getRotation(animationTime);
+        return animate(animationTime, mCurrentTransform);
+    }
+
+    /**
+     * Computes the transform for a specific time in animation without
+     * allocating.
+     * 
+     * @param animationTime The time in animation.
+     * @param dest Matrix to receive the transform.
+     * 
+     * @return dest
+     */
+    public Matrix4f animate(float animationTime, Matrix4f dest) {
+        Vector3f scale = getScale(animationTime, mScale);
+        Vector3f pos = getPosition(animationTime, mPosition);
+        Quaternionf rot = getRotation(animationTime, mRotation);
 
-        // Allocation-free
-        Matrix4f mat = mCurrentTransform.set(rot);
+        Matrix4f mat = dest.set(rot);
 
         mat.m00 *= scale.x;
         mat.m01 *= scale.x;
@@ -334,40 +394,108 @@ public final class GVRAnimationChannel implements PrettyPrint {
         return mat;
     }
 
-    protected Vector3f getPosition(float time) {
-        Vector3f defaultPosition = new Vector3f();
-        
+    /**
+     * Samples the position at a specific time in animation.
+     * 
+     * @param time The time in animation.
+     * @param dest Vector to receive the position.
+     * 
+     * @return dest
+     */
+    public Vector3f getPosition(float time, Vector3f dest) {
         if (mPositionKeys.length == 0) {
-            return defaultPosition;
-        } else if (mPositionKeys.length == 1) {
-            return mPositionKeys[0].getValue();
+            return dest.set(0f, 0f, 0f);
         }
-
-        return mPositionInterpolator.interpolate(time);
+        return interpolateVector3f(mPositionInterpolator, time, dest);
     }
 
-    protected Vector3f getScale(float time) {
-        Vector3f defaultScale = new Vector3f(1f, 1f, 1f);
-        
+    /**
+     * Samples the scaling factor at a specific time in animation.
+     * 
+     * @param time The time in animation.
+     * @param dest Vector to receive the scaling factor.
+     * 
+     * @return dest
+     */
+    public Vector3f getScale(float time, Vector3f dest) {
         if (mScaleKeys.length == 0) {
-            return defaultScale;
-        } else if (mScaleKeys.length == 1) {
-            return mScaleKeys[0].getValue();
+            return dest.set(1f, 1f, 1f);
+        }
+        return interpolateVector3f(mScaleInterpolator, time, dest);
+    }
+
+    /**
+     * Samples the rotation at a specific time in animation.
+     * 
+     * @param time The time in animation.
+     * @param dest Quaternion to receive the rotation.
+     * 
+     * @return dest
+     */
+    public Quaternionf getRotation(float time, Quaternionf dest) {
+        final float[] keys = mRotationKeys;
+
+        if (keys.length == 0) {
+            return dest.identity();
+        } else if (keys.length == ROTATION_KEY_SIZE) {
+            return dest.set(keys[1], keys[2], keys[3], keys[4]);
         }
 
-        return mScaleInterpolator.interpolate(time);
+        int index = mRotationInterpolator.getKeyIndex(time);
+        if (index == -1) {
+            // time is out of range of animation time frame
+            int offset = mRotationInterpolator.getClampedOffset(time);
+            return dest.set(keys[offset], keys[offset + 1], keys[offset + 2],
+                    keys[offset + 3]);
+        }
+
+        int begin = index * ROTATION_KEY_SIZE;
+        int end = begin + ROTATION_KEY_SIZE;
+        float factor = (time - keys[begin]) / (keys[end] - keys[begin]);
+
+        mRotationBegin.set(keys[begin + 1], keys[begin + 2], keys[begin + 3], keys[begin + 4]);
+        mRotationEnd.set(keys[end + 1], keys[end + 2], keys[end + 3], keys[end + 4]);
+        return mRotationBegin.slerp(mRotationEnd, factor, dest);
     }
 
-    protected Quaternionf getRotation(float time) {
-        Quaternionf defaultRotation = new Quaternionf();
+    private static Vector3f interpolateVector3f(KeyFrameInterpolator interpolator,
+            float time, Vector3f dest) {
+        final float[] keys = interpolator.keys;
 
-        if (mRotationKeys.length == 0) {
-            return defaultRotation;
-        } else if (mRotationKeys.length == 1) {
-            return mRotationKeys[0].getValue();
+        if (keys.length == interpolator.keySize) {
+            return dest.set(keys[1], keys[2], keys[3]);
         }
 
-        return mRotationInterpolator.interpolate(time);
+        int index = interpolator.getKeyIndex(time);
+        if (index == -1) {
+            // time is out of range of animation time frame
+            int offset = interpolator.getClampedOffset(time);
+            return dest.set(keys[offset], keys[offset + 1], keys[offset + 2]);
+        }
+
+        int begin = index * interpolator.keySize;
+        int end = begin + interpolator.keySize;
+        float factor = (time - keys[begin]) / (keys[end] - keys[begin]);
+
+        dest.x = keys[begin + 1] + (keys[end + 1] - keys[begin + 1]) * factor;
+        dest.y = keys[begin + 2] + (keys[end + 2] - keys[begin + 2]) * factor;
+        dest.z = keys[begin + 3] + (keys[end + 3] - keys[begin + 3]) * factor;
+        return dest;
+    }
+
+    /*
+     * Packed key access for GVRAnimationClip.
+     */
+    float[] getPackedPositionKeys() {
+        return mPositionKeys;
+    }
+
+    float[] getPackedRotationKeys() {
+        return mRotationKeys;
+    }
+
+    float[] getPackedScaleKeys() {
+        return mScaleKeys;
     }
 
     @Override
@@ -375,9 +503,9 @@ public final class GVRAnimationChannel implements PrettyPrint {
         sb.append(Log.getSpaces(indent));
         sb.append(GVRAnimationChannel.class.getSimpleName());
         sb.append(" [nodeName=" + m_nodeName + ", positionKeys="
-                + mPositionKeys.length + ", rotationKeys="
-                + mRotationKeys.length + ", scaleKeys="
-                + mScaleKeys.length + ", m_preState=" + mPreState
+                + getNumPosKeys() + ", rotationKeys="
+                + getNumRotKeys() + ", scaleKeys="
+                + getNumScaleKeys() + ", m_preState=" + mPreState
                 + ", m_postState=" + mPostState + "]");
         sb.append(System.lineSeparator());
     }
@@ -394,16 +522,29 @@ public final class GVRAnimationChannel implements PrettyPrint {
      */
     private final String m_nodeName;
 
-    private final GVRPositionKey[] mPositionKeys;
-    private final GVRRotationKey[] mRotationKeys;
-    private final GVRScaleKey[] mScaleKeys;
+    /**
+     * Packed keys: time, x, y, z per position and scale key; time, x, y, z, w
+     * per rotation key.
+     */
+    private final float[] mPositionKeys;
+    private final float[] mRotationKeys;
+    private final float[] mScaleKeys;
 
-    private final KeyFrameInterplator<Vector3f> mPositionInterpolator;
-    private final KeyFrameInterplator<Quaternionf> mRotationInterpolator;
-    private final KeyFrameInterplator<Vector3f> mScaleInterpolator;
+    private final KeyFrameInterpolator mPositionInterpolator;
+    private final KeyFrameInterpolator mRotationInterpolator;
+    private final KeyFrameInterpolator mScaleInterpolator;
 
     protected Matrix4f mCurrentTransform;
 
+    /*
+     * Scratch values so that sampling does not allocate.
+     */
+    private final Quaternionf mRotationBegin;
+    private final Quaternionf mRotationEnd;
+    private final Vector3f mPosition;
+    private final Quaternionf mRotation;
+    private final Vector3f mScale;
+
     /**
      * Pre-animation behavior.
      */
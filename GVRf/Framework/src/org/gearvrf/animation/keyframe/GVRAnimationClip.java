@@ -0,0 +1,320 @@
+package org.gearvrf.animation.keyframe;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+
+/**
+ * Compiled form of the channels of a {@link GVRKeyFrameAnimation}.<p>
+ *
+ * The key times and values of all channels are concatenated into contiguous
+ * float arrays (structure of arrays), and channels are addressed by their
+ * integer index. Sampling every channel of the clip is a single pass over
+ * those arrays; it neither allocates nor compares strings.<p>
+ *
+ * A clip keeps per-channel search cursors, so it must not be sampled from
+ * more than one thread at a time.
+ */
+public final class GVRAnimationClip {
+    /**
+     * Number of floats per channel in a pose: translation (x, y, z),
+     * rotation quaternion (x, y, z, w) and scale (x, y, z).
+     */
+    public static final int POSE_SIZE = 10;
+
+    /**
+     * Number of floats per channel in a column-major transform matrix.
+     */
+    public static final int MATRIX_SIZE = 16;
+
+    private final String[] mNodeNames;
+    private final Map<String, Integer> mChannelByName;
+
+    private final KeyTrack mPositions;
+    private final KeyTrack mRotations;
+    private final KeyTrack mScales;
+
+    private final float[] mPose;
+    private final Matrix4f mTransform = new Matrix4f();
+    private final Quaternionf mRotationBegin = new Quaternionf();
+    private final Quaternionf mRotationEnd = new Quaternionf();
+
+    /**
+     * Keys of one kind (position, rotation or scale) for all channels.
+     */
+    private static final class KeyTrack {
+        final int valueSize;
+        final int[] start;
+        final int[] count;
+        final int[] cursor;
+        final float[] times;
+        final float[] values;
+
+        KeyTrack(int numChannels, int totalKeys, int valueSize) {
+            this.valueSize = valueSize;
+            start = new int[numChannels];
+            count = new int[numChannels];
+            cursor = new int[numChannels];
+            times = new float[totalKeys];
+            values = new float[totalKeys * valueSize];
+        }
+
+        void add(int channel, int firstKey, float[] packedKeys) {
+            final int keySize = valueSize + 1;
+            final int numKeys = packedKeys.length / keySize;
+
+            start[channel] = firstKey;
+            count[channel] = numKeys;
+            for (int k = 0; k < numKeys; ++k) {
+                times[firstKey + k] = packedKeys[k * keySize];
+                System.arraycopy(packedKeys, k * keySize + 1, values,
+                        (firstKey + k) * valueSize, valueSize);
+            }
+        }
+
+        /*
+         * Returns the absolute index i of the key with times[i] <= time <
+         * times[i + 1], or -1 if time is outside the keys of the channel.
+         */
+        int findKey(int channel, float time) {
+            final int first = start[channel];
+            final int last = first + count[channel] - 1;
+
+            if (time < times[first] || time >= times[last]) {
+                return -1;
+            }
+
+            // Playback moves forward a little each frame: try the cached key
+            // and its successor before searching
+            int key = cursor[channel];
+            if (key >= first && key < last) {
+                if (times[key] <= time && time < times[key + 1]) {
+                    return key;
+                }
+                if (key + 1 < last && times[key + 1] <= time && time < times[key + 2]) {
+                    return cursor[channel] = key + 1;
+                }
+            }
+
+            int low = first, high = last;
+            // invariant: times[low] <= time < times[high]
+            while (high - low > 1) {
+                int mid = (low + high) >>> 1;
+                if (time < times[mid]) {
+                    high = mid;
+                } else {
+                    low = mid;
+                }
+            }
+            return cursor[channel] = low;
+        }
+    }
+
+    /**
+     * Compiles a list of channels.
+     *
+     * @param channels The channels; the index of a channel in the list
+     *                 becomes its index in the clip.
+     */
+    public GVRAnimationClip(List<GVRAnimationChannel> channels) {
+        final int numChannels = channels.size();
+        int numPosKeys = 0, numRotKeys = 0, numScaleKeys = 0;
+
+        for (int c = 0; c < numChannels; ++c) {
+            GVRAnimationChannel channel = channels.get(c);
+            numPosKeys += channel.getNumPosKeys();
+            numRotKeys += channel.getNumRotKeys();
+            numScaleKeys += channel.getNumScaleKeys();
+        }
+
+        mNodeNames = new String[numChannels];
+        mChannelByName = new HashMap<String, Integer>(numChannels * 2);
+        mPositions = new KeyTrack(numChannels, numPosKeys, GVRAnimationChannel.POSITION_KEY_SIZE - 1);
+        mRotations = new KeyTrack(numChannels, numRotKeys, GVRAnimationChannel.ROTATION_KEY_SIZE - 1);
+        mScales = new KeyTrack(numChannels, numScaleKeys, GVRAnimationChannel.SCALE_KEY_SIZE - 1);
+        mPose = new float[numChannels * POSE_SIZE];
+
+        numPosKeys = numRotKeys = numScaleKeys = 0;
+        for (int c = 0; c < numChannels; ++c) {
+            GVRAnimationChannel channel = channels.get(c);
+
+            mNodeNames[c] = channel.getNodeName();
+            if (!mChannelByName.containsKey(channel.getNodeName())) {
+                mChannelByName.put(channel.getNodeName(), c);
+            }
+
+            mPositions.add(c, numPosKeys, channel.getPackedPositionKeys());
+            mRotations.add(c, numRotKeys, channel.getPackedRotationKeys());
+            mScales.add(c, numScaleKeys, channel.getPackedScaleKeys());
+            numPosKeys += channel.getNumPosKeys();
+            numRotKeys += channel.getNumRotKeys();
+            numScaleKeys += channel.getNumScaleKeys();
+        }
+    }
+
+    /**
+     * Returns the number of channels in the clip.
+     */
+    public int getChannelCount() {
+        return mNodeNames.length;
+    }
+
+    /**
+     * Returns the name of the node animated by a channel.
+     *
+     * @param channel The channel index.
+     */
+    public String getNodeName(int channel) {
+        return mNodeNames[channel];
+    }
+
+    /**
+     * Searches for a channel based on the node it affects.
+     *
+     * @param nodeName The name of the node.
+     * @return The index of the channel, or -1 if no channel affects the node.
+     */
+    public int findChannel(String nodeName) {
+        Integer channel = mChannelByName.get(nodeName);
+        return channel != null ? channel : -1;
+    }
+
+    /**
+     * Samples the local pose of every channel.
+     *
+     * @param time The time in animation, in ticks.
+     * @param dest Array of at least {@link #POSE_SIZE} floats per channel;
+     *             channel i is written at offset {@code i * POSE_SIZE}.
+     * @return dest
+     */
+    public float[] samplePose(float time, float[] dest) {
+        final int numChannels = mNodeNames.length;
+
+        for (int c = 0, offset = 0; c < numChannels; ++c, offset += POSE_SIZE) {
+            sampleVector3f(mPositions, c, time, 0f, dest, offset);
+            sampleRotation(c, time, dest, offset + 3);
+            sampleVector3f(mScales, c, time, 1f, dest, offset + 7);
+        }
+        return dest;
+    }
+
+    /**
+     * Samples the local transform of every channel.
+     *
+     * @param time The time in animation, in ticks.
+     * @param dest One matrix per channel.
+     * @return dest
+     */
+    public Matrix4f[] sampleTransforms(float time, Matrix4f[] dest) {
+        final float[] pose = samplePose(time, mPose);
+
+        for (int c = 0; c < mNodeNames.length; ++c) {
+            composeTransform(pose, c * POSE_SIZE, dest[c]);
+        }
+        return dest;
+    }
+
+    /**
+     * Samples the local transform of every channel into a flat array.
+     *
+     * @param time The time in animation, in ticks.
+     * @param dest Array of at least {@link #MATRIX_SIZE} floats per channel;
+     *             channel i is written in column-major order at offset
+     *             {@code i * MATRIX_SIZE}.
+     * @return dest
+     */
+    public float[] sampleTransforms(float time, float[] dest) {
+        final float[] pose = samplePose(time, mPose);
+
+        for (int c = 0; c < mNodeNames.length; ++c) {
+            composeTransform(pose, c * POSE_SIZE, mTransform).get(dest, c * MATRIX_SIZE);
+        }
+        return dest;
+    }
+
+    /**
+     * Converts one channel of a pose into a transform matrix: scaling, then
+     * rotation, then translation.
+     *
+     * @param pose A pose as written by {@link #samplePose(float, float[])}.
+     * @param offset Offset of the channel in {@code pose}.
+     * @param dest Matrix to receive the transform.
+     * @return dest
+     */
+    public static Matrix4f composeTransform(float[] pose, int offset, Matrix4f dest) {
+        return dest.translationRotateScale(
+                pose[offset], pose[offset + 1], pose[offset + 2],
+                pose[offset + 3], pose[offset + 4], pose[offset + 5], pose[offset + 6],
+                pose[offset + 7], pose[offset + 8], pose[offset + 9]);
+    }
+
+    private static void sampleVector3f(KeyTrack track, int channel, float time,
+            float defaultValue, float[] dest, int offset) {
+        final int numKeys = track.count[channel];
+
+        if (numKeys == 0) {
+            dest[offset] = dest[offset + 1] = dest[offset + 2] = defaultValue;
+            return;
+        }
+
+        final float[] values = track.values;
+        int key = numKeys > 1 ? track.findKey(channel, time) : -1;
+        if (key == -1) {
+            // time is out of range of animation time frame
+            key = clampKey(track, channel, time);
+            System.arraycopy(values, key * 3, dest, offset, 3);
+            return;
+        }
+
+        final float[] times = track.times;
+        float factor = (time - times[key]) / (times[key + 1] - times[key]);
+        int begin = key * 3;
+        int end = begin + 3;
+
+        dest[offset] = values[begin] + (values[end] - values[begin]) * factor;
+        dest[offset + 1] = values[begin + 1] + (values[end + 1] - values[begin + 1]) * factor;
+        dest[offset + 2] = values[begin + 2] + (values[end + 2] - values[begin + 2]) * factor;
+    }
+
+    private void sampleRotation(int channel, float time, float[] dest, int offset) {
+        final KeyTrack track = mRotations;
+        final int numKeys = track.count[channel];
+
+        if (numKeys == 0) {
+            dest[offset] = dest[offset + 1] = dest[offset + 2] = 0f;
+            dest[offset + 3] = 1f;
+            return;
+        }
+
+        final float[] values = track.values;
+        int key = numKeys > 1 ? track.findKey(channel, time) : -1;
+        if (key == -1) {
+            // time is out of range of animation time frame
+            key = clampKey(track, channel, time);
+            System.arraycopy(values, key * 4, dest, offset, 4);
+            return;
+        }
+
+        final float[] times = track.times;
+        float factor = (time - times[key]) / (times[key + 1] - times[key]);
+        int begin = key * 4;
+        int end = begin + 4;
+
+        mRotationBegin.set(values[begin], values[begin + 1], values[begin + 2], values[begin + 3]);
+        mRotationEnd.set(values[end], values[end + 1], values[end + 2], values[end + 3]);
+        mRotationBegin.slerp(mRotationEnd, factor);
+
+        dest[offset] = mRotationBegin.x;
+        dest[offset + 1] = mRotationBegin.y;
+        dest[offset + 2] = mRotationBegin.z;
+        dest[offset + 3] = mRotationBegin.w;
+    }
+
+    private static int clampKey(KeyTrack track, int channel, float time) {
+        final int first = track.start[channel];
+        return time <= track.times[first] ? first : first + track.count[channel] - 1;
+    }
+}
@@ -0,0 +1,391 @@
+package org.gearvrf.animation.keyframe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gearvrf.GVRHybridObject;
+import org.gearvrf.animation.GVRAnimation;
+import org.gearvrf.animation.GVRRepeatMode;
+import org.joml.Matrix4f;
+
+/**
+ * Plays several {@link GVRKeyFrameAnimation}s on one skeleton at the same
+ * time, blending their poses.<p>
+ *
+ * The skeleton is defined by a prepared keyframe animation: its channels are
+ * the joints of the mixer, and its node and skinning controllers receive the
+ * blended pose. Each clip added as a layer is mapped onto those joints by node
+ * name once; joints a clip does not animate are left to the other layers.<p>
+ *
+ * There are two kinds of layers:
+ * <ul>
+ * <li>Blend layers are averaged by weight. If the weights of the blend layers
+ * animating a joint add up to less than one, the rest is taken from the
+ * skeleton's first frame.
+ * <li>Additive layers add the difference between their current pose and
+ * their first frame, scaled by their weight, on top of the blended pose.
+ * </ul>
+ * Weights can be changed at once or faded over time, which gives smooth
+ * crossfades between clips.<p>
+ *
+ * Each frame samples every layer with a non-zero weight into a packed pose
+ * and blends all layers in one pass over the joints; the matrices of the
+ * skeleton are composed once from the result, not once per layer.<p>
+ *
+ * The mixer runs until it is stopped. Do not run the skeleton animation
+ * itself at the same time.
+ */
+public class GVRAnimationMixer extends GVRAnimation {
+    private static final int POSE_SIZE = GVRAnimationClip.POSE_SIZE;
+    // Reference scales closer to 0 than this have no ratio to scale by
+    private static final float MIN_REFERENCE_SCALE = 1e-6f;
+
+    protected final GVRKeyFrameAnimation mSkeleton;
+    protected final List<Layer> mLayers = new ArrayList<Layer>();
+
+    private final int mJointCount;
+    private final float[] mBindPose;
+    private final float[] mPose;
+    private float mLastTime;
+
+    protected static class Layer {
+        final GVRKeyFrameAnimation animation;
+        final boolean additive;
+        final int[] channelOfJoint;
+        final float[] pose;
+        final float[] referencePose;
+
+        float time;
+        float speed = 1f;
+        float weight;
+        float targetWeight;
+        float fadeRate;
+
+        Layer(GVRKeyFrameAnimation animation, boolean additive, int[] channelOfJoint) {
+            this.animation = animation;
+            this.additive = additive;
+            this.channelOfJoint = channelOfJoint;
+
+            int size = animation.getClip().getChannelCount() * POSE_SIZE;
+            pose = new float[size];
+            referencePose = additive
+                    ? animation.getClip().samplePose(0f, new float[size])
+                    : null;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param skeleton A prepared animation whose channels define the joints
+     *                 of the mixer. The mixer animates its target.
+     */
+    public GVRAnimationMixer(GVRKeyFrameAnimation skeleton) {
+        super(skeleton.mTarget, 1f);
+
+        if (skeleton.getClip() == null) {
+            throw new RuntimeException("Animation is not prepared. Call prepare() before creating a mixer.");
+        }
+
+        mSkeleton = skeleton;
+        mJointCount = skeleton.getClip().getChannelCount();
+        mBindPose = skeleton.getClip().samplePose(0f, new float[mJointCount * POSE_SIZE]);
+        mPose = new float[mJointCount * POSE_SIZE];
+
+        setRepeatMode(GVRRepeatMode.REPEATED);
+        setRepeatCount(-1);
+    }
+
+    /**
+     * Adds a blend layer.
+     *
+     * @param animation A prepared animation of the same skeleton.
+     * @param weight The initial weight.
+     * @return The index of the layer.
+     */
+    public int addLayer(GVRKeyFrameAnimation animation, float weight) {
+        return addLayer(animation, weight, false);
+    }
+
+    /**
+     * Adds an additive layer.
+     *
+     * @param animation A prepared animation of the same skeleton. Its first
+     *                  frame is the reference pose.
+     * @param weight The initial weight.
+     * @return The index of the layer.
+     */
+    public int addAdditiveLayer(GVRKeyFrameAnimation animation, float weight) {
+        return addLayer(animation, weight, true);
+    }
+
+    protected int addLayer(GVRKeyFrameAnimation animation, float weight, boolean additive) {
+        GVRAnimationClip clip = animation.getClip();
+        if (clip == null) {
+            throw new RuntimeException("Animation is not prepared. Call prepare() before adding it to a mixer.");
+        }
+
+        GVRAnimationClip skeleton = mSkeleton.getClip();
+        int[] channelOfJoint = new int[mJointCount];
+        for (int j = 0; j < mJointCount; ++j) {
+            channelOfJoint[j] = clip.findChannel(skeleton.getNodeName(j));
+        }
+
+        Layer layer = new Layer(animation, additive, channelOfJoint);
+        layer.weight = layer.targetWeight = weight;
+        mLayers.add(layer);
+        return mLayers.size() - 1;
+    }
+
+    /**
+     * Returns the number of layers.
+     */
+    public int getLayerCount() {
+        return mLayers.size();
+    }
+
+    /**
+     * Sets the weight of a layer immediately, cancelling any fade.
+     */
+    public void setWeight(int layer, float weight) {
+        Layer l = mLayers.get(layer);
+        l.weight = l.targetWeight = weight;
+        l.fadeRate = 0f;
+    }
+
+    /**
+     * Returns the current weight of a layer.
+     */
+    public float getWeight(int layer) {
+        return mLayers.get(layer).weight;
+    }
+
+    /**
+     * Changes the weight of a layer linearly over time.
+     *
+     * @param layer The layer index.
+     * @param weight The weight to reach.
+     * @param seconds How long the fade takes; zero or less changes the
+     *                weight immediately.
+     */
+    public void fadeTo(int layer, float weight, float seconds) {
+        if (seconds <= 0f) {
+            setWeight(layer, weight);
+            return;
+        }
+
+        Layer l = mLayers.get(layer);
+        l.targetWeight = weight;
+        l.fadeRate = Math.abs(weight - l.weight) / seconds;
+    }
+
+    /**
+     * Fades one layer out and another one in over the same time. If the
+     * layer fading in is silent, it starts playing from its beginning.
+     *
+     * @param fromLayer The layer to fade out.
+     * @param toLayer The layer to fade in.
+     * @param seconds Duration of the crossfade.
+     */
+    public void crossFade(int fromLayer, int toLayer, float seconds) {
+        Layer to = mLayers.get(toLayer);
+        if (to.weight <= 0f) {
+            to.time = 0f;
+        }
+        fadeTo(fromLayer, 0f, seconds);
+        fadeTo(toLayer, 1f, seconds);
+    }
+
+    /**
+     * Sets the playback speed of a layer; 1 is normal speed.
+     */
+    public void setSpeed(int layer, float speed) {
+        mLayers.get(layer).speed = speed;
+    }
+
+    /**
+     * Sets the playback position of a layer.
+     *
+     * @param layer The layer index.
+     * @param timeInSeconds Time within the layer's animation.
+     */
+    public void setTime(int layer, float timeInSeconds) {
+        mLayers.get(layer).time = timeInSeconds;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        mLastTime = 0f;
+    }
+
+    @Override
+    protected void animate(GVRHybridObject target, float ratio) {
+        float now = getElapsedTime();
+        float frameTime = Math.max(0f, now - mLastTime);
+        mLastTime = now;
+
+        advance(frameTime);
+        blend(mPose);
+
+        Matrix4f[] transforms = mSkeleton.mTransforms;
+        for (int j = 0; j < mJointCount; ++j) {
+            GVRAnimationClip.composeTransform(mPose, j * POSE_SIZE, transforms[j]);
+        }
+
+        mSkeleton.applyNodes();
+        mSkeleton.evaluateSkinning();
+        mSkeleton.applySkinning();
+    }
+
+    /*
+     * Moves every layer forward in time and along its fade, and samples the
+     * layers that contribute to the pose.
+     */
+    protected void advance(float frameTime) {
+        for (int i = 0; i < mLayers.size(); ++i) {
+            Layer l = mLayers.get(i);
+
+            l.time += frameTime * l.speed;
+            if (l.weight != l.targetWeight) {
+                float step = l.fadeRate * frameTime;
+                if (Math.abs(l.targetWeight - l.weight) <= step) {
+                    l.weight = l.targetWeight;
+                    l.fadeRate = 0f;
+                } else {
+                    l.weight += l.weight < l.targetWeight ? step : -step;
+                }
+            }
+
+            if (l.weight > 0f) {
+                l.animation.getClip().samplePose(l.animation.getAnimationTime(l.time), l.pose);
+            }
+        }
+    }
+
+    /**
+     * Blends the sampled layer poses into a packed pose, one joint at a time.
+     *
+     * @param dest {@link GVRAnimationClip#POSE_SIZE} floats per joint.
+     * @return dest
+     */
+    protected float[] blend(float[] dest) {
+        final int numLayers = mLayers.size();
+
+        for (int j = 0; j < mJointCount; ++j) {
+            final int o = j * POSE_SIZE;
+
+            float totalWeight = 0f;
+            for (int i = 0; i < numLayers; ++i) {
+                Layer l = mLayers.get(i);
+                if (!l.additive && l.weight > 0f && l.channelOfJoint[j] != -1) {
+                    totalWeight += l.weight;
+                }
+            }
+
+            // Start from the skeleton's first frame for the weight not
+            // covered by the blend layers
+            float[] pose = mBindPose;
+            float w = Math.max(0f, 1f - totalWeight);
+            float tx = w * pose[o], ty = w * pose[o + 1], tz = w * pose[o + 2];
+            float qx = w * pose[o + 3], qy = w * pose[o + 4], qz = w * pose[o + 5], qw = w * pose[o + 6];
+            float sx = w * pose[o + 7], sy = w * pose[o + 8], sz = w * pose[o + 9];
+            float norm = totalWeight + w;
+
+            for (int i = 0; i < numLayers; ++i) {
+                Layer l = mLayers.get(i);
+                int c = l.channelOfJoint[j];
+                if (l.additive || l.weight <= 0f || c == -1) {
+                    continue;
+                }
+
+                pose = l.pose;
+                int p = c * POSE_SIZE;
+                w = l.weight;
+                tx += w * pose[p];
+                ty += w * pose[p + 1];
+                tz += w * pose[p + 2];
+                // Keep the quaternions in the same hemisphere
+                float wq = qx * pose[p + 3] + qy * pose[p + 4] + qz * pose[p + 5] + qw * pose[p + 6] < 0f ? -w : w;
+                qx += wq * pose[p + 3];
+                qy += wq * pose[p + 4];
+                qz += wq * pose[p + 5];
+                qw += wq * pose[p + 6];
+                sx += w * pose[p + 7];
+                sy += w * pose[p + 8];
+                sz += w * pose[p + 9];
+            }
+
+            float inv = 1f / norm;
+            tx *= inv; ty *= inv; tz *= inv;
+            sx *= inv; sy *= inv; sz *= inv;
+            float qlen = (float) Math.sqrt(qx * qx + qy * qy + qz * qz + qw * qw);
+            if (qlen > 0f) {
+                qlen = 1f / qlen;
+                qx *= qlen; qy *= qlen; qz *= qlen; qw *= qlen;
+            } else {
+                qx = qy = qz = 0f;
+                qw = 1f;
+            }
+
+            for (int i = 0; i < numLayers; ++i) {
+                Layer l = mLayers.get(i);
+                int c = l.channelOfJoint[j];
+                if (!l.additive || l.weight <= 0f || c == -1) {
+                    continue;
+                }
+
+                pose = l.pose;
+                float[] ref = l.referencePose;
+                int p = c * POSE_SIZE;
+                w = l.weight;
+
+                tx += w * (pose[p] - ref[p]);
+                ty += w * (pose[p + 1] - ref[p + 1]);
+                tz += w * (pose[p + 2] - ref[p + 2]);
+
+                // delta = conjugate(ref) * pose, scaled towards identity by w
+                float rx = -ref[p + 3], ry = -ref[p + 4], rz = -ref[p + 5], rw = ref[p + 6];
+                float ax = pose[p + 3], ay = pose[p + 4], az = pose[p + 5], aw = pose[p + 6];
+                float dx = rw * ax + rx * aw + ry * az - rz * ay;
+                float dy = rw * ay - rx * az + ry * aw + rz * ax;
+                float dz = rw * az + rx * ay - ry * ax + rz * aw;
+                float dw = rw * aw - rx * ax - ry * ay - rz * az;
+                if (dw < 0f) {
+                    dx = -dx; dy = -dy; dz = -dz; dw = -dw;
+                }
+                dx *= w; dy *= w; dz *= w;
+                dw = 1f - w + w * dw;
+                float dlen = 1f / (float) Math.sqrt(dx * dx + dy * dy + dz * dz + dw * dw);
+                dx *= dlen; dy *= dlen; dz *= dlen; dw *= dlen;
+
+                // q = q * delta
+                float nx = qw * dx + qx * dw + qy * dz - qz * dy;
+                float ny = qw * dy - qx * dz + qy * dw + qz * dx;
+                float nz = qw * dz + qx * dy - qy * dx + qz * dw;
+                float nw = qw * dw - qx * dx - qy * dy - qz * dz;
+                qx = nx; qy = ny; qz = nz; qw = nw;
+
+                sx *= 1f + w * (scaleRatio(pose[p + 7], ref[p + 7]) - 1f);
+                sy *= 1f + w * (scaleRatio(pose[p + 8], ref[p + 8]) - 1f);
+                sz *= 1f + w * (scaleRatio(pose[p + 9], ref[p + 9]) - 1f);
+            }
+
+            dest[o] = tx; dest[o + 1] = ty; dest[o + 2] = tz;
+            dest[o + 3] = qx; dest[o + 4] = qy; dest[o + 5] = qz; dest[o + 6] = qw;
+            dest[o + 7] = sx; dest[o + 8] = sy; dest[o + 9] = sz;
+        }
+        return dest;
+    }
+
+    /*
+     * The scale an additive layer adds on one axis. A reference pose that is
+     * flattened on the axis gives no ratio, so the layer leaves it alone.
+     */
+    private static float scaleRatio(float scale, float reference) {
+        if (Math.abs(reference) < MIN_REFERENCE_SCALE) {
+            return 1f;
+        }
+        return scale / reference;
+    }
+}
@@ -1,7 +1,9 @@
 package org.gearvrf.animation.keyframe;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.gearvrf.GVRHybridObject;
 import org.gearvrf.GVRSceneObject;
@@ -18,6 +20,8 @@ public class GVRKeyFrameAnimation extends GVRAnimation implements PrettyPrint {
     protected float mTicksPerSecond;
     protected float mDurationTicks;
     protected List<GVRAnimationChannel> mChannels;
+    protected Map<String, Integer> mChannelByName;
+    protected GVRAnimationClip mClip;
 
     protected GVRNodeAnimationController mNodeAnimationController;
     protected GVRSkinningController mSkinningController;
@@ -25,6 +29,8 @@ public class GVRKeyFrameAnimation extends GVRAnimation implements PrettyPrint {
     protected GVRSceneObject mTarget;
     protected Matrix4f[] mTransforms;
 
+    protected GVRKeyFrameBatch mBatch;
+
     /**
      * Constructor.
      *
@@ -39,6 +45,7 @@ public class GVRKeyFrameAnimation extends GVRAnimation implements PrettyPrint {
         mDurationTicks = durationTicks;
         mTicksPerSecond = ticksPerSecond;
         mChannels = new ArrayList<GVRAnimationChannel>();
+        mChannelByName = new HashMap<String, Integer>();
 
         mNodeAnimationController = null;
         mSkinningController = null;
@@ -51,6 +58,9 @@ public class GVRKeyFrameAnimation extends GVRAnimation implements PrettyPrint {
      * @param channel The animation channel.
      */
     public void addChannel(GVRAnimationChannel channel) {
+        if (!mChannelByName.containsKey(channel.getNodeName())) {
+            mChannelByName.put(channel.getNodeName(), mChannels.size());
+        }
         mChannels.add(channel);
     }
 
@@ -58,6 +68,8 @@ public class GVRKeyFrameAnimation extends GVRAnimation implements PrettyPrint {
      * Must be called after adding all channels.
      */
     public void prepare() {
+        mClip = new GVRAnimationClip(mChannels);
+
         mNodeAnimationController = new GVRNodeAnimationController(mTarget, this);
 
         mSkinningController = new GVRSkinningController(mTarget, this);
@@ -98,14 +110,18 @@ public class GVRKeyFrameAnimation extends GVRAnimation implements PrettyPrint {
         if (nodeName == null)
             return -1;
 
-        int i = 0;
-        for (GVRAnimationChannel channel : mChannels) {
-            if (nodeName != null && nodeName.equals(channel.getNodeName())) {
-                return i;
-            }
-            i++;
-        }
-        return -1;
+        Integer channel = mChannelByName.get(nodeName);
+        return channel != null ? channel : -1;
+    }
+
+    /**
+     * Returns the compiled form of the channels.
+     *
+     * @return The clip, or {@code null} if {@link #prepare()} has not been
+     *         called.
+     */
+    public GVRAnimationClip getClip() {
+        return mClip;
     }
 
     @Override
@@ -118,16 +134,71 @@ public class GVRKeyFrameAnimation extends GVRAnimation implements PrettyPrint {
             throw new RuntimeException("Animation is not prepared. Call prepare() before starting.");
         }
 
-        mNodeAnimationController.animate(getDuration() * ratio);
+        if (mBatch != null) {
+            mBatch.add(this, getDuration() * ratio);
+            return;
+        }
 
-        mSkinningController.animate(getDuration() * ratio);
+        sample(getDuration() * ratio);
+        applyNodes();
+        evaluateSkinning();
+        applySkinning();
     }
 
-    protected Matrix4f[] getTransforms(float animationTime) {
-        int i = 0;
-        for (GVRAnimationChannel channel : mChannels) {
-            mTransforms[i++].set(channel.animate(animationTime));
+    /**
+     * Evaluates this animation as part of a {@link GVRKeyFrameBatch} instead
+     * of on its own.<p>
+     *
+     * The {@link org.gearvrf.animation.GVRAnimationEngine} sets its
+     * {@linkplain org.gearvrf.animation.GVRAnimationEngine#setKeyFrameBatch
+     * batch} on the keyframe animations it runs before every frame.
+     *
+     * @param batch The batch, or {@code null} to evaluate every frame on the
+     *              GL thread.
+     */
+    public void setBatch(GVRKeyFrameBatch batch) {
+        mBatch = batch;
+    }
+
+    /*
+     * The steps of one animation frame. sample() and evaluateSkinning() do
+     * not call into native code and may run on any thread; applyNodes() and
+     * applySkinning() must run on the GL thread.
+     */
+    void sample(float timeInSeconds) {
+        getTransforms(getAnimationTime(timeInSeconds));
+    }
+
+    void applyNodes() {
+        mNodeAnimationController.apply(mTransforms);
+        // Skinning reads the mesh transforms, which the nodes may affect
+        mSkinningController.capture();
+    }
+
+    void evaluateSkinning() {
+        mSkinningController.evaluate(mTransforms);
+    }
+
+    void applySkinning() {
+        mSkinningController.apply();
+    }
+
+    /**
+     * Converts a time in seconds to the time in ticks within the animation.
+     * The animation repeats automatically.
+     */
+    protected float getAnimationTime(float timeInSeconds) {
+        float ticksPerSecond;
+
+        if (mTicksPerSecond != 0) {
+            ticksPerSecond = mTicksPerSecond;
+        } else {
+            ticksPerSecond = 25.0f;
         }
-        return mTransforms;
+        return (timeInSeconds * ticksPerSecond) % mDurationTicks;
+    }
+
+    protected Matrix4f[] getTransforms(float animationTime) {
+        return mClip.sampleTransforms(animationTime, mTransforms);
     }
 }
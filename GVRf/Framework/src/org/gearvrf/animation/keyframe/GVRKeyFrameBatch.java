@@ -0,0 +1,115 @@
+package org.gearvrf.animation.keyframe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gearvrf.utility.ParallelLoop;
+
+/**
+ * Evaluates many {@link GVRKeyFrameAnimation}s together, spreading the work
+ * over several cores.<p>
+ *
+ * Animations in a batch do not evaluate themselves in
+ * {@link GVRKeyFrameAnimation#animate}; they queue up until {@link #run()}.
+ * The GL thread then:
+ * <ol>
+ * <li>samples the channels of all animations in parallel,
+ * <li>applies the node transforms and reads the mesh transforms,
+ * <li>computes the skeleton poses and bone matrices of all animations in
+ * parallel,
+ * <li>passes the bone matrices to the bones.
+ * </ol>
+ * Each parallel step joins before the next step starts, and all native calls
+ * happen on the GL thread in the order the animations were added, so the
+ * result is the same as evaluating the animations one at a time.<p>
+ *
+ * The {@link org.gearvrf.animation.GVRAnimationEngine} runs its batch at the
+ * end of every frame, before the frame is rendered.
+ */
+public class GVRKeyFrameBatch {
+    private final ParallelLoop mLoop;
+    private final List<GVRKeyFrameAnimation> mAnimations = new ArrayList<GVRKeyFrameAnimation>();
+    private float[] mTimes = new float[16];
+
+    private final ParallelLoop.Body mSample = new ParallelLoop.Body() {
+        @Override
+        public void run(int index) {
+            mAnimations.get(index).sample(mTimes[index]);
+        }
+    };
+
+    private final ParallelLoop.Body mEvaluateSkinning = new ParallelLoop.Body() {
+        @Override
+        public void run(int index) {
+            mAnimations.get(index).evaluateSkinning();
+        }
+    };
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism Number of threads to use, including the GL thread.
+     *                    Usually the number of cores.
+     */
+    public GVRKeyFrameBatch(int parallelism) {
+        this(new ParallelLoop(parallelism));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param loop The parallel loop to evaluate the animations on.
+     */
+    public GVRKeyFrameBatch(ParallelLoop loop) {
+        mLoop = loop;
+    }
+
+    /**
+     * Queues an animation for the next {@link #run()}.
+     *
+     * @param animation The animation.
+     * @param timeInSeconds Time within the animation.
+     */
+    void add(GVRKeyFrameAnimation animation, float timeInSeconds) {
+        int index = mAnimations.size();
+        if (index == mTimes.length) {
+            float[] times = new float[index * 2];
+            System.arraycopy(mTimes, 0, times, 0, index);
+            mTimes = times;
+        }
+        mTimes[index] = timeInSeconds;
+        mAnimations.add(animation);
+    }
+
+    /**
+     * Returns the number of animations waiting for {@link #run()}.
+     */
+    public int size() {
+        return mAnimations.size();
+    }
+
+    /**
+     * Evaluates and applies all queued animations. Must be called on the GL
+     * thread.
+     */
+    public void run() {
+        final int count = mAnimations.size();
+        if (count == 0) {
+            return;
+        }
+
+        try {
+            mLoop.run(count, mSample);
+            for (int i = 0; i < count; ++i) {
+                mAnimations.get(i).applyNodes();
+            }
+
+            mLoop.run(count, mEvaluateSkinning);
+            for (int i = 0; i < count; ++i) {
+                mAnimations.get(i).applySkinning();
+            }
+        } finally {
+            mAnimations.clear();
+        }
+    }
+}
@@ -65,22 +65,19 @@ public class GVRNodeAnimationController {
      * Update node transforms at each animation step.
      */
     public void animate(float timeInSeconds) {
-        float ticksPerSecond;
-        float timeInTicks;
-        Matrix4f[] animationTransform = null;
-
-        if (animation.mTicksPerSecond != 0) {
-            ticksPerSecond = (float) animation.mTicksPerSecond;
-        } else {
-            ticksPerSecond = 25.0f;
-        }
-        timeInTicks = timeInSeconds * ticksPerSecond;
-
-        float animationTime = timeInTicks % animation.mDurationTicks; // auto-repeat
-        animationTransform = animation.getTransforms(animationTime);
+        apply(animation.getTransforms(animation.getAnimationTime(timeInSeconds)));
+    }
 
-        for (AnimationItem item : animatedNodes) {
+    /**
+     * Sets the transforms of the animated nodes. Must be called on the GL
+     * thread.
+     *
+     * @param animationTransform The local transform of each channel.
+     */
+    public void apply(Matrix4f[] animationTransform) {
+        for (int i = 0; i < animatedNodes.size(); ++i) {
+            AnimationItem item = animatedNodes.get(i);
             item.target.getTransform().setModelMatrix(animationTransform[item.channelId]);
         }
     }
-}
\ No newline at end of file
+}
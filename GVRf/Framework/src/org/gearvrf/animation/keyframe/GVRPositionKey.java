@@ -36,6 +36,15 @@ public class GVRPositionKey implements GVRKeyFrame<Vector3f> {
         return new Vector3f(mX, mY, mZ);
     }
 
+    /**
+     * Copies the position vector of the keyframe into {@code dest}.
+     *
+     * @return dest
+     */
+    public Vector3f getValue(Vector3f dest) {
+        return dest.set(mX, mY, mZ);
+    }
+
     /**
      * Sets the position vector of the keyframe.
      */
@@ -38,6 +38,15 @@ public class GVRRotationKey implements GVRKeyFrame<Quaternionf> {
         return new Quaternionf(mX, mY, mZ, mW);
     }
 
+    /**
+     * Copies the quaternion of the keyframe into {@code dest}.
+     *
+     * @return dest
+     */
+    public Quaternionf getValue(Quaternionf dest) {
+        return dest.set(mX, mY, mZ, mW);
+    }
+
     /**
      * Sets the quaternion of the keyframe.
      */
@@ -30,6 +30,23 @@ public class GVRSkinningController {
     protected Map<String, SceneAnimNode> nodeByName;
     protected Map<GVRSceneObject, List<GVRBone>> boneMap;
 
+    /*
+     * Per-frame state, resolved once in the constructor: nodes without a
+     * channel, the bones with their skeletal node and cached offset matrix,
+     * and the distinct meshes the bones deform.
+     */
+    protected List<SceneAnimNode> staticNodes;
+    protected GVRBone[] bones;
+    protected SceneAnimNode[] boneNodes;
+    protected Matrix4f[] boneOffsets;
+    protected int[] boneMeshes;
+    protected GVRSceneObject[] meshObjects;
+    protected Matrix4f[] meshInverses;
+    protected float[][] boneMatrices;
+
+    private final Matrix4f identity = new Matrix4f();
+    private final Matrix4f finalMatrix = new Matrix4f();
+
     protected class SceneAnimNode {
         GVRSceneObject sceneObject;
         SceneAnimNode parent;
@@ -64,6 +81,59 @@ public class GVRSkinningController {
 
         animRoot = createAnimationTree(sceneRoot, null);
         pruneTree(animRoot);
+
+        staticNodes = new ArrayList<SceneAnimNode>();
+        collectStaticNodes(animRoot);
+        setupBoneMatrices();
+    }
+
+    protected void collectStaticNodes(SceneAnimNode node) {
+        if (node.channelId == -1) {
+            staticNodes.add(node);
+        }
+        for (SceneAnimNode child : node.children) {
+            collectStaticNodes(child);
+        }
+    }
+
+    protected void setupBoneMatrices() {
+        List<GVRSceneObject> meshes = new ArrayList<GVRSceneObject>();
+        int numBones = 0;
+        for (List<GVRBone> boneList : boneMap.values()) {
+            numBones += boneList.size();
+        }
+
+        bones = new GVRBone[numBones];
+        boneNodes = new SceneAnimNode[numBones];
+        boneOffsets = new Matrix4f[numBones];
+        boneMeshes = new int[numBones];
+        boneMatrices = new float[numBones][16];
+
+        int i = 0;
+        for (Entry<GVRSceneObject, List<GVRBone>> ent : boneMap.entrySet()) {
+            // Transform all bone splits (a bone can be split into multiple instances if they influence
+            // different meshes)
+            SceneAnimNode node = nodeByName.get(ent.getKey().getName());
+            for (GVRBone bone : ent.getValue()) {
+                int meshIndex = meshes.indexOf(bone.getSceneObject());
+                if (meshIndex == -1) {
+                    meshIndex = meshes.size();
+                    meshes.add(bone.getSceneObject());
+                }
+
+                bones[i] = bone;
+                boneNodes[i] = node;
+                boneOffsets[i] = bone.getOffsetMatrix();
+                boneMeshes[i] = meshIndex;
+                ++i;
+            }
+        }
+
+        meshObjects = meshes.toArray(new GVRSceneObject[meshes.size()]);
+        meshInverses = new Matrix4f[meshObjects.length];
+        for (int m = 0; m < meshInverses.length; ++m) {
+            meshInverses[m] = new Matrix4f();
+        }
     }
 
     protected SceneAnimNode createAnimationTree(GVRSceneObject node, SceneAnimNode parent) {
@@ -122,56 +192,72 @@ public class GVRSkinningController {
      * Update bone transforms at each animation step.
      */
     public void animate(float timeInSeconds) {
-        float ticksPerSecond;
-        float timeInTicks;
-        Matrix4f[] animationTransform = null;
+        Matrix4f[] animationTransform = animation.getTransforms(animation.getAnimationTime(timeInSeconds));
+
+        capture();
+        evaluate(animationTransform);
+        apply();
+    }
 
-        if (animation.mTicksPerSecond != 0) {
-            ticksPerSecond = (float) animation.mTicksPerSecond;
-        } else {
-            ticksPerSecond = 25.0f;
+    /**
+     * Reads the transforms of the scene objects that affect skinning but are
+     * not driven by the animation. Must be called on the GL thread.
+     */
+    public void capture() {
+        for (int i = 0; i < staticNodes.size(); ++i) {
+            SceneAnimNode node = staticNodes.get(i);
+            // Default local transform
+            node.localTransform.set(node.sceneObject.getTransform().getLocalModelMatrix());
         }
-        timeInTicks = timeInSeconds * ticksPerSecond;
 
-        float animationTime = timeInTicks % animation.mDurationTicks; // auto-repeat
-        animationTransform = animation.getTransforms(animationTime);
+        for (int m = 0; m < meshObjects.length; ++m) {
+            meshInverses[m].set(meshObjects[m].getTransform().getModelMatrix()).invert();
+        }
+    }
 
-        updateTransforms(animRoot, new Matrix4f(), animationTransform);
+    /**
+     * Computes the skeleton pose and the final bone matrices from the
+     * sampled channel transforms and the state read by {@link #capture()}.
+     * Does not call into native code, so it may run on any thread, but not
+     * concurrently with {@link #capture()} or {@link #apply()}.
+     *
+     * @param animationTransform The local transform of each channel.
+     */
+    public void evaluate(Matrix4f[] animationTransform) {
+        updateTransforms(animRoot, identity, animationTransform);
 
-        for (Entry<GVRSceneObject, List<GVRBone>> ent : boneMap.entrySet()) {
-            // Transform all bone splits (a bone can be split into multiple instances if they influence
-            // different meshes)
-            SceneAnimNode node = nodeByName.get(ent.getKey().getName());
-            for (GVRBone bone : ent.getValue()) {
-                updateBoneMatrices(bone, node);
-            }
+        for (int i = 0; i < bones.length; ++i) {
+            updateBoneMatrices(i);
+        }
+    }
+
+    /**
+     * Passes the final bone matrices computed by
+     * {@link #evaluate(Matrix4f[])} to the bones. Must be called on the GL
+     * thread.
+     */
+    public void apply() {
+        for (int i = 0; i < bones.length; ++i) {
+            bones[i].setFinalTransformMatrix(boneMatrices[i]);
         }
     }
 
     protected void updateTransforms(SceneAnimNode node, Matrix4f parentTransform, Matrix4f[] animationTransform) {
         if (node.channelId != -1) {
             node.localTransform.set(animationTransform[node.channelId]);
-        } else {
-            // Default local transform
-            node.localTransform.set(node.sceneObject.getTransform().getLocalModelMatrix4f());
         }
 
         parentTransform.mul(node.localTransform, node.globalTransform);
 
-        for (SceneAnimNode child : node.children) {
-            updateTransforms(child, node.globalTransform, animationTransform);
+        for (int i = 0; i < node.children.size(); ++i) {
+            updateTransforms(node.children.get(i), node.globalTransform, animationTransform);
         }
     }
 
-    protected void updateBoneMatrices(GVRBone bone, SceneAnimNode node) {
-        Matrix4f finalMatrix = new Matrix4f().set(bone.getOffsetMatrix());
-
-        node.globalTransform.mul(finalMatrix, finalMatrix);
-
-        Matrix4f globalInverse = new Matrix4f().set(bone.getSceneObject().getTransform().getModelMatrix4f()).invert();
-        globalInverse.mul(finalMatrix, finalMatrix);
-
-        bone.setFinalTransformMatrix(finalMatrix);
+    protected void updateBoneMatrices(int boneIndex) {
+        boneNodes[boneIndex].globalTransform.mul(boneOffsets[boneIndex], finalMatrix);
+        meshInverses[boneMeshes[boneIndex]].mul(finalMatrix, finalMatrix);
+        finalMatrix.get(boneMatrices[boneIndex]);
     }
 
     /* Returns true if the subtree should be kept */
@@ -18,10 +18,12 @@ package org.gearvrf.asynchronous;
 import static android.opengl.GLES20.*;
 import static org.gearvrf.utility.Threads.*;
 
+import java.io.File;
 import java.io.FileDescriptor;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.gearvrf.GVRAndroidResource;
 import org.gearvrf.GVRAndroidResource.BitmapTextureCallback;
@@ -33,6 +35,7 @@ import org.gearvrf.GVRTexture;
 import org.gearvrf.asynchronous.Throttler.AsyncLoader;
 import org.gearvrf.asynchronous.Throttler.AsyncLoaderFactory;
 import org.gearvrf.asynchronous.Throttler.GlConverter;
+import org.gearvrf.utility.DiskCache;
 import org.gearvrf.utility.Exceptions;
 import org.gearvrf.utility.Log;
 import org.gearvrf.utility.RecycleBin;
@@ -78,6 +81,14 @@ abstract class AsyncBitmapTexture {
                 resource, priority);
     }
 
+    /** A request for {@link Throttler#registerBatch(GVRContext, java.util.List)} */
+    static Throttler.BatchRequest batchRequest(
+            CancelableCallback<GVRTexture> callback,
+            GVRAndroidResource resource, int priority) {
+        return new Throttler.BatchRequest(TEXTURE_CLASS, callback, resource,
+                priority);
+    }
+
     /*
      * Static constants
      */
@@ -309,11 +320,32 @@ abstract class AsyncBitmapTexture {
 
         @Override
         protected Bitmap loadResource() {
+            final DiskCache cache = diskCache;
+            String key = null;
+
+            if (cache != null) {
+                key = diskCacheKey(resource);
+                Bitmap cached = key == null ? null : readBitmap(cache, key);
+                if (cached != null) {
+                    resource.closeStream();
+                    return cached;
+                }
+            }
+
             Bitmap bitmap = decodeStream(resource.getStream(),
                     glMaxTextureSize, glMaxTextureSize, true, null, false);
             resource.closeStream();
+
+            if (bitmap != null && key != null) {
+                writeBitmap(cache, key, bitmap);
+            }
             return bitmap;
         }
+
+        @Override
+        protected long getUploadSize(Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
     }
 
     static {
@@ -331,6 +363,121 @@ abstract class AsyncBitmapTexture {
                 });
     }
 
+    /*
+     * Disk cache
+     */
+
+    /**
+     * Decoded bitmaps from earlier runs, or {@code null} if the disk cache is
+     * disabled
+     */
+    private static volatile DiskCache diskCache = null;
+
+    /** Bytes before the pixels in a cached bitmap */
+    private static final int BITMAP_HEADER_SIZE = 16;
+
+    static void setDiskCache(DiskCache cache) {
+        diskCache = cache;
+    }
+
+    static DiskCache getDiskCache() {
+        return diskCache;
+    }
+
+    /**
+     * A hash that identifies the content of the resource, plus everything that
+     * affects how it is decoded. Leaves the resource stream at its start.
+     * 
+     * Files are identified by their path, length and modification time,
+     * without reading them. Assets and resources are hashed: their streams
+     * seek back to the mark, rather than buffering what is read. Network
+     * streams can only be rewound by buffering the whole image, so they are
+     * not cached.
+     * 
+     * @return The key, or {@code null} if the resource is not cached
+     */
+    private static String diskCacheKey(GVRAndroidResource resource) {
+        String content;
+        switch (resource.getResourceType()) {
+        case LINUX_FILESYSTEM:
+            File file = new File(resource.getFilePath());
+            content = DiskCache.hash(String.format("%s:%d:%d",
+                    file.getAbsolutePath(), file.length(),
+                    file.lastModified()));
+            break;
+
+        case NETWORK:
+            return null;
+
+        default:
+            resource.mark();
+            try {
+                content = DiskCache.hash(resource.getStream());
+            } catch (IOException e) {
+                Log.w(TAG, "Can't hash %s: %s", resource, e);
+                return null;
+            } finally {
+                resource.reset();
+            }
+            break;
+        }
+        return String.format("%s-%d-%d.bitmap", content, glMaxTextureSize,
+                maxImageSize);
+    }
+
+    /**
+     * Cached bitmaps are a header (width, height, {@link Config} ordinal,
+     * has-alpha flag) followed by the pixels, exactly as they were decoded.
+     * Loading one only copies the pixels out of the mapped file.
+     */
+    private static Bitmap readBitmap(DiskCache cache, String key) {
+        try {
+            ByteBuffer buffer = cache.get(key);
+            if (buffer == null) {
+                return null;
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            Config config = Config.values()[buffer.getInt()];
+            boolean hasAlpha = buffer.getInt() != 0;
+
+            Bitmap bitmap = Bitmap.createBitmap(width, height, config);
+            bitmap.copyPixelsFromBuffer(buffer);
+            bitmap.setHasAlpha(hasAlpha);
+            return bitmap;
+        } catch (Exception e) {
+            // Includes entries written by an incompatible version
+            Log.w(TAG, "Discarding cached bitmap %s: %s", key, e);
+            cache.remove(key);
+            return null;
+        } catch (OutOfMemoryError e) {
+            return null; // Let decodeStream() shrink it
+        }
+    }
+
+    private static void writeBitmap(DiskCache cache, String key,
+            final Bitmap bitmap) {
+        if (bitmap.getConfig() == null) {
+            return; // Can't be recreated with createBitmap()
+        }
+        try {
+            final int pixels = bitmap.getRowBytes() * bitmap.getHeight();
+            cache.put(key, BITMAP_HEADER_SIZE + pixels, new DiskCache.Writer() {
+
+                @Override
+                public void write(ByteBuffer buffer) {
+                    buffer.putInt(bitmap.getWidth());
+                    buffer.putInt(bitmap.getHeight());
+                    buffer.putInt(bitmap.getConfig().ordinal());
+                    buffer.putInt(bitmap.hasAlpha() ? 1 : 0);
+                    bitmap.copyPixelsToBuffer(buffer);
+                }
+            });
+        } catch (IOException e) {
+            Log.w(TAG, "Can't cache %s: %s", key, e);
+        }
+    }
+
     /*
      * decodeStream
      */
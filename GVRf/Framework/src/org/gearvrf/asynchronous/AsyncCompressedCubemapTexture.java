@@ -123,6 +123,17 @@ abstract class AsyncCompressedCubemapTexture {
         resource.closeStream();
         return textureArray;
       }
+
+      @Override
+      protected long getUploadSize(CompressedTexture[] textureArray) {
+        long size = 0;
+        for (CompressedTexture texture : textureArray) {
+          if (texture != null) {
+            size += texture.getData().remaining();
+          }
+        }
+        return size;
+      }
     }
 
     static {
@@ -117,6 +117,17 @@ abstract class AsyncCubemapTexture {
             resource.closeStream();
             return bitmapArray;
         }
+
+        @Override
+        protected long getUploadSize(Bitmap[] bitmapArray) {
+            long size = 0;
+            for (Bitmap bitmap : bitmapArray) {
+                if (bitmap != null) {
+                    size += bitmap.getByteCount();
+                }
+            }
+            return size;
+        }
     }
 
     static {
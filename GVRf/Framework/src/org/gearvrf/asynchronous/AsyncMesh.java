@@ -46,6 +46,14 @@ abstract class AsyncMesh {
                 priority);
     }
 
+    /** A request for {@link Throttler#registerBatch(GVRContext, java.util.List)} */
+    static Throttler.BatchRequest batchRequest(
+            CancelableCallback<GVRMesh> callback, GVRAndroidResource resource,
+            int priority) {
+        return new Throttler.BatchRequest(MESH_CLASS, callback, resource,
+                priority);
+    }
+
     /*
      * The implementation
      */
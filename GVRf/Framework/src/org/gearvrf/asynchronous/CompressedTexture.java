@@ -15,9 +15,12 @@
 
 package org.gearvrf.asynchronous;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.Arrays;
 import java.util.List;
 
@@ -90,8 +93,8 @@ class CompressedTexture {
         this.data = data;
 
         /*
-         * Initial position is the data offset in backing array. We cannot use
-         * ByteBuffer.arrayOffset() which is always 0.
+         * Initial position is the data offset in the buffer. A wrapped array
+         * has an arrayOffset() of 0, but a slice does not.
          */
         this.dataOffset = data.position();
     }
@@ -107,7 +110,7 @@ class CompressedTexture {
      * Get offset of data in backing array.
      */
     protected int getArrayOffset() {
-        return dataOffset;
+        return data.arrayOffset() + dataOffset;
     }
 
     /*
@@ -134,6 +137,11 @@ class CompressedTexture {
      * Loads a file into memory; detects type, and calls the appropriate
      * {@link GVRCompressedTextureLoader#parse(byte[], Reader)} method.
      * 
+     * <p>
+     * If {@code stream} is a {@link FileInputStream} and {@code maxLength} is
+     * -1, the rest of the file is memory-mapped instead of read, and passed to
+     * {@link GVRCompressedTextureLoader#parse(ByteBuffer, Reader)}.
+     * 
      * @param stream
      *            InputStream containing a compressed texture file
      * @param maxLength
@@ -152,46 +160,40 @@ class CompressedTexture {
     static CompressedTexture load(InputStream stream, int maxLength,
                                   boolean closeStream)
             throws IOException {
-        byte[] data;
+        byte[] data = null;
+        ByteBuffer mapped = null;
         try {
-            data = maxLength >= 0
-                ? readBytes(stream, maxLength)
-                : readBytes(stream);
+            if (maxLength < 0) {
+                mapped = map(stream);
+            }
+            if (mapped == null) {
+                data = maxLength >= 0
+                    ? readBytes(stream, maxLength)
+                    : readBytes(stream);
+            }
         } finally {
             if (closeStream) {
                 stream.close();
             }
         }
 
-        Reader reader = new Reader(data);
-
-        GVRCompressedTextureLoader valid = null;
-        List<GVRCompressedTextureLoader> loaders = GVRCompressedTextureLoader
-                .getLoaders();
-        synchronized (loaders) {
-            for (GVRCompressedTextureLoader loader : loaders) {
-                if (loader.sniff(data, reader)) {
-                    if (valid != null) {
-                        throw new IllegalArgumentException(
-                                "Multiple loaders think this smells right");
-                    }
-                    valid = loader;
-                }
-                reader.reset();
-            }
-            if (valid == null) {
-                throw new IllegalArgumentException(
-                        "No loader thinks this smells right");
-            }
-            return valid.parse(data, reader);
+        GVRCompressedTextureLoader valid = sniff(mapped == null ? data
+                : readHeader(mapped));
+        if (valid == null) {
+            throw new IllegalArgumentException(
+                    "No loader thinks this smells right");
         }
+        return mapped == null ? valid.parse(data, new Reader(data)) : valid
+                .parse(mapped, new Reader(mapped));
     }
 
     static GVRCompressedTextureLoader sniff(InputStream stream)
             throws IOException {
-        byte[] data = readBytes(stream,
-                GVRCompressedTextureLoader.maximumHeaderLength);
+        return sniff(readBytes(stream,
+                GVRCompressedTextureLoader.maximumHeaderLength));
+    }
 
+    private static GVRCompressedTextureLoader sniff(byte[] data) {
         Reader reader = new Reader(data);
 
         GVRCompressedTextureLoader valid = null;
@@ -212,18 +214,60 @@ class CompressedTexture {
         }
     }
 
+    /**
+     * Loads the rest of a stream and calls {@code loader}'s parse method. As
+     * with {@link #load(InputStream, int, boolean)}, files are memory-mapped
+     * rather than read.
+     */
     static CompressedTexture parse(InputStream stream, boolean closeStream,
             GVRCompressedTextureLoader loader) throws IOException {
-        byte[] data;
+        byte[] data = null;
+        ByteBuffer mapped;
         try {
-            data = readBytes(stream);
+            mapped = map(stream);
+            if (mapped == null) {
+                data = readBytes(stream);
+            }
         } finally {
             if (closeStream) {
                 stream.close();
             }
         }
 
-        return loader.parse(data, new Reader(data));
+        return mapped == null ? loader.parse(data, new Reader(data)) : loader
+                .parse(mapped, new Reader(mapped));
+    }
+
+    /**
+     * Maps the rest of a file into memory, and moves the stream to the end of
+     * the file, as if it had been read. The mapping stays valid after the
+     * stream is closed.
+     * 
+     * @return A read-only buffer, or {@code null} if {@code stream} is not a
+     *         {@link FileInputStream}
+     */
+    private static ByteBuffer map(InputStream stream) throws IOException {
+        if (stream instanceof FileInputStream == false) {
+            return null;
+        }
+        FileChannel channel = ((FileInputStream) stream).getChannel();
+        long position = channel.position();
+        long size = channel.size();
+        if (size - position > Integer.MAX_VALUE) {
+            throw new IOException("File too large to map: " + size);
+        }
+        ByteBuffer mapped = channel.map(MapMode.READ_ONLY, position, size
+                - position);
+        channel.position(size);
+        return mapped;
+    }
+
+    /** Copy of the first bytes of {@code mapped}, zero-padded, for sniffing */
+    private static byte[] readHeader(ByteBuffer mapped) {
+        byte[] header = new byte[GVRCompressedTextureLoader.maximumHeaderLength];
+        ByteBuffer source = mapped.duplicate();
+        source.get(header, 0, Math.min(header.length, source.remaining()));
+        return header;
     }
 
     private static byte[] readBytes(InputStream stream, final int bytes)
@@ -15,6 +15,7 @@
 
 package org.gearvrf.asynchronous;
 
+import java.io.File;
 import java.io.FileDescriptor;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -30,6 +31,7 @@ import org.gearvrf.*;
 import org.gearvrf.GVRAndroidResource.BitmapTextureCallback;
 import org.gearvrf.GVRAndroidResource.CancelableCallback;
 import org.gearvrf.GVRAndroidResource.CompressedTextureCallback;
+import org.gearvrf.utility.DiskCache;
 import org.gearvrf.utility.Log;
 import org.gearvrf.utility.ResourceCache;
 import org.gearvrf.utility.Threads;
@@ -62,6 +64,90 @@ public class GVRAsynchronousResourceLoader {
         AsyncBitmapTexture.setup(gvrContext);
     }
 
+    /**
+     * Enable, resize, or disable the disk cache of decoded bitmap textures.
+     * 
+     * This is the implementation of
+     * {@link GVRContext#setTextureDiskCacheSize(long)}.
+     * 
+     * @param gvrContext
+     *            The GVRF context
+     * @param maxBytes
+     *            Size limit of the cache; 0 disables it, but leaves the cached
+     *            files in place.
+     * @throws IOException
+     *             If the cache directory can't be created
+     */
+    public static synchronized void setTextureDiskCacheSize(
+            GVRContext gvrContext, long maxBytes) throws IOException {
+        DiskCache cache = AsyncBitmapTexture.getDiskCache();
+        if (maxBytes <= 0) {
+            AsyncBitmapTexture.setDiskCache(null);
+        } else if (cache != null) {
+            // Keeps the entries it has in memory, rather than listing the
+            // directory again
+            cache.setMaxBytes(maxBytes);
+        } else {
+            File directory = new File(gvrContext.getContext().getCacheDir(),
+                    TEXTURE_CACHE_DIRECTORY);
+            AsyncBitmapTexture.setDiskCache(new DiskCache(directory, maxBytes));
+        }
+    }
+
+    private static final String TEXTURE_CACHE_DIRECTORY = "gvrf-textures";
+
+    /**
+     * Limit the GL work that finished asynchronous loads do per frame.
+     * 
+     * This is the implementation of
+     * {@link GVRContext#setResourceUploadBudget(long, float)}.
+     * 
+     * @param gvrContext
+     *            The GVRF context
+     * @param maxBytes
+     *            Bytes uploaded per frame; {@link Long#MAX_VALUE} for no limit
+     * @param maxMilliseconds
+     *            Time spent uploading per frame;
+     *            {@link Float#POSITIVE_INFINITY} for no limit
+     * @throws IllegalArgumentException
+     *             If either limit is not positive
+     */
+    public static void setUploadBudget(GVRContext gvrContext, long maxBytes,
+            float maxMilliseconds) throws IllegalArgumentException {
+        UploadScheduler.getInstance(gvrContext).setBudget(maxBytes,
+                maxMilliseconds);
+    }
+
+    /**
+     * Queue depth of the first loading stage.
+     * 
+     * @return The number of requests waiting for a loader thread
+     */
+    public static int getQueuedLoadCount() {
+        return Throttler.getQueuedCount();
+    }
+
+    /**
+     * Queue depth of the second loading stage.
+     * 
+     * @return The number of requests being read and decoded, on loader
+     *         threads
+     */
+    public static int getActiveLoadCount() {
+        return Throttler.getLoadingCount();
+    }
+
+    /**
+     * Queue depth of the last loading stage.
+     * 
+     * @return The number of loaded resources waiting to be uploaded, on the
+     *         GL thread
+     */
+    public static int getPendingUploadCount() {
+        UploadScheduler scheduler = UploadScheduler.peekInstance();
+        return scheduler == null ? 0 : scheduler.size();
+    }
+
     /**
      * Load a compressed texture asynchronously.
      * 
@@ -145,18 +231,22 @@ public class GVRAsynchronousResourceLoader {
                                 .load(resource.getStream(), -1, false);
                         resource.closeStream();
                         // Create texture on GL thread
-                        gvrContext.runOnGlThread(new Runnable() {
-
-                            @Override
-                            public void run() {
-                                GVRTexture texture = compressedTexture
-                                        .toTexture(gvrContext, quality);
-                                if (textureCache != null) {
-                                    textureCache.put(resource, texture);
-                                }
-                                callback.loaded(texture, resource);
-                            }
-                        });
+                        UploadScheduler.getInstance(gvrContext).add(
+                                new UploadScheduler.Upload(
+                                        GVRContext.DEFAULT_PRIORITY,
+                                        compressedTexture.getData()
+                                                .remaining()) {
+
+                                    @Override
+                                    void upload() {
+                                        GVRTexture texture = compressedTexture
+                                                .toTexture(gvrContext, quality);
+                                        if (textureCache != null) {
+                                            textureCache.put(resource, texture);
+                                        }
+                                        callback.loaded(texture, resource);
+                                    }
+                                });
                     } catch (Exception e) {
                         callback.failed(e, resource);
                     }
@@ -285,16 +375,20 @@ public class GVRAsynchronousResourceLoader {
                             resource.closeStream();
 
                             // Create texture on GL thread
-                            gvrContext.runOnGlThread(new Runnable() {
-
-                                @Override
-                                public void run() {
-                                    GVRTexture texture = compressedTexture
-                                            .toTexture(gvrContext, quality);
-                                    textureCache.put(resource, texture);
-                                    callback.loaded(texture, resource);
-                                }
-                            });
+                            UploadScheduler.getInstance(gvrContext).add(
+                                    new UploadScheduler.Upload(priority,
+                                            compressedTexture.getData()
+                                                    .remaining()) {
+
+                                        @Override
+                                        void upload() {
+                                            GVRTexture texture = compressedTexture
+                                                    .toTexture(gvrContext,
+                                                            quality);
+                                            textureCache.put(resource, texture);
+                                            callback.loaded(texture, resource);
+                                        }
+                                    });
                         } else {
                             // We don't have a compressed texture: pass to
                             // AsyncBitmapTexture code
@@ -517,7 +611,7 @@ public class GVRAsynchronousResourceLoader {
         return result;
     }
 
-    private static class FutureResource<T extends GVRHybridObject> implements
+    static class FutureResource<T extends GVRHybridObject> implements
             Future<T> {
 
         private static final String TAG = Log.tag(FutureResource.class);
@@ -530,7 +624,7 @@ public class GVRAsynchronousResourceLoader {
         private boolean pending = true;
         private boolean canceled = false;
 
-        private final CancelableCallback<T> callback = new CancelableCallback<T>() {
+        final CancelableCallback<T> callback = new CancelableCallback<T>() {
 
             @Override
             public void loaded(T data, GVRAndroidResource androidResource) {
@@ -77,15 +77,20 @@ public class GVRCompressedTexture extends GVRTexture {
                 textureParameters.getCurrentValuesArray()));
         mLevels = levels;
         mQuality = GVRCompressedTexture.clamp(quality);
+        setByteCount(imageSize);
 
         updateMinification();
     }
 
+    /*
+     * The caller uploads the levels; byteCount is the size of all of them
+     */
     GVRCompressedTexture(GVRContext gvrContext, int target, int levels,
-            int quality) {
+            int quality, int byteCount) {
         super(gvrContext, NativeCompressedTexture.mipmappedConstructor(target));
         mLevels = levels;
         mQuality = GVRCompressedTexture.clamp(quality);
+        setByteCount(byteCount);
 
         updateMinification();
     }
@@ -113,6 +113,32 @@ public abstract class GVRCompressedTextureLoader {
      */
     public abstract CompressedTexture parse(byte[] data, Reader reader);
 
+    /**
+     * Parse the header of a file that has been memory-mapped, rather than
+     * loaded into a {@code byte[]}. This will only be called if the loader's
+     * {@link #sniff(byte[], Reader)} function returned {@code true}.
+     * 
+     * <p>
+     * The default implementation copies {@code data} into a {@code byte[]}
+     * and calls {@link #parse(byte[], Reader)}. Loaders that can pass their
+     * texture data to GL straight from a {@link ByteBuffer} should override
+     * this method, and return a {@code CompressedTexture} that refers to
+     * (slices of) {@code data}: the file is then never copied onto the Java
+     * heap.
+     * 
+     * @param data
+     *            A compressed texture file's contents, from its position to
+     *            its limit. The position must not be changed.
+     * @param reader
+     *            A data reader, pointing to the first byte of the file
+     * @return A {@code CompressedTexture}
+     */
+    protected CompressedTexture parse(ByteBuffer data, Reader reader) {
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        return parse(bytes, new Reader(bytes));
+    }
+
     /**
      * Provides external parsers access to the internal
      * {@code CompressedTexture} constructor.
@@ -213,19 +239,25 @@ public abstract class GVRCompressedTextureLoader {
 
     /** Utility class for reading big- and little-endian numbers from a header */
     protected static final class Reader {
-        private final byte[] data;
-        // private final int length;
+        private final ByteBuffer data;
         private int readPointer;
 
         /** Wrap a Reader around a byte array */
         protected Reader(byte[] data) {
-            this.data = data;
-            // this.length = data.length;
+            this(ByteBuffer.wrap(data));
+        }
+
+        /**
+         * Wrap a Reader around a buffer. The read pointer is relative to the
+         * buffer's current position; the position itself is never changed.
+         */
+        Reader(ByteBuffer data) {
+            this.data = data.slice();
             this.readPointer = 0;
         }
 
         private byte read() {
-            return data[readPointer++];
+            return data.get(readPointer++);
         }
 
         protected static final int INTEGER_BYTES = Integer.SIZE / Byte.SIZE;
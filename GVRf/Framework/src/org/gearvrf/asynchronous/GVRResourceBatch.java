@@ -0,0 +1,436 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.asynchronous;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gearvrf.GVRAndroidResource;
+import org.gearvrf.GVRAndroidResource.CancelableCallback;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRHybridObject;
+import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRTexture;
+import org.gearvrf.asynchronous.GVRAsynchronousResourceLoader.FutureResource;
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.ResourceCache;
+
+/**
+ * Loads a whole set of resources - typically, everything a scene needs - as a
+ * single request.
+ *
+ * <p>
+ * Loading a manifest of hundreds of small assets one
+ * {@link GVRContext#loadFutureTexture(GVRAndroidResource) loadFuture} call at
+ * a time pays the scheduling cost of each request separately. A batch
+ * registers all its resources under one lock, merges duplicates, and hands
+ * the scheduler a few chunks per priority and source instead of one request
+ * per resource: each chunk loads its resources one after another on the same
+ * thread, so reads from the same source stay together.
+ *
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * GVRResourceBatch batch = new GVRResourceBatch(gvrContext);
+ * Future&lt;GVRTexture&gt; floor = batch.addTexture(floorResource);
+ * Future&lt;GVRMesh&gt; chair = batch.addMesh(chairResource, GVRContext.HIGHEST_PRIORITY);
+ * // ... and so on
+ * Future&lt;Integer&gt; done = batch.load(progressListener);
+ * </pre>
+ *
+ * Each {@code add} method returns a {@link Future} for that resource, which
+ * works just like the ones the {@code loadFuture} methods return, and can be
+ * canceled separately. Adding a resource that {@linkplain
+ * GVRAndroidResource#equals(Object) equals} one already in the batch returns
+ * the same {@code Future}, and loads the resource once, at the higher of the
+ * two priorities.
+ *
+ * <p>
+ * Please note that textures are loaded as bitmapped textures; load compressed
+ * textures with {@link GVRContext#loadFutureTexture(GVRAndroidResource)},
+ * which bypasses the scheduler. A batch can only be loaded once.
+ *
+ * @since 2.0.3
+ */
+public class GVRResourceBatch {
+    private static final String TAG = Log.tag(GVRResourceBatch.class);
+
+    /**
+     * Reports the progress of a batch.
+     */
+    public interface ProgressListener {
+        /**
+         * Called each time a resource finishes loading, successfully or not.
+         * May be called from any thread, including the GL thread: keep it
+         * short.
+         *
+         * @param loaded
+         *            Number of resources that have loaded
+         * @param failed
+         *            Number of resources that failed to load, or were
+         *            canceled
+         * @param total
+         *            Number of resources in the batch. The batch is done when
+         *            {@code loaded + failed == total}.
+         */
+        void onProgress(int loaded, int failed, int total);
+    }
+
+    private final GVRContext gvrContext;
+    private final ResourceCache<GVRTexture> textureCache;
+
+    /** In the order they were added */
+    private final Map<GVRAndroidResource, Entry<?>> entries = new LinkedHashMap<GVRAndroidResource, Entry<?>>();
+    private boolean started = false;
+
+    private final AtomicInteger loadedCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+    private volatile ProgressListener listener = null;
+    private BatchFuture result = null;
+
+    /**
+     * Create an empty batch. Textures are looked up in, and added to, the
+     * context's {@linkplain GVRContext#getTextureCache() texture cache}.
+     *
+     * @param gvrContext
+     *            The GVRF context
+     */
+    public GVRResourceBatch(GVRContext gvrContext) {
+        if (gvrContext == null) {
+            throw new IllegalArgumentException("gvrContext == null");
+        }
+        this.gvrContext = gvrContext;
+        this.textureCache = gvrContext.getTextureCache();
+    }
+
+    /**
+     * Add a bitmapped texture, at {@link GVRContext#DEFAULT_PRIORITY}.
+     *
+     * @see #addTexture(GVRAndroidResource, int)
+     */
+    public Future<GVRTexture> addTexture(GVRAndroidResource resource) {
+        return addTexture(resource, GVRContext.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Add a bitmapped texture.
+     *
+     * @param resource
+     *            A stream containing a bitmap texture
+     * @param priority
+     *            A value {@literal >=} {@link GVRContext#LOWEST_PRIORITY} and
+     *            {@literal <=} {@link GVRContext#HIGHEST_PRIORITY}
+     * @return A {@link Future} that you can pass to methods like
+     *         {@link org.gearvrf.GVRShaders#setMainTexture(Future)}
+     * @throws IllegalArgumentException
+     *             If {@code resource} is {@code null}, if {@code priority} is
+     *             out of range, or if the batch already has {@code resource}
+     *             as a mesh.
+     * @throws IllegalStateException
+     *             If the batch has been {@linkplain #load() loaded}
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized Future<GVRTexture> addTexture(
+            GVRAndroidResource resource, int priority) {
+        Entry<?> entry = add(GVRTexture.class, resource, priority);
+        return ((Entry<GVRTexture>) entry).future;
+    }
+
+    /**
+     * Add a mesh, at {@link GVRContext#DEFAULT_PRIORITY}.
+     *
+     * @see #addMesh(GVRAndroidResource, int)
+     */
+    public Future<GVRMesh> addMesh(GVRAndroidResource resource) {
+        return addMesh(resource, GVRContext.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Add a mesh.
+     *
+     * @param resource
+     *            A stream containing a 3D model
+     * @param priority
+     *            A value {@literal >=} {@link GVRContext#LOWEST_PRIORITY} and
+     *            {@literal <=} {@link GVRContext#HIGHEST_PRIORITY}
+     * @return A {@link Future} that you can pass to
+     *         {@link org.gearvrf.GVRRenderData#setMesh(Future)}
+     * @throws IllegalArgumentException
+     *             If {@code resource} is {@code null}, if {@code priority} is
+     *             out of range, or if the batch already has {@code resource}
+     *             as a texture.
+     * @throws IllegalStateException
+     *             If the batch has been {@linkplain #load() loaded}
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized Future<GVRMesh> addMesh(GVRAndroidResource resource,
+            int priority) {
+        Entry<?> entry = add(GVRMesh.class, resource, priority);
+        return ((Entry<GVRMesh>) entry).future;
+    }
+
+    /** Number of distinct resources in the batch. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Start loading the batch.
+     *
+     * @see #load(ProgressListener)
+     */
+    public Future<Integer> load() {
+        return load(null);
+    }
+
+    /**
+     * Start loading the batch. Returns immediately.
+     *
+     * @param listener
+     *            Progress notifications; may be {@code null}
+     * @return A {@link Future} that is done when every resource in the batch
+     *         has either loaded or failed; its value is the number that
+     *         loaded. Canceling it cancels every resource that has not
+     *         started to load.
+     * @throws IllegalStateException
+     *             If the batch has already been loaded
+     */
+    public synchronized Future<Integer> load(ProgressListener listener) {
+        if (started) {
+            throw new IllegalStateException("This batch has already been loaded");
+        }
+        started = true;
+        this.listener = listener;
+        result = new BatchFuture(entries.size());
+
+        List<Throttler.BatchRequest> requests = new ArrayList<Throttler.BatchRequest>(
+                entries.size());
+        List<Entry<?>> cached = new ArrayList<Entry<?>>();
+        for (Entry<?> entry : entries.values()) {
+            if (entry.cached) {
+                cached.add(entry);
+            } else {
+                requests.add(entry.request());
+            }
+        }
+
+        Log.d(TAG, "load(): %d resources, %d in the texture cache",
+                entries.size(), cached.size());
+
+        if (requests.isEmpty() == false) {
+            Throttler.registerBatch(gvrContext, requests);
+        }
+        for (Entry<?> entry : cached) {
+            entry.finish(true);
+        }
+        return result;
+    }
+
+    private <T extends GVRHybridObject> Entry<?> add(Class<T> outClass,
+            GVRAndroidResource resource, int priority) {
+        if (started) {
+            throw new IllegalStateException("This batch has already been loaded");
+        }
+        if (resource == null) {
+            throw new IllegalArgumentException("resource == null");
+        }
+        if (priority < GVRContext.LOWEST_PRIORITY
+                || priority > GVRContext.HIGHEST_PRIORITY) {
+            throw new IllegalArgumentException(
+                    "Priority < GVRContext.LOWEST_PRIORITY or > GVRContext.HIGHEST_PRIORITY");
+        }
+
+        Entry<?> entry = entries.get(resource);
+        if (entry != null) {
+            if (entry.outClass != outClass) {
+                throw new IllegalArgumentException(String.format(
+                        "%s is already in this batch as a %s", resource,
+                        entry.outClass.getSimpleName()));
+            }
+            if (entry.resource != resource) {
+                // No one will ever read this stream
+                resource.closeStream();
+            }
+            entry.priority = Math.max(entry.priority, priority);
+            return entry;
+        }
+
+        entry = new Entry<T>(outClass, resource, priority);
+        entries.put(resource, entry);
+        return entry;
+    }
+
+    private void finished(boolean loaded) {
+        int loadedSoFar = loaded ? loadedCount.incrementAndGet() : loadedCount
+                .get();
+        int failedSoFar = loaded ? failedCount.get() : failedCount
+                .incrementAndGet();
+
+        ProgressListener listener = this.listener;
+        if (listener != null) {
+            try {
+                listener.onProgress(loadedSoFar, failedSoFar, result.total);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        result.countDown();
+    }
+
+    /**
+     * One resource: its {@link Future}, and the callback that tells the batch
+     * when it is done.
+     */
+    private final class Entry<T extends GVRHybridObject> implements
+            CancelableCallback<T> {
+        final Class<T> outClass;
+        final GVRAndroidResource resource;
+        int priority;
+
+        final FutureResource<T> future = new FutureResource<T>();
+        final boolean cached;
+
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+
+        @SuppressWarnings("unchecked")
+        Entry(Class<T> outClass, GVRAndroidResource resource, int priority) {
+            this.outClass = outClass;
+            this.resource = resource;
+            this.priority = priority;
+
+            T hit = outClass == GVRTexture.class ? (T) textureCache
+                    .get(resource) : null;
+            cached = hit != null;
+            if (cached) {
+                future.callback.loaded(hit, resource);
+                resource.closeStream();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Throttler.BatchRequest request() {
+            if (outClass == GVRTexture.class) {
+                return AsyncBitmapTexture.batchRequest(
+                        textureCache
+                                .wrapCallback((CancelableCallback<GVRTexture>) this),
+                        resource, priority);
+            } else {
+                return AsyncMesh.batchRequest(
+                        (CancelableCallback<GVRMesh>) this, resource, priority);
+            }
+        }
+
+        @Override
+        public void loaded(T data, GVRAndroidResource androidResource) {
+            future.callback.loaded(data, androidResource);
+            finish(true);
+        }
+
+        @Override
+        public void failed(Throwable t, GVRAndroidResource androidResource) {
+            future.callback.failed(t, androidResource);
+            finish(false);
+        }
+
+        @Override
+        public boolean stillWanted(GVRAndroidResource androidResource) {
+            if (future.callback.stillWanted(androidResource)) {
+                return true;
+            }
+            // The scheduler drops canceled requests without a callback
+            finish(false);
+            return false;
+        }
+
+        void finish(boolean loaded) {
+            if (finished.compareAndSet(false, true)) {
+                finished(loaded);
+            }
+        }
+    }
+
+    private final class BatchFuture implements Future<Integer> {
+        final int total;
+        private final CountDownLatch remaining;
+        private volatile boolean canceled = false;
+
+        BatchFuture(int total) {
+            this.total = total;
+            this.remaining = new CountDownLatch(total);
+        }
+
+        void countDown() {
+            remaining.countDown();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (isDone()) {
+                return false;
+            }
+            canceled = true;
+            synchronized (GVRResourceBatch.this) {
+                for (Entry<?> entry : entries.values()) {
+                    entry.future.cancel(mayInterruptIfRunning);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return canceled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return remaining.getCount() == 0;
+        }
+
+        @Override
+        public Integer get() throws InterruptedException, ExecutionException {
+            if (canceled) {
+                throw new CancellationException();
+            }
+            remaining.await();
+            return loadedCount.get();
+        }
+
+        @Override
+        public Integer get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException,
+                TimeoutException {
+            if (canceled) {
+                throw new CancellationException();
+            }
+            if (remaining.await(timeout, unit) == false) {
+                throw new TimeoutException();
+            }
+            return loadedCount.get();
+        }
+    }
+}
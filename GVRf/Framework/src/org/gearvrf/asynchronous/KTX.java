@@ -68,6 +68,15 @@ class KTX extends GVRCompressedTextureLoader {
 
     @Override
     public CompressedTexture parse(byte[] data, Reader reader) {
+        return parse(ByteBuffer.wrap(data), reader);
+    }
+
+    /*
+     * Parses the header in place, and returns a texture whose mip levels are
+     * slices of data: a mapped file goes to GL without being copied.
+     */
+    @Override
+    protected CompressedTexture parse(ByteBuffer data, Reader reader) {
         reader.skip(SIGNATURE.length * Reader.INTEGER_BYTES);
 
         int endianness = reader.readLE(Reader.INTEGER_BYTES);
@@ -128,13 +137,55 @@ class KTX extends GVRCompressedTextureLoader {
         int headerSize = (SIGNATURE.length + 13) * Reader.INTEGER_BYTES
                 + bytesOfKeyValueData;
 
-        ByteBuffer buffer = ByteBuffer.wrap(data, headerSize, data.length
-                - headerSize);
+        if (headerSize > data.remaining()) {
+            throw new RuntimeAssertion("Truncated header: %d of %d bytes",
+                    data.remaining(), headerSize);
+        }
+        ByteBuffer buffer = data.duplicate();
+        buffer.position(buffer.position() + headerSize);
+        buffer = buffer.slice();
+
         return new KtxCompressedTexture(
         /* glBaseInternalFormat */glInternalFormat, pixelWidth, pixelHeight,
                 numberOfMipmapLevels, buffer, littleEndian);
     }
 
+    /**
+     * Splits the texture data into one slice per mip level.
+     * 
+     * Each level is a UInt32 imageSize, in the file's byte order, followed by
+     * imageSize bytes of data and padding to the next multiple of four.
+     */
+    private static ByteBuffer[] sliceLevels(ByteBuffer data, int levels,
+            boolean littleEndian) {
+        ByteBuffer[] slices = new ByteBuffer[levels];
+        ByteBuffer buffer = data.duplicate();
+        buffer.order(littleEndian ? ByteOrder.LITTLE_ENDIAN
+                : ByteOrder.BIG_ENDIAN);
+
+        for (int level = 0; level < levels; ++level) {
+            if (buffer.remaining() < Reader.INTEGER_BYTES) {
+                throw new RuntimeAssertion("Missing mip level %d of %d",
+                        level, levels);
+            }
+            int imageSize = buffer.getInt();
+            if (imageSize < 0 || imageSize > buffer.remaining()) {
+                throw new RuntimeAssertion(
+                        "Truncated mip level %d: imageSize = %d, %d bytes left",
+                        level, imageSize, buffer.remaining());
+            }
+
+            ByteBuffer slice = buffer.slice();
+            slice.limit(imageSize);
+            slices[level] = slice;
+
+            int imagePadding = (4 - (imageSize & 0x03)) & 0x03;
+            buffer.position(Math.min(buffer.limit(), buffer.position()
+                    + imageSize + imagePadding));
+        }
+        return slices;
+    }
+
     private static class KtxReader {
         private final Reader reader;
         private final boolean littleEndian;
@@ -150,48 +201,44 @@ class KTX extends GVRCompressedTextureLoader {
         }
     }
 
-    private static class KtxCompressedTexture extends CompressedTexture {
+    static class KtxCompressedTexture extends CompressedTexture {
         private static final String TAG = Log.tag(KtxCompressedTexture.class);
 
-        private final boolean littleEndian;
+        /** One slice of the texture data per mip level */
+        private final ByteBuffer[] levelData;
 
         private KtxCompressedTexture(int internalformat, int width, int height,
                 int levels, ByteBuffer data, boolean littleEndian) {
             super(internalformat, width, height, -1, levels, data);
-            this.littleEndian = littleEndian;
+            this.levelData = sliceLevels(data, levels, littleEndian);
+        }
+
+        /** The data of mip level {@code level}, positioned at 0 */
+        ByteBuffer getLevel(int level) {
+            return levelData[level].duplicate();
         }
 
         @Override
         public GVRCompressedTexture toTexture(GVRContext gvrContext, int quality) {
             GVRCompressedTexture result = new GVRCompressedTexture(gvrContext,
-                    GVRCompressedTexture.GL_TARGET, levels, quality);
-
-            ByteBuffer data = getData();
-            ByteOrder defaultOrder = data.order();
-            ByteOrder dataOrder = littleEndian ? ByteOrder.LITTLE_ENDIAN
-                    : ByteOrder.BIG_ENDIAN;
+                    GVRCompressedTexture.GL_TARGET, levels, quality,
+                    getData().remaining());
 
             result.rebind();
 
             for (int fileLevel = 0; fileLevel < levels; ++fileLevel) {
-                data.order(dataOrder);
-                int imageSize = data.getInt();
-                data.order(defaultOrder);
-
-                int imagePadding = (4 - (imageSize & 0x03)) & 0x03;
+                ByteBuffer level = getLevel(fileLevel);
+                int imageSize = level.remaining();
 
                 Log.d(TAG,
-                        "Creating level %d as %dx%d, internalformat = %x; imageSize = %d (imagePadding = %d), position = %d",
+                        "Creating level %d as %dx%d, internalformat = %x; imageSize = %d",
                         fileLevel, //
                         width >>> fileLevel, height >>> fileLevel, //
-                        internalformat, imageSize, imagePadding, //
-                        data.position());
+                        internalformat, imageSize);
 
-                // Note that this call does NOT advance the Buffer position
                 GLES30.glCompressedTexImage2D(GL_TEXTURE_2D, fileLevel,
                         internalformat, Math.max(1, width >> fileLevel),
-                        Math.max(1, height >> fileLevel), 0, imageSize, data);
-                data.position(data.position() + imageSize + imagePadding);
+                        Math.max(1, height >> fileLevel), 0, imageSize, level);
             }
 
             result.unbind();
@@ -0,0 +1,53 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.asynchronous;
+
+import org.gearvrf.utility.Threads.Cancelable;
+
+/**
+ * A request the {@link Throttler} schedules by priority. Also carries the
+ * bookkeeping of the {@link PriorityCancelableHeap} it is queued in, so that
+ * the heap can find it without a search.
+ */
+abstract class PriorityCancelable implements Cancelable {
+
+    /** Position in the heap; -1 when not queued */
+    int heapIndex = -1;
+    /** The priority the heap is ordered by: fixed while queued */
+    int queuedPriority;
+    /** When it was (re)queued: later requests of a priority run first */
+    long sequence;
+
+    /**
+     * The value that {@link #getPriority()} returns may be random until
+     * {@link #updatePriority()} is called; once {@link #updatePriority()} has
+     * been called the value that {@link #getPriority()} returns should not
+     * change until {@link #updatePriority()} is called again.
+     *
+     * This allows
+     * {@link org.gearvrf.utility.Threads.ThreadPolicyProvider#reschedule(Cancelable)}
+     * to detect that a request's priority has changed because another
+     * request has been added.
+     */
+    abstract void updatePriority();
+
+    /**
+     * Every request has a priority: the larger the number, the higher
+     * priority. That is, {@link Throttler#LOWEST_PRIORITY} is a negative
+     * number, while {@link Throttler#HIGHEST_PRIORITY} is a positive number.
+     */
+    abstract int getPriority();
+}
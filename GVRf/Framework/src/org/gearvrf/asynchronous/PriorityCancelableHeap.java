@@ -0,0 +1,166 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.asynchronous;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary heap of {@link PriorityCancelable} requests: highest
+ * priority first and, within a priority, the most recently (re)queued
+ * first.
+ *
+ * <p>
+ * Each request remembers its position in the heap, so that
+ * {@link #remove(PriorityCancelable)} and
+ * {@link #reschedule(PriorityCancelable)} are O(log n), like
+ * {@link #add(PriorityCancelable)} and {@link #poll()}. A request can be in
+ * one heap at a time. Not thread-safe.
+ */
+final class PriorityCancelableHeap {
+    private PriorityCancelable[] heap = new PriorityCancelable[16];
+    private int size = 0;
+    private long sequence = 0;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(PriorityCancelable request) {
+        int index = request.heapIndex;
+        return index >= 0 && index < size && heap[index] == request;
+    }
+
+    /** Queue a request, at its current {@link PriorityCancelable#getPriority()} */
+    void add(PriorityCancelable request) {
+        if (request.heapIndex >= 0) {
+            throw new IllegalArgumentException(request + " is already queued");
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        request.queuedPriority = request.getPriority();
+        request.sequence = ++sequence;
+        heap[size] = request;
+        request.heapIndex = size;
+        siftUp(size++);
+    }
+
+    /** The request that should run next, or {@code null} */
+    PriorityCancelable peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /** Remove and return the request that should run next, or {@code null} */
+    PriorityCancelable poll() {
+        return size == 0 ? null : removeAt(0);
+    }
+
+    /** @return {@code false} if {@code request} was not queued */
+    boolean remove(PriorityCancelable request) {
+        if (contains(request) == false) {
+            return false;
+        }
+        removeAt(request.heapIndex);
+        return true;
+    }
+
+    /**
+     * Move a queued request to its current
+     * {@link PriorityCancelable#getPriority()}, ahead of every other request
+     * of that priority.
+     *
+     * @return {@code false} if {@code request} was not queued
+     */
+    boolean reschedule(PriorityCancelable request) {
+        if (contains(request) == false) {
+            return false;
+        }
+        request.queuedPriority = request.getPriority();
+        request.sequence = ++sequence;
+
+        int index = request.heapIndex;
+        siftUp(index);
+        if (request.heapIndex == index) {
+            siftDown(index);
+        }
+        return true;
+    }
+
+    private PriorityCancelable removeAt(int index) {
+        PriorityCancelable removed = heap[index];
+        removed.heapIndex = -1;
+
+        PriorityCancelable last = heap[--size];
+        heap[size] = null;
+        if (index < size) {
+            heap[index] = last;
+            last.heapIndex = index;
+            siftDown(index);
+            if (last.heapIndex == index) {
+                siftUp(index);
+            }
+        }
+        return removed;
+    }
+
+    private void siftUp(int index) {
+        PriorityCancelable request = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (runsBefore(request, heap[parent]) == false) {
+                break;
+            }
+            move(heap[parent], index);
+            index = parent;
+        }
+        move(request, index);
+    }
+
+    private void siftDown(int index) {
+        PriorityCancelable request = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && runsBefore(heap[right], heap[child])) {
+                child = right;
+            }
+            if (runsBefore(heap[child], request) == false) {
+                break;
+            }
+            move(heap[child], index);
+            index = child;
+        }
+        move(request, index);
+    }
+
+    private void move(PriorityCancelable request, int index) {
+        heap[index] = request;
+        request.heapIndex = index;
+    }
+
+    private static boolean runsBefore(PriorityCancelable lhs,
+            PriorityCancelable rhs) {
+        if (lhs.queuedPriority != rhs.queuedPriority) {
+            return lhs.queuedPriority > rhs.queuedPriority;
+        }
+        return lhs.sequence > rhs.sequence;
+    }
+}
@@ -0,0 +1,85 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.asynchronous;
+
+import static org.gearvrf.utility.Threads.VERBOSE_SCHEDULING;
+
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.Threads.Cancelable;
+import org.gearvrf.utility.Threads.ThreadPolicyProvider;
+
+/**
+ * The {@link Throttler}'s request queue: highest priority first, and most
+ * recent first within a priority.
+ *
+ * Rescheduling is O(log n), through the {@link PriorityCancelableHeap}.
+ * Canceled requests are dropped lazily, when they reach the head of the
+ * queue: only the head's {@link Cancelable#stillWanted()} is ever checked.
+ */
+class PriorityCancelingLifoThreadPolicyProvider implements
+        ThreadPolicyProvider<PriorityCancelable> {
+    private static final String TAG = Log
+            .tag(PriorityCancelingLifoThreadPolicyProvider.class);
+
+    private final PriorityCancelableHeap queue = new PriorityCancelableHeap();
+
+    /**
+     * Number of queued requests, including canceled requests that have
+     * not reached the head yet. Only changed under the thread limiter's
+     * lock; volatile so that {@link #size()} can read it without.
+     */
+    private volatile int size = 0;
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public void put(PriorityCancelable procedure) {
+        queue.add(procedure);
+        size = queue.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (PriorityCancelable first = queue.peek(); first != null; first = queue
+                .peek()) {
+            if (first.stillWanted()) {
+                return false;
+            }
+            queue.poll();
+            size = queue.size();
+        }
+        return true;
+    }
+
+    @Override
+    public Runnable get() {
+        Runnable threadProc = queue.poll();
+        size = queue.size();
+        return threadProc;
+    }
+
+    @Override
+    public void reschedule(PriorityCancelable threadProc) {
+        threadProc.updatePriority();
+        if (queue.reschedule(threadProc) == false && VERBOSE_SCHEDULING) {
+            Log.d(TAG,
+                    "reschedule() didn't find %s - it must be running (or have already run)",
+                    threadProc);
+        }
+    }
+}
@@ -18,11 +18,14 @@ package org.gearvrf.asynchronous;
 import static org.gearvrf.utility.Threads.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.gearvrf.GVRAndroidResource;
 import org.gearvrf.GVRContext;
@@ -39,7 +42,6 @@ import org.gearvrf.utility.Threads.ThreadLimiter;
 import org.gearvrf.utility.Threads.ThreadPolicyProvider;
 
 import android.graphics.Bitmap;
-import android.util.SparseArray;
 
 /**
  * Asynchronous, heterogeneous resource loading with integrated thread
@@ -66,6 +68,50 @@ abstract class Throttler {
                 priority);
     }
 
+    /**
+     * Register several requests at once.
+     * 
+     * Each request is consolidated with any pending request for the same
+     * resource, just like
+     * {@link #registerCallback(GVRContext, Class, CancelableCallback, GVRAndroidResource, int)}
+     * does. The rest are sorted by priority, then grouped by
+     * {@linkplain GVRAndroidResource#getResourceType() source}, and each group
+     * is split into a few chunks: a chunk is scheduled as a single request,
+     * and loads its resources one after another on the same thread. This
+     * keeps reads from one source together, and spares many small loads most
+     * of the per-request scheduling overhead.
+     */
+    static void registerBatch(GVRContext gvrContext, List<BatchRequest> batch) {
+        requests.registerBatch(gvrContext, batch);
+    }
+
+    /** One request of a {@linkplain #registerBatch(GVRContext, List) batch} */
+    static final class BatchRequest {
+        final Class<? extends GVRHybridObject> outClass;
+        final CancelableCallback<? extends GVRHybridObject> callback;
+        final GVRAndroidResource request;
+        final int priority;
+
+        BatchRequest(Class<? extends GVRHybridObject> outClass,
+                CancelableCallback<? extends GVRHybridObject> callback,
+                GVRAndroidResource request, int priority) {
+            this.outClass = outClass;
+            this.callback = callback;
+            this.request = request;
+            this.priority = priority;
+        }
+    }
+
+    /** Number of requests waiting for a loader thread */
+    static int getQueuedCount() {
+        return requests.threadPolicy.size();
+    }
+
+    /** Number of requests being read and decoded */
+    static int getLoadingCount() {
+        return loadingCount.get();
+    }
+
     /*
      * Static constants
      */
@@ -92,6 +138,16 @@ abstract class Throttler {
      */
     private static final int DECODE_THREAD_LIMIT = Math.max(CORE_COUNT - 1, 1);
 
+    /**
+     * Max requests in one chunk of a batch. Small enough that a chunk does
+     * not hold a thread for long, so that more urgent requests still get to
+     * run soon.
+     */
+    private static final int MAX_BATCH_CHUNK = 16;
+
+    /** Number of {@link AsyncLoader}s in {@link AsyncLoader#run()} */
+    private static final AtomicInteger loadingCount = new AtomicInteger();
+
     /*
      * Extension points
      */
@@ -130,11 +186,12 @@ abstract class Throttler {
      * thread. The {@link #run()} method calls {@link #loadResource()} which
      * does the actual work of reading the {@link GVRAndroidResource} stream and
      * converting it to the {@code INTERMEDIATE} type. If the load succeeds,
-     * {@code run()} pushes a {@code Runnable} to the GL thread, which does any
-     * needed conversions (like {@code Bitmap} to {@code GVRTGexture}) and then
-     * calls the app's
+     * {@code run()} queues an upload on the {@link UploadScheduler}, which
+     * does any needed conversions (like {@code Bitmap} to {@code GVRTexture})
+     * and then calls the app's
      * {@link Callback#loaded(GVRHybridObject, GVRAndroidResource) loaded()}
-     * callback from the GL thread. If the load throws an exception or returns
+     * callback from the GL thread. Uploads run in request priority order,
+     * within a per-frame budget. If the load throws an exception or returns
      * {@code null}, {@code run()} calls the app's
      * {@link Callback#failed(Throwable, GVRAndroidResource) failed()} callback,
      * from the background thread.
@@ -171,29 +228,35 @@ abstract class Throttler {
         @Override
         public void run() {
             INTERMEDIATE async = null;
+            loadingCount.incrementAndGet();
             try {
                 async = loadResource(); // load resource, on background thread
             } catch (Throwable t) {
                 t.printStackTrace();
-                async = null;
                 callback.failed(t, resource);
+                return;
             } finally {
-                if (async != null) {
-                    final INTERMEDIATE loadedResource = async;
-                    gvrContext.runOnGlThread(new Runnable() {
+                loadingCount.decrementAndGet();
+            }
+
+            if (async == null) {
+                // loadResource() returned null
+                callback.failed(null, resource);
+                return;
+            }
+
+            final INTERMEDIATE loadedResource = async;
+            UploadScheduler.getInstance(gvrContext).add(
+                    new UploadScheduler.Upload(getPriority(),
+                            getUploadSize(loadedResource)) {
 
                         @Override
-                        public void run() {
+                        void upload() {
                             OUTPUT gvrfResource = converter.convert(gvrContext,
                                     loadedResource);
                             callback.loaded(gvrfResource, resource);
                         }
                     });
-                } else {
-                    // loadResource() returned null
-                    callback.failed(null, resource);
-                }
-            }
         }
 
         @Override
@@ -201,6 +264,24 @@ abstract class Throttler {
             return callback.stillWanted(resource);
         }
 
+        /** The request's priority, as of now */
+        private int getPriority() {
+            if (callback instanceof PriorityCancelable) {
+                return ((PriorityCancelable) callback).getPriority();
+            }
+            return GVRContext.DEFAULT_PRIORITY;
+        }
+
+        /**
+         * Estimated number of bytes that converting {@code resource} will
+         * send to GL, for the per-frame upload budget.
+         * 
+         * @return 0, unless overridden
+         */
+        protected long getUploadSize(INTERMEDIATE resource) {
+            return 0;
+        }
+
         /**
          * Reads {@link #resource}; returns a Java data type, which may need
          * conversion before being passed to the app's
@@ -250,6 +331,18 @@ abstract class Throttler {
     // be wrong ....
     private static final PendingRequests requests = new PendingRequests();
 
+    /** Highest priority first; then by source */
+    private static final Comparator<BatchRequest> BATCH_ORDER = new Comparator<BatchRequest>() {
+        @Override
+        public int compare(BatchRequest lhs, BatchRequest rhs) {
+            if (lhs.priority != rhs.priority) {
+                return lhs.priority > rhs.priority ? -1 : 1;
+            }
+            return lhs.request.getResourceType().compareTo(
+                    rhs.request.getResourceType());
+        }
+    };
+
     /**
      * This is the 'heart' of the throttler.
      * 
@@ -279,9 +372,10 @@ abstract class Throttler {
 
         >();
 
+        private final PriorityCancelingLifoThreadPolicyProvider threadPolicy = new PriorityCancelingLifoThreadPolicyProvider();
+
         private final ThreadLimiter<PriorityCancelable> deviceThreadLimiter = new ThreadLimiter<PriorityCancelable>(
-                DECODE_THREAD_LIMIT,
-                new PriorityCancelingLifoThreadPolicyProvider(),
+                DECODE_THREAD_LIMIT, threadPolicy,
                 /* Don't exceed DECODE_THREAD_LIMIT when a download gets wedged */
                 Integer.MAX_VALUE);
 
@@ -314,23 +408,7 @@ abstract class Throttler {
                 PendingRequest pending = pendingRequests.get(request);
 
                 if (pending != null) {
-                    if (request == pending.request) {
-                        throw new IllegalArgumentException(
-                                "Tried to load the same GVRAndroidResource more than once - each async load call should use a new GVRAndroidResource");
-                    }
-
-                    // There is already a request for this resource: add
-                    // callback, and reschedule
-
-                    pending.addCallback(callback, priority);
-                    if (VERBOSE_SCHEDULING) {
-                        Log.d(TAG, "Thread %d: rescheduling %s for request %s",
-                                threadId(), pending, request);
-                    }
-                    threadLimiter.reschedule(pending);
-
-                    // No one will ever read this stream
-                    request.closeStream();
+                    consolidate(pending, callback, request, priority);
                 } else {
                     // There is no current request for this resource. Create a
                     // new PendingRequest, using a threadFactory to create the
@@ -349,8 +427,164 @@ abstract class Throttler {
             }
         }
 
-        private class PendingRequest implements
-                CancelableCallback<GVRHybridObject>, PriorityCancelable {
+        /*
+         * Called with the pendingRequests lock held
+         */
+        private void consolidate(PendingRequest pending,
+                CancelableCallback<? extends GVRHybridObject> callback,
+                GVRAndroidResource request, int priority) {
+            if (request == pending.request) {
+                throw new IllegalArgumentException(
+                        "Tried to load the same GVRAndroidResource more than once - each async load call should use a new GVRAndroidResource");
+            }
+
+            // There is already a request for this resource: add
+            // callback, and reschedule
+
+            pending.addCallback(callback, priority);
+            // A request loaded as part of a batch chunk is only queued as
+            // part of the chunk
+            PriorityCancelable scheduled = pending.chunk != null ? pending.chunk
+                    : pending;
+            if (VERBOSE_SCHEDULING) {
+                Log.d(TAG, "Thread %d: rescheduling %s for request %s",
+                        threadId(), scheduled, request);
+            }
+            deviceThreadLimiter.reschedule(scheduled);
+
+            // No one will ever read this stream
+            request.closeStream();
+        }
+
+        void registerBatch(GVRContext gvrContext, List<BatchRequest> batch) {
+            List<BatchRequest> sorted = new ArrayList<BatchRequest>(batch);
+            // A stable sort, so each group keeps the batch order
+            Collections.sort(sorted, BATCH_ORDER);
+
+            List<List<PendingRequest>> groups = new ArrayList<List<PendingRequest>>();
+            synchronized (pendingRequests) {
+                List<PendingRequest> group = null;
+                BatchRequest previous = null;
+                for (BatchRequest entry : sorted) {
+                    if (RUNTIME_ASSERTIONS) {
+                        if (entry.request == null || entry.callback == null) {
+                            throw Exceptions
+                                    .IllegalArgument("request and callback must not be null");
+                        }
+                    }
+
+                    PendingRequest pending = pendingRequests.get(entry.request);
+                    if (pending != null) {
+                        consolidate(pending, entry.callback, entry.request,
+                                entry.priority);
+                        continue;
+                    }
+
+                    pending = new PendingRequest(gvrContext, entry.request,
+                            entry.callback, entry.priority, entry.outClass);
+                    pendingRequests.put(entry.request, pending);
+
+                    if (group == null || BATCH_ORDER.compare(previous, entry) != 0) {
+                        group = new ArrayList<PendingRequest>();
+                        groups.add(group);
+                    }
+                    group.add(pending);
+                    previous = entry;
+                }
+            }
+
+            for (List<PendingRequest> group : groups) {
+                // Enough chunks to keep every loader thread busy
+                int chunks = Math.max(Math.min(group.size(), DECODE_THREAD_LIMIT),
+                        (group.size() + MAX_BATCH_CHUNK - 1) / MAX_BATCH_CHUNK);
+                for (int chunk = 0; chunk < chunks; ++chunk) {
+                    int start = group.size() * chunk / chunks;
+                    int end = group.size() * (chunk + 1) / chunks;
+                    BatchChunk batchChunk = new BatchChunk(group.subList(start,
+                            end));
+                    if (VERBOSE_SCHEDULING) {
+                        Log.d(TAG, "Thread %d: spawning %s", threadId(),
+                                batchChunk);
+                    }
+                    deviceThreadLimiter.spawn(batchChunk);
+                }
+            }
+        }
+
+        /**
+         * Several requests, scheduled as one. Loads them one at a time, in
+         * order. Its priority is the highest of the requests it has yet to
+         * load, so rescheduling one of them reschedules the chunk.
+         */
+        private class BatchChunk extends PriorityCancelable {
+            private final List<PendingRequest> content;
+            private int priority;
+
+            BatchChunk(List<PendingRequest> content) {
+                this.content = new ArrayList<PendingRequest>(content);
+                for (PendingRequest pending : content) {
+                    pending.chunk = this;
+                }
+                updatePriority();
+            }
+
+            @Override
+            public void run() {
+                for (PendingRequest pending = next(); pending != null; pending = next()) {
+                    if (pending.stillWanted()) {
+                        try {
+                            pending.run();
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            }
+
+            private synchronized PendingRequest next() {
+                return content.isEmpty() ? null : content.remove(0);
+            }
+
+            /*
+             * PendingRequest.stillWanted() forgets a request that is no
+             * longer wanted, so each request must only see it return false
+             * once: drop it from the chunk when it does.
+             */
+            @Override
+            public synchronized boolean stillWanted() {
+                for (Iterator<PendingRequest> iterator = content.iterator(); iterator
+                        .hasNext();) {
+                    if (iterator.next().stillWanted() == false) {
+                        iterator.remove();
+                    }
+                }
+                return content.isEmpty() == false;
+            }
+
+            @Override
+            public int getPriority() {
+                return priority;
+            }
+
+            @Override
+            public synchronized void updatePriority() {
+                int highest = GVRContext.LOWEST_PRIORITY;
+                for (PendingRequest pending : content) {
+                    pending.updatePriority();
+                    highest = Math.max(highest, pending.getPriority());
+                }
+                priority = highest;
+            }
+
+            @Override
+            public synchronized String toString() {
+                return String.format("BatchChunk{priority=%d, size=%d}",
+                        priority, content.size());
+            }
+        }
+
+        private class PendingRequest extends PriorityCancelable implements
+                CancelableCallback<GVRHybridObject> {
 
             private final String TAG = Log.tag(PendingRequest.class);
 
@@ -362,6 +596,8 @@ abstract class Throttler {
             private final Cancelable cancelable;
             private int priority = EMPTY_LIST;
             private int highestPriority = priority;
+            /** The batch chunk that loads this request, if any */
+            private volatile BatchChunk chunk = null;
 
             public PendingRequest(GVRContext gvrContext,
                     GVRAndroidResource request,
@@ -473,8 +709,34 @@ abstract class Throttler {
 
             @Override
             public void failed(Throwable t, GVRAndroidResource androidResource) {
-                throw Exceptions
-                        .RuntimeAssertion("Not expecting this to be called");
+                if (VERBOSE_SCHEDULING) {
+                    Log.d(TAG, "%s failed(%s, %s), thread %d: request %s",
+                            this, t, androidResource, threadId(), request);
+                }
+
+                /*
+                 * Forget this request first: a request that comes in while we
+                 * are notifying will try again, rather than wait forever.
+                 */
+                List<CancelableCallback<? extends GVRHybridObject>> listeners;
+                synchronized (pendingRequests) {
+                    synchronized (callbacks) {
+                        listeners = new ArrayList<CancelableCallback<? extends GVRHybridObject>>(
+                                callbacks);
+                        callbacks.clear();
+                    }
+                    if (pendingRequests.get(request) == this) {
+                        pendingRequests.remove(request);
+                    }
+                }
+
+                for (CancelableCallback<? extends GVRHybridObject> callback : listeners) {
+                    try {
+                        callback.failed(t, androidResource);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
             }
 
             @Override
@@ -499,14 +761,14 @@ abstract class Throttler {
             @Override
             public boolean stillWanted() {
                 synchronized (callbacks) {
-                    List<CancelableCallback<? extends GVRHybridObject>> canceled = new ArrayList<CancelableCallback<? extends GVRHybridObject>>(
-                            callbacks.size());
-                    for (CancelableCallback<? extends GVRHybridObject> callback : callbacks) {
-                        if (callback.stillWanted(request) != true) {
-                            canceled.add(callback);
+                    // Called for every request that reaches the head of the
+                    // queue: drop canceled callbacks in place
+                    for (Iterator<CancelableCallback<? extends GVRHybridObject>> iterator = callbacks
+                            .iterator(); iterator.hasNext();) {
+                        if (iterator.next().stillWanted(request) != true) {
+                            iterator.remove();
                         }
                     }
-                    callbacks.removeAll(canceled);
 
                     boolean cancel = callbacks.size() == 0;
 
@@ -538,142 +800,4 @@ abstract class Throttler {
             }
         }
     }
-
-    private interface PriorityCancelable extends Cancelable {
-
-        /**
-         * The value that {@link #getPriority()} returns may be random until
-         * {@link #updatePriority()} is called; once {@link #updatePriority()}
-         * has been called the value that {@link #getPriority()} returns should
-         * not change until {@link #updatePriority()} is called again.
-         * 
-         * This allows {@link ThreadPolicyProvider#reschedule(Cancelable)} to
-         * detect that a group's priority has changed because another request
-         * has been added.
-         */
-        void updatePriority();
-
-        /**
-         * Every request has a priority: the larger the number, the higher
-         * priority. That is, {@link Throttler#LOWEST_PRIORITY} is a negative
-         * number, while {@link Throttler#HIGHEST_PRIORITY} is a positive
-         * number.
-         */
-        int getPriority();
-    }
-
-    private static class PriorityGroup implements Comparable<PriorityGroup> {
-        private int priority;
-        final List<PriorityCancelable> content = new ArrayList<PriorityCancelable>();
-
-        public PriorityGroup(int priority) {
-            this.priority = priority;
-        }
-
-        @Override
-        public int compareTo(PriorityGroup another) {
-            // Reverse order: Integer.MAX_VALUE is a higher priority than
-            // Integer.MIN_VALUE
-            return another.priority - priority;
-        }
-    }
-
-    private static class PriorityCancelingLifoThreadPolicyProvider implements
-            ThreadPolicyProvider<PriorityCancelable> {
-
-        private final PriorityQueue<PriorityGroup> queue = new PriorityQueue<PriorityGroup>();
-        private final SparseArray<PriorityGroup> groups = new SparseArray<PriorityGroup>();
-
-        private void addGroup(int priority, PriorityGroup newGroup) {
-            queue.add(newGroup);
-            groups.put(priority, newGroup);
-        }
-
-        private void removeGroup(PriorityGroup group) {
-            queue.remove(group);
-            groups.delete(group.priority);
-        }
-
-        @Override
-        public void put(PriorityCancelable procedure) {
-            int priority = procedure.getPriority();
-
-            PriorityGroup group = groups.get(priority);
-            if (group != null) {
-                group.content.add(procedure);
-                return;
-            }
-
-            PriorityGroup newGroup = new PriorityGroup(priority);
-            newGroup.content.add(procedure);
-            addGroup(priority, newGroup);
-        }
-
-        @Override
-        public boolean isEmpty() {
-            while (queue.size() > 0) {
-                PriorityGroup first = queue.peek();
-
-                List<Cancelable> cancel = new ArrayList<Cancelable>();
-                for (Cancelable cancelable : first.content) {
-                    // Find cancelable requests
-                    if (cancelable.stillWanted() != true) {
-                        cancel.add(cancelable);
-                    }
-                }
-                first.content.removeAll(cancel);
-
-                if (first.content.size() > 0) {
-                    return false;
-                }
-
-                // remove empty group
-                removeGroup(first);
-            }
-
-            return true;
-        }
-
-        @Override
-        public Runnable get() {
-            PriorityGroup first = queue.peek();
-            if (first == null) {
-                return null;
-            }
-
-            List<PriorityCancelable> content = first.content;
-            Cancelable threadProc = content.remove(content.size() - 1);
-            if (content.isEmpty()) {
-                removeGroup(first);
-            }
-            return threadProc;
-        }
-
-        @Override
-        public void reschedule(PriorityCancelable threadProc) {
-            int priority = threadProc.getPriority();
-            threadProc.updatePriority();
-            int newPriority = threadProc.getPriority();
-
-            PriorityGroup group = groups.get(priority);
-            if (group != null) {
-                if (group.content.remove(threadProc)) {
-                    if (priority == newPriority) {
-
-                        group.content.add(threadProc);
-                    } else {
-                        put(threadProc);
-                    }
-                    if (group.content.isEmpty()) {
-                        removeGroup(group);
-                    }
-                } else if (VERBOSE_SCHEDULING) {
-                    Log.d(TAG,
-                            "reschedule() didn't find %s - it must be running (or have already run)",
-                            threadProc);
-                }
-                return;
-            }
-        }
-    }
 }
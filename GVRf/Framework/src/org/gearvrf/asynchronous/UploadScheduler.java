@@ -0,0 +1,186 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.asynchronous;
+
+import java.util.PriorityQueue;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRDrawFrameListener;
+import org.gearvrf.utility.Exceptions;
+
+/**
+ * The last stage of asynchronous loading: runs GL uploads, a few per frame.
+ *
+ * <p>
+ * Background loaders finish in bursts - a scene that requests fifty textures
+ * may get most of them back at once - and uploading them all in the same
+ * frame drops frames. Instead, finished loads are queued here, and each frame
+ * runs uploads in priority order until it has spent its budget, in bytes or
+ * in milliseconds. The first upload of a frame always runs, so the queue
+ * drains even when a single upload is larger than the budget.
+ *
+ * <p>
+ * Uploads run from a {@link GVRDrawFrameListener}, after the
+ * {@linkplain GVRContext#runOnGlThread(Runnable) 'one shot' queue} and before
+ * {@code GVRScript.onStep()}.
+ */
+final class UploadScheduler implements GVRDrawFrameListener {
+
+    /** No limit on the bytes uploaded per frame */
+    static final long UNLIMITED_BYTES = Long.MAX_VALUE;
+
+    /**
+     * Default time budget: about a third of a 90 Hz frame, leaving the rest for the
+     * app and the renderer.
+     */
+    static final float DEFAULT_MILLISECONDS_PER_FRAME = 4f;
+
+    private static final long NANOSECONDS_PER_MILLISECOND = 1000 * 1000;
+
+    /**
+     * Something to do on the GL thread, with the information needed to
+     * schedule it.
+     */
+    static abstract class Upload implements Comparable<Upload> {
+        private final int priority;
+        private final long byteCount;
+        private long sequence;
+
+        /**
+         * @param priority
+         *            Larger numbers run first; see
+         *            {@link GVRContext#DEFAULT_PRIORITY}
+         * @param byteCount
+         *            Estimated size of the upload; 0 if unknown or negligible
+         */
+        Upload(int priority, long byteCount) {
+            this.priority = priority;
+            this.byteCount = byteCount;
+        }
+
+        /** Called on the GL thread */
+        abstract void upload();
+
+        @Override
+        public int compareTo(Upload another) {
+            // Higher priority first; then first come, first served
+            if (priority != another.priority) {
+                return priority > another.priority ? -1 : 1;
+            }
+            return sequence < another.sequence ? -1
+                    : (sequence == another.sequence ? 0 : 1);
+        }
+    }
+
+    private static UploadScheduler sInstance = null;
+
+    static {
+        GVRContext.addResetOnRestartHandler(new Runnable() {
+
+            @Override
+            public void run() {
+                sInstance = null;
+            }
+        });
+    }
+
+    /** The scheduler for {@code gvrContext}'s GL thread. */
+    static synchronized UploadScheduler getInstance(GVRContext gvrContext) {
+        if (sInstance == null) {
+            sInstance = new UploadScheduler(gvrContext);
+        }
+        return sInstance;
+    }
+
+    /** The scheduler, if one has been created. */
+    static synchronized UploadScheduler peekInstance() {
+        return sInstance;
+    }
+
+    private final PriorityQueue<Upload> mQueue = new PriorityQueue<Upload>();
+    private long mSequence = 0;
+
+    private volatile long mMaxBytesPerFrame = UNLIMITED_BYTES;
+    private volatile long mMaxNanosPerFrame = (long) (DEFAULT_MILLISECONDS_PER_FRAME
+            * NANOSECONDS_PER_MILLISECOND);
+
+    private UploadScheduler(GVRContext gvrContext) {
+        gvrContext.registerDrawFrameListener(this);
+    }
+
+    /**
+     * Set the per-frame budget. Uploads stop for the frame as soon as either
+     * limit is reached.
+     *
+     * @param maxBytes
+     *            Bytes uploaded per frame, or {@link #UNLIMITED_BYTES}
+     * @param maxMilliseconds
+     *            Time spent uploading per frame, or
+     *            {@link Float#POSITIVE_INFINITY}
+     */
+    void setBudget(long maxBytes, float maxMilliseconds) {
+        if (maxBytes <= 0) {
+            throw Exceptions.IllegalArgument("maxBytes must be > 0");
+        }
+        if (maxMilliseconds <= 0 || Float.isNaN(maxMilliseconds)) {
+            throw Exceptions.IllegalArgument("maxMilliseconds must be > 0");
+        }
+        mMaxBytesPerFrame = maxBytes;
+        mMaxNanosPerFrame = Float.isInfinite(maxMilliseconds) ? Long.MAX_VALUE
+                : (long) (maxMilliseconds * NANOSECONDS_PER_MILLISECOND);
+    }
+
+    /** Queue an upload; may be called from any thread. */
+    void add(Upload upload) {
+        synchronized (mQueue) {
+            upload.sequence = mSequence++;
+            mQueue.add(upload);
+        }
+    }
+
+    /** Number of uploads waiting for the GL thread. */
+    int size() {
+        synchronized (mQueue) {
+            return mQueue.size();
+        }
+    }
+
+    @Override
+    public void onDrawFrame(float frameTime) {
+        final long maxBytes = mMaxBytesPerFrame;
+        final long maxNanos = mMaxNanosPerFrame;
+        final long start = System.nanoTime();
+
+        long bytes = 0;
+        for (int count = 0;; ++count) {
+            Upload next;
+            synchronized (mQueue) {
+                next = mQueue.peek();
+                if (next == null
+                        || (count > 0 && next.byteCount > maxBytes - bytes)) {
+                    return;
+                }
+                mQueue.poll();
+            }
+
+            next.upload();
+            bytes += next.byteCount;
+            if (System.nanoTime() - start >= maxNanos) {
+                return;
+            }
+        }
+    }
+}
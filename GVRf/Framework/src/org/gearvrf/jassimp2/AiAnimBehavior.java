@@ -93,6 +93,18 @@ public enum AiAnimBehavior {
         throw new IllegalArgumentException("unexptected raw value: " + 
                 rawValue);
     }
+    
+    
+    /**
+     * Utility method for converting from java enums to c/c++ based integer 
+     * enums.<p>
+     * 
+     * @param type the type to convert
+     * @return the c/c++ integer enum value of type
+     */
+    static int toRawValue(AiAnimBehavior type) {
+        return type.m_rawValue;
+    }
 
 
     /**
@@ -292,6 +292,18 @@ public final class AiMaterial {
         }
 
 
+        /**
+         * Utility method for converting from java enums to c/c++ based 
+         * integer enums.<p>
+         * 
+         * @param type the type to convert
+         * @return the c/c++ integer enum value of type
+         */
+        static int toRawValue(PropertyType type) {
+            return type.m_rawValue;
+        }
+
+
         /**
          * Constructor.
          * 
@@ -1177,17 +1189,28 @@ public final class AiMaterial {
     
     
     /**
-     * This method is used by JNI, do not call or modify.
+     * This method is used by JNI and {@link GVRJassimpCache}, do not call or
+     * modify.
      * 
      * @param type the type
      * @param number the number
      */
-    @SuppressWarnings("unused")
-    private void setTextureNumber(int type, int number) {
+    void setTextureNumber(int type, int number) {
         m_numTextures.put(AiTextureType.fromRawValue(type), number);
     }
     
     
+    /**
+     * Returns the number of textures of each type that has been set, for 
+     * {@link GVRJassimpCache}.
+     * 
+     * @return the texture numbers
+     */
+    Map<AiTextureType, Integer> getTextureNumbers() {
+        return m_numTextures;
+    }
+    
+    
     /**
      * List of properties.
      */
@@ -1337,6 +1337,68 @@ public final class AiMesh {
     // }}
     
     
+    // {{ Cache interface
+    /**
+     * Creates a mesh from buffers read back by {@link GVRJassimpCache}.<p>
+     * 
+     * The buffers are native order direct byte buffers, laid out as the ones
+     * allocated for JNI, and the mesh keeps them.
+     * 
+     * @param name the mesh name
+     * @param materialIndex the material index
+     * @param primitiveTypes the bitwise or'ed c/c++ aiPrimitiveType enum values
+     * @param numVertices the number of vertices in the mesh
+     * @param numFaces the number of faces in the mesh
+     * @param vertices the positions, or null
+     * @param faces the faces, or null
+     * @param faceOffsets the face offsets, or null for optimized faces
+     */
+    AiMesh(String name, int materialIndex, int primitiveTypes,
+            int numVertices, int numFaces, ByteBuffer vertices,
+            ByteBuffer faces, ByteBuffer faceOffsets) {
+        m_name = name;
+        m_materialIndex = materialIndex;
+        AiPrimitiveType.fromRawValue(m_primitiveTypes, primitiveTypes);
+        m_numVertices = numVertices;
+        m_numFaces = numFaces;
+        m_vertices = vertices;
+        m_faces = faces;
+        m_faceOffsets = faceOffsets;
+    }
+    
+    
+    /**
+     * Sets the normals, tangents and bitangents of a mesh read back by
+     * {@link GVRJassimpCache}. Any of them can be null.
+     */
+    void setVectorChannels(ByteBuffer normals, ByteBuffer tangents,
+            ByteBuffer bitangents) {
+        m_normals = normals;
+        m_tangents = tangents;
+        m_bitangents = bitangents;
+    }
+    
+    
+    /**
+     * Sets a color set of a mesh read back by {@link GVRJassimpCache}.
+     */
+    void setColorBuffer(int colorset, ByteBuffer colors) {
+        m_colorsets[colorset] = colors;
+    }
+    
+    
+    /**
+     * Sets a texture coordinate set of a mesh read back by 
+     * {@link GVRJassimpCache}.
+     */
+    void setTexCoordBuffer(int coords, int numComponents, 
+            ByteBuffer texCoords) {
+        m_numUVComponents[coords] = numComponents;
+        m_texcoords[coords] = texCoords;
+    }
+    // }}
+    
+    
     /**
      * The primitive types used by this mesh.
      */
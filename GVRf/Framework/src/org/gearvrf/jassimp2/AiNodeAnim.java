@@ -114,6 +114,33 @@ public final class AiNodeAnim {
     }
     
     
+    /**
+     * Constructor, for channels read back by {@link GVRJassimpCache}.<p>
+     * 
+     * The key buffers are native order direct byte buffers, laid out as the
+     * ones allocated for JNI, and the channel keeps them.
+     * 
+     * @param nodeName name of corresponding scene graph node
+     * @param posKeys the position keys
+     * @param rotKeys the rotation keys
+     * @param scaleKeys the scaling keys
+     * @param preBehavior behavior before animation start
+     * @param postBehavior behavior after animation end
+     */
+    AiNodeAnim(String nodeName, ByteBuffer posKeys, ByteBuffer rotKeys, 
+            ByteBuffer scaleKeys, int preBehavior, int postBehavior) {
+        m_nodeName = nodeName;
+        m_numPosKeys = posKeys.capacity() / POS_KEY_SIZE;
+        m_numRotKeys = rotKeys.capacity() / ROT_KEY_SIZE;
+        m_numScaleKeys = scaleKeys.capacity() / SCALE_KEY_SIZE;
+        m_preState = AiAnimBehavior.fromRawValue(preBehavior);
+        m_postState = AiAnimBehavior.fromRawValue(postBehavior);
+        m_posKeys = posKeys;
+        m_rotKeys = rotKeys;
+        m_scaleKeys = scaleKeys;
+    }
+    
+    
     /** 
      * Returns the name of the scene graph node affected by this animation.<p>
      * 
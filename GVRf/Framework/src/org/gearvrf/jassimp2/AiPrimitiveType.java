@@ -96,6 +96,24 @@ public enum AiPrimitiveType {
     }
     
     
+    /**
+     * Utility method for converting from java enums to c/c++ based integer 
+     * enums.<p>
+     * 
+     * @param set the set to convert
+     * @return the bitwise or'ed c/c++ integer enum values of set
+     */
+    static int toRawValue(Set<AiPrimitiveType> set) {
+        int rawValue = 0;
+        
+        for (AiPrimitiveType type : set) {
+            rawValue |= type.m_rawValue;
+        }
+        
+        return rawValue;
+    }
+    
+    
     /**
      * Constructor.
      * 
@@ -64,6 +64,16 @@ public final class AiScene {
     }
     
     
+    /**
+     * Sets the root node of a scene read back by {@link GVRJassimpCache}.
+     * 
+     * @param sceneRoot the wrapped root node
+     */
+    void setSceneRoot(Object sceneRoot) {
+        m_sceneRoot = sceneRoot;
+    }
+    
+    
     /**
      * Returns the number of meshes contained in the scene.<p>
      * 
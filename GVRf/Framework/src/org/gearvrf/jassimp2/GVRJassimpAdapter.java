@@ -1,6 +1,5 @@
 package org.gearvrf.jassimp2;
 
-import java.nio.CharBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
@@ -55,49 +54,31 @@ public class GVRJassimpAdapter {
     public GVRMesh createMesh(GVRContext ctx, AiMesh aiMesh) {
         GVRMesh mesh = new GVRMesh(ctx);
 
+        // The buffers are direct, so the mesh takes them as they are
         // Vertices
         FloatBuffer verticesBuffer = aiMesh.getPositionBuffer();
         if (verticesBuffer != null) {
-            float[] verticesArray = new float[verticesBuffer.capacity()];
-            verticesBuffer.get(verticesArray, 0, verticesBuffer.capacity());
-            mesh.setVertices(verticesArray);
+            mesh.setVertices(verticesBuffer);
         }
 
         // Normals
         FloatBuffer normalsBuffer = aiMesh.getNormalBuffer();
         if (normalsBuffer != null) {
-            float[] normalsArray = new float[normalsBuffer.capacity()];
-            normalsBuffer.get(normalsArray, 0, normalsBuffer.capacity());
-            mesh.setNormals(normalsArray);
+            mesh.setNormals(normalsBuffer);
         }
 
         // TexCoords
         final int coordIdx = 0;
-        FloatBuffer fbuf = aiMesh.getTexCoordBuffer(coordIdx);
-        if (fbuf != null) {
-            FloatBuffer coords = FloatBuffer.allocate(aiMesh.getNumVertices() * 2);
-            if (aiMesh.getNumUVComponents(coordIdx) == 2) {
-                FloatBuffer coordsSource = aiMesh.getTexCoordBuffer(coordIdx);
-                coords.put(coordsSource);
-            } else {
-                for (int i = 0; i < aiMesh.getNumVertices(); ++i) {
-                    float u = aiMesh.getTexCoordU(i, coordIdx);
-                    float v = aiMesh.getTexCoordV(i, coordIdx);
-                    coords.put(u);
-                    coords.put(v);
-                }
-            }
-            mesh.setTexCoords(coords.array());
+        FloatBuffer coordsBuffer = aiMesh.getTexCoordBuffer(coordIdx);
+        if (coordsBuffer != null) {
+            mesh.setTexCoords(coordsBuffer,
+                    aiMesh.getNumUVComponents(coordIdx));
         }
 
         // Triangles
         IntBuffer indexBuffer = aiMesh.getIndexBuffer();
         if (indexBuffer != null) {
-            CharBuffer triangles = CharBuffer.allocate(indexBuffer.capacity());
-            for (int i = 0; i < indexBuffer.capacity(); ++i) {
-                triangles.put((char)indexBuffer.get());
-            }
-            mesh.setIndices(triangles.array());
+            mesh.setIndices(indexBuffer);
         }
 
         // Bones
@@ -214,6 +195,8 @@ public class GVRJassimpAdapter {
 
     public Set<AiPostProcessSteps> toJassimpSettings(EnumSet<GVRImportSettings> settings) {
         Set<AiPostProcessSteps> output = new HashSet<AiPostProcessSteps>();
+        // Meshes hold 16-bit indices, so larger meshes are always split
+        output.add(AiPostProcessSteps.SPLIT_LARGE_MESHES);
 
         for (GVRImportSettings setting : settings) {
             AiPostProcessSteps aiSetting = fromGVRSetting(setting);
@@ -249,6 +232,10 @@ public class GVRJassimpAdapter {
                 return AiPostProcessSteps.OPTIMIZE_GRAPH;
             case FLIP_UV:
                 return AiPostProcessSteps.FLIP_UVS;
+            case OPTIMIZE_VERTEX_ORDER:
+            case GENERATE_LODS:
+                // Applied to the meshes, after Assimp
+                return null;
             default:
                 // Unsupported setting
                 Log.e(TAG, "Unsupported setting %s", setting);
@@ -0,0 +1,730 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.jassimp2;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.gearvrf.GVRImportSettings;
+
+/**
+ * A binary cache of imported, post-processed {@link AiScene}s.
+ *
+ * Importing a large model runs Assimp's whole import and post-processing
+ * pipeline, which can take seconds. {@link #write(AiScene, File)} saves what
+ * that pipeline produced: the node hierarchy, the meshes with their bones and
+ * weights, the materials, and the animation channels.
+ * {@link #read(File)} maps the file back into memory and rebuilds the scene
+ * around it: every vertex channel, index buffer and animation key buffer of
+ * the scene is a slice of the mapping, so nothing is copied until the meshes
+ * are handed to {@link org.gearvrf.GVRMesh}, which copies them once.
+ *
+ * <p>
+ * Files are named by {@link #key(InputStream, EnumSet)}: a hash of the source
+ * file, the import settings and the format version. A changed source file,
+ * changed settings or a new format each get a new file, so stale entries are
+ * never read. Lights and cameras are not cached.
+ *
+ * <p>
+ * Since the key only covers the source file, only formats that keep a whole
+ * scene in one file are cached: see {@link #isCacheable(String)}. Formats
+ * that read companion files, such as OBJ with its {@code .mtl} materials or
+ * glTF with its {@code .bin} buffers, are always imported, so that a changed
+ * companion is never hidden behind a stale cached scene.
+ *
+ * <p>
+ * The file is written in the byte order of the device, with every buffer
+ * aligned to 16 bytes; files written on a device of the
+ * other byte order, or by a jassimp with other key sizes, are rejected.
+ * Scenes must have been imported with a {@link GVRNewWrapperProvider}, which
+ * is what {@code GVRContext.loadJassimpModel()} does.
+ *
+ * @since 2.0.3
+ */
+public final class GVRJassimpCache {
+    /** The file name extension of cached scenes */
+    public static final String EXTENSION = ".gvrm";
+
+    private static final int MAGIC = 0x4D525647; // "GVRM", little endian
+    private static final int VERSION = 1;
+    private static final int ALIGNMENT = 16;
+
+    // Kinds of material property data
+    private static final int DATA_NULL = 0;
+    private static final int DATA_COLOR = 1;
+    private static final int DATA_FLOAT = 2;
+    private static final int DATA_INTEGER = 3;
+    private static final int DATA_STRING = 4;
+    private static final int DATA_BUFFER = 5;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Formats that keep the whole scene in the one file the key hashes
+    private static final Set<String> SINGLE_FILE_EXTENSIONS = Collections
+            .unmodifiableSet(new HashSet<String>(Arrays.asList("3ds", "blend",
+                    "dae", "fbx", "glb", "ply", "stl", "x")));
+
+    private static volatile File sDirectory;
+
+    // Wraps as GVRJassimpAdapter.sWrapperProvider does
+    private static final GVRNewWrapperProvider sWrapperProvider =
+            new GVRNewWrapperProvider();
+
+    private GVRJassimpCache() {
+    }
+
+    /**
+     * Set the directory that {@code GVRContext.loadJassimpModel()} caches
+     * imported scenes in. Caching is off until a directory is set, and only
+     * covers {@linkplain #isCacheable(String) single-file formats}.
+     *
+     * @param directory
+     *            A directory the application can write to, such as one under
+     *            {@code Context.getCacheDir()}; it is created if needed.
+     *            {@code null} turns caching off.
+     */
+    public static void setDirectory(File directory) {
+        sDirectory = directory;
+    }
+
+    /**
+     * The directory imported scenes are cached in, or {@code null} if caching
+     * is off.
+     */
+    public static File getDirectory() {
+        return sDirectory;
+    }
+
+    /**
+     * Whether imports of a file can be cached: whether its format keeps the
+     * whole scene in that one file, so that {@link #key(InputStream, EnumSet)}
+     * covers everything the import reads.
+     *
+     * @param fileName
+     *            The source file's name or path.
+     */
+    public static boolean isCacheable(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0 || dot < fileName.lastIndexOf('/')) {
+            return false;
+        }
+        return SINGLE_FILE_EXTENSIONS.contains(fileName.substring(dot + 1)
+                .toLowerCase(Locale.US));
+    }
+
+    /**
+     * The cache key of a source file imported with some settings: a hex
+     * string, to use as a file name with {@link #EXTENSION}.
+     *
+     * @param source
+     *            The source file's content. It is read to the end, but not
+     *            closed.
+     * @param settings
+     *            The import settings.
+     */
+    public static String key(InputStream source,
+            EnumSet<GVRImportSettings> settings) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        for (int read; (read = source.read(buffer)) != -1;) {
+            digest.update(buffer, 0, read);
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(8);
+        trailer.putInt(VERSION).putInt(
+                GVRImportSettings.getAssimpImportFlags(settings));
+        digest.update(trailer.array());
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    /**
+     * The cache key of a source file imported with some settings.
+     *
+     * @see #key(InputStream, EnumSet)
+     */
+    public static String key(File source, EnumSet<GVRImportSettings> settings)
+            throws IOException {
+        InputStream stream = new FileInputStream(source);
+        try {
+            return key(stream, settings);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Write a scene to a file. The file is written under a temporary name
+     * and renamed when complete, so that a reader never sees half of it.
+     *
+     * @throws IOException
+     *             The file cannot be written, or the scene holds data that
+     *             cannot be cached.
+     */
+    public static void write(AiScene scene, File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            directory.mkdirs();
+        }
+        File temporary = new File(file.getPath() + ".tmp");
+        Output output = new Output(new FileOutputStream(temporary).getChannel());
+        boolean written = false;
+        try {
+            output.putInt(MAGIC);
+            output.putInt(VERSION);
+            output.putInt(Jassimp.NATIVE_AIVEKTORKEY_SIZE);
+            output.putInt(Jassimp.NATIVE_AIQUATKEY_SIZE);
+
+            List<AiMesh> meshes = scene.getMeshes();
+            output.putInt(meshes.size());
+            for (AiMesh mesh : meshes) {
+                writeMesh(output, mesh);
+            }
+
+            List<AiMaterial> materials = scene.getMaterials();
+            output.putInt(materials.size());
+            for (AiMaterial material : materials) {
+                writeMaterial(output, material);
+            }
+
+            AiNode root = scene.getSceneRoot(sWrapperProvider);
+            output.putInt(root == null ? 0 : 1);
+            if (root != null) {
+                writeNode(output, root);
+            }
+
+            List<AiAnimation> animations = scene.getAnimations();
+            output.putInt(animations.size());
+            for (AiAnimation animation : animations) {
+                writeAnimation(output, animation);
+            }
+            output.close();
+            written = true;
+        } finally {
+            if (!written) {
+                output.abort();
+                temporary.delete();
+            }
+        }
+        if (!temporary.renameTo(file)) {
+            temporary.delete();
+            throw new IOException("Cannot rename " + temporary + " to " + file);
+        }
+    }
+
+    /**
+     * Read a scene back from a file written by {@link #write(AiScene, File)}.
+     *
+     * @throws IOException
+     *             The file cannot be read, or was not written by this version
+     *             of the cache on a device like this one.
+     */
+    public static AiScene read(File file) throws IOException {
+        MappedByteBuffer mapping;
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        } finally {
+            // The mapping stays valid
+            input.close();
+        }
+        mapping.order(ByteOrder.nativeOrder());
+
+        try {
+            if (mapping.getInt() != MAGIC || mapping.getInt() != VERSION
+                    || mapping.getInt() != Jassimp.NATIVE_AIVEKTORKEY_SIZE
+                    || mapping.getInt() != Jassimp.NATIVE_AIQUATKEY_SIZE) {
+                throw new IOException("Not a scene cache of version "
+                        + VERSION + " for this device: " + file);
+            }
+
+            AiScene scene = new AiScene();
+            for (int count = mapping.getInt(), i = 0; i < count; ++i) {
+                scene.getMeshes().add(readMesh(mapping));
+            }
+            for (int count = mapping.getInt(), i = 0; i < count; ++i) {
+                scene.getMaterials().add(readMaterial(mapping));
+            }
+            if (mapping.getInt() != 0) {
+                scene.setSceneRoot(readNode(mapping, null));
+            }
+            for (int count = mapping.getInt(), i = 0; i < count; ++i) {
+                scene.getAnimations().add(readAnimation(mapping));
+            }
+            return scene;
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, IllegalArgumentException, ...
+            throw new IOException("Corrupt scene cache: " + file, e);
+        }
+    }
+
+    private static void writeMesh(Output output, AiMesh mesh)
+            throws IOException {
+        output.putString(mesh.getName());
+        output.putInt(mesh.getMaterialIndex());
+        output.putInt(AiPrimitiveType.toRawValue(mesh.getPrimitiveTypes()));
+        output.putInt(mesh.getNumVertices());
+        output.putInt(mesh.getNumFaces());
+        output.putBuffer(mesh.getPositionBuffer());
+        output.putBuffer(mesh.getFaceBuffer());
+        output.putBuffer(mesh.getFaceOffsets());
+        output.putBuffer(mesh.getNormalBuffer());
+        output.putBuffer(mesh.getTangentBuffer());
+        output.putBuffer(mesh.getBitangentBuffer());
+
+        output.putInt(JassimpConfig.MAX_NUMBER_COLORSETS);
+        for (int i = 0; i < JassimpConfig.MAX_NUMBER_COLORSETS; ++i) {
+            output.putBuffer(mesh.getColorBuffer(i));
+        }
+        output.putInt(JassimpConfig.MAX_NUMBER_TEXCOORDS);
+        for (int i = 0; i < JassimpConfig.MAX_NUMBER_TEXCOORDS; ++i) {
+            output.putInt(mesh.getNumUVComponents(i));
+            output.putBuffer(mesh.getTexCoordBuffer(i));
+        }
+
+        List<AiBone> bones = mesh.getBones();
+        output.putInt(bones.size());
+        for (AiBone bone : bones) {
+            output.putString(bone.getName());
+            output.putMatrix(bone.getOffsetMatrix(
+                    sWrapperProvider));
+            List<AiBoneWeight> weights = bone.getBoneWeights();
+            ByteBuffer packed = ByteBuffer.allocateDirect(weights.size() * 8)
+                    .order(ByteOrder.nativeOrder());
+            for (AiBoneWeight weight : weights) {
+                packed.putInt(weight.getVertexId()).putFloat(
+                        weight.getWeight());
+            }
+            packed.flip();
+            output.putBuffer(packed);
+        }
+    }
+
+    private static AiMesh readMesh(ByteBuffer input) {
+        String name = getString(input);
+        int materialIndex = input.getInt();
+        int primitiveTypes = input.getInt();
+        int numVertices = input.getInt();
+        int numFaces = input.getInt();
+        ByteBuffer vertices = getBuffer(input);
+        ByteBuffer faces = getBuffer(input);
+        ByteBuffer faceOffsets = getBuffer(input);
+        AiMesh mesh = new AiMesh(name, materialIndex, primitiveTypes,
+                numVertices, numFaces, vertices, faces, faceOffsets);
+        mesh.setVectorChannels(getBuffer(input), getBuffer(input),
+                getBuffer(input));
+
+        for (int count = input.getInt(), i = 0; i < count; ++i) {
+            mesh.setColorBuffer(i, getBuffer(input));
+        }
+        for (int count = input.getInt(), i = 0; i < count; ++i) {
+            int numComponents = input.getInt();
+            mesh.setTexCoordBuffer(i, numComponents, getBuffer(input));
+        }
+
+        for (int count = input.getInt(), i = 0; i < count; ++i) {
+            AiBone bone = new AiBone(getString(input), getMatrix(input));
+            ByteBuffer packed = getBuffer(input);
+            List<AiBoneWeight> weights = bone.getBoneWeights();
+            while (packed.hasRemaining()) {
+                weights.add(new AiBoneWeight(packed.getInt(), packed
+                        .getFloat()));
+            }
+            mesh.getBones().add(bone);
+        }
+        return mesh;
+    }
+
+    private static void writeMaterial(Output output, AiMaterial material)
+            throws IOException {
+        Map<AiTextureType, Integer> textureNumbers = material
+                .getTextureNumbers();
+        output.putInt(textureNumbers.size());
+        for (Map.Entry<AiTextureType, Integer> entry : textureNumbers
+                .entrySet()) {
+            output.putInt(AiTextureType.toRawValue(entry.getKey()));
+            output.putInt(entry.getValue());
+        }
+
+        List<AiMaterial.Property> properties = material.getProperties();
+        output.putInt(properties.size());
+        for (AiMaterial.Property property : properties) {
+            output.putString(property.getKey());
+            output.putInt(property.getSemantic());
+            output.putInt(property.getIndex());
+            output.putInt(AiMaterial.PropertyType.toRawValue(property
+                    .getType()));
+
+            Object data = property.getData();
+            if (data == null) {
+                output.putInt(DATA_NULL);
+            } else if (data instanceof AiColor) {
+                AiColor color = (AiColor) data;
+                output.putInt(DATA_COLOR);
+                output.putFloat(color.getRed());
+                output.putFloat(color.getGreen());
+                output.putFloat(color.getBlue());
+                output.putFloat(color.getAlpha());
+            } else if (data instanceof Float) {
+                output.putInt(DATA_FLOAT);
+                output.putFloat((Float) data);
+            } else if (data instanceof Integer) {
+                output.putInt(DATA_INTEGER);
+                output.putInt((Integer) data);
+            } else if (data instanceof String) {
+                output.putInt(DATA_STRING);
+                output.putString((String) data);
+            } else if (data instanceof ByteBuffer) {
+                output.putInt(DATA_BUFFER);
+                output.putBuffer((ByteBuffer) data);
+            } else {
+                throw new IOException("Cannot cache material property "
+                        + property.getKey() + " of " + data.getClass());
+            }
+        }
+    }
+
+    private static AiMaterial readMaterial(ByteBuffer input) {
+        AiMaterial material = new AiMaterial();
+        for (int count = input.getInt(), i = 0; i < count; ++i) {
+            int type = input.getInt();
+            material.setTextureNumber(type, input.getInt());
+        }
+
+        List<AiMaterial.Property> properties = material.getProperties();
+        for (int count = input.getInt(), i = 0; i < count; ++i) {
+            String key = getString(input);
+            int semantic = input.getInt();
+            int index = input.getInt();
+            int type = input.getInt();
+
+            Object data;
+            switch (input.getInt()) {
+            case DATA_NULL:
+                data = null;
+                break;
+            case DATA_COLOR:
+                data = Jassimp.wrapColor4(input.getFloat(), input.getFloat(),
+                        input.getFloat(), input.getFloat());
+                break;
+            case DATA_FLOAT:
+                data = input.getFloat();
+                break;
+            case DATA_INTEGER:
+                data = input.getInt();
+                break;
+            case DATA_STRING:
+                data = getString(input);
+                break;
+            case DATA_BUFFER:
+                data = getBuffer(input);
+                break;
+            default:
+                throw new IllegalArgumentException("material property data");
+            }
+            properties.add(new AiMaterial.Property(key, semantic, index, type,
+                    data));
+        }
+        return material;
+    }
+
+    private static void writeNode(Output output, AiNode node)
+            throws IOException {
+        output.putString(node.getName());
+        output.putMatrix(node.getTransform(sWrapperProvider));
+        int[] meshes = node.getMeshes();
+        output.putInt(meshes.length);
+        for (int mesh : meshes) {
+            output.putInt(mesh);
+        }
+        List<AiNode> children = node.getChildren();
+        output.putInt(children.size());
+        for (AiNode child : children) {
+            writeNode(output, child);
+        }
+    }
+
+    private static AiNode readNode(ByteBuffer input, AiNode parent) {
+        String name = getString(input);
+        float[] transform = getMatrix(input);
+        int[] meshes = new int[input.getInt()];
+        for (int i = 0; i < meshes.length; ++i) {
+            meshes[i] = input.getInt();
+        }
+        // Adds itself to its parent
+        AiNode node = sWrapperProvider.wrapSceneNode(parent,
+                transform, meshes, name);
+        for (int count = input.getInt(), i = 0; i < count; ++i) {
+            readNode(input, node);
+        }
+        return node;
+    }
+
+    private static void writeAnimation(Output output, AiAnimation animation)
+            throws IOException {
+        output.putString(animation.getName());
+        output.putDouble(animation.getDuration());
+        output.putDouble(animation.getTicksPerSecond());
+        List<AiNodeAnim> channels = animation.getChannels();
+        output.putInt(channels.size());
+        for (AiNodeAnim channel : channels) {
+            output.putString(channel.getNodeName());
+            output.putInt(AiAnimBehavior.toRawValue(channel.getPreState()));
+            output.putInt(AiAnimBehavior.toRawValue(channel.getPostState()));
+            output.putBuffer(channel.getPosKeyBuffer());
+            output.putBuffer(channel.getRotKeyBuffer());
+            output.putBuffer(channel.getScaleKeyBuffer());
+        }
+    }
+
+    private static AiAnimation readAnimation(ByteBuffer input) {
+        String name = getString(input);
+        double duration = input.getDouble();
+        double ticksPerSecond = input.getDouble();
+        AiAnimation animation = new AiAnimation(name, duration, ticksPerSecond);
+        for (int count = input.getInt(), i = 0; i < count; ++i) {
+            String nodeName = getString(input);
+            int preBehavior = input.getInt();
+            int postBehavior = input.getInt();
+            animation.getChannels().add(
+                    new AiNodeAnim(nodeName, getBuffer(input),
+                            getBuffer(input), getBuffer(input), preBehavior,
+                            postBehavior));
+        }
+        return animation;
+    }
+
+    private static String getString(ByteBuffer input) {
+        int length = input.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static float[] getMatrix(ByteBuffer input) {
+        if (input.getInt() == 0) {
+            return null;
+        }
+        float[] matrix = new float[16];
+        input.asFloatBuffer().get(matrix);
+        input.position(input.position() + 16 * 4);
+        return matrix;
+    }
+
+    // A slice of the mapping, in native order, or null
+    private static ByteBuffer getBuffer(ByteBuffer input) {
+        int length = input.getInt();
+        if (length < 0) {
+            return null;
+        }
+        input.position(align(input.position()));
+        // Bound the slice, so its capacity is the blob's length
+        int limit = input.limit();
+        int end = input.position() + length;
+        input.limit(end);
+        ByteBuffer buffer = input.slice();
+        input.limit(limit);
+        input.position(end);
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    private static int align(int position) {
+        return (position + ALIGNMENT - 1) & ~(ALIGNMENT - 1);
+    }
+
+    /**
+     * Writes small values through a staging buffer, and buffers at aligned
+     * offsets.
+     */
+    private static final class Output {
+        private final FileChannel mChannel;
+        private final ByteBuffer mStaging = ByteBuffer.allocateDirect(
+                64 * 1024).order(ByteOrder.nativeOrder());
+        // Bytes written to the channel so far
+        private long mWritten;
+
+        Output(FileChannel channel) {
+            mChannel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            reserve(4);
+            mStaging.putInt(value);
+        }
+
+        void putFloat(float value) throws IOException {
+            reserve(4);
+            mStaging.putFloat(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            reserve(8);
+            mStaging.putDouble(value);
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(UTF_8);
+            putInt(bytes.length);
+            for (int offset = 0; offset < bytes.length;) {
+                reserve(1);
+                int length = Math.min(bytes.length - offset,
+                        mStaging.remaining());
+                mStaging.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        // Matrices are float[16], as GVRNewWrapperProvider wraps them
+        void putMatrix(Object matrix) throws IOException {
+            if (matrix == null) {
+                putInt(0);
+                return;
+            }
+            if (!(matrix instanceof float[]) || ((float[]) matrix).length != 16) {
+                throw new IOException("Cannot cache a matrix wrapped as "
+                        + matrix.getClass());
+            }
+            putInt(1);
+            reserve(16 * 4);
+            mStaging.asFloatBuffer().put((float[]) matrix);
+            mStaging.position(mStaging.position() + 16 * 4);
+        }
+
+        // The buffer's content from its position to its limit, or null
+        void putBuffer(ByteBuffer buffer) throws IOException {
+            if (start(buffer, 1)) {
+                flush();
+                ByteBuffer bytes = buffer.duplicate();
+                while (bytes.hasRemaining()) {
+                    mWritten += mChannel.write(bytes);
+                }
+            }
+        }
+
+        void putBuffer(FloatBuffer buffer) throws IOException {
+            if (start(buffer, 4)) {
+                FloatBuffer source = buffer.duplicate();
+                while (source.hasRemaining()) {
+                    int count = stage(source);
+                    source.limit(source.position() + count);
+                    mStaging.asFloatBuffer().put(source);
+                    mStaging.position(mStaging.position() + count * 4);
+                    source.limit(buffer.limit());
+                }
+            }
+        }
+
+        void putBuffer(IntBuffer buffer) throws IOException {
+            if (start(buffer, 4)) {
+                IntBuffer source = buffer.duplicate();
+                while (source.hasRemaining()) {
+                    int count = stage(source);
+                    source.limit(source.position() + count);
+                    mStaging.asIntBuffer().put(source);
+                    mStaging.position(mStaging.position() + count * 4);
+                    source.limit(buffer.limit());
+                }
+            }
+        }
+
+        // Writes the length, or -1 for null, and pads to the alignment
+        private boolean start(Buffer buffer, int elementSize)
+                throws IOException {
+            if (buffer == null) {
+                putInt(-1);
+                return false;
+            }
+            putInt(buffer.remaining() * elementSize);
+            long position = mWritten + mStaging.position();
+            for (; position % ALIGNMENT != 0; ++position) {
+                reserve(1);
+                mStaging.put((byte) 0);
+            }
+            return true;
+        }
+
+        // How many of the source's 4-byte elements fit in the staging buffer
+        private int stage(Buffer source) throws IOException {
+            reserve(4);
+            return Math.min(source.remaining(), mStaging.remaining() / 4);
+        }
+
+        void close() throws IOException {
+            flush();
+            mChannel.close();
+        }
+
+        void abort() {
+            try {
+                mChannel.close();
+            } catch (IOException e) {
+            }
+        }
+
+        private void reserve(int bytes) throws IOException {
+            if (mStaging.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            mStaging.flip();
+            while (mStaging.hasRemaining()) {
+                mWritten += mChannel.write(mStaging);
+            }
+            mStaging.clear();
+        }
+    }
+}
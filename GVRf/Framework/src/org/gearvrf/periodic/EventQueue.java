@@ -0,0 +1,74 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.periodic;
+
+import java.util.List;
+
+/**
+ * The pending events of a {@link GVRPeriodicEngine}, ordered by scheduled
+ * time.
+ *
+ * Implementations are not thread-safe: the engine serializes all calls.
+ */
+abstract class EventQueue {
+
+    /**
+     * Something that can be queued. An entry is in at most one queue at a
+     * time; the link fields belong to that queue.
+     */
+    static abstract class Entry {
+        private boolean mQueued = false;
+
+        // Used by TimingWheel
+        Entry mNext;
+        Entry mPrev;
+        long mTick;
+        int mLevel;
+
+        /** Unit is seconds, in the engine's time base. */
+        abstract float getScheduledTime();
+
+        /** Whether this entry is in a queue. */
+        final boolean isQueued() {
+            return mQueued;
+        }
+
+        final void setQueued(boolean queued) {
+            mQueued = queued;
+        }
+    }
+
+    /**
+     * Adds an entry that is not queued. Its scheduled time must not change
+     * while it is queued.
+     */
+    abstract void add(Entry entry);
+
+    /** Removes an entry, if it is queued. */
+    abstract void remove(Entry entry);
+
+    /**
+     * Removes and returns an entry that is due at {@code now}, or returns
+     * {@code null} if none is due.
+     */
+    abstract Entry poll(float now);
+
+    /** Number of queued entries. */
+    abstract int size();
+
+    /** Removes all entries and appends them to {@code dest}. */
+    abstract void drainTo(List<Entry> dest);
+}
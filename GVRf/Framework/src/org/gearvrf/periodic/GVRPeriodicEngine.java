@@ -15,7 +15,8 @@
 
 package org.gearvrf.periodic;
 
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
@@ -70,6 +71,15 @@ import org.gearvrf.GVRScript;
  * each frame is normally 17 milliseconds apart, unless you add too many
  * callbacks or put too much code into your {@code onStep()}; Android garbage
  * collection can introduce additional delays.
+ * 
+ * <p>
+ * By default, pending events are kept in a priority queue, which runs each
+ * event at its exact scheduled time. Apps that schedule thousands of events
+ * can {@linkplain #useTimingWheel(float) switch to a timing wheel,} which
+ * schedules and cancels events in constant time but rounds scheduled times up
+ * to a fixed resolution. Either way, you can
+ * {@linkplain #setMaxEventsPerFrame(int) limit} how many events are released
+ * per frame, so that a backlog of due events is spread over several frames.
  */
 public class GVRPeriodicEngine {
     private static GVRPeriodicEngine sInstance = null;
@@ -86,7 +96,9 @@ public class GVRPeriodicEngine {
 
     private final GVRContext mContext;
     private final DrawFrameListener mDrawFrameListener = new DrawFrameListener();
-    private final PriorityQueue<EventImplementation> mQueue = new PriorityQueue<EventImplementation>();
+    private final Object mQueueLock = new Object();
+    private EventQueue mQueue = new PriorityEventQueue();
+    private volatile int mMaxEventsPerFrame = Integer.MAX_VALUE;
 
     protected GVRPeriodicEngine(GVRContext context) {
         mContext = context;
@@ -108,6 +120,64 @@ public class GVRPeriodicEngine {
         return sInstance;
     }
 
+    /**
+     * Keep pending events in a hierarchical timing wheel.
+     * 
+     * Scheduling, rescheduling and canceling an event take constant time,
+     * however many events are pending. In exchange, each event runs up to
+     * {@code resolution} seconds after its scheduled time. Events that are
+     * already scheduled are moved to the wheel.
+     * 
+     * @param resolution
+     *            Unit is seconds. Something around the frame time (say,
+     *            {@code 1/60f}) keeps timing within a frame of the priority
+     *            queue's.
+     */
+    public void useTimingWheel(float resolution) {
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("resolution must be > 0");
+        }
+        setQueue(new TimingWheel(now(), resolution));
+    }
+
+    /**
+     * Keep pending events in a priority queue; this is the default.
+     * 
+     * Events run at their exact scheduled time, but scheduling costs
+     * O(log n) and canceling costs O(n) in the number of pending events.
+     * Events that are already scheduled are moved to the new queue.
+     */
+    public void usePriorityQueue() {
+        setQueue(new PriorityEventQueue());
+    }
+
+    private void setQueue(EventQueue queue) {
+        List<EventQueue.Entry> pending = new ArrayList<EventQueue.Entry>();
+        synchronized (mQueueLock) {
+            mQueue.drainTo(pending);
+            for (EventQueue.Entry entry : pending) {
+                queue.add(entry);
+            }
+            mQueue = queue;
+        }
+    }
+
+    /**
+     * Limit the number of events released per frame.
+     * 
+     * Events that are due but over the limit are released on the following
+     * frames, in scheduled order. The default is no limit.
+     * 
+     * @param maxEvents
+     *            Maximum number of events per frame; must be at least 1.
+     */
+    public void setMaxEventsPerFrame(int maxEvents) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("maxEvents must be >= 1");
+        }
+        mMaxEventsPerFrame = maxEvents;
+    }
+
     /**
      * Run a task once, after a delay.
      * 
@@ -329,11 +399,6 @@ public class GVRPeriodicEngine {
         void runEvery(float delay, float period, KeepRunning callback);
     }
 
-    private interface EventImplementation extends PeriodicEvent,
-            Comparable<EventImplementation>, Runnable {
-        float getScheduledTime();
-    }
-
     /**
      * The periodic engine's time base.
      * 
@@ -348,21 +413,21 @@ public class GVRPeriodicEngine {
         @Override
         public void onDrawFrame(float frameTime) {
             float now = GVRPeriodicEngine.now();
-            synchronized (mQueue) {
-                for (EventImplementation //
-                first = mQueue.peek(); //
-                first != null && first.getScheduledTime() <= now; //
-                first = mQueue.peek() //
-                ) {
-
-                    mContext.runOnGlThread(mQueue.poll());
-
+            final int maxEvents = mMaxEventsPerFrame;
+            synchronized (mQueueLock) {
+                for (int released = 0; released < maxEvents; ++released) {
+                    EventQueue.Entry due = mQueue.poll(now);
+                    if (due == null) {
+                        break;
+                    }
+                    mContext.runOnGlThread((Event) due);
                 }
             }
         }
     }
 
-    private class Event implements EventImplementation {
+    private class Event extends EventQueue.Entry implements PeriodicEvent,
+            Runnable {
 
         /*
          * Task, and run-count
@@ -389,7 +454,7 @@ public class GVRPeriodicEngine {
         private boolean mCanceled = false;
 
         private void lockedEnqueue() {
-            if (mCanceled != true) {
+            if (mCanceled != true && isQueued() != true) {
                 mQueue.add(this);
             }
         }
@@ -399,14 +464,14 @@ public class GVRPeriodicEngine {
         }
 
         private void enqueue() {
-            synchronized (mQueue) {
+            synchronized (mQueueLock) {
                 lockedEnqueue();
             }
         }
 
         @SuppressWarnings("unused")
         private void dequeue() {
-            synchronized (mQueue) {
+            synchronized (mQueueLock) {
                 lockedDequeue();
             }
         }
@@ -463,15 +528,9 @@ public class GVRPeriodicEngine {
         }
 
         private boolean enqueued() {
-            synchronized (mQueue) {
-                for (EventImplementation event : mQueue) {
-                    if (this == event) {
-                        return true;
-                    }
-                }
+            synchronized (mQueueLock) {
+                return isQueued();
             }
-            // else
-            return false;
         }
 
         private boolean scheduled() {
@@ -517,7 +576,7 @@ public class GVRPeriodicEngine {
 
         @Override
         public void cancel() {
-            synchronized (mQueue) {
+            synchronized (mQueueLock) {
                 deschedule();
                 lockedDequeue();
                 mCanceled = true;
@@ -528,7 +587,7 @@ public class GVRPeriodicEngine {
         public void runAfter(float delay) {
             validateDelay(delay);
 
-            synchronized (mQueue) {
+            synchronized (mQueueLock) {
                 lockedDequeue();
                 setDelay(delay);
                 lockedEnqueue();
@@ -551,7 +610,7 @@ public class GVRPeriodicEngine {
             validateDelay(delay);
             validatePeriod(period);
 
-            synchronized (mQueue) {
+            synchronized (mQueueLock) {
                 lockedDequeue();
                 setRepeat(delay, period, callback);
                 lockedEnqueue();
@@ -559,24 +618,14 @@ public class GVRPeriodicEngine {
         }
 
         /*
-         * EventImplementation
+         * EventQueue.Entry
          */
 
         @Override
-        public float getScheduledTime() {
+        float getScheduledTime() {
             return mScheduledTime;
         }
 
-        /*
-         * Comparable<EventImplementation>
-         */
-
-        @Override
-        public int compareTo(EventImplementation other) {
-            final float delta = getScheduledTime() - other.getScheduledTime();
-            return delta < 0 ? -1 : (delta == 0 ? 0 : 1);
-        }
-
         /*
          * Runnable
          */
@@ -0,0 +1,77 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.periodic;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * {@link EventQueue} backed by a {@link PriorityQueue}: O(log n) insertion,
+ * O(n) removal, and events run at their exact scheduled time.
+ */
+class PriorityEventQueue extends EventQueue {
+
+    private static final Comparator<Entry> BY_SCHEDULED_TIME = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry lhs, Entry rhs) {
+            final float delta = lhs.getScheduledTime()
+                    - rhs.getScheduledTime();
+            return delta < 0 ? -1 : (delta == 0 ? 0 : 1);
+        }
+    };
+
+    private final PriorityQueue<Entry> mQueue = new PriorityQueue<Entry>(11,
+            BY_SCHEDULED_TIME);
+
+    @Override
+    void add(Entry entry) {
+        mQueue.add(entry);
+        entry.setQueued(true);
+    }
+
+    @Override
+    void remove(Entry entry) {
+        if (entry.isQueued()) {
+            mQueue.remove(entry);
+            entry.setQueued(false);
+        }
+    }
+
+    @Override
+    Entry poll(float now) {
+        Entry first = mQueue.peek();
+        if (first == null || first.getScheduledTime() > now) {
+            return null;
+        }
+        mQueue.poll();
+        first.setQueued(false);
+        return first;
+    }
+
+    @Override
+    int size() {
+        return mQueue.size();
+    }
+
+    @Override
+    void drainTo(List<Entry> dest) {
+        for (Entry entry = mQueue.poll(); entry != null; entry = mQueue.poll()) {
+            entry.setQueued(false);
+            dest.add(entry);
+        }
+    }
+}
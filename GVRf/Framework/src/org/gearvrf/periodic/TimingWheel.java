@@ -0,0 +1,244 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.periodic;
+
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: O(1) insertion and removal.
+ *
+ * <p>
+ * Time is divided into ticks of a fixed duration. Entries due within
+ * {@value #SLOTS} ticks are kept in the slot of the first wheel for their
+ * tick; later entries go into coarser wheels, each covering {@value #SLOTS}
+ * times the span of the previous one, and move down a wheel whenever the
+ * finer wheel comes round to them. Entries due farther ahead than the last
+ * wheel reaches wait in its farthest slot and are placed again when it comes
+ * round.
+ *
+ * <p>
+ * Entries are rounded up to the next tick, so an entry becomes due up to one
+ * tick after its scheduled time, never before it. Due entries are kept in
+ * order of their tick, and within a tick in order of insertion.
+ */
+class TimingWheel extends EventQueue {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    private static final int DUE = -1;
+
+    /** Sentinel of a circular, doubly linked list of entries. */
+    private static final class Head extends Entry {
+        Head() {
+            mNext = mPrev = this;
+        }
+
+        @Override
+        float getScheduledTime() {
+            return 0;
+        }
+
+        boolean isEmpty() {
+            return mNext == this;
+        }
+    }
+
+    private final float mOrigin;
+    private final float mTickDuration;
+
+    private final Head[][] mWheels = new Head[LEVELS][SLOTS];
+    private final int[] mLevelSizes = new int[LEVELS];
+    private final Head mDue = new Head();
+    private int mDueSize = 0;
+
+    /** Every tick before this one has been expired. */
+    private long mCurrentTick = 0;
+
+    /**
+     * @param origin
+     *            Start of tick 0, in seconds.
+     * @param tickDuration
+     *            Unit is seconds.
+     */
+    TimingWheel(float origin, float tickDuration) {
+        mOrigin = origin;
+        mTickDuration = tickDuration;
+        for (Head[] wheel : mWheels) {
+            for (int slot = 0; slot < SLOTS; ++slot) {
+                wheel[slot] = new Head();
+            }
+        }
+    }
+
+    @Override
+    void add(Entry entry) {
+        double ticks = Math.ceil((entry.getScheduledTime() - mOrigin)
+                / mTickDuration);
+        entry.mTick = Math.max(mCurrentTick, (long) ticks);
+        place(entry);
+        entry.setQueued(true);
+    }
+
+    @Override
+    void remove(Entry entry) {
+        if (entry.isQueued()) {
+            unlink(entry);
+            entry.setQueued(false);
+        }
+    }
+
+    @Override
+    Entry poll(float now) {
+        if (mDueSize == 0) {
+            advance((long) Math.floor((now - mOrigin) / mTickDuration));
+            if (mDueSize == 0) {
+                return null;
+            }
+        }
+        Entry first = mDue.mNext;
+        unlink(first);
+        first.setQueued(false);
+        return first;
+    }
+
+    @Override
+    int size() {
+        int size = mDueSize;
+        for (int level = 0; level < LEVELS; ++level) {
+            size += mLevelSizes[level];
+        }
+        return size;
+    }
+
+    @Override
+    void drainTo(List<Entry> dest) {
+        drain(mDue, dest);
+        for (Head[] wheel : mWheels) {
+            for (Head slot : wheel) {
+                drain(slot, dest);
+            }
+        }
+        mDueSize = 0;
+        for (int level = 0; level < LEVELS; ++level) {
+            mLevelSizes[level] = 0;
+        }
+    }
+
+    /** Expire every tick up to and including {@code lastTick}. */
+    private void advance(long lastTick) {
+        while (mCurrentTick <= lastTick) {
+            if (mLevelSizes[0] + mLevelSizes[1] + mLevelSizes[2]
+                    + mLevelSizes[3] == 0) {
+                // Nothing to find: jump ahead
+                mCurrentTick = lastTick + 1;
+                return;
+            }
+
+            final int slot = (int) (mCurrentTick & MASK);
+            if (slot == 0) {
+                cascade();
+            } else if (mLevelSizes[0] == 0) {
+                // Skip to the next turn of the first wheel
+                mCurrentTick = Math.min(lastTick + 1,
+                        (mCurrentTick | MASK) + 1);
+                continue;
+            }
+
+            Head expired = mWheels[0][slot];
+            while (expired.isEmpty() == false) {
+                Entry entry = expired.mNext;
+                unlink(entry);
+                link(mDue, entry, DUE);
+            }
+            mCurrentTick += 1;
+        }
+    }
+
+    /*
+     * Called when the first wheel starts a new turn: moves the entries of
+     * each coarser wheel's current slot down, for every wheel that is also
+     * starting a turn.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; ++level) {
+            final int shift = BITS * level;
+            final int slot = (int) ((mCurrentTick >>> shift) & MASK);
+            Head head = mWheels[level][slot];
+
+            while (head.isEmpty() == false) {
+                Entry entry = head.mNext;
+                unlink(entry);
+                place(entry);
+            }
+            if (slot != 0) {
+                break;
+            }
+        }
+    }
+
+    private void place(Entry entry) {
+        final long delta = entry.mTick - mCurrentTick;
+        final long tick = delta < SPAN ? entry.mTick : mCurrentTick + SPAN - 1;
+
+        int level = 0;
+        while (level < LEVELS - 1 && tick - mCurrentTick >= 1L << (BITS * (level + 1))) {
+            ++level;
+        }
+        final int slot = (int) ((tick >>> (BITS * level)) & MASK);
+        link(mWheels[level][slot], entry, level);
+    }
+
+    private void link(Head head, Entry entry, int level) {
+        entry.mPrev = head.mPrev;
+        entry.mNext = head;
+        head.mPrev.mNext = entry;
+        head.mPrev = entry;
+
+        entry.mLevel = level;
+        if (level == DUE) {
+            mDueSize += 1;
+        } else {
+            mLevelSizes[level] += 1;
+        }
+    }
+
+    private void unlink(Entry entry) {
+        entry.mPrev.mNext = entry.mNext;
+        entry.mNext.mPrev = entry.mPrev;
+        entry.mNext = entry.mPrev = null;
+
+        if (entry.mLevel == DUE) {
+            mDueSize -= 1;
+        } else {
+            mLevelSizes[entry.mLevel] -= 1;
+        }
+    }
+
+    private static void drain(Head head, List<Entry> dest) {
+        for (Entry entry = head.mNext; entry != head;) {
+            Entry next = entry.mNext;
+            entry.mNext = entry.mPrev = null;
+            entry.setQueued(false);
+            dest.add(entry);
+            entry = next;
+        }
+        head.mNext = head.mPrev = head;
+    }
+}
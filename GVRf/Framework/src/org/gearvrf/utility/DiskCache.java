@@ -0,0 +1,379 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A size-bounded cache of binary blobs, kept as files in a directory.
+ *
+ * <p>
+ * Entries are read back as memory-mapped, read-only {@link ByteBuffer}s, so a
+ * hit costs no more than the pages the caller actually touches. When the
+ * files grow past the size limit, the least recently used entries are
+ * deleted; recency survives restarts, as the file modification times.
+ *
+ * <p>
+ * Writes are crash-safe: an entry is written to a temporary file, flushed to
+ * storage, and then renamed into place, so a crash leaves either the complete
+ * entry or no entry at all. Leftover temporary files are deleted when the
+ * cache is opened. Each entry also starts with a small header, and entries
+ * whose header does not match their length are treated as misses and
+ * deleted.
+ *
+ * <p>
+ * Keys are used as file names: they may only contain letters, digits,
+ * {@code '.'}, {@code '_'} and {@code '-'}. Use {@link #hash(InputStream)} to
+ * build keys from the content of a resource. All methods are thread-safe.
+ */
+public class DiskCache {
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x47564331; // "GVC1"
+    private static final int HEADER_SIZE = 12; // magic + long length
+
+    private final File directory;
+    private long maxBytes;
+    private final AtomicInteger tempNumber = new AtomicInteger();
+
+    /** Entry sizes, in access order */
+    private final LinkedHashMap<String, Long> entries //
+    = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long size = 0;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /** Writes the content of a new entry. */
+    public interface Writer {
+        /**
+         * Fill {@code buffer}, which is exactly as large as the entry, from
+         * its position to its limit.
+         */
+        void write(ByteBuffer buffer) throws IOException;
+    }
+
+    /**
+     * Open a cache; creates the directory if necessary, and picks up the
+     * entries left by earlier runs.
+     *
+     * @param directory
+     *            The cache directory. It should not hold anything else.
+     * @param maxBytes
+     *            Size limit of all entries, in bytes.
+     * @throws IOException
+     *             If the directory can not be created.
+     */
+    public DiskCache(File directory, long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw Exceptions.IllegalArgument("maxBytes must be > 0");
+        }
+        if (directory.isDirectory() == false && directory.mkdirs() == false) {
+            throw new IOException("Can't create " + directory);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Can't list " + directory);
+        }
+
+        // Oldest first, so that the LRU order matches the last run
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long delta = lhs.lastModified() - rhs.lastModified();
+                return delta < 0 ? -1 : (delta == 0 ? 0 : 1);
+            }
+        });
+        synchronized (this) {
+            for (File file : files) {
+                if (file.getName().endsWith(TEMP_SUFFIX)) {
+                    // Interrupted write
+                    file.delete();
+                } else if (file.isFile()) {
+                    entries.put(file.getName(), file.length());
+                    size += file.length();
+                }
+            }
+            trim();
+        }
+    }
+
+    /**
+     * Hash the content of a stream, to use as (part of) a key. Reads the
+     * stream to the end but does not close it.
+     *
+     * @return The SHA-1 of the content, as 40 hex digits.
+     */
+    public static String hash(InputStream stream) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[16 * 1024];
+        for (int count = stream.read(buffer); count >= 0; count = stream
+                .read(buffer)) {
+            digest.update(buffer, 0, count);
+        }
+        return hex(digest.digest());
+    }
+
+    /**
+     * Hash a string, such as a description of a resource that identifies its
+     * content, to use as (part of) a key.
+     *
+     * @return The SHA-1 of the string's UTF-8 bytes, as 40 hex digits.
+     */
+    public static String hash(String text) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return hex(digest.digest(text.getBytes(Charset.forName("UTF-8"))));
+    }
+
+    /**
+     * Get an entry.
+     *
+     * @return A read-only buffer of the entry's content, positioned at 0; or
+     *         {@code null} if there is no (valid) entry for {@code key}.
+     */
+    public ByteBuffer get(String key) throws IOException {
+        checkKey(key);
+        File file = new File(directory, key);
+
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                missCount += 1;
+                return null;
+            }
+        }
+
+        MappedByteBuffer mapped = null;
+        RandomAccessFile in = null;
+        try {
+            in = new RandomAccessFile(file, "r");
+            long length = in.length();
+            if (length >= HEADER_SIZE) {
+                mapped = in.getChannel().map(MapMode.READ_ONLY, 0, length);
+            }
+        } catch (IOException e) {
+            // Deleted behind our back, or unreadable: a miss
+            mapped = null;
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+        }
+
+        if (mapped == null || mapped.getInt(0) != MAGIC
+                || mapped.getLong(4) != mapped.capacity() - HEADER_SIZE) {
+            remove(key);
+            synchronized (this) {
+                missCount += 1;
+            }
+            return null;
+        }
+
+        file.setLastModified(System.currentTimeMillis());
+        synchronized (this) {
+            hitCount += 1;
+        }
+
+        mapped.position(HEADER_SIZE);
+        return mapped.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Add or replace an entry.
+     *
+     * @param key
+     *            The entry's key.
+     * @param length
+     *            Size of the content, in bytes.
+     * @param writer
+     *            Fills in the content.
+     * @return {@code false} if the entry is larger than the whole cache, and
+     *         was not written.
+     * @throws IOException
+     *             If the entry could not be written; the cache is unchanged.
+     */
+    public boolean put(String key, int length, Writer writer)
+            throws IOException {
+        checkKey(key);
+        if (length < 0) {
+            throw Exceptions.IllegalArgument("length must be >= 0");
+        }
+        final long fileLength = HEADER_SIZE + (long) length;
+        if (fileLength > getMaxBytes()) {
+            return false;
+        }
+
+        File temp = new File(directory, key + '.'
+                + tempNumber.incrementAndGet() + TEMP_SUFFIX);
+        boolean written = false;
+        try {
+            RandomAccessFile out = new RandomAccessFile(temp, "rw");
+            try {
+                FileChannel channel = out.getChannel();
+                MappedByteBuffer mapped = channel.map(MapMode.READ_WRITE, 0,
+                        fileLength);
+
+                mapped.position(HEADER_SIZE);
+                ByteBuffer content = mapped.slice();
+                writer.write(content);
+                if (content.hasRemaining()) {
+                    throw new IOException(String.format(
+                            "%s: %d of %d bytes were not written", key,
+                            content.remaining(), length));
+                }
+
+                // The header goes last, so it only ever describes real data
+                mapped.putInt(0, MAGIC);
+                mapped.putLong(4, length);
+                mapped.force();
+                channel.force(true);
+            } finally {
+                out.close();
+            }
+
+            File file = new File(directory, key);
+            synchronized (this) {
+                if (temp.renameTo(file) == false) {
+                    throw new IOException("Can't rename " + temp + " to "
+                            + file);
+                }
+                written = true;
+
+                Long previous = entries.put(key, fileLength);
+                size += fileLength - (previous == null ? 0 : previous);
+                trim();
+            }
+            return true;
+        } finally {
+            if (written == false) {
+                temp.delete();
+            }
+        }
+    }
+
+    /** Delete an entry, if it exists. */
+    public synchronized void remove(String key) {
+        Long length = entries.remove(key);
+        if (length != null) {
+            size -= length;
+        }
+        new File(directory, key).delete();
+    }
+
+    /** The size limit, in bytes. */
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Change the size limit. Shrinking it deletes the least recently used
+     * entries until the rest fit.
+     *
+     * @param maxBytes
+     *            Size limit of all entries, in bytes.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw Exceptions.IllegalArgument("maxBytes must be > 0");
+        }
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    /** Total size of the entries, in bytes. */
+    public synchronized long size() {
+        return size;
+    }
+
+    /** Number of {@link #get(String)} calls that found an entry. */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /** Number of {@link #get(String)} calls that did not. */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet()
+                .iterator();
+        while (size > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> oldest = iterator.next();
+            iterator.remove();
+            size -= oldest.getValue();
+            new File(directory, oldest.getKey()).delete();
+        }
+    }
+
+    private static void checkKey(String key) {
+        if (key.length() == 0) {
+            throw Exceptions.IllegalArgument("empty key");
+        }
+        for (int index = 0; index < key.length(); ++index) {
+            char c = key.charAt(index);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || (c >= '0' && c <= '9') || c == '.' || c == '_'
+                    || c == '-') {
+                continue;
+            }
+            throw Exceptions.IllegalArgument("invalid character in key %s",
+                    key);
+        }
+        if (key.endsWith(TEMP_SUFFIX)) {
+            throw Exceptions.IllegalArgument("key %s ends with %s", key,
+                    TEMP_SUFFIX);
+        }
+    }
+}
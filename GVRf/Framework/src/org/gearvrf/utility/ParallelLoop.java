@@ -0,0 +1,246 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the iterations of a loop on several threads and waits for all of them
+ * to finish.
+ *
+ * <p>
+ * This is meant for short, CPU-bound per-frame work (such as evaluating many
+ * animations) that has to be finished before the frame is rendered. The
+ * calling thread takes part in the loop, and iterations are handed out one at
+ * a time, so uneven iteration costs balance out. {@link #run(int, Body)}
+ * returns only after every iteration has completed; each iteration runs
+ * exactly once, so the result does not depend on how iterations were spread
+ * over the threads.
+ *
+ * <p>
+ * A loop runs one {@link #run(int, Body)} at a time; it is not meant to be
+ * shared by unrelated subsystems.
+ */
+public final class ParallelLoop {
+    private static final String TAG = Log.tag(ParallelLoop.class);
+
+    /** The loop body */
+    public interface Body {
+        /** Runs one iteration; may be called on any of the loop's threads. */
+        void run(int index);
+    }
+
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final Worker[] workers;
+
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private volatile Body body;
+    private volatile int count;
+    private volatile Throwable failure;
+    /*
+     * Helpers still running, and the thread in run() waiting for them: reused
+     * from one run() to the next, so a run allocates nothing
+     */
+    private final AtomicInteger runningHelpers = new AtomicInteger();
+    private volatile Thread waiter;
+
+    /**
+     * Create a loop that runs on {@code parallelism} threads: the calling
+     * thread plus {@code parallelism - 1} daemon threads owned by the loop.
+     *
+     * @param parallelism
+     *            Number of threads; {@code 1} runs every iteration on the
+     *            calling thread.
+     */
+    public ParallelLoop(int parallelism) {
+        this(parallelism > 1 ? Executors.newFixedThreadPool(parallelism - 1,
+                new ThreadFactory() {
+                    private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "gvrf-loop-"
+                                + threadNumber.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }) : null, parallelism);
+    }
+
+    /**
+     * Create a loop that runs on the calling thread plus
+     * {@code parallelism - 1} tasks submitted to {@code executor}.
+     *
+     * @param executor
+     *            Executor for the helper tasks. It should have at least
+     *            {@code parallelism - 1} threads available; otherwise the
+     *            calling thread simply does more of the work. A run never
+     *            waits for helpers still queued behind other tasks when the
+     *            calling thread has finished the iterations: they are
+     *            cancelled, and do nothing when the executor gets to them.
+     * @param parallelism
+     *            Number of threads, including the calling thread.
+     */
+    public ParallelLoop(ExecutorService executor, int parallelism) {
+        if (parallelism < 1) {
+            throw Exceptions.IllegalArgument("parallelism must be >= 1");
+        }
+        if (parallelism > 1 && executor == null) {
+            throw Exceptions.IllegalArgument("executor may not be null");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+
+        workers = new Worker[parallelism - 1];
+        for (int index = 0; index < workers.length; ++index) {
+            workers[index] = new Worker();
+        }
+    }
+
+    /** @return The number of threads, including the calling thread. */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Run {@code body} for every index in {@code [0, count)} and wait until
+     * all iterations have finished.
+     *
+     * @throws RuntimeException
+     *             if any iteration threw; the first exception is the cause.
+     */
+    public void run(int count, Body body) {
+        if (count <= 0) {
+            return;
+        }
+
+        int helpers = Math.min(workers.length, count - 1);
+        if (helpers == 0) {
+            for (int index = 0; index < count; ++index) {
+                body.run(index);
+            }
+            return;
+        }
+
+        this.body = body;
+        this.count = count;
+        failure = null;
+        nextIndex.set(0);
+        waiter = Thread.currentThread();
+        runningHelpers.set(helpers);
+
+        for (int index = 0; index < helpers; ++index) {
+            workers[index].submit();
+        }
+        runIterations();
+        // Only wait for the helpers that have started
+        for (int index = 0; index < helpers; ++index) {
+            if (workers[index].cancel()) {
+                runningHelpers.decrementAndGet();
+            }
+        }
+
+        boolean interrupted = false;
+        while (runningHelpers.get() != 0) {
+            LockSupport.park(this);
+            // Clear the flag, or park() keeps returning at once
+            if (Thread.interrupted()) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.body = null;
+        waiter = null;
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    private void runIterations() {
+        final Body body = this.body;
+        final int count = this.count;
+
+        try {
+            for (int index = nextIndex.getAndIncrement(); index < count; index = nextIndex
+                    .getAndIncrement()) {
+                body.run(index);
+            }
+        } catch (Throwable t) {
+            Log.e(TAG, "%s in parallel loop", t);
+            if (failure == null) {
+                failure = t;
+            }
+            // Skip the remaining iterations
+            nextIndex.set(count);
+        }
+    }
+
+    /*
+     * Worker states. A cancelled worker is still in the executor's queue, so
+     * the next run() queues it again by reviving it, not by submitting it
+     * again: a saturated executor never holds more than one copy of it.
+     */
+    private static final int IDLE = 0;
+    private static final int QUEUED = 1;
+    private static final int RUNNING = 2;
+    private static final int CANCELLED = 3;
+
+    private final class Worker implements Runnable {
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+
+        void submit() {
+            if (state.compareAndSet(CANCELLED, QUEUED)) {
+                return;
+            }
+            state.set(QUEUED);
+            executor.execute(this);
+        }
+
+        /** @return Whether the worker was still queued, and now never runs */
+        boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED);
+        }
+
+        @Override
+        public void run() {
+            // Queued or cancelled, while in the queue; the next run() may
+            // revive a cancelled worker at any time
+            while (!state.compareAndSet(QUEUED, RUNNING)) {
+                if (state.compareAndSet(CANCELLED, IDLE)) {
+                    return;
+                }
+            }
+            try {
+                runIterations();
+            } finally {
+                state.set(IDLE);
+                // Read first: once the count is 0, run() may return
+                Thread waiter = ParallelLoop.this.waiter;
+                if (runningHelpers.decrementAndGet() == 0) {
+                    LockSupport.unpark(waiter);
+                }
+            }
+        }
+    }
+}
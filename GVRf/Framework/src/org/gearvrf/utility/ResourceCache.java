@@ -15,8 +15,11 @@
 
 package org.gearvrf.utility;
 
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.gearvrf.GVRAndroidResource;
@@ -25,53 +28,322 @@ import org.gearvrf.GVRAndroidResource.CompressedTextureCallback;
 import org.gearvrf.GVRHybridObject;
 import org.gearvrf.GVRAndroidResource.Callback;
 import org.gearvrf.GVRAndroidResource.CancelableCallback;
+import org.gearvrf.GVRMesh;
 import org.gearvrf.GVRTexture;
 
 /**
- * Basic cache-by-resource-description.
+ * Cache-by-resource-description.
  * 
- * Keeps system from reloading resources, so long as a previous copy is still in
- * memory. Generic, so there can be separate caches for meshes and textures: a
- * 'unified cache' (mapping resource to hybrid-object) with hooks in
- * {@link org.gearvrf.asynchronous.Throttler Throttler} would not be safe.
- * Passing the descriptor for a cached mesh to a get-texture call would return
- * the mesh ....
+ * Keeps system from reloading resources. Generic, so there can be separate
+ * caches for meshes and textures: a 'unified cache' (mapping resource to
+ * hybrid-object) with hooks in {@link org.gearvrf.asynchronous.Throttler
+ * Throttler} would not be safe. Passing the descriptor for a cached mesh to a
+ * get-texture call would return the mesh ....
+ * 
+ * <p>
+ * Each resource is {@linkplain Weigher weighed} (typically, by the size of its
+ * decoded data) when it is cached. The cache holds strong references to the
+ * most recently used resources, up to a {@linkplain #setBudget(long) budget}:
+ * when the total weight goes over budget, the least recently used resources
+ * are evicted. Evicted resources are still returned by {@link #get(GVRAndroidResource)}
+ * while they are in memory, as with a plain weak cache; a hit brings them
+ * back under the budget. {@linkplain #pin(GVRAndroidResource) Pinned}
+ * resources are never evicted.
+ * 
+ * <p>
+ * All methods are thread-safe.
  * 
  * @since 2.0.2
  */
 public class ResourceCache<T extends GVRHybridObject> {
-    // private static final String TAG = Log.tag(ResourceCache.class);
+    private static final String TAG = Log.tag(ResourceCache.class);
+
+    /**
+     * Computes the weight of a cached resource. Weights only make sense
+     * relative to the cache's budget; the built-in weighers use bytes.
+     */
+    public interface Weigher<T extends GVRHybridObject> {
+        /**
+         * Called once, when the resource is cached.
+         * 
+         * @return The resource's weight; should be {@literal >= 0}
+         */
+        long weigh(T resource);
+    }
+
+    /** Weighs textures by {@link GVRTexture#getByteCount()} */
+    public static final Weigher<GVRTexture> TEXTURE_WEIGHER = new Weigher<GVRTexture>() {
+        @Override
+        public long weigh(GVRTexture texture) {
+            return texture.getByteCount();
+        }
+    };
+
+    /** Weighs meshes by {@link GVRMesh#getByteCount()} */
+    public static final Weigher<GVRMesh> MESH_WEIGHER = new Weigher<GVRMesh>() {
+        @Override
+        public long weigh(GVRMesh mesh) {
+            return mesh.getByteCount();
+        }
+    };
+
+    private final Weigher<T> weigher;
+    private long budget;
+
+    /** Strongly held entries, in access order */
+    private final LinkedHashMap<GVRAndroidResource, Entry<T>> lru //
+    = new LinkedHashMap<GVRAndroidResource, Entry<T>>(16, 0.75f, true);
+    private long weight = 0;
+
+    /** Evicted entries, which stay in the cache until collected */
+    private final Map<GVRAndroidResource, WeakEntry<T>> evicted //
+    = new HashMap<GVRAndroidResource, WeakEntry<T>>();
+    private final ReferenceQueue<T> collected = new ReferenceQueue<T>();
+
+    private final Map<GVRAndroidResource, Integer> pins //
+    = new HashMap<GVRAndroidResource, Integer>();
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    private static class Entry<T> {
+        final T resource;
+        final long weight;
+
+        Entry(T resource, long weight) {
+            this.resource = resource;
+            this.weight = weight;
+        }
+    }
+
+    private static class WeakEntry<T> extends WeakReference<T> {
+        final GVRAndroidResource key;
+        final long weight;
+
+        WeakEntry(GVRAndroidResource key, T resource, long weight,
+                ReferenceQueue<T> queue) {
+            super(resource, queue);
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Create a cache with a budget of 0, which only holds weak references: a
+     * resource stays cached for as long as something else keeps it in memory.
+     */
+    public ResourceCache() {
+        this(null, 0);
+    }
 
-    private final Map<GVRAndroidResource, WeakReference<T>> cache //
-    = new HashMap<GVRAndroidResource, WeakReference<T>>();
+    /**
+     * Create a cache that holds on to recently used resources.
+     * 
+     * @param weigher
+     *            Computes the weight of each resource; {@code null} weighs
+     *            every resource as 1, which makes the budget a count.
+     * @param budget
+     *            Maximum total weight of the resources that are held
+     *            strongly, plus pinned resources.
+     */
+    public ResourceCache(Weigher<T> weigher, long budget) {
+        if (budget < 0) {
+            throw Exceptions.IllegalArgument("budget must be >= 0");
+        }
+        this.weigher = weigher;
+        this.budget = budget;
+    }
 
-    /** Save a weak reference to the resource */
+    /** Save a reference to the resource */
     public void put(GVRAndroidResource androidResource, T resource) {
-        // Log.d(TAG, "put(%s) saving %s", androidResource, resource);
+        long resourceWeight = weigh(resource);
 
-        cache.put(androidResource, new WeakReference<T>(resource));
+        synchronized (this) {
+            expungeCollected();
+            evicted.remove(androidResource);
+
+            Entry<T> previous = lru.put(androidResource, new Entry<T>(
+                    resource, resourceWeight));
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += resourceWeight;
+            trimToBudget();
+        }
     }
 
     /** Get the cached resource, or {@code null} */
     public T get(GVRAndroidResource androidResource) {
-        WeakReference<T> reference = cache.get(androidResource);
-        if (reference == null) {
-            // Not in map
-            // Log.d(TAG, "get(%s) returning %s", androidResource, null);
-            return null;
-        }
-        T cached = reference.get();
-        if (cached == null) {
-            // In map, but not in memory
-            cache.remove(androidResource);
-        } else {
+        T cached = lookup(androidResource);
+        if (cached != null) {
             // No one will ever read this stream
             androidResource.closeStream();
         }
-        // Log.d(TAG, "get(%s) returning %s", androidResource, cached);
         return cached;
     }
 
+    private synchronized T lookup(GVRAndroidResource androidResource) {
+        expungeCollected();
+
+        Entry<T> entry = lru.get(androidResource);
+        if (entry != null) {
+            hitCount += 1;
+            return entry.resource;
+        }
+
+        WeakEntry<T> reference = evicted.remove(androidResource);
+        T cached = reference == null ? null : reference.get();
+        if (cached == null) {
+            missCount += 1;
+            return null;
+        }
+
+        // Still in memory: make it a recent entry again
+        hitCount += 1;
+        lru.put(androidResource, new Entry<T>(cached, reference.weight));
+        weight += reference.weight;
+        trimToBudget();
+        return cached;
+    }
+
+    /**
+     * Keep a resource in the cache, however long it goes unused. Pins are
+     * counted: each call needs a matching {@link #unpin(GVRAndroidResource)}.
+     * 
+     * <p>
+     * Pinning a resource that is not cached yet pins it as soon as it is.
+     */
+    public synchronized void pin(GVRAndroidResource androidResource) {
+        Integer count = pins.get(androidResource);
+        pins.put(androidResource, count == null ? 1 : count + 1);
+
+        // An evicted resource has to be held strongly again
+        WeakEntry<T> reference = evicted.get(androidResource);
+        T cached = reference == null ? null : reference.get();
+        if (cached != null) {
+            evicted.remove(androidResource);
+            lru.put(androidResource, new Entry<T>(cached, reference.weight));
+            weight += reference.weight;
+            trimToBudget();
+        }
+    }
+
+    /** Undo one {@link #pin(GVRAndroidResource)} call. */
+    public synchronized void unpin(GVRAndroidResource androidResource) {
+        Integer count = pins.get(androidResource);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            pins.put(androidResource, count - 1);
+        } else {
+            pins.remove(androidResource);
+            trimToBudget();
+        }
+    }
+
+    /**
+     * Change the budget. Lowering it evicts least recently used resources
+     * immediately.
+     */
+    public synchronized void setBudget(long budget) {
+        if (budget < 0) {
+            throw Exceptions.IllegalArgument("budget must be >= 0");
+        }
+        this.budget = budget;
+        trimToBudget();
+    }
+
+    /**
+     * Evict every resource that is not pinned; for example, when the system
+     * is low on memory.
+     */
+    public synchronized void evictAll() {
+        trim(0);
+    }
+
+    /** The current budget. */
+    public synchronized long getBudget() {
+        return budget;
+    }
+
+    /** Total weight of the resources that are held strongly. */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /** Number of resources that are held strongly. */
+    public synchronized int size() {
+        return lru.size();
+    }
+
+    /** Number of {@link #get(GVRAndroidResource)} calls that found a resource. */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /** Number of {@link #get(GVRAndroidResource)} calls that did not. */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /** Number of resources evicted to stay within budget. */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+                "ResourceCache[%d resources, weight %d of %d, %d hits, %d misses, %d evictions]",
+                lru.size(), weight, budget, hitCount, missCount, evictionCount);
+    }
+
+    private long weigh(T resource) {
+        return weigher == null ? 1 : Math.max(0, weigher.weigh(resource));
+    }
+
+    private void trimToBudget() {
+        trim(budget);
+    }
+
+    private void trim(long size) {
+        if (weight <= size) {
+            return;
+        }
+        Iterator<Map.Entry<GVRAndroidResource, Entry<T>>> iterator = lru
+                .entrySet().iterator();
+        while (weight > size && iterator.hasNext()) {
+            Map.Entry<GVRAndroidResource, Entry<T>> oldest = iterator.next();
+            GVRAndroidResource key = oldest.getKey();
+            if (pins.containsKey(key)) {
+                continue;
+            }
+            Entry<T> entry = oldest.getValue();
+            iterator.remove();
+            weight -= entry.weight;
+            evictionCount += 1;
+
+            evicted.put(key, new WeakEntry<T>(key, entry.resource,
+                    entry.weight, collected));
+        }
+        if (weight > size) {
+            Log.w(TAG, "pinned resources weigh %d, over the budget of %d",
+                    weight, size);
+        }
+    }
+
+    private void expungeCollected() {
+        for (Object reference = collected.poll(); reference != null; reference = collected
+                .poll()) {
+            WeakEntry<?> entry = (WeakEntry<?>) reference;
+            if (evicted.get(entry.key) == entry) {
+                evicted.remove(entry.key);
+            }
+        }
+    }
+
     /**
      * Wrap the callback, to cache the
      * {@link Callback#loaded(GVRHybridObject, GVRAndroidResource) loaded()}
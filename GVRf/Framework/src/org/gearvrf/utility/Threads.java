@@ -85,37 +85,58 @@ public abstract class Threads {
      * @return A Future<?> that lets you wait for thread completion, if
      *         necessary
      */
-    private static Future<?> spawn(final int priority, final Runnable threadProc) {
-        return threadPool.submit(new Runnable() {
+    private static Future<?> spawn(int priority, int lane, Runnable threadProc) {
+        ExecutorService pool = threadPool;
+        PrioritySpawn task = new PrioritySpawn(priority, threadProc);
+        if (pool instanceof WorkStealingThreadPool) {
+            return ((WorkStealingThreadPool) pool).submit(task, lane);
+        }
+        return pool.submit(task);
+    }
 
-            @Override
-            public void run() {
-                Thread current = Thread.currentThread();
-                int defaultPriority = current.getPriority();
+    /**
+     * Runs a thread proc at a thread priority. Passes on the thread proc's
+     * {@link Cancelable#stillWanted()}, for pools that look at it.
+     */
+    private static class PrioritySpawn implements Cancelable {
+        private final int priority;
+        private final Runnable threadProc;
 
-                try {
-                    current.setPriority(priority);
+        PrioritySpawn(int priority, Runnable threadProc) {
+            this.priority = priority;
+            this.threadProc = threadProc;
+        }
 
-                    /*
-                     * We yield to give the foreground process a chance to run.
-                     * This also means that the new priority takes effect RIGHT
-                     * AWAY, not after the next blocking call or quantum
-                     * timeout.
-                     */
-                    Thread.yield();
+        @Override
+        public void run() {
+            Thread current = Thread.currentThread();
+            int defaultPriority = current.getPriority();
 
-                    try {
-                        threadProc.run();
-                    } catch (Exception e) {
-                        logException(TAG, e);
-                    }
-                } finally {
-                    current.setPriority(defaultPriority);
-                }
+            try {
+                current.setPriority(priority);
 
+                /*
+                 * We yield to give the foreground process a chance to run.
+                 * This also means that the new priority takes effect RIGHT
+                 * AWAY, not after the next blocking call or quantum timeout.
+                 */
+                Thread.yield();
+
+                try {
+                    threadProc.run();
+                } catch (Exception e) {
+                    logException(TAG, e);
+                }
+            } finally {
+                current.setPriority(defaultPriority);
             }
+        }
 
-        });
+        @Override
+        public boolean stillWanted() {
+            return threadProc instanceof Cancelable == false
+                    || ((Cancelable) threadProc).stillWanted();
+        }
     }
 
     /**
@@ -138,7 +159,8 @@ public abstract class Threads {
      *         necessary
      */
     public static Future<?> spawn(final Runnable threadProc) {
-        return spawn(BACKGROUND_THREAD_PRIORITY, threadProc);
+        return spawn(BACKGROUND_THREAD_PRIORITY,
+                WorkStealingThreadPool.LANE_NORMAL, threadProc);
     }
 
     /**
@@ -161,7 +183,8 @@ public abstract class Threads {
      *         necessary
      */
     public static Future<?> spawnLow(final Runnable threadProc) {
-        return spawn(LOW_BACKGROUND_THREAD_PRIORITY, threadProc);
+        return spawn(LOW_BACKGROUND_THREAD_PRIORITY,
+                WorkStealingThreadPool.LANE_LOW, threadProc);
     }
 
     /**
@@ -184,7 +207,8 @@ public abstract class Threads {
      *         necessary
      */
     public static Future<?> spawnIdle(final Runnable threadProc) {
-        return spawn(IDLE_THREAD_PRIORITY, threadProc);
+        return spawn(IDLE_THREAD_PRIORITY,
+                WorkStealingThreadPool.LANE_IDLE, threadProc);
     }
 
     /**
@@ -212,7 +236,8 @@ public abstract class Threads {
      *         necessary
      */
     public static Future<?> spawnHigh(final Runnable threadProc) {
-        return spawn(HIGH_BACKGROUND_THREAD_PRIORITY, threadProc);
+        return spawn(HIGH_BACKGROUND_THREAD_PRIORITY,
+                WorkStealingThreadPool.LANE_HIGH, threadProc);
     }
 
     /**
@@ -236,9 +261,15 @@ public abstract class Threads {
 
     /**
      * By default, the spawn() methods use their own
-     * {@link Executors#newCachedThreadPool()}. This method allows you to use a
-     * different thread pool, if the cached thread pool provides the wrong
-     * semantics or if you want to use a single thread pool for the whole app.
+     * {@link GrowBeforeQueueThreadPoolExecutor}. This method allows you to use
+     * a different thread pool, if that pool provides the wrong semantics or if
+     * you want to use a single thread pool for the whole app.
+     *
+     * <p>
+     * Passing a {@link WorkStealingThreadPool} avoids the default pool's
+     * global lock under heavy loading; the spawn() methods then also use its
+     * priority lanes, so that (for example) a spawnHigh() task does not wait
+     * behind queued spawnIdle() tasks.
      *
      * <p>
      * Note that calling this method will have <em>no effect</em> on any threads
@@ -0,0 +1,549 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A work-stealing thread pool, for {@link Threads#setThreadPool}.
+ *
+ * <p>
+ * {@link GrowBeforeQueueThreadPoolExecutor} takes a pool-wide lock on every
+ * {@code execute()} and every task completion, to adjust its core size, and
+ * all its workers take tasks from one shared queue. Here, tasks submitted
+ * from a pool thread go onto that thread's own deque: the owner takes its
+ * newest task first, and idle workers steal the oldest, so workers rarely
+ * touch the same lock. Tasks from other threads go onto lock-free queues.
+ *
+ * <p>
+ * Tasks are kept in {@linkplain #LANE_COUNT lanes}, one per spawn priority
+ * ({@link Threads#spawnHigh(Runnable)}, {@link Threads#spawn(Runnable)},
+ * {@link Threads#spawnLow(Runnable)} and {@link Threads#spawnIdle(Runnable)}
+ * ), and a worker always takes a task from the most urgent lane that has
+ * one. {@link Threads.Cancelable} tasks that are no longer
+ * {@linkplain Threads.Cancelable#stillWanted() wanted} when a worker gets to
+ * them are dropped.
+ *
+ * <p>
+ * Like {@link GrowBeforeQueueThreadPoolExecutor}, the pool starts a new
+ * thread rather than queue a task while all its threads are busy, up to twice
+ * the number of cores, because most background tasks spend their time in
+ * I/O; threads beyond the core count retire after a minute without work.
+ * API level 19 does not have {@link java.util.concurrent.ForkJoinPool}, which
+ * is why this is not one.
+ */
+public class WorkStealingThreadPool extends AbstractExecutorService {
+    private static final String TAG = Log.tag(WorkStealingThreadPool.class);
+
+    private static final int NUM_CPUS = Runtime.getRuntime()
+            .availableProcessors();
+
+    /** Lane of {@link Threads#spawnHigh(Runnable)} tasks */
+    public static final int LANE_HIGH = 0;
+    /**
+     * Lane of {@link Threads#spawn(Runnable)} tasks, and of tasks passed to
+     * {@link #execute(Runnable)}
+     */
+    public static final int LANE_NORMAL = 1;
+    /** Lane of {@link Threads#spawnLow(Runnable)} tasks */
+    public static final int LANE_LOW = 2;
+    /** Lane of {@link Threads#spawnIdle(Runnable)} tasks */
+    public static final int LANE_IDLE = 3;
+    /** Number of lanes */
+    public static final int LANE_COUNT = 4;
+
+    private static final long KEEP_ALIVE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final String prefix;
+    private final int coreThreads;
+    private final int maxThreads;
+
+    /** Tasks from threads that are not workers of this pool */
+    private final ConcurrentLinkedQueue<Runnable>[] submissions;
+
+    /** Workers that are waiting for a task */
+    private final ConcurrentLinkedQueue<Worker> idleWorkers = new ConcurrentLinkedQueue<Worker>();
+
+    /** Every live worker; replaced, never changed, under {@link #lock} */
+    private volatile Worker[] workers = new Worker[0];
+    private final Object lock = new Object();
+
+    /** Live workers, including those that have been counted but not started */
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+    private final AtomicLong completedTaskCount = new AtomicLong();
+
+    private volatile boolean shutdown = false;
+
+    /**
+     * A pool with the same thread bounds as
+     * {@link GrowBeforeQueueThreadPoolExecutor#GrowBeforeQueueThreadPoolExecutor(String)}
+     * .
+     *
+     * @param prefix
+     *            Thread names are {@code prefix-1}, {@code prefix-2}, ...
+     */
+    public WorkStealingThreadPool(String prefix) {
+        this(prefix, Math.min(2, NUM_CPUS), Math.max(Math.min(2, NUM_CPUS),
+                2 * NUM_CPUS));
+    }
+
+    /**
+     * @param prefix
+     *            Thread names are {@code prefix-1}, {@code prefix-2}, ...
+     * @param coreThreads
+     *            Threads that stay alive while idle, once started
+     * @param maxThreads
+     *            Most threads the pool will run at once
+     */
+    @SuppressWarnings("unchecked")
+    public WorkStealingThreadPool(String prefix, int coreThreads,
+            int maxThreads) {
+        if (coreThreads < 0 || maxThreads < 1 || coreThreads > maxThreads) {
+            throw Exceptions.IllegalArgument(
+                    "Need 0 <= coreThreads (%d) <= maxThreads (%d), and maxThreads >= 1",
+                    coreThreads, maxThreads);
+        }
+        this.prefix = prefix;
+        this.coreThreads = coreThreads;
+        this.maxThreads = maxThreads;
+
+        submissions = (ConcurrentLinkedQueue<Runnable>[]) //
+                new ConcurrentLinkedQueue<?>[LANE_COUNT];
+        for (int lane = 0; lane < LANE_COUNT; ++lane) {
+            submissions[lane] = new ConcurrentLinkedQueue<Runnable>();
+        }
+    }
+
+    /** Run {@code command} in the {@link #LANE_NORMAL normal} lane. */
+    @Override
+    public void execute(Runnable command) {
+        execute(command, LANE_NORMAL);
+    }
+
+    /**
+     * Run {@code command} in a lane.
+     *
+     * @param lane
+     *            One of {@link #LANE_HIGH}, {@link #LANE_NORMAL},
+     *            {@link #LANE_LOW} or {@link #LANE_IDLE}
+     */
+    public void execute(Runnable command, int lane) {
+        if (command == null) {
+            throw new NullPointerException("command == null");
+        }
+        if (lane < 0 || lane >= LANE_COUNT) {
+            throw Exceptions.IllegalArgument("Invalid lane %d", lane);
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException(this + " has been shut down");
+        }
+
+        Worker current = currentWorker();
+        if (current != null) {
+            current.deques[lane].push(command);
+        } else {
+            submissions[lane].offer(command);
+        }
+        signalWork();
+    }
+
+    /**
+     * Like {@link #submit(Runnable)}, but in a lane.
+     *
+     * @see #execute(Runnable, int)
+     */
+    public Future<?> submit(Runnable task, int lane) {
+        FutureTask<Void> future = task instanceof Threads.Cancelable ? new CancelableFutureTask(
+                (Threads.Cancelable) task) : new FutureTask<Void>(task, null);
+        execute(future, lane);
+        return future;
+    }
+
+    /** Keeps a {@link Threads.Cancelable} cancelable once it is wrapped */
+    private static final class CancelableFutureTask extends FutureTask<Void>
+            implements Threads.Cancelable {
+        private final Threads.Cancelable task;
+
+        CancelableFutureTask(Threads.Cancelable task) {
+            super(task, null);
+            this.task = task;
+        }
+
+        @Override
+        public boolean stillWanted() {
+            return task.stillWanted();
+        }
+    }
+
+    /** Number of threads, busy or idle. */
+    public int getPoolSize() {
+        return threadCount.get();
+    }
+
+    /** Number of tasks that have run to completion. */
+    public long getCompletedTaskCount() {
+        return completedTaskCount.get();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<Runnable>();
+        for (ConcurrentLinkedQueue<Runnable> queue : submissions) {
+            for (Runnable task = queue.poll(); task != null; task = queue
+                    .poll()) {
+                pending.add(task);
+            }
+        }
+        for (Worker worker : workers) {
+            for (TaskDeque deque : worker.deques) {
+                for (Runnable task = deque.steal(); task != null; task = deque
+                        .steal()) {
+                    pending.add(task);
+                }
+            }
+            worker.interrupt();
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && threadCount.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (isTerminated() == false) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{%s, threads=%d, idle=%d}",
+                getClass().getSimpleName(), prefix, threadCount.get(),
+                idleWorkers.size());
+    }
+
+    /*
+     * Scheduling
+     */
+
+    /**
+     * Make sure some thread will see a task that was just added: wake an idle
+     * worker, or else start a new one while there is room.
+     */
+    private void signalWork() {
+        for (Worker idle = idleWorkers.poll(); idle != null; idle = idleWorkers
+                .poll()) {
+            if (idle.wake()) {
+                return;
+            }
+        }
+
+        for (int count = threadCount.get(); count < maxThreads; count = threadCount
+                .get()) {
+            if (threadCount.compareAndSet(count, count + 1)) {
+                startWorker();
+                return;
+            }
+        }
+        // All threads are busy: the task waits for the first one to finish
+    }
+
+    private void startWorker() {
+        Worker worker = new Worker(prefix + "-"
+                + threadNumber.getAndIncrement());
+        synchronized (lock) {
+            Worker[] grown = new Worker[workers.length + 1];
+            System.arraycopy(workers, 0, grown, 0, workers.length);
+            grown[workers.length] = worker;
+            workers = grown;
+        }
+        worker.start();
+    }
+
+    private void workerExited(Worker worker) {
+        synchronized (lock) {
+            Worker[] shrunk = new Worker[workers.length - 1];
+            for (int from = 0, to = 0; from < workers.length; ++from) {
+                if (workers[from] != worker) {
+                    shrunk[to++] = workers[from];
+                }
+            }
+            workers = shrunk;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Take a task from the most urgent lane that has one: first from this
+     * worker's own deque, then from the submission queue, then from another
+     * worker.
+     */
+    private Runnable findTask(Worker self) {
+        Worker[] snapshot = workers;
+        for (int lane = 0; lane < LANE_COUNT; ++lane) {
+            Runnable task = self.deques[lane].pop();
+            if (task != null) {
+                return task;
+            }
+            task = submissions[lane].poll();
+            if (task != null) {
+                return task;
+            }
+
+            // Start with a different victim each time, to spread the steals
+            int count = snapshot.length;
+            int start = count == 0 ? 0 : (self.nextVictim++ & 0x7FFFFFFF)
+                    % count;
+            for (int offset = 0; offset < count; ++offset) {
+                Worker victim = snapshot[(start + offset) % count];
+                if (victim != self) {
+                    task = victim.deques[lane].steal();
+                    if (task != null) {
+                        return task;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private Worker currentWorker() {
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker && ((Worker) current).pool() == this) {
+            return (Worker) current;
+        }
+        return null;
+    }
+
+    /**
+     * One lane of a worker's tasks. The owner pushes and pops at the tail;
+     * thieves take from the head. A lock per deque is cheap, because the
+     * owner almost never has to share it.
+     */
+    private static final class TaskDeque {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+        /** Lets thieves skip empty deques without locking them */
+        private volatile int size = 0;
+
+        synchronized void push(Runnable task) {
+            tasks.addLast(task);
+            size = tasks.size();
+        }
+
+        Runnable pop() {
+            if (size == 0) {
+                return null;
+            }
+            synchronized (this) {
+                Runnable task = tasks.pollLast();
+                size = tasks.size();
+                return task;
+            }
+        }
+
+        Runnable steal() {
+            if (size == 0) {
+                return null;
+            }
+            synchronized (this) {
+                Runnable task = tasks.pollFirst();
+                size = tasks.size();
+                return task;
+            }
+        }
+    }
+
+    private final class Worker extends Thread {
+        private static final int RUNNING = 0;
+        private static final int IDLE = 1;
+
+        final TaskDeque[] deques = new TaskDeque[LANE_COUNT];
+        int nextVictim;
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+        /** Already taken off {@link #threadCount} */
+        private boolean retired = false;
+
+        Worker(String name) {
+            super(name);
+            for (int lane = 0; lane < LANE_COUNT; ++lane) {
+                deques[lane] = new TaskDeque();
+            }
+            nextVictim = name.hashCode();
+        }
+
+        WorkStealingThreadPool pool() {
+            return WorkStealingThreadPool.this;
+        }
+
+        /** @return {@code true} if this worker was idle, and will now look for work */
+        boolean wake() {
+            if (state.compareAndSet(IDLE, RUNNING)) {
+                LockSupport.unpark(this);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Runnable task = findTask(this);
+                    if (task != null) {
+                        runTask(task);
+                    } else if (waitForWork() == false) {
+                        return;
+                    }
+                }
+            } finally {
+                if (retired == false) {
+                    threadCount.decrementAndGet();
+                }
+                workerExited(this);
+            }
+        }
+
+        private void runTask(Runnable task) {
+            if (task instanceof Threads.Cancelable
+                    && ((Threads.Cancelable) task).stillWanted() == false) {
+                if (task instanceof Future) {
+                    // Don't leave anyone waiting on a task that will never run
+                    ((Future<?>) task).cancel(false);
+                }
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                Log.e(TAG, "%s in thread %s", t, getName());
+                t.printStackTrace();
+            }
+            completedTaskCount.incrementAndGet();
+            // Clear any interrupt a task left behind
+            Thread.interrupted();
+        }
+
+        /**
+         * Park until a task arrives.
+         *
+         * @return {@code false} if this worker should exit
+         */
+        private boolean waitForWork() {
+            while (true) {
+                state.set(IDLE);
+                idleWorkers.offer(this);
+
+                // A task may have arrived after findTask() and before we
+                // became visible as idle: look once more before parking
+                if (shutdown || hasTask()) {
+                    if (state.compareAndSet(IDLE, RUNNING)) {
+                        idleWorkers.remove(this);
+                    }
+                    return shutdown == false || hasTask();
+                }
+
+                long deadline = System.nanoTime() + KEEP_ALIVE_NANOS;
+                for (long remaining = KEEP_ALIVE_NANOS; remaining > 0
+                        && state.get() == IDLE && shutdown == false; remaining = deadline
+                        - System.nanoTime()) {
+                    LockSupport.parkNanos(WorkStealingThreadPool.this,
+                            remaining);
+                    // Interrupts are only used by shutdownNow()
+                    Thread.interrupted();
+                }
+
+                if (state.compareAndSet(IDLE, RUNNING) == false) {
+                    // signalWork() woke us up
+                    return true;
+                }
+                idleWorkers.remove(this);
+                if (shutdown) {
+                    return hasTask();
+                }
+                if (retire()) {
+                    return false;
+                }
+                // A core thread: go back to waiting
+            }
+        }
+
+        /** Exit after the keep-alive time, if there are more than core threads */
+        private boolean retire() {
+            for (int count = threadCount.get(); count > coreThreads; count = threadCount
+                    .get()) {
+                if (threadCount.compareAndSet(count, count - 1)) {
+                    retired = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean hasTask() {
+            for (int lane = 0; lane < LANE_COUNT; ++lane) {
+                if (submissions[lane].isEmpty() == false) {
+                    return true;
+                }
+            }
+            for (Worker worker : workers) {
+                for (TaskDeque deque : worker.deques) {
+                    if (deque.size > 0) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}